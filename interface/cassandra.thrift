@@ -52,6 +52,11 @@ struct ColumnOrSuperColumn {
     2: optional SuperColumn super_column,
 }
 
+struct KeySlice {
+    1: required string key,
+    2: required list<ColumnOrSuperColumn> columns,
+}
+
 
 #
 # Exceptions
@@ -129,6 +134,12 @@ service Cassandra {
   list<string> get_key_range(1:string keyspace, 2:string column_family, 3:string start="", 4:string finish="", 5:i32 count=100, 6:ConsistencyLevel consistency_level=1)
   throws (1: InvalidRequestException ire),
 
+  # range query: returns the columns matching predicate of each row with a key from start_key to finish_key,
+  # omitting rows with no matching columns.  page through a range by passing the last key returned as the next start_key.
+  # the range is read at ConsistencyLevel.ONE; ZERO and ALL are rejected.
+  list<KeySlice> get_range_slice(1:string keyspace, 2:ColumnParent column_parent, 3:SlicePredicate predicate, 4:string start_key="", 5:string finish_key="", 6:i32 row_count=100, 7:ConsistencyLevel consistency_level=1)
+  throws (1: InvalidRequestException ire),
+
   # modification methods
   void insert(1:string keyspace, 2:string key, 3:ColumnPath column_path, 4:binary value, 5:i64 timestamp, 6:ConsistencyLevel consistency_level=0)
   throws (1: InvalidRequestException ire, 2: UnavailableException ue),
@@ -22,6 +22,7 @@ import org.apache.cassandra.db.marshal.AbstractType;
 
 public class CFMetaData
 {
+    public int cfId;                    // unique across all tables; see DatabaseDescriptor.getCFMetaData(int)
     public String tableName;            // name of table which has this column family
     public String cfName;               // name of the column family
     public String columnType;           // type: super, standard, etc.
@@ -37,6 +38,9 @@ public class CFMetaData
     public String n_columnValue;
     public String n_columnTimestamp;
     public int    flushPeriodInMinutes = 0; // flush interval, if <=0, no periodic flusher is scheduled
+    public int    keysCached = 0;           // number of key positions cached per SSTable; 0 disables the key cache
+    public int    rowsCached = 0;           // number of whole rows cached; 0 disables the row cache
+    public int    columnIndexesCachedInKB = 0; // memory for parsed column indexes per SSTable; 0 disables the cache
 
     // a quick and dirty pretty printer for describing the column family...
     public String pretty()
@@ -52,6 +56,7 @@ public class CFMetaData
         desc += "Column Family Type: " + columnType + "\n" +
                 "Columns Sorted By: " + comparator + "\n";
         desc += "flush period: " + flushPeriodInMinutes + " minutes\n";
+        desc += "keys cached: " + keysCached + ", rows cached: " + rowsCached + ", column indexes cached: " + columnIndexesCachedInKB + " KB\n";
         return desc;
     }
 }
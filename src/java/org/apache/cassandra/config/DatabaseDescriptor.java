@@ -34,7 +34,6 @@ import org.w3c.dom.NodeList;
 import javax.xml.transform.TransformerException;
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
 import java.util.*;
 
 public class DatabaseDescriptor
@@ -47,12 +46,29 @@ public class DatabaseDescriptor
         batch
     };
 
+    public static enum IndexAccessMode {
+        standard,
+        mmap
+    };
+
+    public static enum ThriftServerEngine {
+        threadpool,
+        nonblocking
+    };
+
     public static final String random_ = "RANDOM";
     public static final String ophf_ = "OPHF";
     private static int storagePort_ = 7000;
     private static int controlPort_ = 7001;
     private static int thriftPort_ = 9160;
     private static boolean thriftFramed_ = false;
+    private static ThriftServerEngine thriftServerEngine_ = ThriftServerEngine.threadpool;
+    /* threads serving thrift requests; a minimum for the threadpool engine, a fixed size for nonblocking */
+    private static int thriftWorkerThreads_ = 64;
+
+    public static enum InterNodeCompression { none, all, dc }
+    private static InterNodeCompression interNodeCompression_ = InterNodeCompression.none;
+    private static int interNodeCompressionThreshold_ = 1024;
     private static String listenAddress_; // leave null so we can fall through to getLocalHost
     private static String thriftAddress_;
     private static String clusterName_ = "Test";
@@ -72,9 +88,15 @@ public class DatabaseDescriptor
     private static double flushDataBufferSizeInMB_ = 32;
     private static double flushIndexBufferSizeInMB_ = 8;
     private static int slicedReadBufferSizeInKB_ = 64;
+    /* data files kept open between reads, over all sstables */
+    private static int maxIdleDataFiles_ = 256;
     private static List<String> tables_ = new ArrayList<String>();
     private static Set<String> applicationColumnFamilies_ = new HashSet<String>();
     private static int flushMinThreads_ = 1;
+    /* number of threads running compactions, of different column families */
+    private static int compactionThreads_ = Runtime.getRuntime().availableProcessors();
+    /* MB/s written by all compactions together; 0 means unthrottled */
+    private static volatile int compactionThroughputMBPerSec_ = 0;
     private static int flushMaxThreads_ = 1;
     private static int bmtThreshold_ = 256;
 
@@ -94,6 +116,8 @@ public class DatabaseDescriptor
      * corresponding meta data for that column family.
     */
     private static Map<String, Map<String, CFMetaData>> tableToCFMetaDataMap_;
+    /* the same meta data, indexed by column family id */
+    private static List<CFMetaData> cfMetaDataById_ = new ArrayList<CFMetaData>();
     /* Hashing strategy Random or OPHF */
     private static IPartitioner partitioner_;
 
@@ -131,6 +155,9 @@ public class DatabaseDescriptor
     private static double commitLogSyncBatchMS_;
     private static int commitLogSyncPeriodMS_;
 
+    /* how SSTable primary indexes are read; may be changed at runtime over JMX */
+    private static volatile IndexAccessMode indexAccessMode_ = IndexAccessMode.standard;
+
     static
     {
         try
@@ -273,6 +300,14 @@ public class DatabaseDescriptor
                 slicedReadBufferSizeInKB_ = Integer.parseInt(rawSlicedBuffer);
             }
 
+            String rawMaxIdleDataFiles = xmlUtils.getNodeValue("/Storage/MaxIdleDataFiles");
+            if (rawMaxIdleDataFiles != null)
+            {
+                maxIdleDataFiles_ = Integer.parseInt(rawMaxIdleDataFiles);
+                if (maxIdleDataFiles_ < 0)
+                    throw new ConfigurationException("MaxIdleDataFiles must not be negative");
+            }
+
             String rawflushMinThreads = xmlUtils.getNodeValue("/Storage/FlushMinThreads");
             if (rawflushMinThreads != null)
             {
@@ -285,6 +320,20 @@ public class DatabaseDescriptor
                 flushMaxThreads_ = Integer.parseInt(rawflushMaxThreads);
             }
 
+            String rawCompactionThreads = xmlUtils.getNodeValue("/Storage/CompactionThreads");
+            if (rawCompactionThreads != null)
+            {
+                compactionThreads_ = Integer.parseInt(rawCompactionThreads);
+                if (compactionThreads_ < 1)
+                    throw new ConfigurationException("CompactionThreads must be at least 1");
+            }
+
+            String rawCompactionThroughput = xmlUtils.getNodeValue("/Storage/CompactionThroughputMBPerSec");
+            if (rawCompactionThroughput != null)
+            {
+                compactionThroughputMBPerSec_ = Integer.parseInt(rawCompactionThroughput);
+            }
+
             String bmtThreshold = xmlUtils.getNodeValue("/Storage/BinaryMemtableSizeInMB");
             if (bmtThreshold != null)
             {
@@ -331,6 +380,68 @@ public class DatabaseDescriptor
                             "for ThriftFramedTransport.  Use 'true' or 'false'."); 
                 }
             }
+
+            /* Thrift server engine (default to "threadpool") */
+            String engineRaw = xmlUtils.getNodeValue("/Storage/ThriftServerEngine");
+            if (engineRaw != null)
+            {
+                try
+                {
+                    thriftServerEngine_ = ThriftServerEngine.valueOf(engineRaw);
+                }
+                catch (IllegalArgumentException e)
+                {
+                    throw new ConfigurationException("ThriftServerEngine must be either 'threadpool' or 'nonblocking'");
+                }
+            }
+            if (thriftServerEngine_ == ThriftServerEngine.nonblocking && !thriftFramed_)
+            {
+                throw new ConfigurationException("The nonblocking ThriftServerEngine requires ThriftFramedTransport");
+            }
+
+            String rawWorkerThreads = xmlUtils.getNodeValue("/Storage/ThriftWorkerThreads");
+            if (rawWorkerThreads != null)
+            {
+                thriftWorkerThreads_ = Integer.parseInt(rawWorkerThreads);
+                if (thriftWorkerThreads_ < 1)
+                    throw new ConfigurationException("ThriftWorkerThreads must be at least 1");
+            }
+
+            /* inter-node message compression (default to "none") */
+            String compressionRaw = xmlUtils.getNodeValue("/Storage/InterNodeCompression");
+            if (compressionRaw != null)
+            {
+                try
+                {
+                    interNodeCompression_ = InterNodeCompression.valueOf(compressionRaw);
+                }
+                catch (IllegalArgumentException e)
+                {
+                    throw new ConfigurationException("InterNodeCompression must be one of 'none', 'all' or 'dc'");
+                }
+            }
+
+            String rawCompressionThreshold = xmlUtils.getNodeValue("/Storage/InterNodeCompressionThresholdInBytes");
+            if (rawCompressionThreshold != null)
+            {
+                interNodeCompressionThreshold_ = Integer.parseInt(rawCompressionThreshold);
+                if (interNodeCompressionThreshold_ < 0)
+                    throw new ConfigurationException("InterNodeCompressionThresholdInBytes must be non-negative");
+            }
+
+            /* SSTable index access mode (default to "standard") */
+            String indexAccessRaw = xmlUtils.getNodeValue("/Storage/IndexAccessMode");
+            if (indexAccessRaw != null)
+            {
+                try
+                {
+                    indexAccessMode_ = IndexAccessMode.valueOf(indexAccessRaw);
+                }
+                catch (IllegalArgumentException e)
+                {
+                    throw new ConfigurationException("IndexAccessMode must be either 'standard' or 'mmap'");
+                }
+            }
             
 
             /* Number of days to keep the memtable around w/o flushing */
@@ -491,6 +602,11 @@ public class DatabaseDescriptor
                     if ( flushPeriodInMinutes != null )
                         flushPeriod = Integer.parseInt(flushPeriodInMinutes);
 
+                    // see if the key and row caches are enabled
+                    int keysCached = getCacheCapacity(columnFamily, "KeysCached");
+                    int rowsCached = getCacheCapacity(columnFamily, "RowsCached");
+                    int columnIndexesCachedInKB = getCacheCapacity(columnFamily, "ColumnIndexesCachedInKB");
+
                     
                     // Parse out user-specified logical names for the various dimensions
                     // of a the column family from the config.
@@ -540,6 +656,9 @@ public class DatabaseDescriptor
                         cfMetaData.n_superColumnMap = n_superColumnMap;
                     }
                     cfMetaData.flushPeriodInMinutes = flushPeriod;
+                    cfMetaData.keysCached = keysCached;
+                    cfMetaData.rowsCached = rowsCached;
+                    cfMetaData.columnIndexesCachedInKB = columnIndexesCachedInKB;
                     
                     tableToCFMetaDataMap_.get(tName).put(cfName, cfMetaData);
                 }
@@ -550,17 +669,36 @@ public class DatabaseDescriptor
             Map<String, CFMetaData> systemMetadata = new HashMap<String, CFMetaData>();
 
             CFMetaData data = new CFMetaData();
+            data.tableName = Table.SYSTEM_TABLE;
+            data.cfName = SystemTable.LOCATION_CF;
             data.columnType = "Standard";
-            data.comparator = new UTF8Type();
+            data.comparator = AbstractType.getInstance(UTF8Type.class.getName());
             systemMetadata.put(SystemTable.LOCATION_CF, data);
 
             data = new CFMetaData();
+            data.tableName = Table.SYSTEM_TABLE;
+            data.cfName = HintedHandOffManager.HINTS_CF;
             data.columnType = "Super";
-            data.comparator = new UTF8Type();
-            data.subcolumnComparator = new BytesType();
+            data.comparator = AbstractType.getInstance(UTF8Type.class.getName());
+            data.subcolumnComparator = AbstractType.getInstance(BytesType.class.getName());
             systemMetadata.put(HintedHandOffManager.HINTS_CF, data);
             tableToCFMetaDataMap_.put(Table.SYSTEM_TABLE, systemMetadata);
 
+            /*
+             * number the column families in name order, so that every node with this configuration
+             * agrees on the ids that serialized column families carry in place of their names
+             */
+            for (String table : new TreeSet<String>(tableToCFMetaDataMap_.keySet()))
+            {
+                Map<String, CFMetaData> columnFamilies = tableToCFMetaDataMap_.get(table);
+                for (String columnFamily : new TreeSet<String>(columnFamilies.keySet()))
+                {
+                    CFMetaData metadata = columnFamilies.get(columnFamily);
+                    metadata.cfId = cfMetaDataById_.size();
+                    cfMetaDataById_.add(metadata);
+                }
+            }
+
             /* make sure we have a directory for each table */
             createTableDirectories();
 
@@ -588,28 +726,69 @@ public class DatabaseDescriptor
         return thriftFramed_;
     }
 
-    private static AbstractType getComparator(Node columnFamily, String attr)
-    throws ConfigurationException, TransformerException, NoSuchMethodException, InvocationTargetException, IllegalAccessException, InstantiationException
+    public static ThriftServerEngine getThriftServerEngine()
+    {
+        return thriftServerEngine_;
+    }
+
+    public static int getThriftWorkerThreads()
+    {
+        return thriftWorkerThreads_;
+    }
+
+    public static InterNodeCompression getInterNodeCompression()
+    {
+        return interNodeCompression_;
+    }
+
+    public static void setInterNodeCompression(InterNodeCompression compression)
+    {
+        interNodeCompression_ = compression;
+    }
+
+    public static int getInterNodeCompressionThreshold()
+    {
+        return interNodeCompressionThreshold_;
+    }
+
+    private static int getCacheCapacity(Node columnFamily, String attr) throws ConfigurationException, TransformerException
+    {
+        String raw = XMLUtils.getAttributeValue(columnFamily, attr);
+        if (raw == null)
+            return 0;
+        try
+        {
+            int capacity = Integer.parseInt(raw);
+            if (capacity >= 0)
+                return capacity;
+        }
+        catch (NumberFormatException e)
+        {
+            // fall through
+        }
+        throw new ConfigurationException(attr + " must be a non-negative integer, not " + raw);
+    }
+
+    private static AbstractType getComparator(Node columnFamily, String attr) throws ConfigurationException, TransformerException
     {
-        Class<? extends AbstractType> typeClass;
         String compareWith = XMLUtils.getAttributeValue(columnFamily, attr);
+        String className;
         if (compareWith == null)
         {
-            typeClass = BytesType.class;
+            className = BytesType.class.getName();
         }
         else
         {
-            String className = compareWith.contains(".") ? compareWith : "org.apache.cassandra.db.marshal." + compareWith;
-            try
-            {
-                typeClass = (Class<? extends AbstractType>)Class.forName(className);
-            }
-            catch (ClassNotFoundException e)
-            {
-                throw new ConfigurationException("Unable to load class " + className + " for " + attr + " attribute");
-            }
+            className = compareWith.contains(".") ? compareWith : "org.apache.cassandra.db.marshal." + compareWith;
+        }
+        try
+        {
+            return AbstractType.getInstance(className);
+        }
+        catch (ClassNotFoundException e)
+        {
+            throw new ConfigurationException("Unable to load class " + className + " for " + attr + " attribute");
         }
-        return typeClass.getConstructor().newInstance();
     }
 
     /**
@@ -635,7 +814,6 @@ public class DatabaseDescriptor
     // TODO duplicating data b/t tablemetadata and CFMetaData is confusing and error-prone
     public static void storeMetadata() throws IOException
     {
-        int cfId = 0;
         Set<String> tables = tableToCFMetaDataMap_.keySet();
 
         for (String table : tables)
@@ -649,7 +827,7 @@ public class DatabaseDescriptor
 
                 for (String columnFamily : columnFamilies.keySet())
                 {
-                    tmetadata.add(columnFamily, cfId++, DatabaseDescriptor.getColumnType(table, columnFamily));
+                    tmetadata.add(columnFamily, columnFamilies.get(columnFamily).cfId, DatabaseDescriptor.getColumnType(table, columnFamily));
                 }
             }
         }
@@ -749,6 +927,14 @@ public class DatabaseDescriptor
         
         return cfInfo.get(cfName);
     }
+
+    /**
+     * @return the meta data of the column family with the given id, or null if there is none
+     */
+    public static CFMetaData getCFMetaData(int cfId)
+    {
+        return cfId >= 0 && cfId < cfMetaDataById_.size() ? cfMetaDataById_.get(cfId) : null;
+    }
     
     public static String getColumnType(String tableName, String cfName)
     {
@@ -770,6 +956,24 @@ public class DatabaseDescriptor
         return cfMetaData.flushPeriodInMinutes;
     }
 
+    public static int getKeysCached(String tableName, String columnFamilyName)
+    {
+        CFMetaData cfMetaData = getCFMetaData(tableName, columnFamilyName);
+        return cfMetaData == null ? 0 : cfMetaData.keysCached;
+    }
+
+    public static int getRowsCached(String tableName, String columnFamilyName)
+    {
+        CFMetaData cfMetaData = getCFMetaData(tableName, columnFamilyName);
+        return cfMetaData == null ? 0 : cfMetaData.rowsCached;
+    }
+
+    public static int getColumnIndexesCachedInKB(String tableName, String columnFamilyName)
+    {
+        CFMetaData cfMetaData = getCFMetaData(tableName, columnFamilyName);
+        return cfMetaData == null ? 0 : cfMetaData.columnIndexesCachedInKB;
+    }
+
     public static List<String> getTables()
     {
         return tables_;
@@ -982,6 +1186,16 @@ public class DatabaseDescriptor
         return commitLogSync_;
     }
 
+    public static IndexAccessMode getIndexAccessMode()
+    {
+        return indexAccessMode_;
+    }
+
+    public static void setIndexAccessMode(IndexAccessMode mode)
+    {
+        indexAccessMode_ = mode;
+    }
+
     public static double getFlushDataBufferSizeInMB()
     {
         return flushDataBufferSizeInMB_;
@@ -1002,6 +1216,11 @@ public class DatabaseDescriptor
         return slicedReadBufferSizeInKB_;
     }
 
+    public static int getMaxIdleDataFiles()
+    {
+        return maxIdleDataFiles_;
+    }
+
     public static int getFlushMinThreads()
     {
         return flushMinThreads_;
@@ -1012,6 +1231,21 @@ public class DatabaseDescriptor
         return flushMaxThreads_;
     }
 
+    public static int getCompactionThreads()
+    {
+        return compactionThreads_;
+    }
+
+    public static int getCompactionThroughputMBPerSec()
+    {
+        return compactionThroughputMBPerSec_;
+    }
+
+    public static void setCompactionThroughputMBPerSec(int throughput)
+    {
+        compactionThroughputMBPerSec_ = throughput;
+    }
+
     public static int getBMTThreshold()
     {
         return bmtThreshold_;
@@ -47,7 +47,8 @@ public class BinaryMemtable
     private String table_;
     private String cfName_;
     private boolean isFrozen_ = false;
-    private Map<String, byte[]> columnFamilies_ = new NonBlockingHashMap<String, byte[]>();
+    private final IPartitioner partitioner_ = StorageService.getPartitioner();
+    private Map<DecoratedKey, byte[]> columnFamilies_ = new NonBlockingHashMap<DecoratedKey, byte[]>();
     /* Lock and Condition for notifying new clients about Memtable switches */
     Lock lock_ = new ReentrantLock();
     Condition condition_;
@@ -123,7 +124,7 @@ public class BinaryMemtable
 
     private void resolve(String key, byte[] buffer)
     {
-            columnFamilies_.put(key, buffer);
+            columnFamilies_.put(partitioner_.decorateKey(key), buffer);
             currentSize_.addAndGet(buffer.length + key.length());
     }
 
@@ -144,7 +145,7 @@ public class BinaryMemtable
         String path;
         SSTableWriter writer;
         ColumnFamilyStore cfStore = Table.open(table_).getColumnFamilyStore(cfName_);
-        List<String> keys = new ArrayList<String>( columnFamilies_.keySet() );
+        List<DecoratedKey> keys = new ArrayList<DecoratedKey>( columnFamilies_.keySet() );
         /*
             Adding a lock here so data directories are evenly used. By default currentIndex
             is incremented, not an AtomicInteger. Let's fix this!
@@ -153,20 +154,18 @@ public class BinaryMemtable
         try
         {
             path = cfStore.getTempSSTablePath();
-            writer = new SSTableWriter(path, keys.size(), StorageService.getPartitioner());
+            writer = new SSTableWriter(path, keys.size(), partitioner_);
         }
         finally
         {
             lock_.unlock();
         }
 
-        final IPartitioner partitioner = StorageService.getPartitioner();
-        final Comparator<String> dc = partitioner.getDecoratedKeyComparator();
-        Collections.sort(keys, dc);
+        Collections.sort(keys);
 
 
         /* Use this BloomFilter to decide if a key exists in a SSTable */
-        for ( String key : keys )
+        for ( DecoratedKey key : keys )
         {           
             byte[] bytes = columnFamilies_.get(key);
             if ( bytes.length > 0 )
@@ -24,6 +24,7 @@ import java.nio.ByteBuffer;
 import org.apache.commons.lang.ArrayUtils;
 
 import org.apache.cassandra.db.marshal.AbstractType;
+import org.apache.cassandra.utils.Murmur3Digest;
 
 
 /**
@@ -171,13 +172,27 @@ public final class Column implements IColumn
         return null;
     }
 
-    public byte[] digest()
-    {
-        StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append(name);
-        stringBuilder.append(":");
-        stringBuilder.append(timestamp);
-        return stringBuilder.toString().getBytes();
+    /*
+     * Each column in a digest starts with one of these tags, and each list of columns
+     * ends with DIGEST_END, so that different rows can never feed the digest the same bytes.
+     */
+    static final int DIGEST_END = 0;
+    static final int DIGEST_COLUMN = 1;
+    static final int DIGEST_DELETED_COLUMN = 2;
+    static final int DIGEST_SUPER_COLUMN = 3;
+
+    public void updateDigest(Murmur3Digest digest)
+    {
+        digest.updateByte(isMarkedForDelete ? DIGEST_DELETED_COLUMN : DIGEST_COLUMN);
+        digest.updateInt(name.length);
+        digest.update(name);
+        digest.updateLong(timestamp);
+        // the value of a tombstone is its local deletion time, which differs between replicas
+        if (!isMarkedForDelete)
+        {
+            digest.updateInt(value.length);
+            digest.update(value);
+        }
     }
 
     public int getLocalDeletionTime()
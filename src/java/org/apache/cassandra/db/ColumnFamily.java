@@ -31,7 +31,7 @@ import org.apache.commons.lang.ArrayUtils;
 import org.apache.log4j.Logger;
 
 import org.apache.cassandra.config.DatabaseDescriptor;
-import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Murmur3Digest;
 import org.apache.cassandra.io.ICompactSerializer2;
 import org.apache.cassandra.db.filter.QueryPath;
 import org.apache.cassandra.db.marshal.AbstractType;
@@ -100,7 +100,7 @@ public final class ColumnFamily implements IColumnContainer
         return cf;
     }
 
-    private AbstractType getSubComparator()
+    AbstractType getSubComparator()
     {
         return (columnSerializer_ instanceof SuperColumnSerializer) ? ((SuperColumnSerializer)columnSerializer_).getComparator() : null;
     }
@@ -232,6 +232,18 @@ public final class ColumnFamily implements IColumnContainer
         return columns_.values();
     }
 
+    /**
+     * @return a live view of the columns from start on, in comparator order, or in reverse order
+     * if reversed; an empty start means from the first (or last) column.  Nothing is copied, so the
+     * cost of iterating is that of finding start plus that of the columns actually read.
+     */
+    public Collection<IColumn> getSortedColumns(byte[] start, boolean reversed)
+    {
+        if (start.length == 0)
+            return reversed ? columns_.descendingMap().values() : columns_.values();
+        return reversed ? columns_.headMap(start, true).descendingMap().values() : columns_.tailMap(start, true).values();
+    }
+
     public Map<byte[], IColumn> getColumnsMap()
     {
         return columns_;
@@ -347,21 +359,36 @@ public final class ColumnFamily implements IColumnContainer
     	return sb.toString();
     }
 
+    /**
+     * @return the hash of the columns and tombstones, or an empty array if there are neither
+     */
     public byte[] digest()
     {
-        byte[] xorHash = ArrayUtils.EMPTY_BYTE_ARRAY;
+        if (isEmpty())
+            return ArrayUtils.EMPTY_BYTE_ARRAY;
+        Murmur3Digest digest = new Murmur3Digest();
+        updateDigest(digest);
+        return digest.digest();
+    }
+
+    /** @return true if there are no columns and no tombstone; such a column family adds nothing to a digest */
+    boolean isEmpty()
+    {
+        return !isMarkedForDelete() && columns_.isEmpty();
+    }
+
+    /**
+     * feeds the column family tombstone and each column, in comparator order, into digest.
+     * The digest is built as the columns are iterated, so no per-column hash is allocated.
+     */
+    void updateDigest(Murmur3Digest digest)
+    {
+        digest.updateLong(markedForDeleteAt);
         for (IColumn column : columns_.values())
         {
-            if (xorHash.length == 0)
-            {
-                xorHash = column.digest();
-            }
-            else
-            {
-                xorHash = FBUtilities.xor(xorHash, column.digest());
-            }
+            column.updateDigest(digest);
         }
-        return xorHash;
+        digest.updateByte(Column.DIGEST_END);
     }
 
     public long getMarkedForDeleteAt()
@@ -392,7 +419,7 @@ public final class ColumnFamily implements IColumnContainer
 
     public int serializedSize()
     {
-        int subtotal = 4 * IColumn.UtfPrefix_ + name_.length() + type_.length() +  getComparatorName().length() + getSubComparatorName().length() + 4 + 8 + 4;
+        int subtotal = 4 + 4 * IColumn.UtfPrefix_ + name_.length() + type_.length() +  getComparatorName().length() + getSubComparatorName().length() + 4 + 8 + 4;
         for (IColumn column : columns_.values())
         {
             subtotal += column.serializedSize();
@@ -26,6 +26,8 @@ import java.io.IOException;
 import java.io.DataInput;
 import java.util.Collection;
 
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.io.ICompactSerializer2;
 import org.apache.cassandra.db.marshal.AbstractType;
 
@@ -35,6 +37,8 @@ public class ColumnFamilySerializer implements ICompactSerializer2<ColumnFamily>
      * Serialized ColumnFamily format:
      *
      * [serialized for intra-node writes only, e.g. returning a query result]
+     * <cf id>
+     * [only if the id is NO_ID, for column families not in the configuration]
      * <cf name>
      * <cf type [super or standard]>
      * <cf comparator name>
@@ -50,8 +54,31 @@ public class ColumnFamilySerializer implements ICompactSerializer2<ColumnFamily>
      * <column count>
      * <columns, serialized individually>
     */
+    static final int NO_ID = -1;
+
+    /**
+     * Serializes columnFamily with its id in place of its name, type and comparators,
+     * if table defines a column family of that name sorted the same way.
+     */
+    public void serialize(String table, ColumnFamily columnFamily, DataOutput dos) throws IOException
+    {
+        CFMetaData metadata = DatabaseDescriptor.getCFMetaData(table, columnFamily.name());
+        if (metadata == null
+            || !metadata.columnType.equals(columnFamily.type_)
+            || metadata.comparator != columnFamily.getComparator()
+            || metadata.subcolumnComparator != columnFamily.getSubComparator())
+        {
+            serialize(columnFamily, dos);
+            return;
+        }
+        dos.writeInt(metadata.cfId);
+        serializeForSSTable(columnFamily, dos);
+    }
+
+    /** serializes columnFamily with its name, type and comparators spelled out */
     public void serialize(ColumnFamily columnFamily, DataOutput dos) throws IOException
     {
+        dos.writeInt(NO_ID);
         dos.writeUTF(columnFamily.name());
         dos.writeUTF(columnFamily.type_);
         dos.writeUTF(columnFamily.getComparatorName());
@@ -80,7 +107,21 @@ public class ColumnFamilySerializer implements ICompactSerializer2<ColumnFamily>
 
     public ColumnFamily deserialize(DataInput dis) throws IOException
     {
-        ColumnFamily cf = deserializeFromSSTableNoColumns(dis.readUTF(), dis.readUTF(), readComparator(dis), readComparator(dis), dis);
+        ColumnFamily cf;
+        int cfId = dis.readInt();
+        if (cfId == NO_ID)
+        {
+            cf = deserializeFromSSTableNoColumns(dis.readUTF(), dis.readUTF(), readComparator(dis), readComparator(dis), dis);
+        }
+        else
+        {
+            CFMetaData metadata = DatabaseDescriptor.getCFMetaData(cfId);
+            if (metadata == null)
+            {
+                throw new IOException("Unknown column family id " + cfId + "; the column family definitions must be the same on every node");
+            }
+            cf = deserializeFromSSTableNoColumns(metadata.cfName, metadata.columnType, metadata.comparator, metadata.subcolumnComparator, dis);
+        }
         int size = dis.readInt();
         IColumn column;
         for (int i = 0; i < size; ++i)
@@ -101,16 +142,12 @@ public class ColumnFamilySerializer implements ICompactSerializer2<ColumnFamily>
 
         try
         {
-            return (AbstractType)Class.forName(className).getConstructor().newInstance();
+            return AbstractType.getInstance(className);
         }
         catch (ClassNotFoundException e)
         {
             throw new RuntimeException("Unable to load comparator class '" + className + "'.  probably this means you have obsolete sstables lying around", e);
         }
-        catch (Exception e)
-        {
-            throw new RuntimeException(e);
-        }
     }
 
     public ColumnFamily deserializeFromSSTableNoColumns(String name, String type, AbstractType comparator, AbstractType subComparator, DataInput input) throws IOException
@@ -84,8 +84,22 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
     /* Modification lock used for protecting reads from compactions. */
     private ReentrantReadWriteLock sstableLock_ = new ReentrantReadWriteLock(true);
 
-    private TimedStatsDeque readStats_ = new TimedStatsDeque(60000);
-    private TimedStatsDeque writeStats_ = new TimedStatsDeque(60000);
+    /* getCompactionPriority of the current sstables, recomputed whenever they change */
+    private volatile long compactionPriority_;
+    private final Object compactionPriorityLock_ = new Object();
+
+    private final LatencyTracker readStats_ = new LatencyTracker();
+    private final LatencyTracker writeStats_ = new LatencyTracker();
+
+    /* whole rows, with tombstones, keyed by row key; see cacheRow */
+    private final InstrumentedCache<String, ColumnFamily> rowCache_;
+    /* placeholder marking a row that is being read into the cache */
+    private final ColumnFamily rowCacheSentinel_;
+
+    private long lastKeyCacheRequests_;
+    private long lastKeyCacheHits_;
+    private long lastColumnIndexCacheRequests_;
+    private long lastColumnIndexCacheHits_;
 
     ColumnFamilyStore(String table, String columnFamilyName, boolean isSuper, int indexValue) throws IOException
     {
@@ -95,6 +109,8 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
         fileIndexGenerator_.set(indexValue);
         memtable_ = new Memtable(table_, columnFamily_);
         binaryMemtable_ = new AtomicReference<BinaryMemtable>(new BinaryMemtable(table_, columnFamily_));
+        rowCache_ = new InstrumentedCache<String, ColumnFamily>(DatabaseDescriptor.getRowsCached(table_, columnFamily_));
+        rowCacheSentinel_ = ColumnFamily.create(table_, columnFamily_);
     }
 
     public static ColumnFamilyStore getColumnFamilyStore(String table, String columnFamily) throws IOException
@@ -187,6 +203,7 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
             }
             ssTables_.put(filename, sstable);
         }
+        updateCompactionPriority();
 
         // submit initial check-for-compaction request
         MinorCompactionManager.instance().submit(ColumnFamilyStore.this);
@@ -257,6 +274,9 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
         {
             sstableLock_.writeLock().unlock();
         }
+        updateCompactionPriority();
+        // the new file may contain data for rows we have cached
+        rowCache_.clear();
     }
 
     /*
@@ -390,19 +410,21 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
                              columnFamily_, SSTable.TEMPFILE_MARKER, index);
     }
 
-    void switchMemtable(Memtable oldMemtable, CommitLog.CommitLogContext ctx)
+    /** @return the flush of oldMemtable, or null if it had already been switched out */
+    Future<?> switchMemtable(Memtable oldMemtable, CommitLog.CommitLogContext ctx)
     {
+        Future<?> flush;
         memtableLock_.writeLock().lock();
         try
         {
             if (oldMemtable.isFrozen())
             {
-                return;
+                return null;
             }
             logger_.info(columnFamily_ + " has reached its threshold; switching in a fresh Memtable");
             oldMemtable.freeze();
             getMemtablesPendingFlushNotNull(columnFamily_).add(oldMemtable); // it's ok for the MT to briefly be both active and pendingFlush
-            submitFlush(oldMemtable, ctx);
+            flush = submitFlush(oldMemtable, ctx);
             memtable_ = new Memtable(table_, columnFamily_);
         }
         finally
@@ -415,6 +437,7 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
             memtableSwitchCount = 0;
         }
         memtableSwitchCount++;
+        return flush;
     }
 
     void switchBinaryMemtable(String key, byte[] buffer) throws IOException
@@ -473,22 +496,25 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
     void apply(String key, ColumnFamily columnFamily, CommitLog.CommitLogContext cLogCtx)
             throws IOException
     {
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
         Memtable initialMemtable = getMemtableThreadSafe();
         if (initialMemtable.isThresholdViolated())
         {
             switchMemtable(initialMemtable, cLogCtx);
         }
-        memtableLock_.writeLock().lock();
+        // the read lock is enough to keep the memtable from being switched out under us;
+        // the memtable itself handles concurrent puts.
+        memtableLock_.readLock().lock();
         try
         {
             memtable_.put(key, columnFamily);
         }
         finally
         {
-            memtableLock_.writeLock().unlock();
+            memtableLock_.readLock().unlock();
         }
-        writeStats_.add(System.currentTimeMillis() - start);
+        invalidateCachedRow(key);
+        writeStats_.addNano(System.nanoTime() - start);
     }
 
     /*
@@ -499,25 +525,106 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
     void applyBinary(String key, byte[] buffer)
             throws IOException
     {
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
         binaryMemtable_.get().put(key, buffer);
-        writeStats_.add(System.currentTimeMillis() - start);
+        invalidateCachedRow(key);
+        writeStats_.addNano(System.nanoTime() - start);
     }
 
     /**
      * like resolve, but leaves the resolved CF as the only item in the list
      */
-    private static void merge(List<ColumnFamily> columnFamilies)
+    /**
+     * Appends the row for key, held by the current row of each of the given FileStructs, to writer.
+     * A row from a single sstable is copied byte-for-byte.  Rows from several sstables are merged
+     * one column name at a time, so no row is ever deserialized in full; the merged row is
+     * serialized into buffer first, since its index must precede its columns.
+     * @return the number of bytes of row data written, or 0 if nothing of the row survived
+     */
+    private static int appendRow(SSTableWriter writer, DecoratedKey key, List<FileStruct> lfs, int gcBefore, DataOutputBuffer buffer) throws IOException
     {
-        ColumnFamily cf = ColumnFamily.resolve(columnFamilies);
-        columnFamilies.clear();
-        columnFamilies.add(cf);
+        if (lfs.size() == 1)
+        {
+            return writer.append(lfs.get(0).getRow());
+        }
+
+        // on timestamp ties the column from the later source wins, so keep the sources in a stable order
+        Collections.sort(lfs, new FileStructComparator());
+        List<IteratingRow> rows = new ArrayList<IteratingRow>(lfs.size());
+        for (FileStruct filestruct : lfs)
+        {
+            rows.add(filestruct.getRow());
+        }
+        buffer.reset();
+        if (!mergeRows(rows, gcBefore, buffer))
+        {
+            return 0;
+        }
+        writer.append(key, buffer);
+        return buffer.getLength();
     }
 
-    private static ColumnFamily resolveAndRemoveDeleted(List<ColumnFamily> columnFamilies)
+    /**
+     * Merges rows for the same key, reading the columns of each in parallel and reconciling
+     * them name by name with the same rules as ColumnFamily.resolve and removeDeleted,
+     * and writes the result in sstable row format (indexes, deletion info, columns) to out.
+     * @return false if the merged row is entirely deleted and may be dropped
+     */
+    static boolean mergeRows(List<IteratingRow> rows, int gcBefore, DataOutputBuffer out) throws IOException
     {
-        ColumnFamily cf = ColumnFamily.resolve(columnFamilies);
-        return removeDeleted(cf);
+        // holds the merged deletion info, and the versions of one column at a time
+        ColumnFamily container = rows.get(0).getEmptyColumnFamily().cloneMeShallow();
+        for (IteratingRow row : rows)
+        {
+            container.delete(row.getEmptyColumnFamily());
+        }
+
+        AbstractType comparator = container.getComparator();
+        ColumnIndexer.RowIndexer indexer = new ColumnIndexer.RowIndexer(comparator);
+        DataOutputBuffer columnsOut = new DataOutputBuffer();
+        int columnCount = 0;
+        while (true)
+        {
+            byte[] name = null;
+            for (IteratingRow row : rows)
+            {
+                if (row.hasNext() && (name == null || comparator.compare(row.peek().name(), name) < 0))
+                {
+                    name = row.peek().name();
+                }
+            }
+            if (name == null)
+            {
+                break;
+            }
+
+            for (IteratingRow row : rows)
+            {
+                if (row.hasNext() && comparator.compare(row.peek().name(), name) == 0)
+                {
+                    container.addColumn(row.next());
+                }
+            }
+            removeDeleted(container, gcBefore);
+            for (IColumn column : container.getSortedColumns())
+            {
+                container.getColumnSerializer().serialize(column, columnsOut);
+                indexer.add(column);
+                columnCount++;
+            }
+            container.remove(name);
+        }
+
+        if (columnCount == 0 && container.getLocalDeletionTime() <= gcBefore)
+        {
+            return false;
+        }
+        indexer.serialize(out);
+        out.writeInt(container.getLocalDeletionTime());
+        out.writeLong(container.getMarkedForDeleteAt());
+        out.writeInt(columnCount);
+        out.write(columnsOut.getData(), 0, columnsOut.getLength());
+        return true;
     }
 
     /*
@@ -593,9 +700,30 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
      * the future we may want to parellelize the log processing for a table by
      * having a thread per log file present for recovery. Re-visit at that time.
      */
-    void applyNow(String key, ColumnFamily columnFamily) throws IOException
+    /*
+     * Insert/Update the column family for this key during log replay.  A full
+     * Memtable is flushed in the background while replay continues; it has no
+     * commit log context, since the logs being replayed are removed afterwards.
+     * returns the flush started, if any.
+     */
+    Future<?> applyNow(String key, ColumnFamily columnFamily) throws IOException
     {
-        getMemtableThreadSafe().put(key, columnFamily);
+        Future<?> flush = null;
+        Memtable initialMemtable = getMemtableThreadSafe();
+        if (initialMemtable.isThresholdViolated())
+        {
+            flush = switchMemtable(initialMemtable, CommitLog.CommitLogContext.NULL);
+        }
+        memtableLock_.readLock().lock();
+        try
+        {
+            memtable_.put(key, columnFamily);
+        }
+        finally
+        {
+            memtableLock_.readLock().unlock();
+        }
+        return flush;
     }
 
     /*
@@ -634,6 +762,7 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
         {
             sstableLock_.writeLock().unlock();
         }
+        updateCompactionPriority();
 
         /* it's ok if compaction gets submitted multiple times while one is already in process.
            worst that happens is, compactor will count the sstable files and decide there are
@@ -655,7 +784,7 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
             for (String file : files)
             {
                 fs = SSTableReader.get(file).getFileStruct();
-                fs.advance(true);
+                fs.advance(false);
                 if (fs.isExhausted())
                 {
                     continue;
@@ -708,6 +837,42 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
         return buckets.keySet();
     }
 
+    /*
+     * How badly this column family needs a minor compaction: the number of sstables in its
+     * largest bucket of similar-sized files, then the total number of sstables.  This is a
+     * snapshot taken when the sstables last changed, so it is cheap enough to compare often.
+     */
+    long getCompactionPriority()
+    {
+        return compactionPriority_;
+    }
+
+    /* called after every change to ssTables_, outside sstableLock_ */
+    private void updateCompactionPriority()
+    {
+        // computing under the lock keeps an older snapshot from overwriting a newer one
+        synchronized (compactionPriorityLock_)
+        {
+            List<String> files;
+            sstableLock_.readLock().lock();
+            try
+            {
+                files = new ArrayList<String>(ssTables_.keySet());
+            }
+            finally
+            {
+                sstableLock_.readLock().unlock();
+            }
+
+            int largestBucket = 0;
+            for (List<String> bucket : getCompactionBuckets(files, 50L * 1024L * 1024L))
+            {
+                largestBucket = Math.max(largestBucket, bucket.size());
+            }
+            compactionPriority_ = ((long) largestBucket << 32) | files.size();
+        }
+    }
+
     /*
      * Break the files into buckets and then compact.
      */
@@ -861,6 +1026,7 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
         {
             sstableLock_.writeLock().unlock();
         }
+        updateCompactionPriority();
     }
 
     /**
@@ -904,14 +1070,14 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
 
         mergedFileName = getTempSSTableFileName();
         SSTableWriter rangeWriter = null;
-        String lastkey = null;
+        DecoratedKey lastkey = null;
         List<FileStruct> lfs = new ArrayList<FileStruct>();
         DataOutputBuffer bufOut = new DataOutputBuffer();
         int expectedBloomFilterSize = SSTableReader.getApproximateKeyCount(files);
         expectedBloomFilterSize = (expectedBloomFilterSize > 0) ? expectedBloomFilterSize : SSTableReader.indexInterval();
         if (logger_.isDebugEnabled())
           logger_.debug("Expected bloom filter size : " + expectedBloomFilterSize);
-        List<ColumnFamily> columnFamilies = new ArrayList<ColumnFamily>();
+        int gcBefore = getDefaultGCBefore();
 
         while (pq.size() > 0 || lfs.size() > 0)
         {
@@ -930,37 +1096,7 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
             }
             else
             {
-                Collections.sort(lfs, new FileStructComparator());
-                ColumnFamily columnFamily;
-                bufOut.reset();
-                if (lfs.size() > 1)
-                {
-                    for (FileStruct filestruct : lfs)
-                    {
-                        // We want to add only 2 and resolve them right there in order to save on memory footprint
-                        if (columnFamilies.size() > 1)
-                        {
-                            // Now merge the 2 column families
-                            merge(columnFamilies);
-                        }
-                        // deserialize into column families
-                        columnFamilies.add(filestruct.getColumnFamily());
-                    }
-                    // Now after merging all crap append to the sstable
-                    columnFamily = resolveAndRemoveDeleted(columnFamilies);
-                    columnFamilies.clear();
-                    if (columnFamily != null)
-                    {
-                        ColumnFamily.serializer().serializeWithIndexes(columnFamily, bufOut);
-                    }
-                }
-                else
-                {
-                    // TODO deserializing only to reserialize is dumb
-                    FileStruct filestruct = lfs.get(0);
-                    ColumnFamily.serializer().serializeWithIndexes(filestruct.getColumnFamily(), bufOut);
-                }
-                if (Range.isTokenInRanges(StorageService.getPartitioner().getToken(lastkey), ranges))
+                if (Range.isTokenInRanges(lastkey.token, ranges))
                 {
                     if (rangeWriter == null)
                     {
@@ -972,20 +1108,20 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
                         String fname = new File(rangeFileLocation, mergedFileName).getAbsolutePath();
                         rangeWriter = new SSTableWriter(fname, expectedBloomFilterSize, StorageService.getPartitioner());
                     }
-                    rangeWriter.append(lastkey, bufOut);
+                    MinorCompactionManager.instance().compacted(appendRow(rangeWriter, lastkey, lfs, gcBefore, bufOut));
                 }
                 totalkeysWritten++;
                 for (FileStruct filestruct : lfs)
                 {
-                    filestruct.advance(true);
+                    filestruct.advance(false);
                     if (filestruct.isExhausted())
                     {
                         continue;
                     }
                     /* keep on looping until we find a key in the range */
-                    while (!Range.isTokenInRanges(StorageService.getPartitioner().getToken(filestruct.getKey()), ranges))
+                    while (!Range.isTokenInRanges(filestruct.getKey().token, ranges))
                     {
-                        filestruct.advance(true);
+                        filestruct.advance(false);
                         if (filestruct.isExhausted())
                         {
                             break;
@@ -1075,14 +1211,14 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
         String mergedFileName = getTempFileName(files);
         SSTableWriter writer = null;
         SSTableReader ssTable = null;
-        String lastkey = null;
+        DecoratedKey lastkey = null;
         List<FileStruct> lfs = new ArrayList<FileStruct>();
         DataOutputBuffer bufOut = new DataOutputBuffer();
         int expectedBloomFilterSize = SSTableReader.getApproximateKeyCount(files);
         expectedBloomFilterSize = (expectedBloomFilterSize > 0) ? expectedBloomFilterSize : SSTableReader.indexInterval();
         if (logger_.isDebugEnabled())
           logger_.debug("Expected bloom filter size : " + expectedBloomFilterSize);
-        List<ColumnFamily> columnFamilies = new ArrayList<ColumnFamily>();
+        int gcBefore = getDefaultGCBefore();
 
         while (pq.size() > 0 || lfs.size() > 0)
         {
@@ -1101,47 +1237,21 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
             }
             else
             {
-                Collections.sort(lfs, new FileStructComparator());
-                ColumnFamily columnFamily;
-                bufOut.reset();
-                if (lfs.size() > 1)
-                {
-                    for (FileStruct filestruct : lfs)
-                    {
-                        // We want to add only 2 and resolve them right there in order to save on memory footprint
-                        if (columnFamilies.size() > 1)
-                        {
-                            merge(columnFamilies);
-                        }
-                        // deserialize into column families
-                        columnFamilies.add(filestruct.getColumnFamily());
-                    }
-                    // Now after merging all crap append to the sstable
-                    columnFamily = resolveAndRemoveDeleted(columnFamilies);
-                    columnFamilies.clear();
-                    if (columnFamily != null)
-                    {
-                        ColumnFamily.serializer().serializeWithIndexes(columnFamily, bufOut);
-                    }
-                }
-                else
-                {
-                    // TODO deserializing only to reserialize is dumb
-                    FileStruct filestruct = lfs.get(0);
-                    ColumnFamily.serializer().serializeWithIndexes(filestruct.getColumnFamily(), bufOut);
-                }
-
                 if (writer == null)
                 {
                     String fname = new File(compactionFileLocation, mergedFileName).getAbsolutePath();
                     writer = new SSTableWriter(fname, expectedBloomFilterSize, StorageService.getPartitioner());
                 }
-                writer.append(lastkey, bufOut);
-                totalkeysWritten++;
+                int bytesWritten = appendRow(writer, lastkey, lfs, gcBefore, bufOut);
+                if (bytesWritten > 0)
+                {
+                    MinorCompactionManager.instance().compacted(bytesWritten);
+                    totalkeysWritten++;
+                }
 
                 for (FileStruct filestruct : lfs)
                 {
-                    filestruct.advance(true);
+                    filestruct.advance(false);
                     if (filestruct.isExhausted())
                     {
                         continue;
@@ -1185,6 +1295,7 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
         {
             sstableLock_.writeLock().unlock();
         }
+        updateCompactionPriority();
 
         String format = "Compacted to %s.  %d/%d bytes for %d/%d keys read/written.  Time: %dms.";
         long dTime = System.currentTimeMillis() - startTime;
@@ -1209,10 +1320,10 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
     }
 
     /* Submit memtables to be flushed to disk */
-    private static void submitFlush(final Memtable memtable, final CommitLog.CommitLogContext cLogCtx)
+    private static Future<?> submitFlush(final Memtable memtable, final CommitLog.CommitLogContext cLogCtx)
     {
         logger_.info("Enqueuing flush of " + memtable);
-        flusher_.submit(new Runnable()
+        return flusher_.submit(new Runnable()
         {
             public void run()
             {
@@ -1253,9 +1364,13 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
         return isSuper_;
     }
 
-    public void flushMemtableOnRecovery() throws IOException
+    /** @return the flush of the current Memtable, or null if it is clean */
+    public Future<?> flushMemtableOnRecovery()
     {
-        getMemtableThreadSafe().flushOnRecovery();
+        Memtable memtable = getMemtableThreadSafe();
+        if (memtable.isClean())
+            return null;
+        return switchMemtable(memtable, CommitLog.CommitLogContext.NULL);
     }
 
     public int getMemtableColumnsCount()
@@ -1296,19 +1411,9 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
         }
     }
 
-    public Iterator<String> memtableKeyIterator() throws ExecutionException, InterruptedException
+    public Iterator<DecoratedKey> memtableKeyIterator(DecoratedKey startWith)
     {
-        Set<String> keys;
-        memtableLock_.readLock().lock();
-        try
-        {
-            keys = memtable_.getKeys();
-        }
-        finally
-        {
-            memtableLock_.readLock().unlock();
-        }
-        return Memtable.getKeyIterator(keys);
+        return getMemtableThreadSafe().getKeyIterator(startWith);
     }
 
     /** not threadsafe.  caller must have lock_ acquired. */
@@ -1322,14 +1427,29 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
         return sstableLock_.readLock();
     }
 
-    public int getReadCount()
+    public long getReadCount()
     {
-        return readStats_.size();
+        return readStats_.getOpCount();
     }
 
-    public double getReadLatency()
+    public long getTotalReadLatencyMicros()
     {
-        return readStats_.mean();
+        return readStats_.getTotalLatencyMicros();
+    }
+
+    public double getRecentReadLatencyMicros()
+    {
+        return readStats_.getRecentLatencyMicros();
+    }
+
+    public double[] getReadLatencyPercentilesMicros()
+    {
+        return readStats_.getPercentilesMicros();
+    }
+
+    public double[] getRecentReadLatencyPercentilesMicros()
+    {
+        return readStats_.getRecentPercentilesMicros();
     }
     
     public int getPendingTasks()
@@ -1337,18 +1457,143 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
         return memtableLock_.getQueueLength();
     }
 
-    /**
-     * @return the number of write operations on this column family in the last minute
-     */
-    public int getWriteCount() {
-        return writeStats_.size();
+    public long getWriteCount()
+    {
+        return writeStats_.getOpCount();
     }
 
-    /**
-     * @return average latency per write operation in the last minute
-     */
-    public double getWriteLatency() {
-        return writeStats_.mean();
+    public long getTotalWriteLatencyMicros()
+    {
+        return writeStats_.getTotalLatencyMicros();
+    }
+
+    public double getRecentWriteLatencyMicros()
+    {
+        return writeStats_.getRecentLatencyMicros();
+    }
+
+    public double[] getWriteLatencyPercentilesMicros()
+    {
+        return writeStats_.getPercentilesMicros();
+    }
+
+    public double[] getRecentWriteLatencyPercentilesMicros()
+    {
+        return writeStats_.getRecentPercentilesMicros();
+    }
+
+    public int getKeyCacheSize()
+    {
+        int size = 0;
+        for (SSTableReader sstable : getSSTablesSnapshot())
+            size += sstable.getKeyCache().getSize();
+        return size;
+    }
+
+    public int getKeyCacheCapacity()
+    {
+        return DatabaseDescriptor.getKeysCached(table_, columnFamily_);
+    }
+
+    public void setKeyCacheCapacity(int capacity)
+    {
+        DatabaseDescriptor.getCFMetaData(table_, columnFamily_).keysCached = capacity;
+        for (SSTableReader sstable : getSSTablesSnapshot())
+            sstable.getKeyCache().setCapacity(capacity);
+        logger_.info("set key cache capacity of " + columnFamily_ + " to " + capacity);
+    }
+
+    public synchronized double getRecentKeyCacheHitRate()
+    {
+        long requests = 0;
+        long hits = 0;
+        for (SSTableReader sstable : getSSTablesSnapshot())
+        {
+            requests += sstable.getKeyCache().getRequests();
+            hits += sstable.getKeyCache().getHits();
+        }
+        // sstables come and go with compaction, so the totals are not monotonic
+        long recentRequests = requests - lastKeyCacheRequests_;
+        long recentHits = hits - lastKeyCacheHits_;
+        lastKeyCacheRequests_ = requests;
+        lastKeyCacheHits_ = hits;
+        if (recentRequests <= 0 || recentHits < 0)
+            return Double.NaN;
+        return ((double) recentHits) / recentRequests;
+    }
+
+    public int getRowCacheSize()
+    {
+        return rowCache_.getSize();
+    }
+
+    public int getRowCacheCapacity()
+    {
+        return rowCache_.getCapacity();
+    }
+
+    public void setRowCacheCapacity(int capacity)
+    {
+        rowCache_.setCapacity(capacity);
+        logger_.info("set row cache capacity of " + columnFamily_ + " to " + capacity);
+    }
+
+    public double getRecentRowCacheHitRate()
+    {
+        return rowCache_.getRecentHitRate();
+    }
+
+    public long getColumnIndexCacheSizeInKB()
+    {
+        long size = 0;
+        for (SSTableReader sstable : getSSTablesSnapshot())
+            size += sstable.getRowIndexCache().getWeight();
+        return size / 1024;
+    }
+
+    public int getColumnIndexCacheCapacityInKB()
+    {
+        return DatabaseDescriptor.getColumnIndexesCachedInKB(table_, columnFamily_);
+    }
+
+    public void setColumnIndexCacheCapacityInKB(int capacityInKB)
+    {
+        DatabaseDescriptor.getCFMetaData(table_, columnFamily_).columnIndexesCachedInKB = capacityInKB;
+        for (SSTableReader sstable : getSSTablesSnapshot())
+            sstable.getRowIndexCache().setCapacity(capacityInKB * 1024L);
+        logger_.info("set column index cache capacity of " + columnFamily_ + " to " + capacityInKB + " KB");
+    }
+
+    public synchronized double getRecentColumnIndexCacheHitRate()
+    {
+        long requests = 0;
+        long hits = 0;
+        for (SSTableReader sstable : getSSTablesSnapshot())
+        {
+            requests += sstable.getRowIndexCache().getRequests();
+            hits += sstable.getRowIndexCache().getHits();
+        }
+        // as for the key cache, sstables come and go with compaction
+        long recentRequests = requests - lastColumnIndexCacheRequests_;
+        long recentHits = hits - lastColumnIndexCacheHits_;
+        lastColumnIndexCacheRequests_ = requests;
+        lastColumnIndexCacheHits_ = hits;
+        if (recentRequests <= 0 || recentHits < 0)
+            return Double.NaN;
+        return ((double) recentHits) / recentRequests;
+    }
+
+    private List<SSTableReader> getSSTablesSnapshot()
+    {
+        sstableLock_.readLock().lock();
+        try
+        {
+            return new ArrayList<SSTableReader>(ssTables_.values());
+        }
+        finally
+        {
+            sstableLock_.readLock().unlock();
+        }
     }
 
     public ColumnFamily getColumnFamily(String key, QueryPath path, byte[] start, byte[] finish, boolean reversed, int limit) throws IOException
@@ -1370,7 +1615,7 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
     {
         assert columnFamily_.equals(filter.getColumnFamilyName());
 
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
 
         // if we are querying subcolumns of a supercolumn, fetch the supercolumn with NQF, then filter in-memory.
         if (filter.path.superColumnName != null)
@@ -1385,78 +1630,192 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
             SuperColumn scFiltered = filter.filterSuperColumn(sc, gcBefore);
             ColumnFamily cfFiltered = cf.cloneMeShallow();
             cfFiltered.addColumn(scFiltered);
-            readStats_.add(System.currentTimeMillis() - start);
+            readStats_.addNano(System.nanoTime() - start);
             return cfFiltered;
         }
 
+        try
+        {
+            if (rowCache_.getCapacity() == 0)
+                return getTopLevelColumns(filter, gcBefore);
+
+            ColumnFamily cached = cacheRow(filter.key);
+            if (cached == null)
+                return null;
+            // unlike the merging read, don't return null just because there are no columns:
+            // the cached row no longer has the columns its own tombstone shadowed
+            ColumnIterator iter = filter.getColumnFamilyIterator(cached, getComparator());
+            ColumnFamily returnCF = iter.getColumnFamily();
+            filter.collectCollatedColumns(returnCF, iter, gcBefore);
+            return removeDeleted(returnCF, gcBefore);
+        }
+        finally
+        {
+            readStats_.addNano(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return the whole row for key, with all tombstones, from the row cache, reading it in if necessary;
+     * or null if the row does not exist.  The returned ColumnFamily must not be modified.
+     */
+    private ColumnFamily cacheRow(String key) throws IOException
+    {
+        ColumnFamily cached = rowCache_.get(key);
+        if (cached != null && cached != rowCacheSentinel_)
+            return cached;
+
+        // the sentinel is removed by any write to the row that happens while we read it, in which case
+        // what we read may already be stale, and we don't cache it.
+        boolean owner = rowCache_.putIfAbsent(key, rowCacheSentinel_) == null;
+        ColumnFamily row = getTopLevelColumns(new IdentityQueryFilter(key, new QueryPath(columnFamily_)), Integer.MIN_VALUE);
+        if (owner)
+        {
+            if (row == null)
+                rowCache_.remove(key, rowCacheSentinel_);
+            else
+                rowCache_.replace(key, rowCacheSentinel_, row);
+        }
+        return row;
+    }
+
+    private void invalidateCachedRow(String key)
+    {
+        if (rowCache_.getCapacity() > 0)
+            rowCache_.remove(key);
+    }
+
+    private ColumnFamily getTopLevelColumns(QueryFilter filter, int gcBefore) throws IOException
+    {
         // we are querying top-level columns, do a merging fetch with indexes.
         sstableLock_.readLock().lock();
         List<ColumnIterator> iterators = new ArrayList<ColumnIterator>();
         try
         {
-            final ColumnFamily returnCF;
-            ColumnIterator iter;
-        
-            /* add the current memtable */
-            memtableLock_.readLock().lock();
-            try
-            {
-                iter = filter.getMemColumnIterator(memtable_, getComparator());
-                returnCF = iter.getColumnFamily();
-            }
-            finally
-            {
-                memtableLock_.readLock().unlock();            
-            }        
+            ColumnFamily returnCF = getTopLevelIterators(filter, iterators);
+            Comparator<IColumn> comparator = filter.getColumnComparator(getComparator());
+            Iterator collated = IteratorUtils.collatedIterator(comparator, iterators);
+            if (!collated.hasNext())
+                return null;
+
+            filter.collectCollatedColumns(returnCF, collated, gcBefore);
+
+            return removeDeleted(returnCF, gcBefore); // collect does a first pass but doesn't try to recognize e.g. the entire CF being tombstoned
+        }
+        finally
+        {
+            closeIterators(iterators);
+            sstableLock_.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds to iterators one iterator over the columns filter selects from each memtable and sstable.
+     * The caller must hold the sstable read lock, and close the iterators.
+     * @return an empty ColumnFamily marked with the most recent row tombstone among them
+     */
+    private ColumnFamily getTopLevelIterators(QueryFilter filter, List<ColumnIterator> iterators) throws IOException
+    {
+        final ColumnFamily returnCF;
+        ColumnIterator iter;
+
+        /* add the current memtable */
+        memtableLock_.readLock().lock();
+        try
+        {
+            iter = filter.getMemColumnIterator(memtable_, getComparator());
+            returnCF = iter.getColumnFamily();
+        }
+        finally
+        {
+            memtableLock_.readLock().unlock();
+        }
+        iterators.add(iter);
+
+        /* add the memtables being flushed */
+        List<Memtable> memtables = getUnflushedMemtables(filter.getColumnFamilyName());
+        for (Memtable memtable:memtables)
+        {
+            iter = filter.getMemColumnIterator(memtable, getComparator());
+            returnCF.delete(iter.getColumnFamily());
             iterators.add(iter);
+        }
 
-            /* add the memtables being flushed */
-            List<Memtable> memtables = getUnflushedMemtables(filter.getColumnFamilyName());
-            for (Memtable memtable:memtables)
+        /* add the SSTables on disk */
+        List<SSTableReader> sstables = new ArrayList<SSTableReader>(ssTables_.values());
+        for (SSTableReader sstable : sstables)
+        {
+            iter = filter.getSSTableColumnIterator(sstable);
+            if (iter.hasNext()) // initializes iter.CF
             {
-                iter = filter.getMemColumnIterator(memtable, getComparator());
                 returnCF.delete(iter.getColumnFamily());
-                iterators.add(iter);
             }
+            iterators.add(iter);
+        }
+        return returnCF;
+    }
 
-            /* add the SSTables on disk */
-            List<SSTableReader> sstables = new ArrayList<SSTableReader>(ssTables_.values());
-            for (SSTableReader sstable : sstables)
+    /** close all cursors */
+    private void closeIterators(List<ColumnIterator> iterators)
+    {
+        for (ColumnIterator ci : iterators)
+        {
+            try
             {
-                iter = filter.getSSTableColumnIterator(sstable);
-                if (iter.hasNext()) // initializes iter.CF
-                {
-                    returnCF.delete(iter.getColumnFamily());
-                }
-                iterators.add(iter);
+                ci.close();
             }
+            catch (Throwable th)
+            {
+                logger_.error("error closing " + ci, th);
+            }
+        }
+    }
 
-            Comparator<IColumn> comparator = filter.getColumnComparator(getComparator());
-            Iterator collated = IteratorUtils.collatedIterator(comparator, iterators);
-            if (!collated.hasNext())
-                return null;
-
-            filter.collectCollatedColumns(returnCF, collated, gcBefore);
+    /**
+     * Counts the live columns of a row, or the live subcolumns of one of its supercolumns, as
+     * get_slice would return them, without collecting the columns: they are merged from the
+     * memtables and sstables (or the row cache) and counted one name at a time.
+     */
+    public int getLiveColumnCount(CountQueryFilter filter, int gcBefore) throws IOException
+    {
+        assert columnFamily_.equals(filter.getColumnFamilyName());
 
-            return removeDeleted(returnCF, gcBefore); // collect does a first pass but doesn't try to recognize e.g. the entire CF being tombstoned
+        // subcolumns are unindexed, so as in getColumnFamily we read the supercolumn and count in memory.
+        if (filter.path.superColumnName != null)
+        {
+            QueryFilter nameFilter = new NamesQueryFilter(filter.key, new QueryPath(columnFamily_), filter.path.superColumnName);
+            return filter.countLiveColumns(getColumnFamily(nameFilter, gcBefore));
         }
-        finally
+
+        long start = System.nanoTime();
+        try
         {
-            /* close all cursors */
-            for (ColumnIterator ci : iterators)
+            if (rowCache_.getCapacity() > 0)
             {
-                try
-                {
-                    ci.close();
-                }
-                catch (Throwable th)
-                {
-                    logger_.error("error closing " + ci, th);
-                }
+                ColumnFamily cached = cacheRow(filter.key);
+                if (cached == null)
+                    return 0;
+                ColumnIterator iter = filter.getColumnFamilyIterator(cached, getComparator());
+                return filter.countCollatedColumns(iter.getColumnFamily(), iter);
             }
 
-            readStats_.add(System.currentTimeMillis() - start);
-            sstableLock_.readLock().unlock();
+            sstableLock_.readLock().lock();
+            List<ColumnIterator> iterators = new ArrayList<ColumnIterator>();
+            try
+            {
+                ColumnFamily returnCF = getTopLevelIterators(filter, iterators);
+                Comparator<IColumn> comparator = filter.getColumnComparator(getComparator());
+                return filter.countCollatedColumns(returnCF, IteratorUtils.collatedIterator(comparator, iterators));
+            }
+            finally
+            {
+                closeIterators(iterators);
+                sstableLock_.readLock().unlock();
+            }
+        }
+        finally
+        {
+            readStats_.addNano(System.nanoTime() - start);
         }
     }
 
@@ -1482,91 +1841,170 @@ public final class ColumnFamilyStore implements ColumnFamilyStoreMBean
 
     private RangeReply getKeyRangeUnsafe(final String startWith, final String stopAt, int maxResults) throws IOException, ExecutionException, InterruptedException
     {
-        // (OPP key decoration is a no-op so using the "decorated" comparator against raw keys is fine)
-        final Comparator<String> comparator = StorageService.getPartitioner().getDecoratedKeyComparator();
+        final DecoratedKey stopAtDK = StorageService.getPartitioner().decorateKey(stopAt);
+        List<Iterator<DecoratedKey>> iterators = new ArrayList<Iterator<DecoratedKey>>();
+        try
+        {
+            // pull keys out of the CollatedIterator.  checking tombstone status is expensive,
+            // so we set an arbitrary limit on how many we'll do at once.
+            List<String> keys = new ArrayList<String>();
+            boolean rangeCompletedLocally = false;
+            for (DecoratedKey current : getKeyIterators(startWith, stopAt, iterators))
+            {
+                if (!stopAt.isEmpty() && stopAtDK.compareTo(current) < 0)
+                {
+                    rangeCompletedLocally = true;
+                    break;
+                }
+                // make sure there is actually non-tombstone content associated w/ this key
+                // TODO record the key source(s) somehow and only check that source (e.g., memtable or sstable)
+                QueryFilter filter = new SliceQueryFilter(current.key, new QueryPath(columnFamily_), ArrayUtils.EMPTY_BYTE_ARRAY, ArrayUtils.EMPTY_BYTE_ARRAY, false, 1);
+                if (getColumnFamily(filter, Integer.MAX_VALUE) != null)
+                {
+                    keys.add(current.key);
+                }
+                if (keys.size() >= maxResults)
+                {
+                    rangeCompletedLocally = true;
+                    break;
+                }
+            }
+            return new RangeReply(keys, rangeCompletedLocally);
+        }
+        finally
+        {
+            closeKeyIterators(iterators);
+        }
+    }
+
+    /**
+     * Reads the columns selected by command from each row in its key range, through the same
+     * path as a single-row read, so the row and column index caches apply.  Rows with no
+     * columns matching the command's predicate are left out.
+     * @return at most command.maxResults rows, in key order
+     */
+    public RangeSliceReply getRangeSlice(RangeSliceCommand command)
+    throws IOException, ExecutionException, InterruptedException
+    {
+        getReadLock().lock();
+        try
+        {
+            return getRangeSliceUnsafe(command);
+        }
+        finally
+        {
+            getReadLock().unlock();
+        }
+    }
+
+    private RangeSliceReply getRangeSliceUnsafe(RangeSliceCommand command) throws IOException, ExecutionException, InterruptedException
+    {
+        final DecoratedKey stopAtDK = StorageService.getPartitioner().decorateKey(command.stopAt);
+        List<Iterator<DecoratedKey>> iterators = new ArrayList<Iterator<DecoratedKey>>();
+        try
+        {
+            List<Row> rows = new ArrayList<Row>();
+            boolean rangeCompletedLocally = false;
+            for (DecoratedKey current : getKeyIterators(command.startWith, command.stopAt, iterators))
+            {
+                if (!command.stopAt.isEmpty() && stopAtDK.compareTo(current) < 0)
+                {
+                    rangeCompletedLocally = true;
+                    break;
+                }
+                ColumnFamily cf = getColumnFamily(command.getQueryFilter(current.key), Integer.MAX_VALUE);
+                if (hasColumns(cf, command.queryPath))
+                {
+                    Row row = new Row(table_, current.key);
+                    row.addColumnFamily(cf);
+                    rows.add(row);
+                }
+                if (rows.size() >= command.maxResults)
+                {
+                    rangeCompletedLocally = true;
+                    break;
+                }
+            }
+            return new RangeSliceReply(rows, rangeCompletedLocally);
+        }
+        finally
+        {
+            closeKeyIterators(iterators);
+        }
+    }
+
+    private static boolean hasColumns(ColumnFamily cf, QueryPath path)
+    {
+        if (cf == null || cf.getColumnCount() == 0)
+            return false;
+        // a super column read returns the super column itself even if none of its subcolumns matched
+        return path.superColumnName == null || !cf.getSortedColumns().iterator().next().getSubColumns().isEmpty();
+    }
+
+    /**
+     * Collates the keys from startWith on of the current memtable, the memtables being flushed,
+     * and the sstables.  The sources are added to iterators, which the caller must close with
+     * closeKeyIterators.
+     * @return each key once, in order; keys past stopAt may follow the last key in range
+     */
+    private Iterable<DecoratedKey> getKeyIterators(String startWith, final String stopAt, List<Iterator<DecoratedKey>> iterators) throws IOException, ExecutionException, InterruptedException
+    {
+        final DecoratedKey startWithDK = StorageService.getPartitioner().decorateKey(startWith);
+        final DecoratedKey stopAtDK = StorageService.getPartitioner().decorateKey(stopAt);
 
         // create a CollatedIterator that will return unique keys from different sources
         // (current memtable, historical memtables, and SSTables) in the correct order.
-        List<Iterator<String>> iterators = new ArrayList<Iterator<String>>();
 
-        // we iterate through memtables with a priority queue to avoid more sorting than necessary.
-        // this predicate throws out the keys before the start of our range.
+        // memtables iterate their keys in order starting from startWith.
+        // this predicate throws out the keys past the end of our range.
         Predicate p = new Predicate()
         {
             public boolean evaluate(Object key)
             {
-                String st = (String)key;
-                return comparator.compare(startWith, st) <= 0 && (stopAt.isEmpty() || comparator.compare(st, stopAt) <= 0);
+                DecoratedKey dk = (DecoratedKey)key;
+                return startWithDK.compareTo(dk) <= 0 && (stopAt.isEmpty() || dk.compareTo(stopAtDK) <= 0);
             }
         };
 
         // current memtable keys.  have to go through the CFS api for locking.
-        iterators.add(IteratorUtils.filteredIterator(memtableKeyIterator(), p));
+        iterators.add(IteratorUtils.filteredIterator(memtableKeyIterator(startWithDK), p));
         // historical memtables
         for (Memtable memtable : ColumnFamilyStore.getUnflushedMemtables(columnFamily_))
         {
-            iterators.add(IteratorUtils.filteredIterator(Memtable.getKeyIterator(memtable.getKeys()), p));
+            iterators.add(IteratorUtils.filteredIterator(memtable.getKeyIterator(startWithDK), p));
         }
 
         // sstables
         for (SSTableReader sstable : getSSTables())
         {
             FileStruct fs = sstable.getFileStruct();
-            fs.seekTo(startWith);
+            fs.seekTo(startWithDK);
             iterators.add(fs);
         }
 
-        Iterator<String> collated = IteratorUtils.collatedIterator(comparator, iterators);
-        Iterable<String> reduced = new ReducingIterator<String>(collated) {
-            String current;
+        Iterator<DecoratedKey> collated = IteratorUtils.collatedIterator(DecoratedKey.comparator, iterators);
+        return new ReducingIterator<DecoratedKey>(collated) {
+            DecoratedKey current;
 
-            public void reduce(String current)
+            public void reduce(DecoratedKey current)
             {
                  this.current = current;
             }
 
-            protected String getReduced()
+            protected DecoratedKey getReduced()
             {
                 return current;
             }
         };
+    }
 
-        try
-        {
-            // pull keys out of the CollatedIterator.  checking tombstone status is expensive,
-            // so we set an arbitrary limit on how many we'll do at once.
-            List<String> keys = new ArrayList<String>();
-            boolean rangeCompletedLocally = false;
-            for (String current : reduced)
-            {
-                if (!stopAt.isEmpty() && comparator.compare(stopAt, current) < 0)
-                {
-                    rangeCompletedLocally = true;
-                    break;
-                }
-                // make sure there is actually non-tombstone content associated w/ this key
-                // TODO record the key source(s) somehow and only check that source (e.g., memtable or sstable)
-                QueryFilter filter = new SliceQueryFilter(current, new QueryPath(columnFamily_), ArrayUtils.EMPTY_BYTE_ARRAY, ArrayUtils.EMPTY_BYTE_ARRAY, false, 1);
-                if (getColumnFamily(filter, Integer.MAX_VALUE) != null)
-                {
-                    keys.add(current);
-                }
-                if (keys.size() >= maxResults)
-                {
-                    rangeCompletedLocally = true;
-                    break;
-                }
-            }
-            return new RangeReply(keys, rangeCompletedLocally);
-        }
-        finally
+    private static void closeKeyIterators(List<Iterator<DecoratedKey>> iterators) throws IOException
+    {
+        for (Iterator iter : iterators)
         {
-            for (Iterator iter : iterators)
+            if (iter instanceof FileStruct)
             {
-                if (iter instanceof FileStruct)
-                {
-                    ((FileStruct)iter).close();
-                }
+                ((FileStruct)iter).close();
             }
         }
     }
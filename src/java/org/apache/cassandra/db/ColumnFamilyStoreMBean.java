@@ -57,29 +57,109 @@ public interface ColumnFamilyStoreMBean
     public void forceFlush();
 
     /**
-     * @return the number of read operations on this column family in the last minute
+     * @return the number of read operations on this column family since it was opened
      */
-    public int getReadCount();
+    public long getReadCount();
 
     /**
-     * @return average latency per read operation in the last minute
+     * @return the total latency of those read operations, in microseconds
      */
-    public double getReadLatency();
-    
+    public long getTotalReadLatencyMicros();
+
     /**
-     * @return the number of write operations on this column family in the last minute
+     * @return the mean latency of read operations since the last call, in microseconds, or NaN if there were none
      */
-    public int getWriteCount();
-    
+    public double getRecentReadLatencyMicros();
+
+    /**
+     * @return the 50th, 95th, 99th and 99.9th percentile read latencies, in microseconds
+     */
+    public double[] getReadLatencyPercentilesMicros();
+
     /**
-     * @return average latency per write operation in the last minute
+     * @return the 50th, 95th, 99th and 99.9th percentile read latencies since the last call, in microseconds
      */
-    public double getWriteLatency();
+    public double[] getRecentReadLatencyPercentilesMicros();
+
+    /**
+     * @return the number of write operations on this column family since it was opened
+     */
+    public long getWriteCount();
+
+    /**
+     * @return the total latency of those write operations, in microseconds
+     */
+    public long getTotalWriteLatencyMicros();
+
+    /**
+     * @return the mean latency of write operations since the last call, in microseconds, or NaN if there were none
+     */
+    public double getRecentWriteLatencyMicros();
+
+    /**
+     * @return the 50th, 95th, 99th and 99.9th percentile write latencies, in microseconds
+     */
+    public double[] getWriteLatencyPercentilesMicros();
+
+    /**
+     * @return the 50th, 95th, 99th and 99.9th percentile write latencies since the last call, in microseconds
+     */
+    public double[] getRecentWriteLatencyPercentilesMicros();
     
     /**
      * 
      * @return the estimated number of tasks pending for this column family
      */
     public int getPendingTasks();
-    
+
+    /**
+     * @return the number of key positions currently cached, over all SSTables
+     */
+    public int getKeyCacheSize();
+
+    /**
+     * @return the maximum number of key positions cached per SSTable
+     */
+    public int getKeyCacheCapacity();
+
+    public void setKeyCacheCapacity(int capacity);
+
+    /**
+     * @return the fraction of key cache lookups that were hits since the last call, or NaN if there were none
+     */
+    public double getRecentKeyCacheHitRate();
+
+    /**
+     * @return the number of rows currently cached
+     */
+    public int getRowCacheSize();
+
+    /**
+     * @return the maximum number of rows cached
+     */
+    public int getRowCacheCapacity();
+
+    public void setRowCacheCapacity(int capacity);
+
+    /**
+     * @return the fraction of row cache lookups that were hits since the last call, or NaN if there were none
+     */
+    public double getRecentRowCacheHitRate();
+
+    /**
+     * @return the approximate memory in KB held by cached column indexes, over all SSTables
+     */
+    public long getColumnIndexCacheSizeInKB();
+
+    /**
+     * @return the maximum memory in KB for cached column indexes per SSTable
+     */
+    public int getColumnIndexCacheCapacityInKB();
+
+    public void setColumnIndexCacheCapacityInKB(int capacityInKB);
+
+    /**
+     * @return the fraction of column index cache lookups that were hits since the last call, or NaN if there were none
+     */
+    public double getRecentColumnIndexCacheHitRate();
 }
@@ -18,13 +18,11 @@
 
 package org.apache.cassandra.db;
 
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.DataOutput;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Iterator;
 
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.io.DataOutputBuffer;
@@ -49,78 +47,55 @@ public class ColumnIndexer
     public static void serialize(ColumnFamily columnFamily, DataOutput dos) throws IOException
 	{
         Collection<IColumn> columns = columnFamily.getSortedColumns();
-        BloomFilter bf = createColumnBloomFilter(columns);                    
-        /* Write out the bloom filter. */
-        DataOutputBuffer bufOut = new DataOutputBuffer(); 
-        BloomFilter.serializer().serialize(bf, bufOut);
-        /* write the length of the serialized bloom filter. */
-        dos.writeInt(bufOut.getLength());
-        /* write out the serialized bytes. */
-        dos.write(bufOut.getData(), 0, bufOut.getLength());
-
-        /* Do the indexing */
-        doIndexing(columnFamily.getComparator(), columns, dos);
+        assert !columns.isEmpty();
+        RowIndexer indexer = new RowIndexer(columnFamily.getComparator());
+        for (IColumn column : columns)
+        {
+            indexer.add(column);
+        }
+        indexer.serialize(dos);
 	}
-    
+
     /**
-     * Create a bloom filter that contains the subcolumns and the columns that
-     * make up this Column Family.
-     * @param columns columns of the ColumnFamily
-     * @return BloomFilter with the summarized information.
+     * Accumulates the bloom filter and name index of a row as its columns are added in
+     * comparator order, so that a row can be indexed while it is being written instead
+     * of from a fully built ColumnFamily.
      */
-    private static BloomFilter createColumnBloomFilter(Collection<IColumn> columns)
+    public static class RowIndexer
     {
-        int columnCount = 0;
-        for (IColumn column : columns)
+        private final AbstractType comparator;
+        /* the names of the columns and subcolumns added, for the bloom filter */
+        private final List<byte[]> names = new ArrayList<byte[]>();
+        /*
+         * Maintains a list of ColumnIndexInfo objects for the columns in this
+         * column family. The key is the column name and the position is the
+         * relative offset of that column name from the start of the list.
+         * We do this so that we don't read all the columns into memory.
+         */
+        private final List<IndexHelper.IndexInfo> indexList = new ArrayList<IndexHelper.IndexInfo>();
+        private int indexSizeInBytes = 0;
+        private int endPosition = 0, startPosition = -1;
+        private IColumn column = null, firstColumn = null;
+
+        public RowIndexer(AbstractType comparator)
         {
-            columnCount += column.getObjectCount();
+            this.comparator = comparator;
         }
 
-        BloomFilter bf = new BloomFilter(columnCount, 4);
-        for (IColumn column : columns)
+        /** adds the next column of the row; columns must be added in the order they are written */
+        public void add(IColumn column)
         {
-            bf.add(column.name());
+            names.add(column.name());
             /* If this is SuperColumn type Column Family we need to get the subColumns too. */
             if (column instanceof SuperColumn)
             {
-                Collection<IColumn> subColumns = column.getSubColumns();
-                for (IColumn subColumn : subColumns)
+                for (IColumn subColumn : column.getSubColumns())
                 {
-                    bf.add(subColumn.name());
+                    names.add(subColumn.name());
                 }
             }
-        }
-        return bf;
-    }
 
-    /**
-     * Given the collection of columns in the Column Family,
-     * the name index is generated and written into the provided
-     * stream
-     * @param columns for whom the name index needs to be generated
-     * @param dos stream into which the serialized name index needs
-     *            to be written.
-     * @throws IOException
-     */
-    private static void doIndexing(AbstractType comparator, Collection<IColumn> columns, DataOutput dos) throws IOException
-    {
-        assert !columns.isEmpty();
-
-        /*
-         * Maintains a list of ColumnIndexInfo objects for the columns in this
-         * column family. The key is the column name and the position is the
-         * relative offset of that column name from the start of the list.
-         * We do this so that we don't read all the columns into memory.
-        */
-        List<IndexHelper.IndexInfo> indexList = new ArrayList<IndexHelper.IndexInfo>();
-        
-        int endPosition = 0, startPosition = -1;
-        int indexSizeInBytes = 0;
-        IColumn column = null, firstColumn = null;
-        /* column offsets at the right thresholds into the index map. */
-        for (Iterator<IColumn> it = columns.iterator(); it.hasNext();)
-        {
-            column = it.next();
+            this.column = column;
             if (firstColumn == null)
             {
                 firstColumn = column;
@@ -130,25 +105,50 @@ public class ColumnIndexer
             /* if we hit the column index size that we have to index after, go ahead and index it. */
             if (endPosition - startPosition >= DatabaseDescriptor.getColumnIndexSize())
             {
-                IndexHelper.IndexInfo cIndexInfo = new IndexHelper.IndexInfo(firstColumn.name(), column.name(), startPosition, endPosition - startPosition);
-                indexList.add(cIndexInfo);
-                indexSizeInBytes += cIndexInfo.serializedSize();
+                addIndexInfo(new IndexHelper.IndexInfo(firstColumn.name(), column.name(), startPosition, endPosition - startPosition));
                 firstColumn = null;
             }
         }
-        // the last column may have fallen on an index boundary already.  if not, index it explicitly.
-        if (indexList.isEmpty() || comparator.compare(indexList.get(indexList.size() - 1).lastName, column.name()) != 0)
+
+        private void addIndexInfo(IndexHelper.IndexInfo cIndexInfo)
         {
-            IndexHelper.IndexInfo cIndexInfo = new IndexHelper.IndexInfo(firstColumn.name(), column.name(), startPosition, endPosition - startPosition);
             indexList.add(cIndexInfo);
             indexSizeInBytes += cIndexInfo.serializedSize();
         }
 
-        assert indexSizeInBytes > 0;
-        dos.writeInt(indexSizeInBytes);
-        for (IndexHelper.IndexInfo cIndexInfo : indexList)
+        /**
+         * Writes the bloom filter, then the name index, of the columns added so far.
+         * A row without columns gets an empty index.
+         */
+        public void serialize(DataOutput dos) throws IOException
         {
-            cIndexInfo.serialize(dos);
+            /* Create a bloom filter that contains the subcolumns and the columns that make up this row */
+            BloomFilter bf = new BloomFilter(names.size(), 4);
+            for (byte[] name : names)
+            {
+                bf.add(name);
+            }
+            /* Write out the bloom filter. */
+            DataOutputBuffer bufOut = new DataOutputBuffer();
+            BloomFilter.serializer().serialize(bf, bufOut);
+            /* write the length of the serialized bloom filter. */
+            dos.writeInt(bufOut.getLength());
+            /* write out the serialized bytes. */
+            dos.write(bufOut.getData(), 0, bufOut.getLength());
+
+            // the last column may have fallen on an index boundary already.  if not, index it explicitly.
+            if (column != null
+                && (indexList.isEmpty() || comparator.compare(indexList.get(indexList.size() - 1).lastName, column.name()) != 0))
+            {
+                addIndexInfo(new IndexHelper.IndexInfo(firstColumn.name(), column.name(), startPosition, endPosition - startPosition));
+                firstColumn = null;
+            }
+
+            dos.writeInt(indexSizeInBytes);
+            for (IndexHelper.IndexInfo cIndexInfo : indexList)
+            {
+                cIndexInfo.serialize(dos);
+            }
         }
     }
 }
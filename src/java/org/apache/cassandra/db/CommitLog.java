@@ -18,6 +18,7 @@
 
 package org.apache.cassandra.db;
 
+import org.apache.cassandra.concurrent.ThreadFactoryImpl;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.io.BufferedRandomAccessFile;
 import org.apache.cassandra.io.DataInputBuffer;
@@ -30,12 +31,19 @@ import org.apache.log4j.Logger;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
-
-import org.apache.commons.lang.StringUtils;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /*
  * Commit Log tracks every write operation into the system. The aim
@@ -65,6 +73,14 @@ import org.apache.commons.lang.StringUtils;
  * means that either the CF was clean in the old CL or it has been flushed since the
  * switch in the new.)
  *
+ * Segments are created ahead of time at their full size and memory-mapped.  Writers
+ * reserve a region of the current segment and copy their entry into it without taking
+ * the log lock; only the first write of a column family to a segment updates the header.
+ * Rolling over switches to the segment created in the background after the last roll.
+ * A single syncer thread forces segments to disk: every CommitLogSyncPeriodInMS in
+ * periodic mode, or whenever a writer is waiting in batch mode, in which case every write
+ * that arrived during one sync is covered by the next.
+ *
  * The CommitLog class itself is "mostly a singleton."  open() always returns one
  * instance, but log replay will bypass that.
  */
@@ -75,9 +91,9 @@ public class CommitLog
     private static Lock lock_ = new ReentrantLock();
     private static Logger logger_ = Logger.getLogger(CommitLog.class);
     private static Map<String, CommitLogHeader> clHeaders_ = new HashMap<String, CommitLogHeader>();
-
-    private ExecutorService executor;
-
+    private static long lastCreationTime_;
+    /* bounds the entries read during replay but not yet applied */
+    private static final int MAX_PENDING_REPLAY_BYTES = 64*1024*1024;
 
     public static final class CommitLogContext
     {
@@ -149,20 +165,46 @@ public class CommitLog
         return instance_;
     }
 
-    /* Current commit log file */
-    private String logFile_;
-    /* header for current commit log */
+    /* segment currently being appended to */
+    private volatile CommitLogSegment segment_;
+    /* header for current commit log; guarded by the CommitLog monitor */
     private CommitLogHeader clHeader_;
-    private BufferedRandomAccessFile logWriter_;
+    /* the segment to roll over to, created in the background */
+    private Future<CommitLogSegment> nextSegment_;
+    private ExecutorService segmentCreator_;
+    /* segments rolled away from, waiting for the syncer to force and close them */
+    private final Queue<CommitLogSegment> closing_ = new ConcurrentLinkedQueue<CommitLogSegment>();
+
+    /*
+     * add() holds the read lock while it fills its region of the segment, so taking the
+     * write lock waits out the entries in progress and gives sync and roll-over a position
+     * with only complete entries before it.  Always taken before the CommitLog monitor.
+     */
+    private final ReadWriteLock barrier_ = new ReentrantReadWriteLock();
+
+    /* logical positions (see CommitLogSegment.logicalPosition) synced so far, and waited for in batch mode */
+    private final Lock syncLock_ = new ReentrantLock();
+    private final Condition syncRequested_ = syncLock_.newCondition();
+    private final Condition synced_ = syncLock_.newCondition();
+    private long syncedPosition_ = -1;
+    private long requestedPosition_ = -1;
 
     /*
-     * Generates a file name of the format CommitLog-<table>-<timestamp>.log in the
-     * directory specified by the Database Descriptor.
+     * Generates a file name of the format CommitLog-<timestamp>.log in the
+     * directory specified by the Database Descriptor.  Timestamps are unique,
+     * since segments may be created within the same millisecond.
     */
-    private void setNextFileName()
+    private static synchronized String getNextFileName()
     {
-        logFile_ = DatabaseDescriptor.getLogFileLocation() + File.separator +
-                   "CommitLog-" + System.currentTimeMillis() + ".log";
+        lastCreationTime_ = Math.max(System.currentTimeMillis(), lastCreationTime_ + 1);
+        return DatabaseDescriptor.getLogFileLocation() + File.separator +
+               "CommitLog-" + lastCreationTime_ + ".log";
+    }
+
+    private static CommitLogSegment createSegment(int size) throws IOException
+    {
+        CommitLogHeader header = new CommitLogHeader(Table.TableMetadata.getColumnFamilyCount());
+        return new CommitLogSegment(getNextFileName(), size, header);
     }
 
     /*
@@ -175,66 +217,43 @@ public class CommitLog
     {
         if (!recoveryMode)
         {
-            executor = new CommitLogExecutorService();
-            setNextFileName();
-            logWriter_ = CommitLog.createWriter(logFile_);
-            writeCommitLogHeader();
+            clHeader_ = new CommitLogHeader(Table.TableMetadata.getColumnFamilyCount());
+            segment_ = createSegment(SEGMENT_SIZE);
+            segmentCreator_ = Executors.newSingleThreadExecutor(new ThreadFactoryImpl("COMMIT-LOG-ALLOCATOR"));
+            nextSegment_ = segmentCreator_.submit(new SegmentCreator());
 
-            if (DatabaseDescriptor.getCommitLogSync() == DatabaseDescriptor.CommitLogSync.periodic)
+            new Thread(new Runnable()
             {
-                final Runnable syncer = new Runnable()
+                public void run()
                 {
-                    public void run()
+                    while (true)
                     {
                         try
                         {
+                            if (DatabaseDescriptor.getCommitLogSync() == DatabaseDescriptor.CommitLogSync.batch)
+                                awaitSyncRequest();
+                            else
+                                Thread.sleep(DatabaseDescriptor.getCommitLogSyncPeriod());
                             sync();
                         }
-                        catch (IOException e)
+                        catch (InterruptedException e)
                         {
                             throw new RuntimeException(e);
                         }
-                    }
-                };
-
-                new Thread(new Runnable()
-                {
-                    public void run()
-                    {
-                        while (true)
+                        catch (IOException e)
                         {
-                            executor.submit(syncer);
-                            try
-                            {
-                                Thread.sleep(DatabaseDescriptor.getCommitLogSyncPeriod());
-                            }
-                            catch (InterruptedException e)
-                            {
-                                throw new RuntimeException(e);
-                            }
+                            logger_.error("Unable to sync the commit log", e);
+                            throw new RuntimeException(e);
                         }
                     }
-                }).start();
-            }
+                }
+            }, "COMMIT-LOG-SYNCER").start();
         }
     }
 
-    /*
-     * This ctor is currently used only for debugging. We
-     * are now using it to modify the header so that recovery
-     * can be tested in as many scenarios as we could imagine.
-     *
-     * param @ logFile - logfile which we wish to modify.
-    */
-    CommitLog(File logFile) throws IOException
-    {
-        logFile_ = logFile.getAbsolutePath();
-        logWriter_ = CommitLog.createWriter(logFile_);
-    }
-
     String getLogFile()
     {
-        return logFile_;
+        return segment_.getPath();
     }
     
     private CommitLogHeader readCommitLogHeader(BufferedRandomAccessFile logReader) throws IOException
@@ -246,28 +265,6 @@ public class CommitLog
         return CommitLogHeader.serializer().deserialize(new DataInputStream(byteStream));
     }
 
-    /*
-     * This is invoked on startup via the ctor. It basically
-     * writes a header with all bits set to zero.
-    */
-    private void writeCommitLogHeader() throws IOException
-    {
-        int cfSize = Table.TableMetadata.getColumnFamilyCount();
-        clHeader_ = new CommitLogHeader(cfSize);
-        writeCommitLogHeader(logWriter_, clHeader_.toByteArray());
-    }
-
-    /** writes header at the beginning of the file, then seeks back to current position */
-    private void seekAndWriteCommitLogHeader(byte[] bytes) throws IOException
-    {
-        long currentPos = logWriter_.getFilePointer();
-        logWriter_.seek(0);
-
-        writeCommitLogHeader(logWriter_, bytes);
-
-        logWriter_.seek(currentPos);
-    }
-
     private static void writeCommitLogHeader(RandomAccessFile logWriter, byte[] bytes) throws IOException
     {
         logWriter.writeLong(bytes.length);
@@ -276,142 +273,268 @@ public class CommitLog
 
     void recover(File[] clogs) throws IOException
     {
-        DataInputBuffer bufIn = new DataInputBuffer();
-
-        for (File file : clogs)
+        /*
+         * This thread reads the entries; each one is deserialized and applied by one of
+         * several single-threaded executors, chosen by key so that the mutations to a key
+         * are applied in log order.  Memtables that fill up are flushed as replay goes.
+        */
+        ExecutorService[] replayers = new ExecutorService[Runtime.getRuntime().availableProcessors()];
+        ThreadFactoryImpl threadFactory = new ThreadFactoryImpl("COMMIT-LOG-REPLAY");
+        for (int i = 0; i < replayers.length; i++)
         {
-            int bufferSize = (int)Math.min(file.length(), 32 * 1024 * 1024);
-            BufferedRandomAccessFile reader = new BufferedRandomAccessFile(file.getAbsolutePath(), "r", bufferSize);
-            CommitLogHeader clHeader = readCommitLogHeader(reader);
-            /* seek to the lowest position where any CF has non-flushed data */
-            int lowPos = CommitLogHeader.getLowestPosition(clHeader);
-            if (lowPos == 0)
-                break;
-
-            reader.seek(lowPos);
-            if (logger_.isDebugEnabled())
-                logger_.debug("Replaying " + file + " starting at " + lowPos);
-
-            Set<Table> tablesRecovered = new HashSet<Table>();
+            replayers[i] = Executors.newSingleThreadExecutor(threadFactory);
+        }
+        final Semaphore pendingBytes = new Semaphore(MAX_PENDING_REPLAY_BYTES);
+        final Set<Table> tablesRecovered = Collections.synchronizedSet(new HashSet<Table>());
+        final Queue<Future<?>> flushes = new ConcurrentLinkedQueue<Future<?>>();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
 
-            /* read the logs populate RowMutation and apply */
-            while (!reader.isEOF())
+        long start = System.currentTimeMillis();
+        long bytesReplayed = 0;
+        DataInputBuffer bufIn = new DataInputBuffer();
+        try
+        {
+            for (File file : clogs)
             {
-                if (logger_.isDebugEnabled())
-                    logger_.debug("Reading mutation at " + reader.getFilePointer());
-
-                byte[] bytes;
-                try
+                int bufferSize = (int)Math.min(file.length(), 32 * 1024 * 1024);
+                BufferedRandomAccessFile reader = new BufferedRandomAccessFile(file.getAbsolutePath(), "r", bufferSize);
+                final CommitLogHeader clHeader = readCommitLogHeader(reader);
+                /* seek to the lowest position where any CF has non-flushed data */
+                int lowPos = CommitLogHeader.getLowestPosition(clHeader);
+                if (lowPos == 0)
                 {
-                    bytes = new byte[(int) reader.readLong()]; // readlong can throw EOFException too
-                    if (reader.read(bytes) < bytes.length)
-                    {
-                        throw new EOFException();
-                    }
+                    // nothing was written to this segment since it was created or rolled over to
+                    reader.close();
+                    continue;
                 }
-                catch (EOFException e)
-                {
-                    // last CL entry didn't get completely written.  that's ok.
-                    break;
-                }
-                bufIn.reset(bytes, bytes.length);
 
-                /* read the commit log entry */
-                Row row = Row.serializer().deserialize(bufIn);
+                reader.seek(lowPos);
                 if (logger_.isDebugEnabled())
-                    logger_.debug(String.format("replaying mutation for %s.%s: %s",
-                                                row.getTable(),
-                                                row.key(),
-                                                "{" + StringUtils.join(row.getColumnFamilies(), ", ") + "}"));
-                Table table = Table.open(row.getTable());
-                tablesRecovered.add(table);
-                Collection<ColumnFamily> columnFamilies = new ArrayList<ColumnFamily>(row.getColumnFamilies());
-                /* remove column families that have already been flushed */
-                for (ColumnFamily columnFamily : columnFamilies)
+                    logger_.debug("Replaying " + file + " starting at " + lowPos);
+
+                /* read the logs populate RowMutation and apply */
+                while (!reader.isEOF() && failure.get() == null)
                 {
-                    int id = table.getColumnFamilyId(columnFamily.name());
-                    if (!clHeader.isDirty(id) || reader.getFilePointer() < clHeader.getPosition(id))
+                    if (logger_.isDebugEnabled())
+                        logger_.debug("Reading mutation at " + reader.getFilePointer());
+
+                    final byte[] bytes;
+                    try
+                    {
+                        long length = reader.readLong(); // readlong can throw EOFException too
+                        if (length == 0)
+                        {
+                            // the rest of the segment was allocated up front and never written
+                            break;
+                        }
+                        bytes = new byte[(int) length];
+                        if (reader.read(bytes) < bytes.length)
+                        {
+                            throw new EOFException();
+                        }
+                    }
+                    catch (EOFException e)
                     {
-                        row.removeColumnFamily(columnFamily);
+                        // last CL entry didn't get completely written.  that's ok.
+                        break;
                     }
+                    final long entryEnd = reader.getFilePointer();
+                    bytesReplayed += 8 + bytes.length;
+
+                    /* the entry starts with the table and key, which is all we need to pick its replayer */
+                    bufIn.reset(bytes, bytes.length);
+                    bufIn.readUTF();
+                    String key = bufIn.readUTF();
+
+                    final int permits = Math.min(bytes.length, MAX_PENDING_REPLAY_BYTES);
+                    pendingBytes.acquireUninterruptibly(permits);
+                    replayers[(key.hashCode() & Integer.MAX_VALUE) % replayers.length].execute(new Runnable()
+                    {
+                        public void run()
+                        {
+                            try
+                            {
+                                replay(bytes, clHeader, entryEnd, tablesRecovered, flushes);
+                            }
+                            catch (Throwable e)
+                            {
+                                failure.compareAndSet(null, e);
+                            }
+                            finally
+                            {
+                                pendingBytes.release(permits);
+                            }
+                        }
+                    });
                 }
-                if (!row.isEmpty())
+                reader.close();
+            }
+        }
+        finally
+        {
+            for (ExecutorService replayer : replayers)
+            {
+                replayer.shutdown();
+            }
+            for (ExecutorService replayer : replayers)
+            {
+                try
+                {
+                    replayer.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
                 {
-                    table.applyNow(row);
+                    throw new RuntimeException(e);
                 }
             }
-            reader.close();
-            /* apply the rows read -- success will result in the CL file being discarded */
-            for (Table table : tablesRecovered)
+        }
+        if (failure.get() != null)
+        {
+            throw new RuntimeException("Unable to replay the commit log", failure.get());
+        }
+
+        /* apply the rows read -- success will result in the CL file being discarded */
+        for (Table table : tablesRecovered)
+        {
+            table.flush(true);
+        }
+        Table.waitForFlushes(flushes);
+
+        long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+        logger_.info(String.format("Replayed %d bytes of commit log in %d ms (%.1f MB/s)",
+                                   bytesReplayed, elapsed, bytesReplayed / 1024.0 / 1024.0 / (elapsed / 1000.0)));
+    }
+
+    private static void replay(byte[] bytes, CommitLogHeader clHeader, long entryEnd, Set<Table> tablesRecovered, Collection<Future<?>> flushes) throws IOException
+    {
+        DataInputBuffer bufIn = new DataInputBuffer();
+        bufIn.reset(bytes, bytes.length);
+
+        /* read the commit log entry */
+        Row row = Row.serializer().deserialize(bufIn);
+        if (logger_.isDebugEnabled())
+            logger_.debug(String.format("replaying mutation for %s.%s: %s",
+                                        row.getTable(),
+                                        row.key(),
+                                        "{" + StringUtils.join(row.getColumnFamilies(), ", ") + "}"));
+        Table table = Table.open(row.getTable());
+        tablesRecovered.add(table);
+        Collection<ColumnFamily> columnFamilies = new ArrayList<ColumnFamily>(row.getColumnFamilies());
+        /* remove column families that have already been flushed */
+        for (ColumnFamily columnFamily : columnFamilies)
+        {
+            int id = table.getColumnFamilyId(columnFamily.name());
+            if (!clHeader.isDirty(id) || entryEnd < clHeader.getPosition(id))
             {
-                table.flush(true);
+                row.removeColumnFamily(columnFamily);
             }
         }
+        if (!row.isEmpty())
+        {
+            table.applyNow(row, flushes);
+        }
     }
 
     /*
-     * Update the header of the commit log if a new column family
-     * is encountered for the first time.
+     * Update the header of the commit log if a column family is written
+     * for the first time since it was flushed or the log rolled over, or if
+     * this entry lies before the position recorded by a concurrent writer.
+     * The common case, where the header already covers this entry, is decided
+     * from the segment's copy of the positions without taking the monitor.
     */
-    private void maybeUpdateHeader(Row row) throws IOException
+    private void maybeUpdateHeader(Row row, CommitLogSegment segment, int offset) throws IOException
     {
         Table table = Table.open(row.getTable());
+        boolean covered = true;
         for (ColumnFamily columnFamily : row.getColumnFamilies())
         {
-            int id = table.getColumnFamilyId(columnFamily.name());
-            if (!clHeader_.isDirty(id) || (clHeader_.isDirty(id) && clHeader_.getPosition(id) == 0))
+            int position = segment.headerPositions.get(table.getColumnFamilyId(columnFamily.name()));
+            if (position == 0 || offset < position)
+            {
+                covered = false;
+                break;
+            }
+        }
+        if (covered)
+            return;
+
+        synchronized (this)
+        {
+            assert segment == segment_;
+            boolean changed = false;
+            for (ColumnFamily columnFamily : row.getColumnFamilies())
             {
-                clHeader_.turnOn(id, logWriter_.getFilePointer());
-                seekAndWriteCommitLogHeader(clHeader_.toByteArray());
+                int id = table.getColumnFamilyId(columnFamily.name());
+                if (!clHeader_.isDirty(id) || clHeader_.getPosition(id) == 0 || offset < clHeader_.getPosition(id))
+                {
+                    clHeader_.turnOn(id, offset);
+                    changed = true;
+                }
+                segment.headerPositions.set(id, clHeader_.getPosition(id));
             }
+            if (changed)
+                segment.writeHeader(clHeader_.toByteArray());
         }
     }
     
     CommitLogContext getContext() throws IOException
     {
-        Callable<CommitLogContext> task = new Callable<CommitLogContext>()
-        {
-            public CommitLogContext call() throws Exception
-            {
-                return new CommitLogContext(logFile_, logWriter_.getFilePointer());
-            }
-        };
+        barrier_.writeLock().lock();
         try
         {
-            return executor.submit(task).get();
+            CommitLogSegment segment = segment_;
+            return new CommitLogContext(segment.getPath(), segment.getPosition());
         }
-        catch (InterruptedException e)
+        finally
         {
-            throw new RuntimeException(e);
-        }
-        catch (ExecutionException e)
-        {
-            throw new RuntimeException(e);
+            barrier_.writeLock().unlock();
         }
     }
 
     /*
-     * Adds the specified row to the commit log. This method will reset the
-     * file offset to what it is before the start of the operation in case
-     * of any problems. This way we can assume that the subsequent commit log
-     * entry will override the garbage left over by the previous write.
+     * Adds the specified row to the commit log.  In batch mode, this
+     * does not return until the entry has been synced to disk.
     */
-    CommitLogContext add(final Row row) throws IOException
+    CommitLogContext add(Row row) throws IOException
     {
-        Callable<CommitLogContext> task = new LogRecordAdder(row);
-
+        /* serialize the row */
+        DataOutputBuffer cfBuffer = new DataOutputBuffer();
+        Row.serializer().serialize(row, cfBuffer);
+        int length = cfBuffer.getLength();
+
+        CommitLogSegment segment;
+        int offset;
+        barrier_.readLock().lock();
         try
         {
-            return executor.submit(task).get();
-        }
-        catch (InterruptedException e)
-        {
-            throw new RuntimeException(e);
+            while (true)
+            {
+                segment = segment_;
+                offset = segment.allocate(length);
+                if (offset >= 0)
+                    break;
+
+                barrier_.readLock().unlock();
+                try
+                {
+                    rollOver(segment, length);
+                }
+                finally
+                {
+                    barrier_.readLock().lock();
+                }
+            }
+            maybeUpdateHeader(row, segment, offset);
+            segment.write(offset, cfBuffer.getData(), length);
         }
-        catch (ExecutionException e)
+        finally
         {
-            throw new RuntimeException(e);
+            barrier_.readLock().unlock();
         }
+
+        if (DatabaseDescriptor.getCommitLogSync() == DatabaseDescriptor.CommitLogSync.batch)
+            awaitSync(segment.logicalPosition(offset + 8 + length));
+        return new CommitLogContext(segment.getPath(), offset);
     }
 
     /*
@@ -420,30 +543,10 @@ public class CommitLog
      * The bit flag associated with this column family is set in the
      * header and this is used to decide if the log file can be deleted.
     */
-    void onMemtableFlush(final String tableName, final String cf, final CommitLog.CommitLogContext cLogCtx) throws IOException
+    void onMemtableFlush(String tableName, String cf, CommitLog.CommitLogContext cLogCtx) throws IOException
     {
-        Callable task = new Callable()
-        {
-            public Object call() throws IOException
-            {
-                Table table = Table.open(tableName);
-                int id = table.getColumnFamilyId(cf);
-                discardCompletedSegments(cLogCtx, id);
-                return null;
-            }
-        };
-        try
-        {
-            executor.submit(task).get();
-        }
-        catch (InterruptedException e)
-        {
-            throw new RuntimeException(e);
-        }
-        catch (ExecutionException e)
-        {
-            throw new RuntimeException(e);
-        }
+        Table table = Table.open(tableName);
+        discardCompletedSegments(cLogCtx, table.getColumnFamilyId(cf));
     }
 
     /*
@@ -453,13 +556,13 @@ public class CommitLog
      * param @ id id of the columnFamily being flushed to disk.
      *
     */
-    private void discardCompletedSegments(CommitLog.CommitLogContext cLogCtx, int id) throws IOException
+    private synchronized void discardCompletedSegments(CommitLog.CommitLogContext cLogCtx, int id) throws IOException
     {
         /* retrieve the commit log header associated with the file in the context */
         CommitLogHeader commitLogHeader = clHeaders_.get(cLogCtx.file);
         if(commitLogHeader == null )
         {
-            if( logFile_.equals(cLogCtx.file) )
+            if( segment_.getPath().equals(cLogCtx.file) )
             {
                 /* this means we are dealing with the current commit log. */
                 commitLogHeader = clHeader_;
@@ -500,7 +603,17 @@ public class CommitLog
                  * perform & operation and then turn on with the new position.
                 */
                 commitLogHeader.turnOn(id, cLogCtx.position);
-                seekAndWriteCommitLogHeader(commitLogHeader.toByteArray());
+                if (oldFile.equals(segment_.getPath()))
+                {
+                    segment_.headerPositions.set(id, (int) cLogCtx.position);
+                    segment_.writeHeader(commitLogHeader.toByteArray());
+                }
+                else
+                {
+                    RandomAccessFile logWriter = CommitLog.createWriter(oldFile);
+                    writeCommitLogHeader(logWriter, commitLogHeader.toByteArray());
+                    logWriter.close();
+                }
                 break;
             }
             else
@@ -529,66 +642,149 @@ public class CommitLog
         }
     }
 
-    private boolean maybeRollLog() throws IOException
+    /*
+     * Rolls the given (full) segment over to the next one, unless another
+     * writer has already done so.  An entry too large for a regular segment
+     * gets a segment of its own.
+    */
+    private void rollOver(CommitLogSegment full, int length) throws IOException
     {
-        if (logWriter_.length() >= SEGMENT_SIZE)
-        {
-            /* Rolls the current log file over to a new one. */
-            setNextFileName();
-            String oldLogFile = logWriter_.getPath();
-            logWriter_.close();
-
-            /* point reader/writer to a new commit log file. */
-            logWriter_ = CommitLog.createWriter(logFile_);
-            /* squirrel away the old commit log header */
-            clHeaders_.put(oldLogFile, new CommitLogHeader(clHeader_));
-            // we leave the old 'dirty' bits alone, so we can test for
-            // whether it's safe to remove a given log segment by and-ing its dirty
-            // with the current one.
-            clHeader_.zeroPositions();
-            writeCommitLogHeader(logWriter_, clHeader_.toByteArray());
-            return true;
-        }
-        return false;
+        barrier_.writeLock().lock();
+        try
+        {
+            synchronized (this)
+            {
+                if (segment_ != full)
+                    return;
+
+                CommitLogSegment next = getNextSegment();
+                int required = CommitLogSegment.sizeFor(clHeader_, length);
+                if (next.capacity() < required)
+                {
+                    next.close();
+                    new File(next.getPath()).delete();
+                    next = createSegment(required);
+                }
+                nextSegment_ = segmentCreator_.submit(new SegmentCreator());
+
+                /* squirrel away the old commit log header */
+                clHeaders_.put(full.getPath(), new CommitLogHeader(clHeader_));
+                // we leave the old 'dirty' bits alone, so we can test for
+                // whether it's safe to remove a given log segment by and-ing its dirty
+                // with the current one.
+                clHeader_.zeroPositions();
+                next.writeHeader(clHeader_.toByteArray());
+                segment_ = next;
+                closing_.add(full);
+            }
+        }
+        finally
+        {
+            barrier_.writeLock().unlock();
+        }
+        if (logger_.isDebugEnabled())
+            logger_.debug("Rolled commit log over to " + segment_.getPath());
     }
 
-    void sync() throws IOException
+    private CommitLogSegment getNextSegment()
     {
-        logWriter_.sync();
+        try
+        {
+            return nextSegment_.get();
+        }
+        catch (InterruptedException e)
+        {
+            throw new RuntimeException(e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new RuntimeException(e);
+        }
     }
 
-    class LogRecordAdder implements Callable<CommitLog.CommitLogContext>
+    /*
+     * Forces everything written so far to disk.  Only called from the syncer thread.
+    */
+    private void sync() throws IOException
     {
-        Row row;
+        CommitLogSegment segment;
+        int position;
+        barrier_.writeLock().lock();
+        try
+        {
+            segment = segment_;
+            position = segment.getPosition();
+        }
+        finally
+        {
+            barrier_.writeLock().unlock();
+        }
 
-        LogRecordAdder(Row row)
+        /* segments rolled away from must be durable before anything after them counts as synced */
+        boolean closed = false;
+        CommitLogSegment old;
+        while ((old = closing_.poll()) != null)
         {
-            this.row = row;
+            old.close();
+            closed |= old == segment;
         }
+        if (!closed)
+            segment.sync();
 
-        public CommitLog.CommitLogContext call() throws Exception
+        syncLock_.lock();
+        try
         {
-            long currentPosition = -1L;
-            DataOutputBuffer cfBuffer = new DataOutputBuffer();
-            try
-            {
-                /* serialize the row */
-                Row.serializer().serialize(row, cfBuffer);
-                currentPosition = logWriter_.getFilePointer();
-                CommitLogContext cLogCtx = new CommitLogContext(logFile_, currentPosition);
-                /* Update the header */
-                maybeUpdateHeader(row);
-                logWriter_.writeLong(cfBuffer.getLength());
-                logWriter_.write(cfBuffer.getData(), 0, cfBuffer.getLength());
-                maybeRollLog();
-                return cLogCtx;
-            }
-            catch (IOException e)
+            syncedPosition_ = Math.max(syncedPosition_, segment.logicalPosition(position));
+            synced_.signalAll();
+        }
+        finally
+        {
+            syncLock_.unlock();
+        }
+    }
+
+    private void awaitSyncRequest() throws InterruptedException
+    {
+        syncLock_.lock();
+        try
+        {
+            while (requestedPosition_ <= syncedPosition_)
+                syncRequested_.await();
+        }
+        finally
+        {
+            syncLock_.unlock();
+        }
+    }
+
+    /*
+     * Waits for the syncer to cover the given logical position.  Writers
+     * arriving while a sync is in progress are all covered by the next one.
+    */
+    private void awaitSync(long position)
+    {
+        syncLock_.lock();
+        try
+        {
+            if (position > requestedPosition_)
             {
-                if ( currentPosition != -1 )
-                    logWriter_.seek(currentPosition);
-                throw e;
+                requestedPosition_ = position;
+                syncRequested_.signal();
             }
+            while (syncedPosition_ < position)
+                synced_.awaitUninterruptibly();
+        }
+        finally
+        {
+            syncLock_.unlock();
+        }
+    }
+
+    private static class SegmentCreator implements Callable<CommitLogSegment>
+    {
+        public CommitLogSegment call() throws IOException
+        {
+            return createSegment(SEGMENT_SIZE);
         }
     }
 }
@@ -0,0 +1,154 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One commit log file, sized up front and memory-mapped, so that appends are a copy into
+ * the mapping rather than a write call.  The layout is the same as a file written through
+ * a stream: [long header length][header] followed by [long length][serialized row] entries.
+ * The unused tail of the file is zeros, which replay reads as the end of the log.
+ *
+ * Writers reserve space with allocate() and may then fill their regions concurrently.
+ * Each entry's payload is written before its length, so a partially copied entry is never
+ * mistaken for a complete one.
+ */
+class CommitLogSegment
+{
+    private static final AtomicLong nextId = new AtomicLong();
+
+    private final long id;
+    private final String path;
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int headerEnd;
+    private final AtomicInteger position;
+
+    /*
+     * the header position of each column family as of the last header update, or 0 if unknown;
+     * an entry at or past a known position needs no header update, which lets add() skip the log lock.
+     */
+    final AtomicIntegerArray headerPositions;
+
+    CommitLogSegment(String path, int size, CommitLogHeader header) throws IOException
+    {
+        this.path = path;
+        id = nextId.getAndIncrement();
+        byte[] bytes = header.toByteArray();
+        headerEnd = 8 + bytes.length;
+        size = Math.max(size, headerEnd);
+
+        file = new RandomAccessFile(path, "rw");
+        file.setLength(size);
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        writeHeader(bytes);
+        position = new AtomicInteger(headerEnd);
+        headerPositions = new AtomicIntegerArray(Table.TableMetadata.getColumnFamilyCount());
+    }
+
+    /** @return the size of a segment that can hold one entry of the given length after the given header */
+    static int sizeFor(CommitLogHeader header, int entryLength) throws IOException
+    {
+        return 8 + header.toByteArray().length + 8 + entryLength;
+    }
+
+    String getPath()
+    {
+        return path;
+    }
+
+    int getPosition()
+    {
+        return position.get();
+    }
+
+    int capacity()
+    {
+        return buffer.capacity();
+    }
+
+    /**
+     * @return a position in the file numerically greater than that of every entry in an older segment
+     */
+    long logicalPosition(int offset)
+    {
+        return (id << 32) | offset;
+    }
+
+    /**
+     * Reserves room for an entry holding length bytes of row data.
+     * @return the offset of the entry, or -1 if the segment is full
+     */
+    int allocate(int length)
+    {
+        while (true)
+        {
+            int prev = position.get();
+            int next = prev + 8 + length;
+            if (next > buffer.capacity() || next < 0)
+                return -1;
+            if (position.compareAndSet(prev, next))
+                return prev;
+        }
+    }
+
+    /** copies an entry into the region returned by allocate() */
+    void write(int offset, byte[] bytes, int length)
+    {
+        ByteBuffer region = buffer.duplicate();
+        region.position(offset + 8);
+        region.put(bytes, 0, length);
+        buffer.putLong(offset, length);
+    }
+
+    /** header rewrites are not atomic; callers must serialize them */
+    void writeHeader(byte[] bytes)
+    {
+        assert 8 + bytes.length == headerEnd : "header size changed";
+        buffer.putLong(0, bytes.length);
+        ByteBuffer region = buffer.duplicate();
+        region.position(8);
+        region.put(bytes);
+    }
+
+    void sync()
+    {
+        buffer.force();
+    }
+
+    void close() throws IOException
+    {
+        buffer.force();
+        file.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CommitLogSegment(" + path + ')';
+    }
+}
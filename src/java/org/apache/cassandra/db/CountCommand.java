@@ -0,0 +1,107 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.db;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.cassandra.db.filter.CountQueryFilter;
+import org.apache.cassandra.db.filter.QueryPath;
+import org.apache.cassandra.io.DataInputBuffer;
+import org.apache.cassandra.io.DataOutputBuffer;
+import org.apache.cassandra.io.ICompactSerializer;
+import org.apache.cassandra.net.Message;
+import org.apache.cassandra.service.ColumnParent;
+import org.apache.cassandra.service.StorageService;
+
+/**
+ * Asks a replica for the number of live columns in a row, or in one of its supercolumns;
+ * the replica answers with a CountReply instead of the columns themselves.
+ */
+public class CountCommand
+{
+    private static CountCommandSerializer serializer = new CountCommandSerializer();
+
+    public final String table;
+    public final String key;
+    public final QueryPath queryPath;
+
+    public CountCommand(String table, String key, ColumnParent column_parent)
+    {
+        this(table, key, new QueryPath(column_parent));
+    }
+
+    public CountCommand(String table, String key, QueryPath queryPath)
+    {
+        this.table = table;
+        this.key = key;
+        this.queryPath = queryPath;
+    }
+
+    public Message getMessage() throws IOException
+    {
+        DataOutputBuffer dob = new DataOutputBuffer();
+        serializer.serialize(this, dob);
+        return new Message(StorageService.getLocalStorageEndPoint(),
+                           StorageService.readStage_,
+                           StorageService.countVerbHandler_,
+                           Arrays.copyOf(dob.getData(), dob.getLength()));
+    }
+
+    public static CountCommand read(Message message) throws IOException
+    {
+        byte[] bytes = message.getMessageBody();
+        DataInputBuffer dib = new DataInputBuffer();
+        dib.reset(bytes, bytes.length);
+        return serializer.deserialize(new DataInputStream(dib));
+    }
+
+    /** @return the number of live columns on this node */
+    public int getLiveColumnCount() throws IOException
+    {
+        ColumnFamilyStore store = Table.open(table).getColumnFamilyStore(queryPath.columnFamilyName);
+        return store.getLiveColumnCount(new CountQueryFilter(key, queryPath), ColumnFamilyStore.getDefaultGCBefore());
+    }
+
+    public String toString()
+    {
+        return "CountCommand(" +
+               "table='" + table + '\'' +
+               ", key='" + key + '\'' +
+               ", column_parent='" + queryPath + '\'' +
+               ')';
+    }
+}
+
+class CountCommandSerializer implements ICompactSerializer<CountCommand>
+{
+    public void serialize(CountCommand command, DataOutputStream dos) throws IOException
+    {
+        dos.writeUTF(command.table);
+        dos.writeUTF(command.key);
+        command.queryPath.serialize(dos);
+    }
+
+    public CountCommand deserialize(DataInputStream dis) throws IOException
+    {
+        return new CountCommand(dis.readUTF(), dis.readUTF(), QueryPath.deserialize(dis));
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.cassandra.db;
 import java.util.Collection;
 
 import org.apache.cassandra.db.marshal.AbstractType;
+import org.apache.cassandra.utils.Murmur3Digest;
 
 public interface IColumn
 {
@@ -40,7 +41,8 @@ public interface IColumn
     public void addColumn(IColumn column);
     public IColumn diff(IColumn column);
     public int getObjectCount();
-    public byte[] digest();
+    /** feeds everything replicas must agree on into digest, without allocating */
+    public void updateDigest(Murmur3Digest digest);
     public int getLocalDeletionTime(); // for tombstone GC, so int is sufficient granularity
     public String getString(AbstractType comparator);
 }
@@ -20,18 +20,16 @@ package org.apache.cassandra.db;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import org.apache.commons.lang.ArrayUtils;
-
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.dht.IPartitioner;
 import org.apache.cassandra.io.DataOutputBuffer;
 import org.apache.cassandra.io.SSTableReader;
 import org.apache.cassandra.io.SSTableWriter;
 import org.apache.cassandra.service.StorageService;
-import org.apache.cassandra.utils.DestructivePQIterator;
 import org.apache.cassandra.db.filter.*;
 import org.apache.cassandra.db.marshal.AbstractType;
 
@@ -41,7 +39,7 @@ public class Memtable implements Comparable<Memtable>
 {
 	private static Logger logger_ = Logger.getLogger( Memtable.class );
 
-    private boolean isFrozen_;
+    private volatile boolean isFrozen_;
     private volatile boolean isDirty_;
     private volatile boolean isFlushed_; // for tests, in particular forceBlockingFlush asserts this
 
@@ -55,7 +53,9 @@ public class Memtable implements Comparable<Memtable>
     private String cfName_;
     /* Creation time of this Memtable */
     private long creationTime_;
-    private Map<String, ColumnFamily> columnFamilies_ = new HashMap<String, ColumnFamily>();
+    private final IPartitioner partitioner_ = StorageService.getPartitioner();
+    /* kept in decorated key order, so flushing and key iteration need no sort */
+    private final ConcurrentNavigableMap<DecoratedKey, ColumnFamily> columnFamilies_ = new ConcurrentSkipListMap<DecoratedKey, ColumnFamily>();
     /* Lock and Condition for notifying new clients about Memtable switches */
 
     Memtable(String table, String cfName)
@@ -131,6 +131,7 @@ public class Memtable implements Comparable<Memtable>
      * Should only be called by ColumnFamilyStore.apply.  NOT a public API.
      * (CFS handles locking to avoid submitting an op
      *  to a flushing memtable.  Any other way is unsafe.)
+     * Any number of threads may put concurrently.
     */
     void put(String key, ColumnFamily columnFamily)
     {
@@ -141,15 +142,19 @@ public class Memtable implements Comparable<Memtable>
 
     /** flush synchronously (in the current thread, not on the executor).
      *  only the recover code should call this. */
-    void flushOnRecovery() throws IOException {
-        if (!isClean())
-            flush(CommitLog.CommitLogContext.NULL);
-    }
-
     private void resolve(String key, ColumnFamily columnFamily)
     {
-    	ColumnFamily oldCf = columnFamilies_.get(key);
-        if ( oldCf != null )
+        DecoratedKey decoratedKey = partitioner_.decorateKey(key);
+        ColumnFamily oldCf = columnFamilies_.putIfAbsent(decoratedKey, columnFamily);
+        if (oldCf == null)
+        {
+            currentSize_.addAndGet(columnFamily.size() + key.length());
+            currentObjectCount_.addAndGet(columnFamily.getColumnCount());
+            return;
+        }
+
+        // writes to different rows proceed in parallel; writes to the same row are merged one at a time
+        synchronized (oldCf)
         {
             int oldSize = oldCf.size();
             int oldObjectCount = oldCf.getColumnCount();
@@ -160,12 +165,6 @@ public class Memtable implements Comparable<Memtable>
             resolveCount(oldObjectCount, newObjectCount);
             oldCf.delete(columnFamily);
         }
-        else
-        {
-            columnFamilies_.put(key, columnFamily);
-            currentSize_.addAndGet(columnFamily.size() + key.length());
-            currentObjectCount_.addAndGet(columnFamily.getColumnCount());
-        }
     }
 
     // for debugging
@@ -173,7 +172,7 @@ public class Memtable implements Comparable<Memtable>
     {
         StringBuilder builder = new StringBuilder();
         builder.append("{");
-        for (Map.Entry<String, ColumnFamily> entry : columnFamilies_.entrySet())
+        for (Map.Entry<DecoratedKey, ColumnFamily> entry : columnFamilies_.entrySet())
         {
             builder.append(entry.getKey()).append(": ").append(entry.getValue()).append(", ");
         }
@@ -186,31 +185,17 @@ public class Memtable implements Comparable<Memtable>
         logger_.info("Flushing " + this);
         ColumnFamilyStore cfStore = Table.open(table_).getColumnFamilyStore(cfName_);
 
-        SSTableWriter writer = new SSTableWriter(cfStore.getTempSSTablePath(), columnFamilies_.size(), StorageService.getPartitioner());
+        SSTableWriter writer = new SSTableWriter(cfStore.getTempSSTablePath(), columnFamilies_.size(), partitioner_);
 
-        // sort keys in the order they would be in when decorated
-        final IPartitioner partitioner = StorageService.getPartitioner();
-        final Comparator<String> dc = partitioner.getDecoratedKeyComparator();
-        ArrayList<String> orderedKeys = new ArrayList<String>(columnFamilies_.keySet());
-        Collections.sort(orderedKeys, new Comparator<String>()
-        {
-            public int compare(String o1, String o2)
-            {
-                return dc.compare(partitioner.decorateKey(o1), partitioner.decorateKey(o2));
-            }
-        });
+        // the map is already in the order the keys must be written in
         DataOutputBuffer buffer = new DataOutputBuffer();
-        for (String key : orderedKeys)
+        for (Map.Entry<DecoratedKey, ColumnFamily> entry : columnFamilies_.entrySet())
         {
             buffer.reset();
-            ColumnFamily columnFamily = columnFamilies_.get(key);
-            if (columnFamily != null)
-            {
-                /* serialize the cf with column indexes */
-                ColumnFamily.serializer().serializeWithIndexes(columnFamily, buffer);
-                /* Now write the key and value to disk */
-                writer.append(partitioner.decorateKey(key), buffer);
-            }
+            /* serialize the cf with column indexes */
+            ColumnFamily.serializer().serializeWithIndexes(entry.getValue(), buffer);
+            /* Now write the key and value to disk */
+            writer.append(entry.getKey(), buffer);
         }
         SSTableReader ssTable = writer.closeAndOpenReader();
         cfStore.onMemtableFlush(cLogCtx);
@@ -226,24 +211,12 @@ public class Memtable implements Comparable<Memtable>
     }
 
     /**
-     * there does not appear to be any data structure that we can pass to PriorityQueue that will
-     * get it to heapify in-place instead of copying first, so we might as well return a Set.
-    */
-    Set<String> getKeys() throws ExecutionException, InterruptedException
-    {
-        return new HashSet<String>(columnFamilies_.keySet());
-    }
-
-    public static Iterator<String> getKeyIterator(Set<String> keys)
+     * @return the keys of this memtable, starting with startWith, in decorated order.  The iterator is
+     * weakly consistent: it reflects some, but not necessarily all, puts made after its creation.
+     */
+    Iterator<DecoratedKey> getKeyIterator(DecoratedKey startWith)
     {
-        if (keys.size() == 0)
-        {
-            // cannot create a PQ of size zero (wtf?)
-            return Arrays.asList(new String[0]).iterator();
-        }
-        PriorityQueue<String> pq = new PriorityQueue<String>(keys.size(), StorageService.getPartitioner().getDecoratedKeyComparator());
-        pq.addAll(keys);
-        return new DestructivePQIterator<String>(pq);
+        return columnFamilies_.tailMap(startWith).keySet().iterator();
     }
 
     public boolean isClean()
@@ -258,38 +231,26 @@ public class Memtable implements Comparable<Memtable>
      */
     public ColumnIterator getSliceIterator(SliceQueryFilter filter, AbstractType typeComparator)
     {
-        ColumnFamily cf = columnFamilies_.get(filter.key);
-        final ColumnFamily columnFamily = cf == null ? ColumnFamily.create(table_, filter.getColumnFamilyName()) : cf.cloneMeShallow();
+        ColumnFamily cf = columnFamilies_.get(partitioner_.decorateKey(filter.key));
+        if (cf == null)
+            cf = ColumnFamily.create(table_, filter.getColumnFamilyName());
+        return getSliceIterator(cf, filter, typeComparator);
+    }
+
+    /**
+     * obtain an iterator over the columns of cf matching the slice filter; the iterator's
+     * ColumnFamily is a shallow copy of cf, so cf itself is never modified.
+     */
+    public static ColumnIterator getSliceIterator(ColumnFamily cf, SliceQueryFilter filter, AbstractType typeComparator)
+    {
+        final ColumnFamily columnFamily = cf.cloneMeShallow();
 
-        final IColumn columns[] = (cf == null ? columnFamily : cf).getSortedColumns().toArray(new IColumn[columnFamily.getSortedColumns().size()]);
         // TODO if we are dealing with supercolumns, we need to clone them while we have the read lock since they can be modified later
-        if (filter.reversed)
-            ArrayUtils.reverse(columns);
-        IColumn startIColumn;
-        if (DatabaseDescriptor.getColumnFamilyType(table_, filter.getColumnFamilyName()).equals("Standard"))
-            startIColumn = new Column(filter.start);
-        else
-            startIColumn = new SuperColumn(filter.start, null); // ok to not have subcolumnComparator since we won't be adding columns to this object
-
-        // can't use a ColumnComparatorFactory comparator since those compare on both name and time (and thus will fail to match
-        // our dummy column, since the time there is arbitrary).
-        Comparator<IColumn> comparator = filter.getColumnComparator(typeComparator);
-        int index;
-        if (filter.start.length == 0 && filter.reversed)
-        {
-            /* scan from the largest column in descending order */
-            index = 0;
-        }
-        else
-        {
-            index = Arrays.binarySearch(columns, startIColumn, comparator);
-        }
-        final int startIndex = index < 0 ? -(index + 1) : index;
+        // walk the skip list from the start column; concurrent changes to cf may or may not be seen, but never out of order
+        final Iterator<IColumn> columns = cf.getSortedColumns(filter.start, filter.reversed).iterator();
 
         return new AbstractColumnIterator()
         {
-            private int curIndex_ = startIndex;
-
             public ColumnFamily getColumnFamily()
             {
                 return columnFamily;
@@ -297,20 +258,31 @@ public class Memtable implements Comparable<Memtable>
 
             public boolean hasNext()
             {
-                return curIndex_ < columns.length;
+                return columns.hasNext();
             }
 
             public IColumn next()
             {
-                return columns[curIndex_++];
+                return columns.next();
             }
         };
     }
 
     public ColumnIterator getNamesIterator(final NamesQueryFilter filter)
     {
-        final ColumnFamily cf = columnFamilies_.get(filter.key);
-        final ColumnFamily columnFamily = cf == null ? ColumnFamily.create(table_, filter.getColumnFamilyName()) : cf.cloneMeShallow();
+        ColumnFamily cf = columnFamilies_.get(partitioner_.decorateKey(filter.key));
+        if (cf == null)
+            cf = ColumnFamily.create(table_, filter.getColumnFamilyName());
+        return getNamesIterator(cf, filter);
+    }
+
+    /**
+     * obtain an iterator over the columns of cf named by the filter; the iterator's
+     * ColumnFamily is a shallow copy of cf, so cf itself is never modified.
+     */
+    public static ColumnIterator getNamesIterator(final ColumnFamily cf, final NamesQueryFilter filter)
+    {
+        final ColumnFamily columnFamily = cf.cloneMeShallow();
 
         return new SimpleAbstractColumnIterator()
         {
@@ -324,10 +296,6 @@ public class Memtable implements Comparable<Memtable>
 
             protected IColumn computeNext()
             {
-                if (cf == null)
-                {
-                    return endOfData();
-                }
                 while (iter.hasNext())
                 {
                     current = iter.next();
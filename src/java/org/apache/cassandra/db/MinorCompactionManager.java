@@ -19,21 +19,39 @@
 package org.apache.cassandra.db;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
-import org.apache.cassandra.concurrent.DebuggableScheduledThreadPoolExecutor;
 import org.apache.cassandra.concurrent.ThreadFactoryImpl;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.dht.Range;
 import org.apache.cassandra.net.EndPoint;
 
 import org.apache.log4j.Logger;
 
-class MinorCompactionManager
+/**
+ * Runs compactions on CompactionThreads threads.  Compactions of different column families run
+ * concurrently, but only one at a time runs for any column family, since they would otherwise
+ * pick the same sstables.  When a thread frees up it takes the waiting compaction whose column
+ * family needs it most (see ColumnFamilyStore.getCompactionPriority), with explicitly requested
+ * major, cleanup and anti-compactions ahead of minor ones.
+ *
+ * The rate compactions write at is limited, all together, to CompactionThroughputMBPerSec.
+ */
+public class MinorCompactionManager implements MinorCompactionManagerMBean
 {
     private static MinorCompactionManager instance_;
     private static Lock lock_ = new ReentrantLock();
@@ -149,7 +167,181 @@ class MinorCompactionManager
     }
     
     
-    private ScheduledExecutorService compactor_ = new DebuggableScheduledThreadPoolExecutor(1, new ThreadFactoryImpl("MINOR-COMPACTION-POOL"));
+    /* a compaction of one column family; minor compactions record their thresholds so duplicates can be dropped */
+    private static class CompactionTask<T> extends FutureTask<T>
+    {
+        final ColumnFamilyStore columnFamilyStore;
+        final boolean isMinor;
+        final int minThreshold;
+        final int maxThreshold;
+
+        CompactionTask(ColumnFamilyStore columnFamilyStore, Callable<T> callable, boolean isMinor, int minThreshold, int maxThreshold)
+        {
+            super(callable);
+            this.columnFamilyStore = columnFamilyStore;
+            this.isMinor = isMinor;
+            this.minThreshold = minThreshold;
+            this.maxThreshold = maxThreshold;
+        }
+    }
+
+    /* guarded by this */
+    private final List<CompactionTask<?>> pending_ = new ArrayList<CompactionTask<?>>();
+    private final Set<ColumnFamilyStore> compacting_ = new HashSet<ColumnFamilyStore>();
+
+    private final AtomicLong bytesCompacted_ = new AtomicLong();
+    /* nanoTime at which the throttle lets the next write through; guarded by throttleLock_ */
+    private final Object throttleLock_ = new Object();
+    private long nextWriteTime_;
+
+    private MinorCompactionManager()
+    {
+        ThreadFactoryImpl threadFactory = new ThreadFactoryImpl("MINOR-COMPACTION-POOL");
+        for (int i = 0; i < DatabaseDescriptor.getCompactionThreads(); i++)
+        {
+            threadFactory.newThread(new Runnable()
+            {
+                public void run()
+                {
+                    while (true)
+                    {
+                        CompactionTask<?> task;
+                        try
+                        {
+                            task = next();
+                        }
+                        catch (InterruptedException e)
+                        {
+                            throw new RuntimeException(e);
+                        }
+                        try
+                        {
+                            task.run();
+                            task.get();
+                        }
+                        catch (InterruptedException e)
+                        {
+                            throw new RuntimeException(e);
+                        }
+                        catch (ExecutionException e)
+                        {
+                            logger_.error("Error compacting " + task.columnFamilyStore.columnFamily_, e.getCause());
+                        }
+                        finally
+                        {
+                            finished(task);
+                        }
+                    }
+                }
+            }).start();
+        }
+
+        MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        try
+        {
+            mbs.registerMBean(this, new ObjectName("org.apache.cassandra.db:type=CompactionManager"));
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> Future<T> enqueue(CompactionTask<T> task)
+    {
+        if (task.isMinor)
+        {
+            // flushes submit a check every time; one waiting check per column family is enough
+            for (CompactionTask<?> existing : pending_)
+            {
+                if (existing.isMinor
+                    && existing.columnFamilyStore == task.columnFamilyStore
+                    && existing.minThreshold == task.minThreshold
+                    && existing.maxThreshold == task.maxThreshold)
+                {
+                    // safe: minor tasks are only created by submit(cfs, min, max), always as CompactionTask<Integer>
+                    return (Future<T>) existing;
+                }
+            }
+        }
+        pending_.add(task);
+        notifyAll();
+        return task;
+    }
+
+    /* waits for a pending compaction whose column family is not being compacted, and takes the most urgent */
+    private synchronized CompactionTask<?> next() throws InterruptedException
+    {
+        while (true)
+        {
+            CompactionTask<?> best = null;
+            long bestPriority = 0;
+            for (CompactionTask<?> task : pending_)
+            {
+                if (compacting_.contains(task.columnFamilyStore))
+                    continue;
+                if (!task.isMinor)
+                {
+                    best = task;
+                    break;
+                }
+                // a snapshot kept by the column family, so comparing it here costs no I/O or locking
+                long priority = task.columnFamilyStore.getCompactionPriority();
+                if (best == null || priority > bestPriority)
+                {
+                    best = task;
+                    bestPriority = priority;
+                }
+            }
+            if (best != null)
+            {
+                pending_.remove(best);
+                compacting_.add(best.columnFamilyStore);
+                return best;
+            }
+            wait();
+        }
+    }
+
+    private synchronized void finished(CompactionTask<?> task)
+    {
+        compacting_.remove(task.columnFamilyStore);
+        notifyAll();
+    }
+
+    /**
+     * Called by compactions as they write; counts the bytes and, if compaction is throttled,
+     * sleeps long enough to keep all compactions together under the configured rate.
+     */
+    void compacted(long bytes)
+    {
+        bytesCompacted_.addAndGet(bytes);
+        int throughput = DatabaseDescriptor.getCompactionThroughputMBPerSec();
+        if (throughput <= 0)
+            return;
+
+        long delay;
+        synchronized (throttleLock_)
+        {
+            long now = System.nanoTime();
+            long start = Math.max(nextWriteTime_, now);
+            nextWriteTime_ = start + bytes * 1000000000L / (throughput * 1024L * 1024L);
+            delay = start - now;
+        }
+        // short delays are left as debt in nextWriteTime_ rather than slept one at a time
+        if (delay >= 1000000)
+        {
+            try
+            {
+                Thread.sleep(delay / 1000000, (int) (delay % 1000000));
+            }
+            catch (InterruptedException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
+    }
 
     public Future<Integer> submit(final ColumnFamilyStore columnFamilyStore)
     {
@@ -165,21 +357,49 @@ class MinorCompactionManager
                 return columnFamilyStore.doCompaction(minThreshold, maxThreshold);
             }
         };
-        return compactor_.submit(callable);
+        return enqueue(new CompactionTask<Integer>(columnFamilyStore, callable, true, minThreshold, maxThreshold));
     }
 
     public void submitCleanup(ColumnFamilyStore columnFamilyStore)
     {
-        compactor_.submit(new CleanupCompactor(columnFamilyStore));
+        Callable<Object> callable = Executors.callable(new CleanupCompactor(columnFamilyStore));
+        enqueue(new CompactionTask<Object>(columnFamilyStore, callable, false, 0, 0));
     }
 
     public Future<Boolean> submit(ColumnFamilyStore columnFamilyStore, List<Range> ranges, EndPoint target, List<String> fileList)
     {
-        return compactor_.submit( new FileCompactor2(columnFamilyStore, ranges, target, fileList) );
+        Callable<Boolean> callable = new FileCompactor2(columnFamilyStore, ranges, target, fileList);
+        return enqueue(new CompactionTask<Boolean>(columnFamilyStore, callable, false, 0, 0));
     }
 
     public void  submitMajor(ColumnFamilyStore columnFamilyStore, long skip)
     {
-        compactor_.submit( new OnDemandCompactor(columnFamilyStore, skip) );
+        Callable<Object> callable = Executors.callable(new OnDemandCompactor(columnFamilyStore, skip));
+        enqueue(new CompactionTask<Object>(columnFamilyStore, callable, false, 0, 0));
+    }
+
+    public synchronized int getActiveCompactions()
+    {
+        return compacting_.size();
+    }
+
+    public synchronized int getPendingCompactions()
+    {
+        return pending_.size();
+    }
+
+    public long getBytesCompacted()
+    {
+        return bytesCompacted_.get();
+    }
+
+    public int getCompactionThroughputMBPerSec()
+    {
+        return DatabaseDescriptor.getCompactionThroughputMBPerSec();
+    }
+
+    public void setCompactionThroughputMBPerSec(int throughput)
+    {
+        DatabaseDescriptor.setCompactionThroughputMBPerSec(throughput);
     }
 }
@@ -0,0 +1,48 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db;
+
+/**
+ * The MBean interface for MinorCompactionManager
+ */
+public interface MinorCompactionManagerMBean
+{
+    /**
+     * @return the number of compactions currently running
+     */
+    public int getActiveCompactions();
+
+    /**
+     * @return the number of compactions waiting for a thread, or for another
+     * compaction of the same column family to finish
+     */
+    public int getPendingCompactions();
+
+    /**
+     * @return the total number of bytes written by compactions since startup
+     */
+    public long getBytesCompacted();
+
+    /**
+     * @return the limit on the rate all compactions write at together, in MB/s; 0 if unthrottled
+     */
+    public int getCompactionThroughputMBPerSec();
+
+    public void setCompactionThroughputMBPerSec(int throughput);
+}
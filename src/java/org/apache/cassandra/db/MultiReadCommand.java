@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.cassandra.io.ICompactSerializer;
+import org.apache.cassandra.net.Message;
+import org.apache.cassandra.service.StorageService;
+
+/**
+ * The reads of several keys from one replica, sent as a single message.  The replica
+ * answers with a MultiReadResponse holding a ReadResponse for each command, in order.
+ */
+public class MultiReadCommand
+{
+    private static ICompactSerializer<MultiReadCommand> serializer_ = new MultiReadCommandSerializer();
+
+    public static ICompactSerializer<MultiReadCommand> serializer()
+    {
+        return serializer_;
+    }
+
+    public final List<ReadCommand> commands;
+
+    public MultiReadCommand(List<ReadCommand> commands)
+    {
+        this.commands = commands;
+    }
+
+    public Message makeReadMessage() throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+        serializer().serialize(this, dos);
+        return new Message(StorageService.getLocalStorageEndPoint(), StorageService.readStage_, StorageService.multiReadVerbHandler_, bos.toByteArray());
+    }
+
+    public String toString()
+    {
+        return "MultiReadCommand(" + commands + ")";
+    }
+}
+
+class MultiReadCommandSerializer implements ICompactSerializer<MultiReadCommand>
+{
+    public void serialize(MultiReadCommand multiRead, DataOutputStream dos) throws IOException
+    {
+        dos.writeInt(multiRead.commands.size());
+        for (ReadCommand command : multiRead.commands)
+        {
+            ReadCommand.serializer().serialize(command, dos);
+        }
+    }
+
+    public MultiReadCommand deserialize(DataInputStream dis) throws IOException
+    {
+        int size = dis.readInt();
+        List<ReadCommand> commands = new ArrayList<ReadCommand>(size);
+        for (int i = 0; i < size; i++)
+        {
+            commands.add(ReadCommand.serializer().deserialize(dis));
+        }
+        return new MultiReadCommand(commands);
+    }
+}
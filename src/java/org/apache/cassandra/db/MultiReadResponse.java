@@ -0,0 +1,71 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.cassandra.io.ICompactSerializer;
+
+/**
+ * The answer to a MultiReadCommand: one ReadResponse per command, in the order of the commands,
+ * or null where the replica failed to read that command.
+ */
+public class MultiReadResponse
+{
+    private static ICompactSerializer<MultiReadResponse> serializer_ = new MultiReadResponseSerializer();
+
+    public static ICompactSerializer<MultiReadResponse> serializer()
+    {
+        return serializer_;
+    }
+
+    public final ReadResponse[] responses;
+
+    public MultiReadResponse(ReadResponse[] responses)
+    {
+        this.responses = responses;
+    }
+}
+
+class MultiReadResponseSerializer implements ICompactSerializer<MultiReadResponse>
+{
+    public void serialize(MultiReadResponse multiResponse, DataOutputStream dos) throws IOException
+    {
+        dos.writeInt(multiResponse.responses.length);
+        for (ReadResponse response : multiResponse.responses)
+        {
+            dos.writeBoolean(response != null);
+            if (response != null)
+                ReadResponse.serializer().serialize(response, dos);
+        }
+    }
+
+    public MultiReadResponse deserialize(DataInputStream dis) throws IOException
+    {
+        ReadResponse[] responses = new ReadResponse[dis.readInt()];
+        for (int i = 0; i < responses.length; i++)
+        {
+            if (dis.readBoolean())
+                responses[i] = ReadResponse.serializer().deserialize(dis);
+        }
+        return new MultiReadResponse(responses);
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+import org.apache.cassandra.concurrent.IStage;
+import org.apache.cassandra.concurrent.StageManager;
+import org.apache.cassandra.io.DataInputBuffer;
+import org.apache.cassandra.io.DataOutputBuffer;
+import org.apache.cassandra.net.IVerbHandler;
+import org.apache.cassandra.net.Message;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.service.StorageService;
+
+/**
+ * Runs the reads of a MultiReadCommand in parallel on the read stage and sends one
+ * MultiReadResponse once the last of them is done.  No thread waits for the others:
+ * the read that finishes last sends the response, so a stage full of multi-reads
+ * cannot deadlock waiting for reads queued behind them.  A read that fails leaves its
+ * response empty, as if a single read of that key had gone unanswered, and the others
+ * are still sent.
+ */
+public class MultiReadVerbHandler implements IVerbHandler
+{
+    private static Logger logger_ = Logger.getLogger(MultiReadVerbHandler.class);
+
+    public void doVerb(Message message)
+    {
+        if (StorageService.instance().isBootstrapMode())
+        {
+            /* Don't service reads! */
+            throw new RuntimeException("Cannot service reads while bootstrapping!");
+        }
+
+        byte[] body = message.getMessageBody();
+        DataInputBuffer bufIn = new DataInputBuffer();
+        bufIn.reset(body, body.length);
+        List<ReadCommand> commands;
+        try
+        {
+            commands = MultiReadCommand.serializer().deserialize(bufIn).commands;
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+
+        MultiRead multiRead = new MultiRead(message, commands);
+        IStage stage = StageManager.getStage(StorageService.readStage_);
+        // this thread is already on the read stage, so it takes the last read itself
+        for (int i = 0; i < commands.size() - 1; i++)
+        {
+            stage.execute(new SubRead(multiRead, i));
+        }
+        new SubRead(multiRead, commands.size() - 1).run();
+    }
+
+    /** the state shared by the reads of one MultiReadCommand */
+    private static class MultiRead
+    {
+        final Message message;
+        final List<ReadCommand> commands;
+        final boolean doRepair;
+        final ReadResponse[] responses;
+        /* reads not yet done; responses written before the decrement are visible to whoever reaches 0 */
+        final AtomicInteger remaining;
+
+        MultiRead(Message message, List<ReadCommand> commands)
+        {
+            this.message = message;
+            this.commands = commands;
+            doRepair = message.getHeader(ReadCommand.DO_REPAIR) != null;
+            responses = new ReadResponse[commands.size()];
+            remaining = new AtomicInteger(commands.size());
+        }
+
+        void respond()
+        {
+            DataOutputBuffer bufOut = new DataOutputBuffer();
+            try
+            {
+                MultiReadResponse.serializer().serialize(new MultiReadResponse(responses), bufOut);
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+            byte[] bytes = new byte[bufOut.getLength()];
+            System.arraycopy(bufOut.getData(), 0, bytes, 0, bytes.length);
+
+            Message response = message.getReply(StorageService.getLocalStorageEndPoint(), bytes);
+            if (logger_.isDebugEnabled())
+                logger_.debug("Read " + responses.length + " keys; sending response to " + message.getMessageId() + "@" + message.getFrom());
+            MessagingService.getMessagingInstance().sendOneWay(response, message.getFrom());
+        }
+    }
+
+    private static class SubRead implements Runnable
+    {
+        private final MultiRead multiRead;
+        private final int index;
+
+        SubRead(MultiRead multiRead, int index)
+        {
+            this.multiRead = multiRead;
+            this.index = index;
+        }
+
+        public void run()
+        {
+            ReadCommand command = multiRead.commands.get(index);
+            Row row;
+            try
+            {
+                row = command.getRow(Table.open(command.table));
+                multiRead.responses[index] = ReadResponse.forCommand(command, row);
+            }
+            catch (Exception e)
+            {
+                logger_.error("Error reading " + command + " for " + multiRead.message.getFrom(), e);
+                return;
+            }
+            finally
+            {
+                // every read counts down, even a failed one, or the response would never be sent
+                if (multiRead.remaining.decrementAndGet() == 0)
+                    multiRead.respond();
+            }
+
+            if (multiRead.doRepair)
+                ReadVerbHandler.doReadRepair(row, command);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.db;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.cassandra.db.filter.NamesQueryFilter;
+import org.apache.cassandra.db.filter.QueryFilter;
+import org.apache.cassandra.db.filter.QueryPath;
+import org.apache.cassandra.db.filter.SliceQueryFilter;
+import org.apache.cassandra.db.marshal.AbstractType;
+import org.apache.cassandra.io.DataInputBuffer;
+import org.apache.cassandra.io.DataOutputBuffer;
+import org.apache.cassandra.io.ICompactSerializer;
+import org.apache.cassandra.net.Message;
+import org.apache.cassandra.service.StorageService;
+
+/**
+ * Reads the rows with keys from startWith to stopAt, like RangeCommand, applying the same
+ * column predicate as SliceByNamesReadCommand (if columnNames is set) or SliceFromReadCommand
+ * (otherwise) to each row.
+ */
+public class RangeSliceCommand
+{
+    private static RangeSliceCommandSerializer serializer = new RangeSliceCommandSerializer();
+
+    public final String table;
+    public final QueryPath queryPath;
+
+    public final SortedSet<byte[]> columnNames;
+    public final byte[] start, finish;
+    public final boolean reversed;
+    public final int count;
+
+    public final String startWith;
+    public final String stopAt;
+    public final int maxResults;
+
+    /** a range read of the given column names from each row */
+    public RangeSliceCommand(String table, QueryPath queryPath, Collection<byte[]> columnNames, String startWith, String stopAt, int maxResults)
+    {
+        this(table, queryPath, columnNames, null, null, false, 0, startWith, stopAt, maxResults);
+    }
+
+    /** a range read of a slice of the columns of each row */
+    public RangeSliceCommand(String table, QueryPath queryPath, byte[] start, byte[] finish, boolean reversed, int count, String startWith, String stopAt, int maxResults)
+    {
+        this(table, queryPath, null, start, finish, reversed, count, startWith, stopAt, maxResults);
+    }
+
+    private RangeSliceCommand(String table, QueryPath queryPath, Collection<byte[]> columnNames, byte[] start, byte[] finish, boolean reversed, int count, String startWith, String stopAt, int maxResults)
+    {
+        this.table = table;
+        this.queryPath = queryPath;
+        if (columnNames == null)
+        {
+            this.columnNames = null;
+        }
+        else
+        {
+            this.columnNames = new TreeSet<byte[]>(getComparator());
+            this.columnNames.addAll(columnNames);
+        }
+        this.start = start;
+        this.finish = finish;
+        this.reversed = reversed;
+        this.count = count;
+        this.startWith = startWith;
+        this.stopAt = stopAt;
+        this.maxResults = maxResults;
+    }
+
+    private AbstractType getComparator()
+    {
+        return ColumnFamily.getComparatorFor(table, queryPath.columnFamilyName, queryPath.superColumnName);
+    }
+
+    /** @return the filter that reads the columns this command selects from the row for key */
+    public QueryFilter getQueryFilter(String key)
+    {
+        return columnNames != null
+               ? new NamesQueryFilter(key, queryPath, columnNames)
+               : new SliceQueryFilter(key, queryPath, start, finish, reversed, count);
+    }
+
+    public Message getMessage() throws IOException
+    {
+        DataOutputBuffer dob = new DataOutputBuffer();
+        serializer.serialize(this, dob);
+        return new Message(StorageService.getLocalStorageEndPoint(),
+                           StorageService.readStage_,
+                           StorageService.rangeSliceVerbHandler_,
+                           Arrays.copyOf(dob.getData(), dob.getLength()));
+    }
+
+    public static RangeSliceCommand read(Message message) throws IOException
+    {
+        byte[] bytes = message.getMessageBody();
+        DataInputBuffer dib = new DataInputBuffer();
+        dib.reset(bytes, bytes.length);
+        return serializer.deserialize(new DataInputStream(dib));
+    }
+
+    public String toString()
+    {
+        return "RangeSliceCommand(" +
+               "table='" + table + '\'' +
+               ", columnParent='" + queryPath + '\'' +
+               (columnNames != null
+                ? ", columns=[" + getComparator().getString(columnNames) + "]"
+                : ", start='" + getComparator().getString(start) + '\'' +
+                  ", finish='" + getComparator().getString(finish) + '\'' +
+                  ", reversed=" + reversed +
+                  ", count=" + count) +
+               ", startWith='" + startWith + '\'' +
+               ", stopAt='" + stopAt + '\'' +
+               ", maxResults=" + maxResults +
+               ')';
+    }
+}
+
+class RangeSliceCommandSerializer implements ICompactSerializer<RangeSliceCommand>
+{
+    public void serialize(RangeSliceCommand command, DataOutputStream dos) throws IOException
+    {
+        dos.writeUTF(command.table);
+        command.queryPath.serialize(dos);
+        dos.writeBoolean(command.columnNames != null);
+        if (command.columnNames != null)
+        {
+            dos.writeInt(command.columnNames.size());
+            for (byte[] name : command.columnNames)
+            {
+                ColumnSerializer.writeName(name, dos);
+            }
+        }
+        else
+        {
+            ColumnSerializer.writeName(command.start, dos);
+            ColumnSerializer.writeName(command.finish, dos);
+            dos.writeBoolean(command.reversed);
+            dos.writeInt(command.count);
+        }
+        dos.writeUTF(command.startWith);
+        dos.writeUTF(command.stopAt);
+        dos.writeInt(command.maxResults);
+    }
+
+    public RangeSliceCommand deserialize(DataInputStream dis) throws IOException
+    {
+        String table = dis.readUTF();
+        QueryPath queryPath = QueryPath.deserialize(dis);
+        if (dis.readBoolean())
+        {
+            int size = dis.readInt();
+            List<byte[]> columnNames = new ArrayList<byte[]>(size);
+            for (int i = 0; i < size; i++)
+            {
+                columnNames.add(ColumnSerializer.readName(dis));
+            }
+            return new RangeSliceCommand(table, queryPath, columnNames, dis.readUTF(), dis.readUTF(), dis.readInt());
+        }
+        byte[] start = ColumnSerializer.readName(dis);
+        byte[] finish = ColumnSerializer.readName(dis);
+        boolean reversed = dis.readBoolean();
+        int count = dis.readInt();
+        return new RangeSliceCommand(table, queryPath, start, finish, reversed, count, dis.readUTF(), dis.readUTF(), dis.readInt());
+    }
+}
@@ -56,6 +56,14 @@ private static ICompactSerializer<ReadResponse> serializer_;
         Message message = new Message(StorageService.getLocalStorageEndPoint(), MessagingService.responseStage_, MessagingService.responseVerbHandler_, bos.toByteArray());         
         return message;
     }
+
+    /** @return the answer to command: row itself, or just its digest if command is a digest query */
+    public static ReadResponse forCommand(ReadCommand command, Row row)
+    {
+        ReadResponse response = command.isDigestQuery() ? new ReadResponse(row.digest()) : new ReadResponse(row);
+        response.setIsDigestQuery(command.isDigestQuery());
+        return response;
+    }
 	
 	private Row row_;
 	private byte[] digest_ = ArrayUtils.EMPTY_BYTE_ARRAY;
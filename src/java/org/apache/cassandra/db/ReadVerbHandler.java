@@ -75,18 +75,8 @@ public class ReadVerbHandler implements IVerbHandler
             }
             ReadCommand readCommand = ReadCommand.serializer().deserialize(readCtx.bufIn_);
             Table table = Table.open(readCommand.table);
-            Row row = null;
-            row = readCommand.getRow(table);
-            ReadResponse readResponse = null;
-            if (readCommand.isDigestQuery())
-            {
-                readResponse = new ReadResponse(row.digest());
-            }
-            else
-            {
-                readResponse = new ReadResponse(row);
-            }
-            readResponse.setIsDigestQuery(readCommand.isDigestQuery());
+            Row row = readCommand.getRow(table);
+            ReadResponse readResponse = ReadResponse.forCommand(readCommand, row);
             /* serialize the ReadResponseMessage. */
             readCtx.bufOut_.reset();
 
@@ -112,7 +102,7 @@ public class ReadVerbHandler implements IVerbHandler
         }
     }
     
-    private void doReadRepair(Row row, ReadCommand readCommand)
+    static void doReadRepair(Row row, ReadCommand readCommand)
     {
         List<EndPoint> endpoints = StorageService.instance().getLiveReadStorageEndPoints(readCommand.key);
         /* Remove the local storage endpoint from the list. */ 
@@ -53,7 +53,14 @@ public class RecoveryManager
         if (files.length == 0)
             return;
 
-        Arrays.sort(files, new FileUtils.FileComparator());
+        // segments are written through a memory mapping, so modification times are not reliable
+        Arrays.sort(files, new Comparator<File>()
+        {
+            public int compare(File f, File f2)
+            {
+                return new CommitLog.CommitLogFileComparator().compare(f.getName(), f2.getName());
+            }
+        });
         logger_.info("Replaying " + StringUtils.join(files, ", "));
         new CommitLog(true).recover(files);
         FileUtils.delete(files);
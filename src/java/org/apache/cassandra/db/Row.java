@@ -32,7 +32,7 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 
 import org.apache.cassandra.io.ICompactSerializer;
-import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Murmur3Digest;
 
 public class Row
 {
@@ -168,22 +168,33 @@ public class Row
         return row;
     }
 
+    /**
+     * @return a 128 bit hash of the names, values, timestamps and tombstones in the row, or
+     * an empty array if there are none, for replicas to compare instead of the row itself
+     */
     public byte[] digest()
     {
-        Set<String> cfamilies = columnFamilies_.keySet();
-        byte[] xorHash = ArrayUtils.EMPTY_BYTE_ARRAY;
-        for (String cFamily : cfamilies)
+        Murmur3Digest digest = null;
+        // in name order, since replicas may have added the column families in any order
+        String[] cfNames = columnFamilies_.keySet().toArray(new String[columnFamilies_.size()]);
+        if (cfNames.length > 1)
+            Arrays.sort(cfNames);
+        for (String cfName : cfNames)
         {
-            if (xorHash.length == 0)
-            {
-                xorHash = columnFamilies_.get(cFamily).digest();
-            }
-            else
+            ColumnFamily cf = columnFamilies_.get(cfName);
+            if (cf.isEmpty())
+                continue;
+            if (digest == null)
+                digest = new Murmur3Digest();
+            digest.updateInt(cfName.length());
+            for (int i = 0; i < cfName.length(); i++)
             {
-                xorHash = FBUtilities.xor(xorHash, columnFamilies_.get(cFamily).digest());
+                digest.updateByte(cfName.charAt(i) >>> 8);
+                digest.updateByte(cfName.charAt(i));
             }
+            cf.updateDigest(digest);
         }
-        return xorHash;
+        return digest == null ? ArrayUtils.EMPTY_BYTE_ARRAY : digest.digest();
     }
 
     void clear()
@@ -209,7 +220,7 @@ class RowSerializer implements ICompactSerializer<Row>
 
         for (ColumnFamily cf : columnFamilies)
         {
-            ColumnFamily.serializer().serialize(cf, dos);
+            ColumnFamily.serializer().serialize(row.getTable(), cf, dos);
         }
     }
 
@@ -275,22 +275,13 @@ public class RowMutation implements Serializable
 
 class RowMutationSerializer implements ICompactSerializer<RowMutation>
 {
-    private void freezeTheMaps(Map<String, ColumnFamily> map, DataOutputStream dos) throws IOException
+    private void freezeTheMaps(String table, Map<String, ColumnFamily> map, DataOutputStream dos) throws IOException
     {
-        int size = map.size();
-        dos.writeInt(size);
-        if (size > 0)
+        // the map is keyed by column family name, which the serialized column family carries
+        dos.writeInt(map.size());
+        for (ColumnFamily cf : map.values())
         {
-            Set<String> keys = map.keySet();
-            for (String key : keys)
-            {
-                dos.writeUTF(key);
-                ColumnFamily cf = map.get(key);
-                if (cf != null)
-                {
-                    ColumnFamily.serializer().serialize(cf, dos);
-                }
-            }
+            ColumnFamily.serializer().serialize(table, cf, dos);
         }
     }
 
@@ -300,7 +291,7 @@ class RowMutationSerializer implements ICompactSerializer<RowMutation>
         dos.writeUTF(rm.key());
 
         /* serialize the modifications_ in the mutation */
-        freezeTheMaps(rm.modifications_, dos);
+        freezeTheMaps(rm.table(), rm.modifications_, dos);
     }
 
     private Map<String, ColumnFamily> defreezeTheMaps(DataInputStream dis) throws IOException
@@ -309,9 +300,8 @@ class RowMutationSerializer implements ICompactSerializer<RowMutation>
         int size = dis.readInt();
         for (int i = 0; i < size; ++i)
         {
-            String key = dis.readUTF();
             ColumnFamily cf = ColumnFamily.serializer().deserialize(dis);
-            map.put(key, cf);
+            map.put(cf.name(), cf);
         }
         return map;
     }
@@ -24,10 +24,9 @@ import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.ConcurrentSkipListMap;
 
-import org.apache.commons.lang.ArrayUtils;
 import org.apache.log4j.Logger;
 
-import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Murmur3Digest;
 import org.apache.cassandra.io.ICompactSerializer;
 import org.apache.cassandra.io.ICompactSerializer2;
 import org.apache.cassandra.db.marshal.AbstractType;
@@ -268,17 +267,17 @@ public final class SuperColumn implements IColumn, IColumnContainer
         	return null;
     }
 
-    public byte[] digest()
+    public void updateDigest(Murmur3Digest digest)
     {
-    	byte[] xorHash = ArrayUtils.EMPTY_BYTE_ARRAY;
-    	if(name_ == null)
-    		return xorHash;
-    	xorHash = name_.clone();
-    	for(IColumn column : columns_.values())
-    	{
-			xorHash = FBUtilities.xor(xorHash, column.digest());
-    	}
-    	return xorHash;
+        digest.updateByte(Column.DIGEST_SUPER_COLUMN);
+        digest.updateInt(name_.length);
+        digest.update(name_);
+        digest.updateLong(markedForDeleteAt);
+        for (IColumn column : columns_.values())
+        {
+            column.updateDigest(digest);
+        }
+        digest.updateByte(Column.DIGEST_END);
     }
 
     public String getString(AbstractType comparator)
@@ -24,6 +24,7 @@ import java.io.File;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.commons.collections.IteratorUtils;
 import org.apache.commons.collections.Predicate;
@@ -609,29 +610,63 @@ public class Table
         }
     }
 
-    void applyNow(Row row) throws IOException
+    /* log replay; any Memtable flushes this starts are added to flushes */
+    void applyNow(Row row, Collection<Future<?>> flushes) throws IOException
     {
         String key = row.key();
         for (ColumnFamily columnFamily : row.getColumnFamilies())
         {
             ColumnFamilyStore cfStore = columnFamilyStores_.get(columnFamily.name());
-            cfStore.applyNow( key, columnFamily );
+            Future<?> flush = cfStore.applyNow( key, columnFamily );
+            if (flush != null)
+            {
+                flushes.add(flush);
+            }
         }
     }
 
+    /*
+     * Flushes every column family.  In recovery mode, the flushes run in
+     * parallel and this waits for all of them to finish.
+     */
     public void flush(boolean fRecovery) throws IOException
     {
+        List<Future<?>> flushes = new ArrayList<Future<?>>();
         for (String cfName : columnFamilyStores_.keySet())
         {
             if (fRecovery)
             {
-                columnFamilyStores_.get(cfName).flushMemtableOnRecovery();
+                Future<?> flush = columnFamilyStores_.get(cfName).flushMemtableOnRecovery();
+                if (flush != null)
+                {
+                    flushes.add(flush);
+                }
             }
             else
             {
                 columnFamilyStores_.get(cfName).forceFlush();
             }
         }
+        waitForFlushes(flushes);
+    }
+
+    static void waitForFlushes(Collection<Future<?>> flushes)
+    {
+        for (Future<?> flush : flushes)
+        {
+            try
+            {
+                flush.get();
+            }
+            catch (InterruptedException e)
+            {
+                throw new RuntimeException(e);
+            }
+            catch (ExecutionException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
     }
 
     // for binary load path.  skips commitlog.
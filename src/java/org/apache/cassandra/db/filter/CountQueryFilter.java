@@ -0,0 +1,99 @@
+package org.apache.cassandra.db.filter;
+/*
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ */
+
+
+import java.util.Iterator;
+
+import org.apache.commons.lang.ArrayUtils;
+
+import org.apache.cassandra.db.*;
+
+/**
+ * Selects every column of a row, or every subcolumn of a supercolumn, for counting rather
+ * than reading: ColumnFamilyStore.getLiveColumnCount merges the columns from the memtables
+ * and sstables and counts those that are live as they go by, without collecting them.
+ */
+public class CountQueryFilter extends SliceQueryFilter
+{
+    public CountQueryFilter(String key, QueryPath columnParent)
+    {
+        super(key, columnParent, ArrayUtils.EMPTY_BYTE_ARRAY, ArrayUtils.EMPTY_BYTE_ARRAY, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the number of live columns among collatedColumns, each name counted once.
+     * returnCF supplies the row tombstone, and is not modified.
+     */
+    public int countCollatedColumns(ColumnFamily returnCF, Iterator<IColumn> collatedColumns)
+    {
+        return countReducedColumns(returnCF, reduceCollatedColumns(returnCF, collatedColumns));
+    }
+
+    /**
+     * @return the number of columns in reducedColumns that are live in container: the columns
+     * that a read would return after removing deleted ones.
+     */
+    public int countReducedColumns(IColumnContainer container, Iterator<IColumn> reducedColumns)
+    {
+        int liveColumns = 0;
+        while (reducedColumns.hasNext())
+        {
+            if (isLive(reducedColumns.next(), container))
+                liveColumns++;
+        }
+        return liveColumns;
+    }
+
+    /**
+     * @return the number of live columns that this filter selects from cf, a row that has
+     * already been read: its columns, or the subcolumns of the supercolumn at path
+     */
+    public int countLiveColumns(ColumnFamily cf)
+    {
+        if (cf == null)
+            return 0;
+        if (path.superColumnName == null)
+            return countReducedColumns(cf, cf.getSortedColumns().iterator());
+        SuperColumn sc = (SuperColumn)cf.getColumn(path.superColumnName);
+        return sc == null ? 0 : countReducedColumns(sc, sc.getSubColumns().iterator());
+    }
+
+    /*
+     * the same rules as ColumnFamilyStore.removeDeleted followed by dropping tombstones:
+     * a tombstone is never live, whether or not it is past gcBefore, and a supercolumn
+     * is live if any of its subcolumns is.
+     */
+    private static boolean isLive(IColumn column, IColumnContainer container)
+    {
+        if (column instanceof SuperColumn)
+        {
+            long minTimestamp = Math.max(column.getMarkedForDeleteAt(), container.getMarkedForDeleteAt());
+            for (IColumn subColumn : column.getSubColumns())
+            {
+                if (!subColumn.isMarkedForDelete() && subColumn.timestamp() > minTimestamp)
+                    return true;
+            }
+            return false;
+        }
+        return !column.isMarkedForDelete() && column.timestamp() > container.getMarkedForDeleteAt();
+    }
+}
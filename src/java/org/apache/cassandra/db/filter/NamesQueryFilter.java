@@ -64,6 +64,11 @@ public class NamesQueryFilter extends QueryFilter
         return memtable.getNamesIterator(this);
     }
 
+    public ColumnIterator getColumnFamilyIterator(ColumnFamily cf, AbstractType comparator)
+    {
+        return Memtable.getNamesIterator(cf, this);
+    }
+
     public ColumnIterator getSSTableColumnIterator(SSTableReader sstable) throws IOException
     {
         return new SSTableNamesIterator(sstable, key, columns);
@@ -48,6 +48,12 @@ public abstract class QueryFilter
      */
     public abstract ColumnIterator getMemColumnIterator(Memtable memtable, AbstractType comparator);
 
+    /**
+     * returns an iterator that returns columns from the given in-memory ColumnFamily
+     * matching the Filter criteria in sorted order.  cf is not modified.
+     */
+    public abstract ColumnIterator getColumnFamilyIterator(ColumnFamily cf, AbstractType comparator);
+
     /**
      * returns an iterator that returns columns from the given SSTable
      * matching the Filter criteria in sorted order.
@@ -78,11 +84,18 @@ public abstract class QueryFilter
         };
     }
     
-    public void collectCollatedColumns(final ColumnFamily returnCF, Iterator<IColumn> collatedColumns, int gcBefore)
+    public void collectCollatedColumns(ColumnFamily returnCF, Iterator<IColumn> collatedColumns, int gcBefore)
     {
-        // define a 'reduced' iterator that merges columns w/ the same name, which
-        // greatly simplifies computing liveColumns in the presence of tombstones.
-        ReducingIterator<IColumn> reduced = new ReducingIterator<IColumn>(collatedColumns)
+        collectReducedColumns(returnCF, reduceCollatedColumns(returnCF, collatedColumns), gcBefore);
+    }
+
+    /**
+     * @return an iterator that merges the columns with the same name in collatedColumns, which
+     * greatly simplifies computing liveColumns in the presence of tombstones.
+     */
+    protected static Iterator<IColumn> reduceCollatedColumns(final ColumnFamily returnCF, Iterator<IColumn> collatedColumns)
+    {
+        return new ReducingIterator<IColumn>(collatedColumns)
         {
             ColumnFamily curCF = returnCF.cloneMeShallow();
 
@@ -103,8 +116,6 @@ public abstract class QueryFilter
                 return c;
             }
         };
-
-        collectReducedColumns(returnCF, reduced, gcBefore);
     }
 
     public String getColumnFamilyName()
@@ -25,11 +25,10 @@ import java.io.IOException;
 import java.util.*;
 
 import org.apache.cassandra.db.ColumnFamily;
+import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.IColumn;
 import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.io.*;
-import org.apache.cassandra.config.DatabaseDescriptor;
-import org.apache.cassandra.utils.BloomFilter;
 
 public class SSTableNamesIterator extends SimpleAbstractColumnIterator
 {
@@ -42,26 +41,21 @@ public class SSTableNamesIterator extends SimpleAbstractColumnIterator
         assert columnNames != null;
         this.columns = columnNames;
 
-        String decoratedKey = ssTable.getPartitioner().decorateKey(key);
+        DecoratedKey decoratedKey = ssTable.getPartitioner().decorateKey(key);
         long position = ssTable.getPosition(decoratedKey);
         if (position < 0)
             return;
 
-        BufferedRandomAccessFile file = new BufferedRandomAccessFile(ssTable.getFilename(), "r", DatabaseDescriptor.getIndexedReadBufferSizeInKB() * 1024);
+        BufferedRandomAccessFile file = ssTable.getDataFile();
         try
         {
-            file.seek(position);
+            IndexHelper.RowIndex rowIndex = ssTable.getRowIndex(file, decoratedKey, position, true);
 
-            String keyInDisk = file.readUTF();
-            assert keyInDisk.equals(decoratedKey) : keyInDisk;
-            file.readInt(); // data size
-
-            /* Read the bloom filter summarizing the columns */
-            BloomFilter bf = IndexHelper.defreezeBloomFilter(file);
+            /* check the names against the bloom filter summarizing the columns */
             List<byte[]> filteredColumnNames = new ArrayList<byte[]>(columnNames.size());
             for (byte[] name : columnNames)
             {
-                if (bf.isPresent(name))
+                if (rowIndex.bloomFilter.isPresent(name))
                 {
                     filteredColumnNames.add(name);
                 }
@@ -71,7 +65,7 @@ public class SSTableNamesIterator extends SimpleAbstractColumnIterator
                 return;
             }
 
-            List<IndexHelper.IndexInfo> indexList = IndexHelper.deserializeIndex(file);
+            List<IndexHelper.IndexInfo> indexList = rowIndex.indexes;
 
             cf = ColumnFamily.serializer().deserializeFromSSTableNoColumns(ssTable.makeColumnFamily(), file);
             file.readInt(); // column count
@@ -110,7 +104,7 @@ public class SSTableNamesIterator extends SimpleAbstractColumnIterator
         }
         finally
         {
-            file.close();
+            ssTable.releaseDataFile(file);
         }
 
         iter = cf.getSortedColumns().iterator();
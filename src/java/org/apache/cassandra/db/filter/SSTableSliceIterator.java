@@ -26,9 +26,9 @@ import java.io.IOException;
 
 import org.apache.cassandra.db.IColumn;
 import org.apache.cassandra.db.ColumnFamily;
+import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.io.*;
-import org.apache.cassandra.config.DatabaseDescriptor;
 import com.google.common.collect.AbstractIterator;
 
 /**
@@ -48,7 +48,7 @@ class SSTableSliceIterator extends AbstractIterator<IColumn> implements ColumnIt
         this.reversed = reversed;
 
         /* Morph key into actual key based on the partition type. */
-        String decoratedKey = ssTable.getPartitioner().decorateKey(key);
+        DecoratedKey decoratedKey = ssTable.getPartitioner().decorateKey(key);
         long position = ssTable.getPosition(decoratedKey);
         this.comparator = ssTable.getColumnComparator();
         this.startColumn = startColumn;
@@ -100,27 +100,34 @@ class SSTableSliceIterator extends AbstractIterator<IColumn> implements ColumnIt
 
         private final List<IndexHelper.IndexInfo> indexes;
         private final long columnStartPosition;
+        private final SSTableReader ssTable;
         private final BufferedRandomAccessFile file;
 
         private int curRangeIndex;
         private Deque<IColumn> blockColumns = new ArrayDeque<IColumn>();
 
-        public ColumnGroupReader(SSTableReader ssTable, String key, long position) throws IOException
+        public ColumnGroupReader(SSTableReader ssTable, DecoratedKey key, long position) throws IOException
         {
-            this.file = new BufferedRandomAccessFile(ssTable.getFilename(), "r", DatabaseDescriptor.getSlicedReadBufferSizeInKB() * 1024);
+            this.ssTable = ssTable;
+            this.file = ssTable.getDataFile();
 
-            file.seek(position);
-            String keyInDisk = file.readUTF();
-            assert keyInDisk.equals(key);
-
-            file.readInt(); // row size
-            IndexHelper.skipBloomFilter(file);
-            indexes = IndexHelper.deserializeIndex(file);
+            boolean opened = false;
+            try
+            {
+                indexes = ssTable.getRowIndex(file, key, position, false).indexes;
 
-            emptyColumnFamily = ColumnFamily.serializer().deserializeFromSSTableNoColumns(ssTable.makeColumnFamily(), file);
-            file.readInt(); // column count
+                emptyColumnFamily = ColumnFamily.serializer().deserializeFromSSTableNoColumns(ssTable.makeColumnFamily(), file);
+                file.readInt(); // column count
 
-            columnStartPosition = file.getFilePointer();
+                columnStartPosition = file.getFilePointer();
+                opened = true;
+            }
+            finally
+            {
+                // close() will not be called if we throw
+                if (!opened)
+                    ssTable.releaseDataFile(file);
+            }
             curRangeIndex = IndexHelper.indexFor(startColumn, indexes, comparator, reversed);
             if (reversed && curRangeIndex == indexes.size())
                 curRangeIndex--;
@@ -175,7 +182,7 @@ class SSTableSliceIterator extends AbstractIterator<IColumn> implements ColumnIt
 
         public void close() throws IOException
         {
-            file.close();
+            ssTable.releaseDataFile(file);
         }
     }
 }
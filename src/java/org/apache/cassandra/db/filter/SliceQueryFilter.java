@@ -59,6 +59,11 @@ public class SliceQueryFilter extends QueryFilter
         return memtable.getSliceIterator(this, comparator);
     }
 
+    public ColumnIterator getColumnFamilyIterator(ColumnFamily cf, AbstractType comparator)
+    {
+        return Memtable.getSliceIterator(cf, this, comparator);
+    }
+
     public ColumnIterator getSSTableColumnIterator(SSTableReader sstable) throws IOException
     {
         return new SSTableSliceIterator(sstable, key, start, reversed);
@@ -23,6 +23,8 @@ package org.apache.cassandra.db.marshal;
 
 import java.util.Comparator;
 import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.cassandra.db.IColumn;
 
@@ -36,6 +38,33 @@ import org.apache.cassandra.db.IColumn;
  */
 public abstract class AbstractType implements Comparator<byte[]>
 {
+    private static final ConcurrentMap<String, AbstractType> instances = new ConcurrentHashMap<String, AbstractType>();
+
+    /**
+     * Comparators are stateless, so every column family sorting by the same type can share one
+     * instance; this returns that instance, creating it the first time the class is asked for.
+     */
+    public static AbstractType getInstance(String className) throws ClassNotFoundException
+    {
+        AbstractType type = instances.get(className);
+        if (type != null)
+        {
+            return type;
+        }
+
+        Class<? extends AbstractType> typeClass = Class.forName(className).asSubclass(AbstractType.class);
+        try
+        {
+            type = typeClass.getConstructor().newInstance();
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException("Unable to create comparator " + className, e);
+        }
+        AbstractType previous = instances.putIfAbsent(className, type);
+        return previous == null ? type : previous;
+    }
+
     /** get a string representation of the bytes suitable for log messages */
     public abstract String getString(byte[] bytes);
 
@@ -43,7 +43,16 @@ public class LexicalUUIDType extends AbstractType
             return 1;
         }
 
-        return getUUID(o1).compareTo(getUUID(o2));
+        // the same signed comparison of the two halves as UUID.compareTo
+        long msb1 = LongType.getLong(o1, 0);
+        long msb2 = LongType.getLong(o2, 0);
+        if (msb1 != msb2)
+        {
+            return msb1 < msb2 ? -1 : 1;
+        }
+        long lsb1 = LongType.getLong(o1, 8);
+        long lsb2 = LongType.getLong(o2, 8);
+        return lsb1 < lsb2 ? -1 : (lsb1 > lsb2 ? 1 : 0);
     }
 
     public String getString(byte[] bytes)
@@ -21,8 +21,8 @@ package org.apache.cassandra.db.marshal;
  */
 
 
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 
 public class LongType extends AbstractType
 {
@@ -37,9 +37,24 @@ public class LongType extends AbstractType
             return 1;
         }
 
-        long L1 = ByteBuffer.wrap(o1).getLong();
-        long L2 = ByteBuffer.wrap(o2).getLong();
-        return Long.valueOf(L1).compareTo(Long.valueOf(L2));
+        long L1 = getLong(o1, 0);
+        long L2 = getLong(o2, 0);
+        return L1 < L2 ? -1 : (L1 > L2 ? 1 : 0);
+    }
+
+    /** reads a big-endian long from bytes at offset without wrapping them in a buffer */
+    static long getLong(byte[] bytes, int offset)
+    {
+        if (bytes.length < offset + 8)
+        {
+            throw new BufferUnderflowException();
+        }
+        long l = 0;
+        for (int i = offset; i < offset + 8; i++)
+        {
+            l = (l << 8) | (bytes[i] & 0xFF);
+        }
+        return l;
     }
 
     public String getString(byte[] bytes)
@@ -36,11 +36,24 @@ public class TimeUUIDType extends AbstractType
             return 1;
         }
         
-        long t1 = LexicalUUIDType.getUUID(o1).timestamp();
-        long t2 = LexicalUUIDType.getUUID(o2).timestamp();
+        long t1 = getTimestamp(o1);
+        long t2 = getTimestamp(o2);
         return t1 < t2 ? -1 : (t1 > t2 ? 1 : 0);
     }
 
+    /** UUID.timestamp() computed from the raw bytes: the time_hi, time_mid and time_low fields, in that order of significance */
+    static long getTimestamp(byte[] bytes)
+    {
+        long msb = LongType.getLong(bytes, 0);
+        if (((msb >> 12) & 0x0f) != 1)
+        {
+            throw new UnsupportedOperationException("Not a time-based UUID");
+        }
+        return (msb & 0x0FFFL) << 48
+               | ((msb >> 16) & 0xFFFFL) << 32
+               | msb >>> 32;
+    }
+
     public String getString(byte[] bytes)
     {
         if (bytes.length == 0)
@@ -23,18 +23,134 @@ package org.apache.cassandra.db.marshal;
 
 import java.io.UnsupportedEncodingException;
 
+/**
+ * Orders names as their decoded Strings compare, i.e. by UTF-16 code unit, but works on the
+ * encoded bytes directly: an ASCII prefix is compared byte by byte, and the rest is decoded one
+ * code point at a time.  Only a malformed sequence, which the String decoder would replace with
+ * U+FFFD, falls back to decoding both names in full.
+ */
 public class UTF8Type extends AbstractType
 {
     public int compare(byte[] o1, byte[] o2)
     {
-        try
+        int length = Math.min(o1.length, o2.length);
+        int i = 0;
+        while (i < length && o1[i] >= 0 && o1[i] == o2[i])
         {
-            return new String(o1, "UTF-8").compareTo(new String(o2, "UTF-8"));
+            i++;
         }
-        catch (UnsupportedEncodingException e)
+        if (i == length)
         {
-            throw new RuntimeException(e);
+            // one is a prefix of the other; any remaining bytes decode to at least one char
+            return o1.length - o2.length;
+        }
+        if (o1[i] >= 0 && o2[i] >= 0)
+        {
+            return o1[i] - o2[i];
+        }
+
+        // i is at a char boundary, since everything before it was ASCII
+        int i1 = i, i2 = i;
+        while (i1 < o1.length && i2 < o2.length)
+        {
+            int n1 = sequenceLength(o1, i1);
+            int n2 = sequenceLength(o2, i2);
+            if (n1 < 0 || n2 < 0)
+            {
+                return compareDecoded(o1, o2);
+            }
+            int c1 = decode(o1, i1, n1);
+            int c2 = decode(o2, i2, n2);
+            if (c1 != c2)
+            {
+                return compareCodePoints(c1, c2);
+            }
+            i1 += n1;
+            i2 += n2;
+        }
+        return (o1.length - i1) - (o2.length - i2);
+    }
+
+    /** compares two distinct code points the way String.compareTo compares their UTF-16 encodings */
+    private static int compareCodePoints(int c1, int c2)
+    {
+        if (c1 < Character.MIN_SUPPLEMENTARY_CODE_POINT && c2 < Character.MIN_SUPPLEMENTARY_CODE_POINT)
+        {
+            return c1 - c2;
+        }
+        int u1 = c1 < Character.MIN_SUPPLEMENTARY_CODE_POINT ? c1 : Character.highSurrogate(c1);
+        int u2 = c2 < Character.MIN_SUPPLEMENTARY_CODE_POINT ? c2 : Character.highSurrogate(c2);
+        if (u1 != u2)
+        {
+            return u1 - u2;
+        }
+        // both supplementary, with the same high surrogate
+        return Character.lowSurrogate(c1) - Character.lowSurrogate(c2);
+    }
+
+    /**
+     * @return the length of the well-formed UTF-8 sequence starting at offset,
+     * or -1 if the bytes there are not one
+     */
+    private static int sequenceLength(byte[] bytes, int offset)
+    {
+        int lead = bytes[offset] & 0xFF;
+        int length;
+        int min = 0x80, max = 0xBF; // allowed range of the second byte
+        if (lead < 0x80)
+            return 1;
+        else if (lead < 0xC2)
+            return -1;
+        else if (lead < 0xE0)
+            length = 2;
+        else if (lead < 0xF0)
+        {
+            length = 3;
+            if (lead == 0xE0)
+                min = 0xA0; // overlong
+            else if (lead == 0xED)
+                max = 0x9F; // surrogates
+        }
+        else if (lead < 0xF5)
+        {
+            length = 4;
+            if (lead == 0xF0)
+                min = 0x90; // overlong
+            else if (lead == 0xF4)
+                max = 0x8F; // beyond U+10FFFF
+        }
+        else
+            return -1;
+
+        if (offset + length > bytes.length)
+            return -1;
+        int second = bytes[offset + 1] & 0xFF;
+        if (second < min || second > max)
+            return -1;
+        for (int i = offset + 2; i < offset + length; i++)
+        {
+            if ((bytes[i] & 0xC0) != 0x80)
+                return -1;
         }
+        return length;
+    }
+
+    /** @return the code point of the well-formed sequence of the given length at offset */
+    private static int decode(byte[] bytes, int offset, int length)
+    {
+        if (length == 1)
+            return bytes[offset];
+        int c = bytes[offset] & (0xFF >> (length + 1));
+        for (int i = offset + 1; i < offset + length; i++)
+        {
+            c = (c << 6) | (bytes[i] & 0x3F);
+        }
+        return c;
+    }
+
+    private int compareDecoded(byte[] o1, byte[] o2)
+    {
+        return getString(o1).compareTo(getString(o2));
     }
 
     public String getString(byte[] bytes)
@@ -18,7 +18,7 @@
 */
 package org.apache.cassandra.dht;
 
-import java.math.BigInteger;
+import java.util.Arrays;
 
 import org.apache.cassandra.utils.FBUtilities;
 
@@ -40,4 +40,18 @@ public class BytesToken extends Token<byte[]>
     {
         return FBUtilities.compareByteArrays(token, o.token);
     }
+
+    @Override
+    public int hashCode()
+    {
+        return Arrays.hashCode(token);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (!(obj instanceof BytesToken))
+            return false;
+        return Arrays.equals(token, ((BytesToken)obj).token);
+    }
 }
@@ -20,13 +20,14 @@ package org.apache.cassandra.dht;
 
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.text.Collator;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.Locale;
 import java.util.Random;
 
 import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.utils.FBUtilities;
 
 public class CollatingOrderPreservingPartitioner implements IPartitioner<BytesToken>
@@ -35,40 +36,25 @@ public class CollatingOrderPreservingPartitioner implements IPartitioner<BytesTo
 
     public static final BytesToken MINIMUM = new BytesToken(new byte[0]);
 
-    /**
-     * Comparators for decorated keys.
-     */
-    private static final Comparator<String> comparator = new Comparator<String>() {
-        public int compare(String o1, String o2)
-        {
-            return collator.compare(o1, o2);
-        }
-    };
-    private static final Comparator<String> reverseComparator = new Comparator<String>() {
-        public int compare(String o1, String o2)
-        {
-            return -comparator.compare(o1, o2);
-        }
-    };
-
-    public String decorateKey(String key)
+    public DecoratedKey<BytesToken> decorateKey(String key)
     {
-        return key;
+        return new DecoratedKey<BytesToken>(getToken(key), key);
     }
 
-    public String undecorateKey(String decoratedKey)
+    public DecoratedKey<BytesToken> convertFromDiskFormat(String key)
     {
-        return decoratedKey;
+        return new DecoratedKey<BytesToken>(getToken(key), key);
     }
 
-    public Comparator<String> getDecoratedKeyComparator()
+    public String convertToDiskFormat(DecoratedKey<BytesToken> key)
     {
-        return comparator;
+        return key.key;
     }
 
-    public Comparator<String> getReverseDecoratedKeyComparator()
+    public int compareDiskFormat(ByteBuffer buffer, int offset, int length, DecoratedKey<BytesToken> key, String diskKey)
     {
-        return reverseComparator;
+        // collation order can't be derived from the raw bytes, so this one has to decode
+        return decorateKey(FBUtilities.decodeUTF(buffer, offset, length)).compareTo(key);
     }
 
     /**
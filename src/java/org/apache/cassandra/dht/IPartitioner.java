@@ -18,24 +18,46 @@
 
 package org.apache.cassandra.dht;
 
-import java.util.Comparator;
+import java.nio.ByteBuffer;
+
+import org.apache.cassandra.db.DecoratedKey;
 
 public interface IPartitioner<T extends Token>
 {
     /**
-     * Transform key to on-disk format s.t. keys are stored in node comparison order.
-     * This lets bootstrap rip out parts of the sstable sequentially instead of doing random seeks.
-     *
-     * @param key the raw, client-facing key
-     * @return decorated on-disk version of key
+     * Convert the on disk representation to a DecoratedKey object
+     * @param key On disk representation 
+     * @return DecoratedKey object
      */
-    public String decorateKey(String key);
+    public DecoratedKey<T> convertFromDiskFormat(String key);
 
-    public String undecorateKey(String decoratedKey);
+    /**
+     * Convert the DecoratedKey to the on disk format used for
+     * this partitioner.
+     * @param key The DecoratedKey in question
+     * @return the on-disk format of the key; keys are stored in node comparison order.
+     * This lets bootstrap rip out parts of the sstable sequentially instead of doing random seeks.
+     */
+    public String convertToDiskFormat(DecoratedKey<T> key);
 
-    public Comparator<String> getDecoratedKeyComparator();
+    /**
+     * Compare a key in on-disk format, serialized by writeUTF and found (without its length prefix)
+     * at buffer[offset, offset + length), with the given key, in DecoratedKey order.
+     * Implementations should avoid decoding the serialized key where they can, since this is
+     * called for every probe of a memory-mapped index.
+     * @param key the key being looked for
+     * @param diskKey convertToDiskFormat(key), so it need not be recomputed per probe
+     * @return negative, zero or positive as the serialized key sorts before, equal to or after key
+     */
+    public int compareDiskFormat(ByteBuffer buffer, int offset, int length, DecoratedKey<T> key, String diskKey);
 
-    public Comparator<String> getReverseDecoratedKeyComparator();
+    /**
+     * Transform key to object representation of the on-disk format.
+     *
+     * @param key the raw, client-facing key
+     * @return decorated version of key
+     */
+    public DecoratedKey<T> decorateKey(String key);
 
     /**
      * Calculate a Token representing the approximate "middle" of the given
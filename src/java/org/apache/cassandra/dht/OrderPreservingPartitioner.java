@@ -19,50 +19,37 @@
 package org.apache.cassandra.dht;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.Random;
 
 import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.utils.FBUtilities;
 
 public class OrderPreservingPartitioner implements IPartitioner<StringToken>
 {
     public static final StringToken MINIMUM = new StringToken("");
 
-    /**
-     * Comparators for decorated keys.
-     */
-    private static final Comparator<String> comparator = new Comparator<String>() {
-        public int compare(String o1, String o2)
-        {
-            return o1.compareTo(o2);
-        }
-    };
-    private static final Comparator<String> reverseComparator = new Comparator<String>() {
-        public int compare(String o1, String o2)
-        {
-            return o2.compareTo(o1);
-        }
-    };
-
-    public String decorateKey(String key)
+    public DecoratedKey<StringToken> decorateKey(String key)
     {
-        return key;
+        return new DecoratedKey<StringToken>(getToken(key), key);
     }
 
-    public String undecorateKey(String decoratedKey)
+    public DecoratedKey<StringToken> convertFromDiskFormat(String key)
     {
-        return decoratedKey;
+        return new DecoratedKey<StringToken>(getToken(key), key);
     }
 
-    public Comparator<String> getDecoratedKeyComparator()
+    public String convertToDiskFormat(DecoratedKey<StringToken> key)
     {
-        return comparator;
+        return key.key;
     }
 
-    public Comparator<String> getReverseDecoratedKeyComparator()
+    public int compareDiskFormat(ByteBuffer buffer, int offset, int length, DecoratedKey<StringToken> key, String diskKey)
     {
-        return reverseComparator;
+        // the token is the key itself, so String order is DecoratedKey order
+        return FBUtilities.compareUTF(buffer, offset, length, diskKey, 0);
     }
 
     /**
@@ -19,10 +19,10 @@
 package org.apache.cassandra.dht;
 
 import java.math.BigInteger;
-import java.util.Comparator;
-import java.util.StringTokenizer;
+import java.nio.ByteBuffer;
 
 import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.GuidGenerator;
 
@@ -36,52 +36,47 @@ public class RandomPartitioner implements IPartitioner<BigIntegerToken>
 
     public static final BigIntegerToken MINIMUM = new BigIntegerToken("0");
 
-    private static final Comparator<String> comparator = new Comparator<String>()
-    {
-        public int compare(String o1, String o2)
-        {
-            // StringTokenizer is faster than String.split()
-            StringTokenizer st1 = new StringTokenizer(o1, ":");
-            StringTokenizer st2 = new StringTokenizer(o2, ":");
-
-            // first, compare on the bigint hash "decoration".  usually this will be enough.
-            BigInteger i1 = new BigInteger(st1.nextToken());
-            BigInteger i2 = new BigInteger(st2.nextToken());
-            int v = i1.compareTo(i2);
-            if (v != 0) {
-                return v;
-            }
-
-            // if the hashes are equal, compare the strings
-            return st1.nextToken().compareTo(st2.nextToken());
-        }
-    };
-    private static final Comparator<String> rcomparator = new Comparator<String>()
-    {
-        public int compare(String o1, String o2)
-        {
-            return -comparator.compare(o1, o2);
-        }
-    };
+    private static final String DELIMITER = ":";
 
-    public String decorateKey(String key)
+    public DecoratedKey<BigIntegerToken> decorateKey(String key)
     {
-        return FBUtilities.hash(key).toString() + ":" + key;
+        return new DecoratedKey<BigIntegerToken>(getToken(key), key);
     }
 
-    public String undecorateKey(String decoratedKey)
+    public DecoratedKey<BigIntegerToken> convertFromDiskFormat(String key)
     {
-        return decoratedKey.split(":", 2)[1];
+        int splitPoint = key.indexOf(DELIMITER);
+        String first = key.substring(0, splitPoint);
+        String second = key.substring(splitPoint + 1);
+
+        return new DecoratedKey<BigIntegerToken>(new BigIntegerToken(first), second);
     }
 
-    public Comparator<String> getDecoratedKeyComparator()
+    public String convertToDiskFormat(DecoratedKey<BigIntegerToken> key)
     {
-        return comparator;
+        // the token is rendered exactly as decorateKey used to, so existing sstables keep sorting the same way
+        return key.token.toString() + DELIMITER + key.key;
     }
 
-    public Comparator<String> getReverseDecoratedKeyComparator()
+    public int compareDiskFormat(ByteBuffer buffer, int offset, int length, DecoratedKey<BigIntegerToken> key, String diskKey)
     {
-        return rcomparator;
+        // tokens are non-negative decimals without leading zeros, so a shorter token is a smaller one,
+        // and tokens of equal length compare digit by digit
+        int end = offset + length;
+        int split = offset;
+        while (buffer.get(split) != ':')
+            split++;
+        int diskSplit = diskKey.indexOf(DELIMITER);
+        int v = (split - offset) - diskSplit;
+        if (v != 0)
+            return v;
+        for (int i = 0; i < diskSplit; i++)
+        {
+            v = buffer.get(offset + i) - diskKey.charAt(i);
+            if (v != 0)
+                return v;
+        }
+        return FBUtilities.compareUTF(buffer, split + 1, end - split - 1, diskKey, diskSplit + 1);
     }
 
     public BigIntegerToken midpoint(BigIntegerToken ltoken, BigIntegerToken rtoken)
@@ -86,15 +86,15 @@ public class Gossiper implements IFailureDetectionEventListener, IEndPointStateC
 
     final static int MAX_GOSSIP_PACKET_SIZE = 1428;
     /* GS - abbreviation for GOSSIPER_STAGE */
-    final static String GOSSIP_STAGE = "GS";
+    public final static String GOSSIP_STAGE = "GS";
     /* GSV - abbreviation for GOSSIP-DIGEST-SYN-VERB */
-    final static String JOIN_VERB_HANDLER = "JVH";
+    public final static String JOIN_VERB_HANDLER = "JVH";
     /* GSV - abbreviation for GOSSIP-DIGEST-SYN-VERB */
-    final static String GOSSIP_DIGEST_SYN_VERB = "GSV";
+    public final static String GOSSIP_DIGEST_SYN_VERB = "GSV";
     /* GAV - abbreviation for GOSSIP-DIGEST-ACK-VERB */
-    final static String GOSSIP_DIGEST_ACK_VERB = "GAV";
+    public final static String GOSSIP_DIGEST_ACK_VERB = "GAV";
     /* GA2V - abbreviation for GOSSIP-DIGEST-ACK2-VERB */
-    final static String GOSSIP_DIGEST_ACK2_VERB = "GA2V";
+    public final static String GOSSIP_DIGEST_ACK2_VERB = "GA2V";
     final static int intervalInMillis_ = 1000;
     private static Logger logger_ = Logger.getLogger(Gossiper.class);
     static Gossiper gossiper_;
@@ -24,13 +24,14 @@ import java.util.Iterator;
 
 import org.apache.cassandra.db.IColumn;
 import org.apache.cassandra.db.ColumnFamily;
+import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.config.DatabaseDescriptor;
 
 import org.apache.log4j.Logger;
 import com.google.common.collect.AbstractIterator;
 
 
-public class FileStruct implements Comparable<FileStruct>, Iterator<String>
+public class FileStruct implements Comparable<FileStruct>, Iterator<DecoratedKey>
 {
     private static Logger logger = Logger.getLogger(FileStruct.class);
 
@@ -65,7 +66,7 @@ public class FileStruct implements Comparable<FileStruct>, Iterator<String>
         return exhausted;
     }
 
-    public String getKey()
+    public DecoratedKey getKey()
     {
         return row.getKey();
     }
@@ -75,12 +76,21 @@ public class FileStruct implements Comparable<FileStruct>, Iterator<String>
         return row.getEmptyColumnFamily();
     }
 
+    /**
+     * @return the current row.  Unless it was materialized, its columns have not been read
+     * and may be iterated over, or copied, until the next advance.
+     */
+    public IteratingRow getRow()
+    {
+        return row;
+    }
+
     public int compareTo(FileStruct f)
     {
-        return sstable.getPartitioner().getDecoratedKeyComparator().compare(getKey(), f.getKey());
+        return getKey().compareTo(f.getKey());
     }
 
-    public void seekTo(String seekKey)
+    public void seekTo(DecoratedKey seekKey)
     {
         try
         {
@@ -91,6 +101,7 @@ public class FileStruct implements Comparable<FileStruct>, Iterator<String>
                 return;
             }
             file.seek(position);
+            row = null;
             advance(false);
         }
         catch (IOException e)
@@ -103,6 +114,8 @@ public class FileStruct implements Comparable<FileStruct>, Iterator<String>
      * Read the next key from the data file.
      * Caller must check isExhausted after each call to see if further
      * reads are valid.
+     * If materialize is false the columns of the row are left unread,
+     * and are skipped by the next call.
      * Do not mix with calls to the iterator interface (next/hasnext).
      * @deprecated -- prefer the iterator interface.
      */
@@ -114,6 +127,10 @@ public class FileStruct implements Comparable<FileStruct>, Iterator<String>
             throw new IndexOutOfBoundsException();
         }
 
+        if (row != null)
+        {
+            row.skipRemaining();
+        }
         if (file.isEOF())
         {
             file.close();
@@ -130,10 +147,6 @@ public class FileStruct implements Comparable<FileStruct>, Iterator<String>
                 row.getEmptyColumnFamily().addColumn(column);
             }
         }
-        else
-        {
-            row.skipRemaining();
-        }
     }
 
     public boolean hasNext()
@@ -144,7 +157,7 @@ public class FileStruct implements Comparable<FileStruct>, Iterator<String>
     }
 
     /** do not mix with manual calls to advance(). */
-    public String next()
+    public DecoratedKey next()
     {
         if (iterator == null)
             iterator = new FileStructIterator();
@@ -156,7 +169,7 @@ public class FileStruct implements Comparable<FileStruct>, Iterator<String>
         throw new UnsupportedOperationException();
     }
 
-    private class FileStructIterator extends AbstractIterator<String>
+    private class FileStructIterator extends AbstractIterator<DecoratedKey>
     {
         public FileStructIterator()
         {
@@ -181,13 +194,13 @@ public class FileStruct implements Comparable<FileStruct>, Iterator<String>
             }
         }
 
-        protected String computeNext()
+        protected DecoratedKey computeNext()
         {
             if (isExhausted())
             {
                 return endOfData();
             }
-            String oldKey = getKey();
+            DecoratedKey oldKey = getKey();
             forward();
             return oldKey;
         }
@@ -143,6 +143,24 @@ public class IndexHelper
         };
     }
 
+    /**
+     * The column bloom filter and column index of a row, and the data file position of
+     * the column family header that follows them.
+     */
+    public static class RowIndex
+    {
+        public final BloomFilter bloomFilter; // null if it was skipped
+        public final List<IndexInfo> indexes;
+        public final long headerPosition;
+
+        public RowIndex(BloomFilter bloomFilter, List<IndexInfo> indexes, long headerPosition)
+        {
+            this.bloomFilter = bloomFilter;
+            this.indexes = indexes;
+            this.headerPosition = headerPosition;
+        }
+    }
+
     public static class IndexInfo
     {
         public final long width;
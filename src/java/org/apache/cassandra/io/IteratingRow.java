@@ -21,9 +21,11 @@ package org.apache.cassandra.io;
  */
 
 
+import java.io.DataOutput;
 import java.io.IOException;
 
 import org.apache.cassandra.db.ColumnFamily;
+import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.IColumn;
 import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.config.DatabaseDescriptor;
@@ -31,7 +33,8 @@ import com.google.common.collect.AbstractIterator;
 
 public class IteratingRow extends AbstractIterator<IColumn>
 {
-    private final String key;
+    private final DecoratedKey key;
+    private final long dataStart;
     private final long finishedAt;
     private final ColumnFamily emptyColumnFamily;
     private final BufferedRandomAccessFile file;
@@ -40,16 +43,16 @@ public class IteratingRow extends AbstractIterator<IColumn>
     {
         this.file = file;
 
-        key = file.readUTF();
+        key = sstable.getPartitioner().convertFromDiskFormat(file.readUTF());
         long dataSize = file.readInt();
-        long dataStart = file.getFilePointer();
+        dataStart = file.getFilePointer();
         finishedAt = dataStart + dataSize;
         IndexHelper.skipBloomFilterAndIndex(file);
         emptyColumnFamily = ColumnFamily.serializer().deserializeFromSSTableNoColumns(sstable.makeColumnFamily(), file);
         file.readInt(); // column count. breaking serializer encapsulation is less fugly than adding a wrapper class to allow deserializeEmpty to return both values
     }
 
-    public String getKey()
+    public DecoratedKey getKey()
     {
         return key;
     }
@@ -59,6 +62,31 @@ public class IteratingRow extends AbstractIterator<IColumn>
         return emptyColumnFamily;
     }
 
+    /** @return the size of the serialized row, not counting the key and the size itself */
+    public int getDataSize()
+    {
+        return (int) (finishedAt - dataStart);
+    }
+
+    /**
+     * Copies the serialized row (bloom filter, index, deletion info and columns) to out
+     * without deserializing it, leaving the file at the end of the row.
+     * Must not be mixed with iterating over the columns.
+     */
+    public void echoData(DataOutput out) throws IOException
+    {
+        file.seek(dataStart);
+        byte[] buffer = new byte[(int) Math.min(finishedAt - dataStart, 64 * 1024)];
+        long remaining = finishedAt - dataStart;
+        while (remaining > 0)
+        {
+            int n = (int) Math.min(remaining, buffer.length);
+            file.readFully(buffer, 0, n);
+            out.write(buffer, 0, n);
+            remaining -= n;
+        }
+    }
+
     public void skipRemaining() throws IOException
     {
         file.seek(finishedAt);
@@ -0,0 +1,151 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.io;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.dht.IPartitioner;
+
+/**
+ * A read-only memory mapping of an SSTable index file, with the offset of every entry
+ * (not just every INDEX_INTERVAL-th) kept in memory, so a key can be found by binary search
+ * directly over the mapped bytes.  Keys are compared in their serialized form via
+ * IPartitioner.compareDiskFormat; no Strings are created for the entries probed.
+ *
+ * Index entries are a writeUTF key followed by the long position of the row in the data file.
+ * A single mapping is limited to Integer.MAX_VALUE bytes, so large indexes are split into
+ * several segments, each ending on an entry boundary.
+ *
+ * Lookups only use absolute gets, so one instance may be shared by any number of readers.
+ */
+class MappedIndex
+{
+    private final IPartitioner partitioner;
+    private final ByteBuffer[] segments;
+    /* offsets[i][j] is the start of the j-th entry of segments[i] */
+    private final int[][] offsets;
+
+    MappedIndex(String filename, IPartitioner partitioner) throws IOException
+    {
+        this.partitioner = partitioner;
+
+        List<ByteBuffer> segmentList = new ArrayList<ByteBuffer>();
+        List<int[]> offsetList = new ArrayList<int[]>();
+        RandomAccessFile raf = new RandomAccessFile(filename, "r");
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            long length = channel.size();
+            long start = 0;
+            while (start < length)
+            {
+                int size = (int) Math.min(Integer.MAX_VALUE, length - start);
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+
+                int[] entries = new int[1024];
+                int count = 0;
+                int offset = 0;
+                while (offset + 2 <= size)
+                {
+                    int next = offset + 2 + (segment.getShort(offset) & 0xFFFF) + 8;
+                    if (next > size || next < 0)
+                        break;
+                    if (count == entries.length)
+                        entries = Arrays.copyOf(entries, count * 2);
+                    entries[count++] = offset;
+                    offset = next;
+                }
+                if (count == 0)
+                    throw new IOException("Corrupt index file " + filename + " at position " + start);
+
+                segmentList.add(segment);
+                offsetList.add(Arrays.copyOf(entries, count));
+                start += offset;
+            }
+        }
+        finally
+        {
+            raf.close();
+        }
+
+        segments = segmentList.toArray(new ByteBuffer[segmentList.size()]);
+        offsets = offsetList.toArray(new int[offsetList.size()][]);
+    }
+
+    /**
+     * @return the data file position of the given key, or -1 if it is not in the index
+     */
+    public long getPosition(DecoratedKey decoratedKey, String diskKey)
+    {
+        return find(decoratedKey, diskKey, true);
+    }
+
+    /**
+     * @return the data file position of the first key greater than or equal to the given one,
+     * or -1 if there is no such key
+     */
+    public long getNearestPosition(DecoratedKey decoratedKey, String diskKey)
+    {
+        return find(decoratedKey, diskKey, false);
+    }
+
+    private long find(DecoratedKey decoratedKey, String diskKey, boolean exact)
+    {
+        for (int i = 0; i < segments.length; i++)
+        {
+            ByteBuffer segment = segments[i];
+            int[] entries = offsets[i];
+
+            // every key in this segment sorts before the one we want
+            int high = entries.length - 1;
+            if (compare(segment, entries[high], decoratedKey, diskKey) < 0)
+                continue;
+
+            int low = 0;
+            while (low < high)
+            {
+                int mid = (low + high) >>> 1;
+                if (compare(segment, entries[mid], decoratedKey, diskKey) < 0)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+
+            int offset = entries[low];
+            if (exact && compare(segment, offset, decoratedKey, diskKey) != 0)
+                return -1;
+            return segment.getLong(offset + 2 + (segment.getShort(offset) & 0xFFFF));
+        }
+        return -1;
+    }
+
+    private int compare(ByteBuffer segment, int offset, DecoratedKey decoratedKey, String diskKey)
+    {
+        int length = segment.getShort(offset) & 0xFFFF;
+        return partitioner.compareDiskFormat(segment, offset + 2, length, decoratedKey, diskKey);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.io;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Read-only BufferedRandomAccessFiles on one file that reads borrow and give back, so that a
+ * read does not have to open the file and allocate a buffer.  At most a given number are kept
+ * open while idle, and each idle file also takes a permit from a semaphore shared by all the
+ * pools, so that the idle files of many files together stay bounded.  When more are in use at
+ * once, or no permit is left, the extra ones are opened as needed and closed when they are returned.
+ */
+public class RandomAccessFilePool
+{
+    private static final Logger logger = Logger.getLogger(RandomAccessFilePool.class);
+
+    private final String path;
+    private final int bufferSize;
+    private final BlockingQueue<BufferedRandomAccessFile> idle;
+    /* one permit per idle file, shared with the other pools */
+    private final Semaphore idlePermits;
+    private volatile boolean closed;
+
+    public RandomAccessFilePool(String path, int bufferSize, int maxIdle, Semaphore idlePermits)
+    {
+        this.path = path;
+        this.bufferSize = bufferSize;
+        this.idlePermits = idlePermits;
+        idle = new ArrayBlockingQueue<BufferedRandomAccessFile>(maxIdle);
+    }
+
+    /** @return an open file, positioned anywhere; give it back with release */
+    public BufferedRandomAccessFile get() throws IOException
+    {
+        BufferedRandomAccessFile file = idle.poll();
+        if (file == null)
+            return new BufferedRandomAccessFile(path, "r", bufferSize);
+        idlePermits.release();
+        return file;
+    }
+
+    public void release(BufferedRandomAccessFile file) throws IOException
+    {
+        if (closed || !idlePermits.tryAcquire())
+        {
+            file.close();
+            return;
+        }
+        if (!idle.offer(file))
+        {
+            idlePermits.release();
+            file.close();
+            return;
+        }
+        // close() may have emptied the pool between our check and the offer
+        if (closed)
+            closeIdle();
+    }
+
+    /** closes the idle files; files in use are closed when they are released */
+    public void close()
+    {
+        closed = true;
+        closeIdle();
+    }
+
+    private void closeIdle()
+    {
+        BufferedRandomAccessFile file;
+        while ((file = idle.poll()) != null)
+        {
+            idlePermits.release();
+            try
+            {
+                file.close();
+            }
+            catch (IOException e)
+            {
+                logger.warn("Could not close " + path, e);
+            }
+        }
+    }
+}
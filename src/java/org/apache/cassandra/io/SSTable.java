@@ -27,8 +27,9 @@ import java.util.List;
 import org.apache.commons.lang.StringUtils;
 
 import org.apache.cassandra.dht.IPartitioner;
-import org.apache.cassandra.utils.BloomFilter;
+import org.apache.cassandra.utils.Filter;
 import org.apache.cassandra.db.ColumnFamily;
+import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.config.DatabaseDescriptor;
 
 /**
@@ -47,7 +48,7 @@ public abstract class SSTable
 {
     protected String path;
     protected IPartitioner partitioner;
-    protected BloomFilter bf;
+    protected Filter bf;
     protected List<KeyPosition> indexPositions;
     protected String columnFamilyName;
 
@@ -111,10 +112,10 @@ public abstract class SSTable
      */
     class KeyPosition implements Comparable<KeyPosition>
     {
-        public final String key; // decorated
+        public final DecoratedKey key;
         public final long position;
 
-        public KeyPosition(String key, long position)
+        public KeyPosition(DecoratedKey key, long position)
         {
             this.key = key;
             this.position = position;
@@ -122,7 +123,7 @@ public abstract class SSTable
 
         public int compareTo(KeyPosition kp)
         {
-            return partitioner.getDecoratedKeyComparator().compare(key, kp.key);
+            return key.compareTo(kp.key);
         }
 
         public String toString()
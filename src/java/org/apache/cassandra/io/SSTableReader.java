@@ -19,16 +19,24 @@
 package org.apache.cassandra.io;
 
 import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.*;
+import java.util.concurrent.Semaphore;
 
 import org.apache.log4j.Logger;
 
 import org.apache.cassandra.dht.IPartitioner;
 import org.apache.cassandra.utils.BloomFilter;
+import org.apache.cassandra.utils.Filter;
+import org.apache.cassandra.utils.OpenBloomFilter;
 import org.apache.cassandra.utils.FileUtils;
+import org.apache.cassandra.utils.InstrumentedCache;
+import org.apache.cassandra.utils.WeightedInstrumentedCache;
 import org.apache.cassandra.service.StorageService;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.ColumnFamily;
+import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.marshal.AbstractType;
 import org.cliffc.high_scale_lib.NonBlockingHashMap;
 
@@ -68,9 +76,9 @@ public class SSTableReader extends SSTable
     /**
      * Get all indexed keys in the SSTable.
      */
-    public static List<String> getIndexedKeys()
+    public static List<DecoratedKey> getIndexedKeys()
     {
-        List<String> indexedKeys = new ArrayList<String>();
+        List<DecoratedKey> indexedKeys = new ArrayList<DecoratedKey>();
 
         for (SSTableReader sstable : openedFiles.values())
         {
@@ -112,17 +120,137 @@ public class SSTableReader extends SSTable
         return sstable;
     }
 
-    SSTableReader(String filename, IPartitioner partitioner, List<KeyPosition> indexPositions, BloomFilter bloomFilter)
+    SSTableReader(String filename, IPartitioner partitioner, List<KeyPosition> indexPositions, Filter bloomFilter)
     {
         super(filename, partitioner);
         this.indexPositions = indexPositions;
         this.bf = bloomFilter;
+        keyCache = createKeyCache();
+        rowIndexCache = createRowIndexCache();
+        dataFiles = createDataFilePool();
         openedFiles.put(filename, this);
     }
 
     private SSTableReader(String filename, IPartitioner partitioner)
     {
         super(filename, partitioner);
+        keyCache = createKeyCache();
+        rowIndexCache = createRowIndexCache();
+        dataFiles = createDataFilePool();
+    }
+
+    /* data file positions of recently read keys */
+    private final InstrumentedCache<DecoratedKey, Long> keyCache;
+
+    private InstrumentedCache<DecoratedKey, Long> createKeyCache()
+    {
+        return new InstrumentedCache<DecoratedKey, Long>(DatabaseDescriptor.getKeysCached(getTableName(), getColumnFamilyName()));
+    }
+
+    public InstrumentedCache<DecoratedKey, Long> getKeyCache()
+    {
+        return keyCache;
+    }
+
+    /* approximate memory held by a parsed IndexInfo beyond its serialized size */
+    private static final int INDEX_INFO_OVERHEAD = 64;
+
+    /* column bloom filters and indexes of recently read rows, by the data file position of the row */
+    private final WeightedInstrumentedCache<Long, IndexHelper.RowIndex> rowIndexCache;
+
+    private WeightedInstrumentedCache<Long, IndexHelper.RowIndex> createRowIndexCache()
+    {
+        return new WeightedInstrumentedCache<Long, IndexHelper.RowIndex>(DatabaseDescriptor.getColumnIndexesCachedInKB(getTableName(), getColumnFamilyName()) * 1024L);
+    }
+
+    public WeightedInstrumentedCache<Long, IndexHelper.RowIndex> getRowIndexCache()
+    {
+        return rowIndexCache;
+    }
+
+    /**
+     * Finds the column bloom filter and index of the row for key at position, from the cache
+     * or by reading them, and leaves file at the column family header that follows them.
+     * @param needBloomFilter if false, a bloom filter that is not cached may be skipped instead of read
+     */
+    public IndexHelper.RowIndex getRowIndex(BufferedRandomAccessFile file, DecoratedKey key, long position, boolean needBloomFilter) throws IOException
+    {
+        boolean caching = rowIndexCache.getCapacity() > 0;
+        if (caching)
+        {
+            IndexHelper.RowIndex index = rowIndexCache.get(position);
+            if (index != null)
+            {
+                file.seek(index.headerPosition);
+                return index;
+            }
+        }
+
+        file.seek(position);
+        String keyInDisk = file.readUTF();
+        assert keyInDisk.equals(partitioner.convertToDiskFormat(key)) : keyInDisk;
+        file.readInt(); // row size
+        long start = file.getFilePointer();
+        BloomFilter bf = null;
+        if (caching || needBloomFilter)
+            bf = IndexHelper.defreezeBloomFilter(file);
+        else
+            IndexHelper.skipBloomFilter(file);
+        List<IndexHelper.IndexInfo> indexes = IndexHelper.deserializeIndex(file);
+        IndexHelper.RowIndex index = new IndexHelper.RowIndex(bf, indexes, file.getFilePointer());
+
+        if (caching)
+            rowIndexCache.put(position, index, index.headerPosition - start + INDEX_INFO_OVERHEAD * indexes.size());
+        return index;
+    }
+
+    /* the data files left open by earlier reads of all sstables together, at most MaxIdleDataFiles */
+    private static final Semaphore idleDataFilePermits = new Semaphore(DatabaseDescriptor.getMaxIdleDataFiles());
+
+    /* data files left open by earlier reads, at most one per concurrent reader */
+    private final RandomAccessFilePool dataFiles;
+
+    private RandomAccessFilePool createDataFilePool()
+    {
+        int bufferSize = Math.max(DatabaseDescriptor.getSlicedReadBufferSizeInKB(), DatabaseDescriptor.getIndexedReadBufferSizeInKB()) * 1024;
+        return new RandomAccessFilePool(path, bufferSize, DatabaseDescriptor.getConcurrentReaders(), idleDataFilePermits);
+    }
+
+    /** @return an open data file for a read, which must be given back with releaseDataFile */
+    public BufferedRandomAccessFile getDataFile() throws IOException
+    {
+        return dataFiles.get();
+    }
+
+    public void releaseDataFile(BufferedRandomAccessFile file) throws IOException
+    {
+        dataFiles.release(file);
+    }
+
+    /* the whole index file, mapped on first use when IndexAccessMode is mmap */
+    private volatile MappedIndex mappedIndex;
+
+    /** @return the mapped index if IndexAccessMode is mmap, or null if the index should be scanned from disk */
+    private MappedIndex getMappedIndex() throws IOException
+    {
+        if (DatabaseDescriptor.getIndexAccessMode() != DatabaseDescriptor.IndexAccessMode.mmap)
+        {
+            // drop any mapping from before the mode was switched, so it can be unmapped
+            mappedIndex = null;
+            return null;
+        }
+
+        MappedIndex index = mappedIndex;
+        if (index == null)
+        {
+            synchronized (this)
+            {
+                index = mappedIndex;
+                if (index == null)
+                    mappedIndex = index = new MappedIndex(indexFilename(), partitioner);
+            }
+        }
+        return index;
     }
 
     public List<KeyPosition> getIndexPositions()
@@ -130,10 +258,28 @@ public class SSTableReader extends SSTable
         return indexPositions;
     }
 
+    /**
+     * Filters written by SSTableWriter are OpenBloomFilters, read straight out of a mapping of the file;
+     * sstables written before that have a serialized BloomFilter instead.
+     */
     private void loadBloomFilter() throws IOException
     {
-        DataInputStream stream = new DataInputStream(new FileInputStream(filterFilename()));
-        bf = BloomFilter.serializer().deserialize(stream);
+        FileInputStream input = new FileInputStream(filterFilename());
+        try
+        {
+            FileChannel channel = input.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            bf = OpenBloomFilter.deserialize(buffer);
+            if (bf == null)
+            {
+                channel.position(0);
+                bf = BloomFilter.serializer().deserialize(new DataInputStream(new BufferedInputStream(input)));
+            }
+        }
+        finally
+        {
+            input.close();
+        }
     }
 
     private void loadIndexFile() throws IOException
@@ -154,13 +300,13 @@ public class SSTableReader extends SSTable
             input.readLong();
             if (i++ % INDEX_INTERVAL == 0)
             {
-                indexPositions.add(new KeyPosition(decoratedKey, indexPosition));
+                indexPositions.add(new KeyPosition(partitioner.convertFromDiskFormat(decoratedKey), indexPosition));
             }
         }
     }
 
     /** get the position in the index file to start scanning to find the given key (at most indexInterval keys away) */
-    private long getIndexScanPosition(String decoratedKey, IPartitioner partitioner)
+    private long getIndexScanPosition(DecoratedKey decoratedKey)
     {
         assert indexPositions != null && indexPositions.size() > 0;
         int index = Collections.binarySearch(indexPositions, new KeyPosition(decoratedKey, -1));
@@ -182,17 +328,37 @@ public class SSTableReader extends SSTable
     /**
      * returns the position in the data file to find the given key, or -1 if the key is not present
      */
-    public long getPosition(String decoratedKey) throws IOException
+    public long getPosition(DecoratedKey decoratedKey) throws IOException
     {
-        if (!bf.isPresent(decoratedKey))
+        String diskKey = partitioner.convertToDiskFormat(decoratedKey);
+        if (!bf.isPresent(diskKey))
             return -1;
-        long start = getIndexScanPosition(decoratedKey, partitioner);
+        boolean useCache = keyCache.getCapacity() > 0;
+        if (useCache)
+        {
+            Long cachedPosition = keyCache.get(decoratedKey);
+            if (cachedPosition != null)
+                return cachedPosition;
+        }
+
+        long position = getIndexPosition(decoratedKey, diskKey);
+        if (useCache && position >= 0)
+            keyCache.put(decoratedKey, position);
+        return position;
+    }
+
+    private long getIndexPosition(DecoratedKey decoratedKey, String diskKey) throws IOException
+    {
+        MappedIndex index = getMappedIndex();
+        if (index != null)
+            return index.getPosition(decoratedKey, diskKey);
+
+        long start = getIndexScanPosition(decoratedKey);
         if (start < 0)
         {
             return -1;
         }
 
-        // TODO mmap the index file?
         BufferedRandomAccessFile input = new BufferedRandomAccessFile(indexFilename(path), "r");
         input.seek(start);
         int i = 0;
@@ -200,17 +366,17 @@ public class SSTableReader extends SSTable
         {
             do
             {
-                String indexDecoratedKey;
+                DecoratedKey indexDecoratedKey;
                 try
                 {
-                    indexDecoratedKey = input.readUTF();
+                    indexDecoratedKey = partitioner.convertFromDiskFormat(input.readUTF());
                 }
                 catch (EOFException e)
                 {
                     return -1;
                 }
                 long position = input.readLong();
-                int v = partitioner.getDecoratedKeyComparator().compare(indexDecoratedKey, decoratedKey);
+                int v = indexDecoratedKey.compareTo(decoratedKey);
                 if (v == 0)
                 {
                     return position;
@@ -227,9 +393,13 @@ public class SSTableReader extends SSTable
     }
 
     /** like getPosition, but if key is not found will return the location of the first key _greater_ than the desired one, or -1 if no such key exists. */
-    public long getNearestPosition(String decoratedKey) throws IOException
+    public long getNearestPosition(DecoratedKey decoratedKey) throws IOException
     {
-        long start = getIndexScanPosition(decoratedKey, partitioner);
+        MappedIndex index = getMappedIndex();
+        if (index != null)
+            return index.getNearestPosition(decoratedKey, partitioner.convertToDiskFormat(decoratedKey));
+
+        long start = getIndexScanPosition(decoratedKey);
         if (start < 0)
         {
             return 0;
@@ -240,17 +410,17 @@ public class SSTableReader extends SSTable
         {
             while (true)
             {
-                String indexDecoratedKey;
+                DecoratedKey indexDecoratedKey;
                 try
                 {
-                    indexDecoratedKey = input.readUTF();
+                    indexDecoratedKey = partitioner.convertFromDiskFormat(input.readUTF());
                 }
                 catch (EOFException e)
                 {
                     return -1;
                 }
                 long position = input.readLong();
-                int v = partitioner.getDecoratedKeyComparator().compare(indexDecoratedKey, decoratedKey);
+                int v = indexDecoratedKey.compareTo(decoratedKey);
                 if (v >= 0)
                     return position;
             }
@@ -267,6 +437,9 @@ public class SSTableReader extends SSTable
         FileUtils.deleteWithConfirm(new File(indexFilename(path)));
         FileUtils.deleteWithConfirm(new File(filterFilename(path)));
         openedFiles.remove(path);
+        mappedIndex = null;
+        rowIndexCache.clear();
+        dataFiles.close();
     }
 
     /** obviously only for testing */
@@ -281,6 +454,7 @@ public class SSTableReader extends SSTable
         openedFiles.clear();
         for (SSTableReader sstable : sstables)
         {
+            sstable.dataFiles.close();
             SSTableReader.open(sstable.path, sstable.partitioner);
         }
     }
@@ -25,15 +25,15 @@ import java.io.File;
 import java.io.IOException;
 import java.io.FileOutputStream;
 import java.io.DataOutputStream;
-import java.util.Comparator;
 import java.util.ArrayList;
 
 import org.apache.log4j.Logger;
 
 import org.apache.cassandra.dht.IPartitioner;
 import org.apache.cassandra.service.StorageService;
-import org.apache.cassandra.utils.BloomFilter;
+import org.apache.cassandra.utils.OpenBloomFilter;
 import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.DecoratedKey;
 
 public class SSTableWriter extends SSTable
 {
@@ -42,25 +42,24 @@ public class SSTableWriter extends SSTable
     private long keysWritten;
     private BufferedRandomAccessFile dataFile;
     private BufferedRandomAccessFile indexFile;
-    private String lastWrittenKey;
-    private BloomFilter bf;
+    private DecoratedKey lastWrittenKey;
+    private OpenBloomFilter bf;
 
     public SSTableWriter(String filename, int keyCount, IPartitioner partitioner) throws IOException
     {
         super(filename, partitioner);
         dataFile = new BufferedRandomAccessFile(path, "rw", (int)(DatabaseDescriptor.getFlushDataBufferSizeInMB() * 1024 * 1024));
         indexFile = new BufferedRandomAccessFile(indexFilename(), "rw", (int)(DatabaseDescriptor.getFlushIndexBufferSizeInMB() * 1024 * 1024));
-        bf = new BloomFilter(keyCount, 15);
+        bf = new OpenBloomFilter(keyCount, 15);
     }
 
-    private long beforeAppend(String decoratedKey) throws IOException
+    private long beforeAppend(DecoratedKey decoratedKey) throws IOException
     {
         if (decoratedKey == null)
         {
             throw new IOException("Keys must not be null.");
         }
-        Comparator<String> c = partitioner.getDecoratedKeyComparator();
-        if (lastWrittenKey != null && c.compare(lastWrittenKey, decoratedKey) > 0)
+        if (lastWrittenKey != null && lastWrittenKey.compareTo(decoratedKey) > 0)
         {
             logger.info("Last written key : " + lastWrittenKey);
             logger.info("Current key : " + decoratedKey);
@@ -70,12 +69,12 @@ public class SSTableWriter extends SSTable
         return (lastWrittenKey == null) ? 0 : dataFile.getFilePointer();
     }
 
-    private void afterAppend(String decoratedKey, long position) throws IOException
+    private void afterAppend(DecoratedKey decoratedKey, String diskKey, long position) throws IOException
     {
-        bf.add(decoratedKey);
+        bf.add(diskKey);
         lastWrittenKey = decoratedKey;
         long indexPosition = indexFile.getFilePointer();
-        indexFile.writeUTF(decoratedKey);
+        indexFile.writeUTF(diskKey);
         indexFile.writeLong(position);
         if (logger.isTraceEnabled())
             logger.trace("wrote " + decoratedKey + " at " + position);
@@ -92,23 +91,43 @@ public class SSTableWriter extends SSTable
     }
 
     // TODO make this take a DataOutputStream and wrap the byte[] version to combine them
-    public void append(String decoratedKey, DataOutputBuffer buffer) throws IOException
+    public void append(DecoratedKey decoratedKey, DataOutputBuffer buffer) throws IOException
     {
         long currentPosition = beforeAppend(decoratedKey);
-        dataFile.writeUTF(decoratedKey);
+        String diskKey = partitioner.convertToDiskFormat(decoratedKey);
+        dataFile.writeUTF(diskKey);
         int length = buffer.getLength();
         dataFile.writeInt(length);
         dataFile.write(buffer.getData(), 0, length);
-        afterAppend(decoratedKey, currentPosition);
+        afterAppend(decoratedKey, diskKey, currentPosition);
     }
 
-    public void append(String decoratedKey, byte[] value) throws IOException
+    public void append(DecoratedKey decoratedKey, byte[] value) throws IOException
     {
         long currentPosition = beforeAppend(decoratedKey);
-        dataFile.writeUTF(decoratedKey);
+        String diskKey = partitioner.convertToDiskFormat(decoratedKey);
+        dataFile.writeUTF(diskKey);
         dataFile.writeInt(value.length);
         dataFile.write(value);
-        afterAppend(decoratedKey, currentPosition);
+        afterAppend(decoratedKey, diskKey, currentPosition);
+    }
+
+    /**
+     * Appends a row read from another sstable by copying its serialized form as-is,
+     * so the columns are never deserialized and the row is never held in memory.
+     * @return the number of bytes of row data written
+     */
+    public int append(IteratingRow row) throws IOException
+    {
+        DecoratedKey decoratedKey = row.getKey();
+        long currentPosition = beforeAppend(decoratedKey);
+        String diskKey = partitioner.convertToDiskFormat(decoratedKey);
+        dataFile.writeUTF(diskKey);
+        int length = row.getDataSize();
+        dataFile.writeInt(length);
+        row.echoData(dataFile);
+        afterAppend(decoratedKey, diskKey, currentPosition);
+        return length;
     }
 
     /**
@@ -119,7 +138,7 @@ public class SSTableWriter extends SSTable
         // bloom filter
         FileOutputStream fos = new FileOutputStream(filterFilename());
         DataOutputStream stream = new DataOutputStream(fos);
-        BloomFilter.serializer().serialize(bf, stream);
+        OpenBloomFilter.serializer().serialize(bf, stream);
         stream.flush();
         fos.getFD().sync();
         stream.close();
@@ -20,7 +20,6 @@ package org.apache.cassandra.locator;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -54,9 +53,48 @@ public abstract class AbstractReplicationStrategy
         storagePort_ = storagePort;
     }
 
-    public abstract EndPoint[] getWriteStorageEndPoints(Token token);
-    public abstract EndPoint[] getReadStorageEndPoints(Token token, Map<Token, EndPoint> tokenToEndPointMap);
-    public abstract EndPoint[] getReadStorageEndPoints(Token token);
+    /* the replicas of every range of the last ring asked about; see Placement */
+    private volatile Placement readPlacement_;
+    private volatile Placement writePlacement_;
+
+    /**
+     * @return the replicas for the range of ring that ends at its index'th token, in order of preference.
+     * Strategies may assume that ring never changes.
+     */
+    protected abstract List<EndPoint> calculateReadEndPoints(TokenMetadata.Ring ring, int index);
+
+    /**
+     * @return the replicas to write to for the range of ring, which includes bootstrapping nodes,
+     * that ends at its index'th token.
+     */
+    protected abstract List<EndPoint> calculateWriteEndPoints(TokenMetadata.Ring ring, int index);
+
+    public EndPoint[] getReadStorageEndPoints(Token token)
+    {
+        TokenMetadata.Ring ring = tokenMetadata_.getRing();
+        Placement placement = readPlacement_;
+        if (placement == null || placement.ring != ring)
+            readPlacement_ = placement = new Placement(ring, false);
+        return placement.getEndPoints(token);
+    }
+
+    public EndPoint[] getWriteStorageEndPoints(Token token)
+    {
+        TokenMetadata.Ring ring = tokenMetadata_.getWriteRing();
+        Placement placement = writePlacement_;
+        if (placement == null || placement.ring != ring)
+            writePlacement_ = placement = new Placement(ring, true);
+        return placement.getEndPoints(token);
+    }
+
+    public EndPoint[] getReadStorageEndPoints(Token token, Map<Token, EndPoint> tokenToEndPointMap)
+    {
+        TokenMetadata.Ring ring = new TokenMetadata.Ring(tokenToEndPointMap, null);
+        if (ring.size() == 0)
+            return new EndPoint[0];
+        List<EndPoint> list = calculateReadEndPoints(ring, ring.getIndex(token));
+        return list.toArray(new EndPoint[list.size()]);
+    }
 
     /*
      * This method returns the hint map. The key is the endpoint
@@ -84,22 +122,13 @@ public abstract class AbstractReplicationStrategy
     protected EndPoint getNextAvailableEndPoint(EndPoint startPoint, List<EndPoint> topN, List<EndPoint> liveNodes)
     {
         EndPoint endPoint = null;
-        Map<Token, EndPoint> tokenToEndPointMap = tokenMetadata_.cloneTokenEndPointMap();
-        List tokens = new ArrayList(tokenToEndPointMap.keySet());
-        Collections.sort(tokens);
-        Token token = tokenMetadata_.getToken(startPoint);
-        int index = Collections.binarySearch(tokens, token);
-        if(index < 0)
-        {
-            index = (index + 1) * (-1);
-            if (index >= tokens.size())
-                index = 0;
-        }
-        int totalNodes = tokens.size();
+        TokenMetadata.Ring ring = tokenMetadata_.getRing();
+        int index = Math.max(ring.indexOf(startPoint), 0);
+        int totalNodes = ring.size();
         int startIndex = (index+1)%totalNodes;
         for (int i = startIndex, count = 1; count < totalNodes ; ++count, i = (i+1)%totalNodes)
         {
-            EndPoint tmpEndPoint = tokenToEndPointMap.get(tokens.get(i));
+            EndPoint tmpEndPoint = ring.getEndPoint(i);
             if(FailureDetector.instance().isAlive(tmpEndPoint) && !topN.contains(tmpEndPoint) && !liveNodes.contains(tmpEndPoint))
             {
                 endPoint = tmpEndPoint;
@@ -138,4 +167,33 @@ public abstract class AbstractReplicationStrategy
         }
         return map;
     }
+
+    /**
+     * The replicas of each range of one ring, computed once for all the keys in the range
+     * instead of once per key.
+     */
+    private class Placement
+    {
+        final TokenMetadata.Ring ring;
+        private final EndPoint[][] endPoints;
+
+        Placement(TokenMetadata.Ring ring, boolean forWrite)
+        {
+            this.ring = ring;
+            endPoints = new EndPoint[ring.size()][];
+            for (int i = 0; i < endPoints.length; i++)
+            {
+                List<EndPoint> list = forWrite ? calculateWriteEndPoints(ring, i) : calculateReadEndPoints(ring, i);
+                endPoints[i] = list.toArray(new EndPoint[list.size()]);
+            }
+        }
+
+        /** @return a copy, which the caller may change */
+        EndPoint[] getEndPoints(Token token)
+        {
+            if (endPoints.length == 0)
+                return new EndPoint[0];
+            return endPoints[ring.getIndex(token)].clone();
+        }
+    }
 }
@@ -20,7 +20,6 @@ package org.apache.cassandra.locator;
 
 import java.net.UnknownHostException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -44,58 +43,51 @@ public class RackAwareStrategy extends AbstractReplicationStrategy
         super(tokenMetadata, partitioner, replicas, storagePort);
     }
 
-    public EndPoint[] getReadStorageEndPoints(Token token)
+    protected List<EndPoint> calculateReadEndPoints(TokenMetadata.Ring ring, int index)
     {
         int startIndex;
         List<EndPoint> list = new ArrayList<EndPoint>();
         boolean bDataCenter = false;
         boolean bOtherRack = false;
         int foundCount = 0;
-        Map<Token, EndPoint> tokenToEndPointMap = tokenMetadata_.cloneTokenEndPointMap();
-        List tokens = new ArrayList(tokenToEndPointMap.keySet());
-        Collections.sort(tokens);
-        int index = Collections.binarySearch(tokens, token);
-        if(index < 0)
-        {
-            index = (index + 1) * (-1);
-            if (index >= tokens.size())
-                index = 0;
-        }
-        int totalNodes = tokens.size();
+        int totalNodes = ring.size();
         // Add the node at the index by default
-        list.add(tokenToEndPointMap.get(tokens.get(index)));
+        EndPoint primary = ring.getEndPoint(index);
+        list.add(primary);
         foundCount++;
         if( replicas_ == 1 )
         {
-            return list.toArray(new EndPoint[list.size()]);
+            retrofitPorts(list);
+            return list;
         }
         startIndex = (index + 1)%totalNodes;
         IEndPointSnitch endPointSnitch = StorageService.instance().getEndPointSnitch();
         
         for (int i = startIndex, count = 1; count < totalNodes && foundCount < replicas_; ++count, i = (i+1)%totalNodes)
         {
+            EndPoint endPoint = ring.getEndPoint(i);
             try
             {
                 // First try to find one in a different data center
-                if(!endPointSnitch.isInSameDataCenter(tokenToEndPointMap.get(tokens.get(index)), tokenToEndPointMap.get(tokens.get(i))))
+                if(!endPointSnitch.isInSameDataCenter(primary, endPoint))
                 {
                     // If we have already found something in a diff datacenter no need to find another
                     if( !bDataCenter )
                     {
-                        list.add(tokenToEndPointMap.get(tokens.get(i)));
+                        list.add(endPoint);
                         bDataCenter = true;
                         foundCount++;
                     }
                     continue;
                 }
                 // Now  try to find one on a different rack
-                if(!endPointSnitch.isOnSameRack(tokenToEndPointMap.get(tokens.get(index)), tokenToEndPointMap.get(tokens.get(i))) &&
-                        endPointSnitch.isInSameDataCenter(tokenToEndPointMap.get(tokens.get(index)), tokenToEndPointMap.get(tokens.get(i))))
+                if(!endPointSnitch.isOnSameRack(primary, endPoint) &&
+                        endPointSnitch.isInSameDataCenter(primary, endPoint))
                 {
                     // If we have already found something in a diff rack no need to find another
                     if( !bOtherRack )
                     {
-                        list.add(tokenToEndPointMap.get(tokens.get(i)));
+                        list.add(endPoint);
                         bOtherRack = true;
                         foundCount++;
                     }
@@ -112,14 +104,14 @@ public class RackAwareStrategy extends AbstractReplicationStrategy
         // loop through the list and add until we have N nodes.
         for (int i = startIndex, count = 1; count < totalNodes && foundCount < replicas_; ++count, i = (i+1)%totalNodes)
         {
-            if( ! list.contains(tokenToEndPointMap.get(tokens.get(i))))
+            if( ! list.contains(ring.getEndPoint(i)))
             {
-                list.add(tokenToEndPointMap.get(tokens.get(i)));
+                list.add(ring.getEndPoint(i));
                 foundCount++;
             }
         }
         retrofitPorts(list);
-        return list.toArray(new EndPoint[list.size()]);
+        return list;
     }
     
     public EndPoint[] getReadStorageEndPoints(Token token, Map<Token, EndPoint> tokenToEndPointMap)
@@ -132,6 +124,11 @@ public class RackAwareStrategy extends AbstractReplicationStrategy
         throw new UnsupportedOperationException("Rack-aware bootstrapping not supported");
     }
 
+    protected List<EndPoint> calculateWriteEndPoints(TokenMetadata.Ring ring, int index)
+    {
+        throw new UnsupportedOperationException("Rack-aware bootstrapping not supported");
+    }
+
     
     public Map<EndPoint, EndPoint> getHintedStorageEndPointsForWrite(Token token)
     {
@@ -19,9 +19,7 @@
 package org.apache.cassandra.locator;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 import org.apache.cassandra.dht.Token;
 import org.apache.cassandra.dht.IPartitioner;
@@ -40,78 +38,33 @@ public class RackUnawareStrategy extends AbstractReplicationStrategy
         super(tokenMetadata, partitioner, replicas, storagePort);
     }
 
-    public EndPoint[] getReadStorageEndPoints(Token token)
+    protected List<EndPoint> calculateReadEndPoints(TokenMetadata.Ring ring, int index)
     {
-        return getReadStorageEndPoints(token, tokenMetadata_.cloneTokenEndPointMap());
+        return calculateEndPoints(ring, index);
     }
-    
-    public EndPoint[] getWriteStorageEndPoints(Token token)
-    {
-        Map<Token, EndPoint> tokenToEndPointMap = tokenMetadata_.cloneTokenEndPointMap();
-        Map<Token, EndPoint> bootstrapTokensToEndpointMap = tokenMetadata_.cloneBootstrapNodes();
-        List<Token> tokenList = getStorageTokens(token, tokenToEndPointMap, bootstrapTokensToEndpointMap);
-        List<EndPoint> list = new ArrayList<EndPoint>();
-        for (Token t: tokenList)
-        {
-            EndPoint e = tokenToEndPointMap.get(t);
-            if (e == null) 
-                e = bootstrapTokensToEndpointMap.get(t); 
-            assert e != null;
-            list.add(e);
-        }
-        retrofitPorts(list);
-        return list.toArray(new EndPoint[list.size()]);            
-    }
-    
-    public EndPoint[] getReadStorageEndPoints(Token token, Map<Token, EndPoint> tokenToEndPointMap)
+
+    protected List<EndPoint> calculateWriteEndPoints(TokenMetadata.Ring ring, int index)
     {
-        List<Token> tokenList = getStorageTokens(token, tokenToEndPointMap, null);
-        List<EndPoint> list = new ArrayList<EndPoint>();
-        for (Token t: tokenList)
-            list.add(tokenToEndPointMap.get(t));
-        retrofitPorts(list);
-        return list.toArray(new EndPoint[list.size()]);
+        return calculateEndPoints(ring, index);
     }
 
-    private List<Token> getStorageTokens(Token token, Map<Token, EndPoint> tokenToEndPointMap, Map<Token, EndPoint> bootStrapTokenToEndPointMap)
+    /*
+     * The nodes from index on around the ring until there are N of them, plus any
+     * bootstrapping nodes among them, which do not count towards the N.
+     */
+    private List<EndPoint> calculateEndPoints(TokenMetadata.Ring ring, int index)
     {
-        int startIndex;
-        List<Token> tokenList = new ArrayList<Token>();
+        List<EndPoint> list = new ArrayList<EndPoint>(replicas_);
         int foundCount = 0;
-        List tokens = new ArrayList<Token>(tokenToEndPointMap.keySet());
-        List<Token> bsTokens = null;
-        
-        if (bootStrapTokenToEndPointMap != null)
-        {
-            bsTokens = new ArrayList<Token>(bootStrapTokenToEndPointMap.keySet());
-            tokens.addAll(bsTokens);
-        }
-        Collections.sort(tokens);
-        int index = Collections.binarySearch(tokens, token);
-        if(index < 0)
+        int totalNodes = ring.size();
+        for (int i = index, count = 0; count < totalNodes && foundCount < replicas_; ++count, i = (i+1)%totalNodes)
         {
-            index = (index + 1) * (-1);
-            if (index >= tokens.size())
-                index = 0;
+            list.add(ring.getEndPoint(i));
+            //Don't count bootstrapping tokens towards the count
+            if (!ring.isBootstrapping(i))
+                foundCount++;
         }
-        int totalNodes = tokens.size();
-        // Add the token at the index by default
-        tokenList.add((Token)tokens.get(index));
-        if (bsTokens == null || !bsTokens.contains(tokens.get(index)))
-            foundCount++;
-        startIndex = (index + 1)%totalNodes;
-        // If we found N number of nodes we are good. This loop will just exit. Otherwise just
-        // loop through the list and add until we have N nodes.
-        for (int i = startIndex, count = 1; count < totalNodes && foundCount < replicas_; ++count, i = (i+1)%totalNodes)
-        {
-            if(!tokenList.contains(tokens.get(i)))
-            {
-                tokenList.add((Token)tokens.get(i));
-                //Don't count bootstrapping tokens towards the count
-                if (bsTokens==null || !bsTokens.contains(tokens.get(i)))
-                    foundCount++;
-            }
-        }
-        return tokenList;
+        retrofitPorts(list);
+        return list;
     }
 }
@@ -37,11 +37,19 @@ public class TokenMetadata
     /* Use this lock for manipulating the token map */
     private final ReadWriteLock lock_ = new ReentrantReadWriteLock(true);
 
+    /*
+     * Immutable snapshots of the maps above, replaced under the write lock whenever they change,
+     * so that finding the replicas of a key needs neither the lock nor a copy of the maps.
+     */
+    private volatile Ring ring_;
+    private volatile Ring writeRing_;
+
     public TokenMetadata()
     {
         tokenToEndPointMap_ = new HashMap<Token, EndPoint>();
         endPointToTokenMap_ = new HashMap<EndPoint, Token>();
         this.bootstrapNodes = Collections.synchronizedMap(new HashMap<Token, EndPoint>());
+        updateRings();
     }
 
     public TokenMetadata(Map<Token, EndPoint> tokenToEndPointMap, Map<EndPoint, Token> endPointToTokenMap, Map<Token, EndPoint> bootstrapNodes)
@@ -49,6 +57,25 @@ public class TokenMetadata
         tokenToEndPointMap_ = tokenToEndPointMap;
         endPointToTokenMap_ = endPointToTokenMap;
         this.bootstrapNodes = bootstrapNodes;
+        updateRings();
+    }
+
+    private void updateRings()
+    {
+        ring_ = new Ring(tokenToEndPointMap_, null);
+        writeRing_ = bootstrapNodes == null || bootstrapNodes.isEmpty() ? ring_ : new Ring(tokenToEndPointMap_, bootstrapNodes);
+    }
+
+    /** @return the tokens of the nodes in the ring, not counting bootstrapping nodes */
+    public Ring getRing()
+    {
+        return ring_;
+    }
+
+    /** @return the tokens of the nodes in the ring and of the nodes bootstrapping into it */
+    public Ring getWriteRing()
+    {
+        return writeRing_;
     }
     
     public TokenMetadata cloneMe()
@@ -82,6 +109,7 @@ public class TokenMetadata
                 tokenToEndPointMap_.put(token, endpoint);
                 endPointToTokenMap_.put(endpoint, token);
             }
+            updateRings();
         }
         finally
         {
@@ -102,6 +130,7 @@ public class TokenMetadata
             if ( oldToken != null )
                 tokenToEndPointMap_.remove(oldToken);            
             endPointToTokenMap_.remove(endpoint);
+            updateRings();
         }
         finally
         {
@@ -137,38 +166,18 @@ public class TokenMetadata
 
     public EndPoint getFirstEndpoint()
     {
-        lock_.readLock().lock();
-        try
-        {
-            ArrayList<Token> tokens = new ArrayList<Token>(tokenToEndPointMap_.keySet());
-            if (tokens.isEmpty())
-                return null;
-            Collections.sort(tokens);
-            return tokenToEndPointMap_.get(tokens.get(0));
-        }
-        finally
-        {
-            lock_.readLock().unlock();
-        }
+        Ring ring = ring_;
+        return ring.size() == 0 ? null : ring.getEndPoint(0);
     }
     
 
     public EndPoint getNextEndpoint(EndPoint endPoint)
     {
-        lock_.readLock().lock();
-        try
-        {
-            ArrayList<Token> tokens = new ArrayList<Token>(tokenToEndPointMap_.keySet());
-            if (tokens.isEmpty())
-                return null;
-            Collections.sort(tokens);
-            int i = tokens.indexOf(endPointToTokenMap_.get(endPoint)); // TODO binary search
-            return tokenToEndPointMap_.get(tokens.get((i + 1) % tokens.size()));
-        }
-        finally
-        {
-            lock_.readLock().unlock();
-        }
+        Ring ring = ring_;
+        if (ring.size() == 0)
+            return null;
+        int i = ring.indexOf(endPoint);
+        return ring.getEndPoint((i + 1) % ring.size());
     }
     
     public Map<Token, EndPoint> cloneBootstrapNodes()
@@ -217,6 +226,88 @@ public class TokenMetadata
         }
     }
     
+    /**
+     * The tokens of a ring in order, with the endpoint of each.  A Ring never changes;
+     * TokenMetadata replaces its Ring when the membership changes, so strategies may
+     * precompute whatever they like for one and keep it for as long as it is current.
+     */
+    public static final class Ring
+    {
+        private final Token[] tokens_;
+        private final EndPoint[] endPoints_;
+        private final boolean[] bootstrapping_;
+
+        /**
+         * @param bootstrapNodes the tokens of bootstrapping nodes to include as well, or null
+         */
+        public Ring(Map<Token, EndPoint> tokenToEndPointMap, Map<Token, EndPoint> bootstrapNodes)
+        {
+            List<Token> tokens = new ArrayList<Token>(tokenToEndPointMap.keySet());
+            if (bootstrapNodes != null)
+                tokens.addAll(bootstrapNodes.keySet());
+            Collections.sort(tokens);
+            tokens_ = tokens.toArray(new Token[tokens.size()]);
+            endPoints_ = new EndPoint[tokens_.length];
+            bootstrapping_ = new boolean[tokens_.length];
+            for (int i = 0; i < tokens_.length; i++)
+            {
+                endPoints_[i] = tokenToEndPointMap.get(tokens_[i]);
+                if (endPoints_[i] == null)
+                {
+                    endPoints_[i] = bootstrapNodes.get(tokens_[i]);
+                    bootstrapping_[i] = true;
+                }
+            }
+        }
+
+        public int size()
+        {
+            return tokens_.length;
+        }
+
+        public Token getToken(int i)
+        {
+            return tokens_[i];
+        }
+
+        public EndPoint getEndPoint(int i)
+        {
+            return endPoints_[i];
+        }
+
+        public boolean isBootstrapping(int i)
+        {
+            return bootstrapping_[i];
+        }
+
+        /**
+         * @return the index of the first token at or after token, wrapping around to 0 past the
+         * last one: the node whose range token falls in.  The ring must not be empty.
+         */
+        public int getIndex(Token token)
+        {
+            int index = Arrays.binarySearch(tokens_, token);
+            if (index < 0)
+            {
+                index = (index + 1) * (-1);
+                if (index >= tokens_.length)
+                    index = 0;
+            }
+            return index;
+        }
+
+        /** @return the index of the token of endPoint, or -1 if it is not in the ring */
+        public int indexOf(EndPoint endPoint)
+        {
+            for (int i = 0; i < endPoints_.length; i++)
+            {
+                if (endPoints_[i].equals(endPoint))
+                    return i;
+            }
+            return -1;
+        }
+    }
+
     public String toString()
     {
         StringBuilder sb = new StringBuilder();
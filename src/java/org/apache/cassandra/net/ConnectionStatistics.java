@@ -26,6 +26,11 @@ public class ConnectionStatistics
     private int remotePort;
     private int totalConnections;
     private int connectionsInUse;
+    private long uncompressedBytes;
+    private long compressedBytes;
+    private long compressionNanos;
+    private long decompressedBytes;
+    private long decompressionNanos;
 
     ConnectionStatistics(EndPoint localEp, EndPoint remoteEp, int tc, int ciu)
     {
@@ -67,8 +72,54 @@ public class ConnectionStatistics
         return connectionsInUse;
     }
 
+    /** adds in the compression work of one of the pool's connections */
+    void addCompression(MessageCompressor compressor)
+    {
+        uncompressedBytes += compressor.getUncompressedBytes();
+        compressedBytes += compressor.getCompressedBytes();
+        compressionNanos += compressor.getCompressionNanos();
+        decompressedBytes += compressor.getDecompressedBytes();
+        decompressionNanos += compressor.getDecompressionNanos();
+    }
+
+    /** @return bytes of messages large enough to be compressed, as serialized */
+    public long getUncompressedBytes()
+    {
+        return uncompressedBytes;
+    }
+
+    /** @return bytes actually sent for those messages */
+    public long getCompressedBytes()
+    {
+        return compressedBytes;
+    }
+
+    /** @return compressed size over uncompressed size of the messages sent, or 1 if none were compressed */
+    public double getCompressionRatio()
+    {
+        return uncompressedBytes == 0 ? 1 : (double) compressedBytes / uncompressedBytes;
+    }
+
+    public long getCompressionTimeMillis()
+    {
+        return compressionNanos / 1000000;
+    }
+
+    /** @return bytes of messages received compressed, after decompression */
+    public long getDecompressedBytes()
+    {
+        return decompressedBytes;
+    }
+
+    public long getDecompressionTimeMillis()
+    {
+        return decompressionNanos / 1000000;
+    }
+
     public String toString()
     {
-        return localHost + ":" + localPort + "->" + remoteHost + ":" + remotePort + " Total Connections open : " + totalConnections + " Connections in use : " + connectionsInUse;
+        return localHost + ":" + localPort + "->" + remoteHost + ":" + remotePort + " Total Connections open : " + totalConnections + " Connections in use : " + connectionsInUse
+               + " Compression ratio : " + getCompressionRatio() + " Compression time (ms) : " + getCompressionTimeMillis()
+               + " Decompression time (ms) : " + getDecompressionTimeMillis();
     }
 }
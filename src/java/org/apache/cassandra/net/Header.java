@@ -18,21 +18,63 @@
 
 package org.apache.cassandra.net;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.cassandra.gms.Gossiper;
 import org.apache.cassandra.io.ICompactSerializer;
-import org.apache.cassandra.utils.GuidGenerator;
+import org.apache.cassandra.service.StorageLoadBalancer;
+import org.apache.cassandra.service.StorageService;
 
 public class Header implements java.io.Serializable
 {
     static final long serialVersionUID = -3194851946523170022L;
     private static ICompactSerializer<Header> serializer_;
     private static AtomicInteger idGen_ = new AtomicInteger(0);
-    
+
+    /*
+     * The verbs and stages that are sent as a small integer, their index here, instead of
+     * by name.  Nodes must agree on these, so entries may only ever be appended.
+     * Names not listed are still sent as strings.
+     */
+    private static final String[] verbs_ = new String[] {
+        MessagingService.responseVerbHandler_,
+        StorageService.mutationVerbHandler_,
+        StorageService.tokenVerbHandler_,
+        StorageService.binaryVerbHandler_,
+        StorageService.readRepairVerbHandler_,
+        StorageService.readVerbHandler_,
+        StorageService.bootStrapInitiateVerbHandler_,
+        StorageService.bootStrapInitiateDoneVerbHandler_,
+        StorageService.bootStrapTerminateVerbHandler_,
+        StorageService.dataFileVerbHandler_,
+        StorageService.mbrshipCleanerVerbHandler_,
+        StorageService.bsMetadataVerbHandler_,
+        StorageService.rangeVerbHandler_,
+        Gossiper.JOIN_VERB_HANDLER,
+        Gossiper.GOSSIP_DIGEST_SYN_VERB,
+        Gossiper.GOSSIP_DIGEST_ACK_VERB,
+        Gossiper.GOSSIP_DIGEST_ACK2_VERB,
+        StorageLoadBalancer.moveMessageVerbHandler_,
+        StorageService.multiReadVerbHandler_,
+        StorageService.countVerbHandler_,
+        StorageService.rangeSliceVerbHandler_,
+    };
+    private static final String[] stages_ = new String[] {
+        "",
+        MessagingService.responseStage_,
+        StorageService.mutationStage_,
+        StorageService.readStage_,
+        Gossiper.GOSSIP_STAGE,
+        StorageLoadBalancer.lbStage_,
+    };
+    private static final Map<String, Integer> verbIds_ = indexOf(verbs_);
+    private static final Map<String, Integer> stageIds_ = indexOf(stages_);
+
     static
     {
         serializer_ = new HeaderSerializer();        
@@ -43,18 +85,90 @@ public class Header implements java.io.Serializable
         return serializer_;
     }
 
+    private static Map<String, Integer> indexOf(String[] names)
+    {
+        Map<String, Integer> ids = new HashMap<String, Integer>();
+        for (int i = 0; i < names.length; i++)
+        {
+            ids.put(names[i], i);
+        }
+        return ids;
+    }
+
+    /** @return the id of a verb, or -1 if it is sent by name */
+    static int verbId(String verb)
+    {
+        Integer id = verbIds_.get(verb);
+        return id == null ? -1 : id;
+    }
+
+    static String verb(int id)
+    {
+        return verbs_[id];
+    }
+
+    static int verbCount()
+    {
+        return verbs_.length;
+    }
+
+    /** @return the id of a stage, or -1 if it is sent by name */
+    static int stageId(String stage)
+    {
+        Integer id = stageIds_.get(stage);
+        return id == null ? -1 : id;
+    }
+
+    static String stage(int id)
+    {
+        return stages_[id];
+    }
+
+    static int stageCount()
+    {
+        return stages_.length;
+    }
+
+    /**
+     * @return id as an int, if it is the canonical decimal form of one (as all the
+     * ids from idGen_ are), or null
+     */
+    static Integer parseId(String id)
+    {
+        int length = id.length();
+        int start = length > 1 && id.charAt(0) == '-' ? 1 : 0;
+        if (length == start || length - start > 10 || (id.charAt(start) == '0' && length > 1))
+            return null;
+        long n = 0;
+        for (int i = start; i < length; i++)
+        {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9')
+                return null;
+            n = n * 10 + (c - '0');
+        }
+        if (start == 1)
+            n = -n;
+        return n < Integer.MIN_VALUE || n > Integer.MAX_VALUE ? null : (int) n;
+    }
+
     private EndPoint from_;
     private String type_;
     private String verb_;
+    /* the message id; for an int id, messageId_ is only made when asked for */
     private String messageId_;
-    protected Map<String, byte[]> details_ = new Hashtable<String, byte[]>();
+    private boolean isIntId_;
+    private int intId_;
+    private int typeId_;
+    private int verbId_;
+    protected Map<String, byte[]> details_;
     
     Header(String id, EndPoint from, String messageType, String verb)
     {
-        messageId_ = id;
         from_ = from;
-        type_ = messageType;
-        verb_ = verb;        
+        setMessageId(id);
+        setMessageType(messageType);
+        setMessageVerb(verb);
     }
     
     Header(String id, EndPoint from, String messageType, String verb, Map<String, byte[]> details)
@@ -65,11 +179,37 @@ public class Header implements java.io.Serializable
 
     Header(EndPoint from, String messageType, String verb)
     {
-        messageId_ = Integer.toString(idGen_.incrementAndGet());
+        isIntId_ = true;
+        intId_ = idGen_.incrementAndGet();
+        from_ = from;
+        setMessageType(messageType);
+        setMessageVerb(verb);
+    }
+
+    /** a header with the same id as another, for a reply */
+    Header(Header request, EndPoint from, String messageType, String verb)
+    {
+        messageId_ = request.messageId_;
+        isIntId_ = request.isIntId_;
+        intId_ = request.intId_;
+        from_ = from;
+        setMessageType(messageType);
+        setMessageVerb(verb);
+    }
+
+    /** for HeaderSerializer, with names and ids that are already known to match */
+    Header(String id, boolean isIntId, int intId, EndPoint from, String messageType, int typeId, String verb, int verbId, Map<String, byte[]> details)
+    {
+        messageId_ = id;
+        isIntId_ = isIntId;
+        intId_ = intId;
         from_ = from;
         type_ = messageType;
+        typeId_ = typeId;
         verb_ = verb;
-    }        
+        verbId_ = verbId;
+        details_ = details;
+    }
 
     EndPoint getFrom()
     {
@@ -81,78 +221,176 @@ public class Header implements java.io.Serializable
         return type_;
     }
 
+    int getMessageTypeId()
+    {
+        return typeId_;
+    }
+
     String getVerb()
     {
         return verb_;
     }
 
+    int getVerbId()
+    {
+        return verbId_;
+    }
+
     String getMessageId()
     {
+        if (messageId_ == null)
+            messageId_ = Integer.toString(intId_);
         return messageId_;
     }
 
+    boolean isIntId()
+    {
+        return isIntId_;
+    }
+
+    int getIntId()
+    {
+        return intId_;
+    }
+
     void setMessageId(String id)
     {
         messageId_ = id;
+        Integer intId = parseId(id);
+        isIntId_ = intId != null;
+        intId_ = isIntId_ ? intId : 0;
     }
     
     void setMessageType(String type)
     {
         type_ = type;
+        typeId_ = stageId(type);
     }
     
     void setMessageVerb(String verb)
     {
         verb_ = verb;
+        verbId_ = verbId(verb);
     }
     
     byte[] getDetail(Object key)
     {
-        return details_.get(key);
+        return details_ == null ? null : details_.get(key);
     }
     
     void removeDetail(Object key)
     {
-        details_.remove(key);
+        if (details_ != null)
+            details_.remove(key);
     }
     
     void addDetail(String key, byte[] value)
     {
+        if (details_ == null)
+            details_ = new Hashtable<String, byte[]>();
         details_.put(key, value);
     }
     
     Map<String, byte[]> getDetails()
     {
-        return details_;
+        return details_ == null ? Collections.<String, byte[]>emptyMap() : details_;
     }
 }
 
+/**
+ * Writes headers in a compact form: a format byte, then varints for the message id and
+ * for the ids of the stage and verb, with strings only for those that have no id.
+ * The format byte is never the first byte of the original header, which starts with
+ * the two byte length of the message id, so headers in that form can still be read.
+ */
 class HeaderSerializer implements ICompactSerializer<Header>
 {
+    static final int COMPACT_FORMAT = 0x81;
+
     public void serialize(Header t, DataOutputStream dos) throws IOException
     {           
-        dos.writeUTF(t.getMessageId());
+        dos.writeByte(COMPACT_FORMAT);
+        if (t.isIntId())
+        {
+            writeVInt(dos, (t.getIntId() & 0xFFFFFFFFL) + 1);
+        }
+        else
+        {
+            dos.writeByte(0);
+            dos.writeUTF(t.getMessageId());
+        }
         CompactEndPointSerializationHelper.serialize(t.getFrom(), dos);
-        dos.writeUTF(t.getMessageType());
-        dos.writeUTF( t.getVerb() );
-        
-        /* Serialize the message header */
-        int size = t.details_.size();
-        dos.writeInt(size);
-        Set<String> keys = t.details_.keySet();
-        
-        for( String key : keys )
+        writeName(dos, t.getMessageTypeId(), t.getMessageType());
+        writeName(dos, t.getVerbId(), t.getVerb());
+
+        Map<String, byte[]> details = t.details_;
+        if (details == null)
+        {
+            dos.writeByte(0);
+            return;
+        }
+        writeVInt(dos, details.size());
+        for (Map.Entry<String, byte[]> entry : details.entrySet())
         {
-            dos.writeUTF(key);
-            byte[] value = t.details_.get(key);
-            dos.writeInt(value.length);
+            byte[] key = entry.getKey().getBytes("UTF-8");
+            writeVInt(dos, key.length);
+            dos.write(key);
+            byte[] value = entry.getValue();
+            writeVInt(dos, value.length);
             dos.write(value);
         }
     }
 
     public Header deserialize(DataInputStream dis) throws IOException
     {
-        String id = dis.readUTF();
+        int format = dis.readUnsignedByte();
+        if (format != COMPACT_FORMAT)
+            return deserializeOriginal(format, dis);
+
+        long n = readVInt(dis);
+        String id = n == 0 ? dis.readUTF() : null;
+        int intId = (int) (n - 1);
+        EndPoint from = CompactEndPointSerializationHelper.deserialize(dis);
+
+        int typeId = (int) readVInt(dis) - 1;
+        if (typeId >= Header.stageCount())
+            throw new IOException("Unknown stage id " + typeId);
+        String type = typeId < 0 ? dis.readUTF() : Header.stage(typeId);
+        if (typeId < 0)
+            typeId = Header.stageId(type);
+        int verbId = (int) readVInt(dis) - 1;
+        if (verbId >= Header.verbCount())
+            throw new IOException("Unknown verb id " + verbId);
+        String verb = verbId < 0 ? dis.readUTF() : Header.verb(verbId);
+        if (verbId < 0)
+            verbId = Header.verbId(verb);
+
+        int size = (int) readVInt(dis);
+        Map<String, byte[]> details = null;
+        if (size > 0)
+        {
+            details = new Hashtable<String, byte[]>(size);
+            for (int i = 0; i < size; ++i)
+            {
+                byte[] key = new byte[(int) readVInt(dis)];
+                dis.readFully(key);
+                byte[] value = new byte[(int) readVInt(dis)];
+                dis.readFully(value);
+                details.put(new String(key, "UTF-8"), value);
+            }
+        }
+        return new Header(id, id == null, intId, from, type, typeId, verb, verbId, details);
+    }
+
+    /** reads a header written before the compact form, whose first byte has been read already */
+    private Header deserializeOriginal(int first, DataInputStream dis) throws IOException
+    {
+        int idLength = (first << 8) | dis.readUnsignedByte();
+        byte[] idBytes = new byte[2 + idLength];
+        idBytes[0] = (byte) first;
+        idBytes[1] = (byte) idLength;
+        dis.readFully(idBytes, 2, idLength);
+        String id = new DataInputStream(new ByteArrayInputStream(idBytes)).readUTF();
         EndPoint from = CompactEndPointSerializationHelper.deserialize(dis);
         String type = dis.readUTF();
         String verb = dis.readUTF();
@@ -171,6 +409,41 @@ class HeaderSerializer implements ICompactSerializer<Header>
         
         return new Header(id, from, type, verb, details);
     }
-}
 
+    private static void writeName(DataOutputStream dos, int id, String name) throws IOException
+    {
+        if (id < 0)
+        {
+            dos.writeByte(0);
+            dos.writeUTF(name);
+        }
+        else
+        {
+            writeVInt(dos, id + 1);
+        }
+    }
+
+    /** writes a non-negative number seven bits at a time, low bits first */
+    static void writeVInt(DataOutputStream dos, long n) throws IOException
+    {
+        while ((n & ~0x7FL) != 0)
+        {
+            dos.writeByte((int) (n & 0x7F) | 0x80);
+            n >>>= 7;
+        }
+        dos.writeByte((int) n);
+    }
 
+    static long readVInt(DataInputStream dis) throws IOException
+    {
+        long n = 0;
+        for (int shift = 0; shift < 64; shift += 7)
+        {
+            int b = dis.readUnsignedByte();
+            n |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return n;
+        }
+        throw new IOException("Malformed variable length number");
+    }
+}
@@ -49,6 +49,8 @@ public class Message implements java.io.Serializable
     
     Header header_;
     private byte[] body_;
+    /* a response that was never serialized, or was already deserialized; see makeLocalResponse */
+    private transient Object responseObject_;
     
     protected Message(String id, EndPoint from, String messageType, String verb, byte[] body)
     {
@@ -121,6 +123,16 @@ public class Message implements java.io.Serializable
         return header_.getVerb();
     }
 
+    int getVerbId()
+    {
+        return header_.getVerbId();
+    }
+
+    int getMessageTypeId()
+    {
+        return header_.getMessageTypeId();
+    }
+
     public String getMessageId()
     {
         return header_.getMessageId();
@@ -133,13 +145,42 @@ public class Message implements java.io.Serializable
 
     public Message getReply(EndPoint from, byte[] args)
     {        
-        Message response = new Message(getMessageId(),
-                                       from,
-                                       MessagingService.responseStage_,
-                                       MessagingService.responseVerbHandler_,
+        Message response = new Message(new Header(header_,
+                                                  from,
+                                                  MessagingService.responseStage_,
+                                                  MessagingService.responseVerbHandler_),
                                        args);
         return response;
     }
+
+    /**
+     * A response from this node to itself, for a request that was never sent.  It carries
+     * the response object rather than its serialized form; the body is empty, so a resolver
+     * must check getResponseObject before deserializing.
+     */
+    public static Message makeLocalResponse(EndPoint from, Object response)
+    {
+        Message message = new Message(from, MessagingService.responseStage_, MessagingService.responseVerbHandler_, new byte[0]);
+        message.responseObject_ = response;
+        return message;
+    }
+
+    /**
+     * One part of a response that answered several requests at once: a message with
+     * the id and sender of this one, carrying part as its response object.
+     */
+    public Message withResponseObject(Object part)
+    {
+        Message message = new Message(header_, new byte[0]);
+        message.responseObject_ = part;
+        return message;
+    }
+
+    /** @return the response object of a message made by makeLocalResponse or withResponseObject, or null */
+    public Object getResponseObject()
+    {
+        return responseObject_;
+    }
     
     public String toString()
     {
@@ -0,0 +1,150 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.cassandra.net;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the messages one connection sends and decompresses those it receives, and keeps
+ * count of the bytes and time this takes.  Several threads may send on a connection at once,
+ * so Deflaters are pooled rather than shared; messages are received by one thread at a time.
+ *
+ * A compressed message is [int uncompressed length][deflate stream]; whether a message is
+ * compressed is told by the compression bit of its protocol header.
+ */
+class MessageCompressor
+{
+    private final Queue<Deflater> deflaters_ = new ConcurrentLinkedQueue<Deflater>();
+    private final Inflater inflater_ = new Inflater();
+
+    /* bytes of messages large enough to compress, before and after */
+    private final AtomicLong uncompressedBytes_ = new AtomicLong();
+    private final AtomicLong compressedBytes_ = new AtomicLong();
+    private final AtomicLong compressionNanos_ = new AtomicLong();
+    private final AtomicLong decompressedBytes_ = new AtomicLong();
+    private final AtomicLong decompressionNanos_ = new AtomicLong();
+
+    /* deflate cannot expand data by more than this, so a larger claimed length is corrupt */
+    private static final int MAX_INFLATION_RATIO = 1032;
+
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private static final boolean cpuTimeSupported = threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+
+    /** the time to charge compression with: CPU time if the JVM measures it, or wall clock time */
+    private static long cpuTime()
+    {
+        return cpuTimeSupported ? threads.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * @return the compressed form of bytes, or null if it would be no smaller
+     */
+    ByteBuffer compress(byte[] bytes)
+    {
+        long start = cpuTime();
+        Deflater deflater = deflaters_.poll();
+        if (deflater == null)
+            deflater = new Deflater(Deflater.BEST_SPEED);
+        // anything that does not fit in the original length is not worth sending
+        byte[] output = new byte[4 + bytes.length];
+        deflater.setInput(bytes);
+        deflater.finish();
+        int length = 4 + deflater.deflate(output, 4, bytes.length);
+        boolean finished = deflater.finished();
+        deflater.reset();
+        deflaters_.add(deflater);
+        compressionNanos_.addAndGet(cpuTime() - start);
+        uncompressedBytes_.addAndGet(bytes.length);
+        if (!finished || length >= bytes.length)
+        {
+            compressedBytes_.addAndGet(bytes.length);
+            return null;
+        }
+        compressedBytes_.addAndGet(length);
+
+        ByteBuffer buffer = ByteBuffer.wrap(output, 0, length);
+        buffer.putInt(0, bytes.length);
+        return buffer;
+    }
+
+    byte[] decompress(byte[] bytes) throws IOException
+    {
+        long start = cpuTime();
+        if (bytes.length < 4)
+            throw new IOException("Compressed message of " + bytes.length + " bytes is too short");
+        // the length comes off the wire; check it before allocating that much
+        int uncompressedLength = ByteBuffer.wrap(bytes).getInt();
+        if (uncompressedLength < 0 || uncompressedLength > (long) (bytes.length - 4) * MAX_INFLATION_RATIO)
+            throw new IOException("Compressed message of " + bytes.length + " bytes cannot be " + uncompressedLength + " bytes long");
+        byte[] output = new byte[uncompressedLength];
+        try
+        {
+            synchronized (inflater_)
+            {
+                inflater_.reset();
+                inflater_.setInput(bytes, 4, bytes.length - 4);
+                int length = inflater_.inflate(output);
+                if (length != output.length || !inflater_.finished())
+                    throw new IOException("Compressed message should be " + output.length + " bytes, but is " + length);
+            }
+        }
+        catch (DataFormatException e)
+        {
+            throw new IOException(e);
+        }
+        decompressedBytes_.addAndGet(output.length);
+        decompressionNanos_.addAndGet(cpuTime() - start);
+        return output;
+    }
+
+    long getUncompressedBytes()
+    {
+        return uncompressedBytes_.get();
+    }
+
+    long getCompressedBytes()
+    {
+        return compressedBytes_.get();
+    }
+
+    long getCompressionNanos()
+    {
+        return compressionNanos_.get();
+    }
+
+    long getDecompressedBytes()
+    {
+        return decompressedBytes_.get();
+    }
+
+    long getDecompressionNanos()
+    {
+        return decompressionNanos_.get();
+    }
+}
@@ -32,8 +32,7 @@ public class MessageDeliveryTask implements Runnable
     
     public void run()
     { 
-        String verb = message_.getVerb();
-        IVerbHandler verbHandler = MessagingService.getMessagingInstance().getVerbHandler(verb);
+        IVerbHandler verbHandler = MessagingService.getVerbHandler(message_);
         if ( verbHandler != null )
         {
             verbHandler.doVerb(message_);
@@ -42,7 +42,8 @@ public class MessagingService implements IMessagingService
 {
     private static boolean debugOn_ = false;   
     
-    private static int version_ = 1;
+    /* version 2 writes message headers in the compact form of HeaderSerializer */
+    private static int version_ = 2;
     //TODO: make this parameter dynamic somehow.  Not sure if config is appropriate.
     private static SerializerType serializerType_ = SerializerType.BINARY;
     
@@ -69,6 +70,10 @@ public class MessagingService implements IMessagingService
     
     /* Lookup table for registering message handlers based on the verb. */
     private static Map<String, IVerbHandler> verbHandlers_;
+    /* the same handlers, for the verbs that have an id in Header, indexed by that id */
+    private static IVerbHandler[] verbHandlersById_;
+    /* stages looked up by the id of their name in Header, to skip the StageManager lookup */
+    private static IStage[] stagesById_;
     
     private static Map<String, MulticastSocket> mCastMembership_ = new HashMap<String, MulticastSocket>();
     
@@ -168,6 +173,8 @@ public class MessagingService implements IMessagingService
             reservedVerbs_.put(verbs.toString(), verbs.toString());
         }
         verbHandlers_ = new HashMap<String, IVerbHandler>();        
+        verbHandlersById_ = new IVerbHandler[Header.verbCount()];
+        stagesById_ = new IStage[Header.stageCount()];
         endPoints_ = new HashSet<EndPoint>();
         /*
          * Leave callbacks in the cachetable long enough that any related messages will arrive
@@ -292,6 +299,12 @@ public class MessagingService implements IMessagingService
         {
             TcpConnectionManager cp = it.next();
             ConnectionStatistics cs = new ConnectionStatistics(cp.getLocalEndPoint(), cp.getRemoteEndPoint(), cp.getPoolSize(), cp.getConnectionsInUse());
+            for (TcpConnection connection : cp.getConnections())
+            {
+                MessageCompressor compressor = connection.getCompressor(false);
+                if (compressor != null)
+                    cs.addCompression(compressor);
+            }
             stats.add( cs );
         }
         return stats.toArray(new ConnectionStatistics[0]);
@@ -314,6 +327,9 @@ public class MessagingService implements IMessagingService
     {
     	checkForReservedVerb(type);
     	verbHandlers_.put(type, verbHandler);
+        int id = Header.verbId(type);
+        if (id >= 0)
+            verbHandlersById_[id] = verbHandler;
     }
     
     public void deregisterAllVerbHandlers(EndPoint localEndPoint)
@@ -329,13 +345,21 @@ public class MessagingService implements IMessagingService
         {
             key = (String)keys.next();
             if (key.contains(localEndPoint.toString()))
+            {
                 keys.remove();
+                int id = Header.verbId(key);
+                if (id >= 0)
+                    verbHandlersById_[id] = null;
+            }
         }
     }
     
     public void deregisterVerbHandlers(String type)
     {
         verbHandlers_.remove(type);
+        int id = Header.verbId(type);
+        if (id >= 0)
+            verbHandlersById_[id] = null;
     }
 
     public IVerbHandler getVerbHandler(String type)
@@ -344,6 +368,12 @@ public class MessagingService implements IMessagingService
         return handler;
     }
 
+    static IVerbHandler getVerbHandler(Message message)
+    {
+        int id = message.getVerbId();
+        return id >= 0 ? verbHandlersById_[id] : verbHandlers_.get(message.getVerb());
+    }
+
     public String sendRR(Message message, EndPoint[] to, IAsyncCallback cb)
     {
         String messageId = message.getMessageId();                        
@@ -523,6 +553,8 @@ public class MessagingService implements IMessagingService
 
             poolTable_.clear();
             verbHandlers_.clear();
+            Arrays.fill(verbHandlersById_, null);
+            Arrays.fill(stagesById_, null);
             bShutdown_ = true;
         }
         logger_.info("Shutdown invocation complete.");
@@ -530,7 +562,15 @@ public class MessagingService implements IMessagingService
 
     public static void receive(Message message)
     {        
-        enqueueRunnable(message.getMessageType(), new MessageDeliveryTask(message));
+        int id = message.getMessageTypeId();
+        IStage stage = id >= 0 ? stagesById_[id] : null;
+        if (stage == null || stage.isShutdown())
+        {
+            stage = StageManager.getStage(message.getMessageType());
+            if (id >= 0)
+                stagesById_[id] = stage;
+        }
+        enqueueRunnable(stage, new MessageDeliveryTask(message));
     }
     
     public static boolean isLocalEndPoint(EndPoint ep)
@@ -538,9 +578,7 @@ public class MessagingService implements IMessagingService
         return ( endPoints_.contains(ep) );
     }
         
-    private static void enqueueRunnable(String stageName, Runnable runnable){
-        
-        IStage stage = StageManager.getStage(stageName);   
+    private static void enqueueRunnable(IStage stage, Runnable runnable){
         
         if ( stage != null )
         {
@@ -666,7 +704,22 @@ public class MessagingService implements IMessagingService
     
     public static ByteBuffer packIt(byte[] bytes, boolean compress, boolean stream, boolean listening)
     {
-        byte[] size = toByteArray(bytes.length);
+        ByteBuffer buffer = ByteBuffer.allocate(PACKED_HEADER_SIZE + bytes.length);
+        packHeader(buffer, bytes.length, compress, stream, listening);
+        buffer.put(bytes);
+        buffer.flip();
+        return buffer;
+    }
+
+    /** the size of the protocol magic, header and message size that precede each serialized message */
+    public static final int PACKED_HEADER_SIZE = 16 + 4 + 4;
+
+    /**
+     * Puts what packIt puts in front of a message of the given length, so that the message
+     * itself can be written from its own buffer without being copied.
+     */
+    public static void packHeader(ByteBuffer buffer, int length, boolean compress, boolean stream, boolean listening)
+    {
         /* 
              Setting up the protocol header. This is 4 bytes long
              represented as an integer. The first 2 bits indicate
@@ -699,14 +752,9 @@ public class MessagingService implements IMessagingService
         n |= (version_ << 8);               
         /* Finished the protocol header setup */
                
-        byte[] header = toByteArray(n);
-        ByteBuffer buffer = ByteBuffer.allocate(16 + header.length + size.length + bytes.length);
         buffer.put(protocol_);
-        buffer.put(header);
-        buffer.put(size);
-        buffer.put(bytes);
-        buffer.flip();
-        return buffer;
+        buffer.putInt(n);
+        buffer.putInt(length);
     }
         
     public static ByteBuffer constructStreamHeader(boolean compress, boolean stream)
@@ -19,6 +19,7 @@
 package org.apache.cassandra.net;
 
 import java.io.*;
+import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.SelectionKey;
@@ -26,6 +27,8 @@ import java.nio.channels.SocketChannel;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -50,7 +53,26 @@ public class TcpConnection extends SelectionKeyHandler implements Comparable
     private boolean isIncoming_ = false;       
     private TcpReader tcpReader_;    
     private ReadWorkItem readWork_ = new ReadWorkItem(); 
-    private Queue<ByteBuffer> pendingWrites_ = new ConcurrentLinkedQueue<ByteBuffer>();
+    /*
+     * Buffers waiting to be written, one array per message (its header and body) or stream header.
+     * Any thread may add to it; whichever thread holds flushing_ writes as many of them as it
+     * can with one gathering write, so messages queued by other threads while a write is in
+     * progress go out together in the next one.
+    */
+    private Queue<ByteBuffer[]> pendingWrites_ = new ConcurrentLinkedQueue<ByteBuffer[]>();
+    /* the size of pendingWrites_, which the pool checks on every send; ConcurrentLinkedQueue.size() is linear */
+    private final AtomicInteger pendingCount_ = new AtomicInteger(0);
+    private final AtomicBoolean flushing_ = new AtomicBoolean(false);
+    private static final int MAX_GATHER = 64;
+    private final ByteBuffer[] gather_ = new ByteBuffer[MAX_GATHER];
+    /* message header buffers, reused once their message has been written */
+    private static final int MAX_POOLED_HEADERS = 64;
+    private final Queue<ByteBuffer> headerPool_ = new ConcurrentLinkedQueue<ByteBuffer>();
+    /* the size of headerPool_, for the same reason as pendingCount_ */
+    private final AtomicInteger headerPoolSize_ = new AtomicInteger(0);
+    /* whether to compress the messages we send, per InterNodeCompression; decided once the remote end is known */
+    private volatile boolean compress_ = false;
+    private volatile MessageCompressor compressor_;
     private EndPoint localEp_;
     private EndPoint remoteEp_;
     boolean inUse_ = false;
@@ -75,6 +97,7 @@ public class TcpConnection extends SelectionKeyHandler implements Comparable
         
         localEp_ = from;
         remoteEp_ = to;
+        compress_ = shouldCompress(localEp_, remoteEp_);
         
         if ( !socketChannel_.connect( remoteEp_.getInetAddress() ) )
         {
@@ -159,29 +182,68 @@ public class TcpConnection extends SelectionKeyHandler implements Comparable
         return socketChannel_;
     }    
     
+    private static boolean shouldCompress(EndPoint localEp, EndPoint remoteEp)
+    {
+        switch (DatabaseDescriptor.getInterNodeCompression())
+        {
+            case all:
+                return true;
+            case dc:
+                try
+                {
+                    return !DatabaseDescriptor.getEndPointSnitch().isInSameDataCenter(localEp, remoteEp);
+                }
+                catch (UnknownHostException e)
+                {
+                    logger_.warn("Unable to tell whether " + remoteEp + " is in this data center; not compressing messages to it", e);
+                    return false;
+                }
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @param create whether to create the compressor if the connection has not needed one yet
+     */
+    MessageCompressor getCompressor(boolean create)
+    {
+        if (compressor_ == null && create)
+        {
+            synchronized (this)
+            {
+                if (compressor_ == null)
+                    compressor_ = new MessageCompressor();
+            }
+        }
+        return compressor_;
+    }
+
     public void write(Message message) throws IOException
     {           
         byte[] data = serializer_.serialize(message);        
         if ( data.length > 0 )
         {    
             boolean listening = !message.getFrom().equals(EndPoint.sentinelLocalEndPoint_);
-            ByteBuffer buffer = MessagingService.packIt( data , false, false, listening);   
-            synchronized(this)
-            {
-                if (!pendingWrites_.isEmpty() || !socketChannel_.isConnected())
-                {                     
-                    pendingWrites_.add(buffer);                
-                    return;
-                }
-                
-                socketChannel_.write(buffer);                
-                
-                if (buffer.remaining() > 0) 
-                {                   
-                    pendingWrites_.add(buffer);
-                    turnOnInterestOps(key_, SelectionKey.OP_WRITE);
-                }
-            }
+            ByteBuffer body = null;
+            if (compress_ && data.length >= DatabaseDescriptor.getInterNodeCompressionThreshold())
+                body = getCompressor(true).compress(data);
+            boolean compressed = body != null;
+            if (!compressed)
+                body = ByteBuffer.wrap(data);
+
+            ByteBuffer header = headerPool_.poll();
+            if (header == null)
+                header = ByteBuffer.allocate(MessagingService.PACKED_HEADER_SIZE);
+            else
+                headerPoolSize_.decrementAndGet();
+            header.clear();
+            MessagingService.packHeader(header, body.remaining(), compressed, false, listening);
+            header.flip();
+            pendingCount_.incrementAndGet();
+            pendingWrites_.add(new ByteBuffer[] { header, body });
+            if (socketChannel_.isConnected())
+                doPendingWrites();
         }
     }
     
@@ -224,7 +286,8 @@ public class TcpConnection extends SelectionKeyHandler implements Comparable
                     socketChannel_.write(buffer);
                     if (buffer.remaining() > 0)
                     {
-                        pendingWrites_.add(buffer);
+                        pendingCount_.incrementAndGet();
+                        pendingWrites_.add(new ByteBuffer[] { buffer });
                         turnOnInterestOps(key_, SelectionKey.OP_WRITE);
                         condition_.await();
                     }
@@ -306,21 +369,29 @@ public class TcpConnection extends SelectionKeyHandler implements Comparable
     
     void closeSocket()
     {
-        logger_.warn("Closing down connection " + socketChannel_ + " with " + pendingWrites_.size() + " writes remaining.");            
+        logger_.warn("Closing down connection " + socketChannel_ + " with " + pendingCount_.get() + " writes remaining.");            
         if ( pool_ != null )
         {
             pool_.removeConnection(this);
         }
         cancel(key_);
-        pendingWrites_.clear();
+        clearPendingWrites();
+    }
+
+    private void clearPendingWrites()
+    {
+        while (pendingWrites_.poll() != null)
+        {
+            pendingCount_.decrementAndGet();
+        }
     }
     
     void errorClose() 
     {        
         logger_.warn("Closing down connection " + socketChannel_);
-        pendingWrites_.clear();
+        clearPendingWrites();
         cancel(key_);
-        pendingWrites_.clear();        
+        clearPendingWrites();
         if ( pool_ != null )
         {
             pool_.removeConnection(this);            
@@ -389,21 +460,16 @@ public class TcpConnection extends SelectionKeyHandler implements Comparable
     
     public void doPendingWrites()
     {
-        synchronized(this)
+        /*
+         * If another thread is writing, it will also write what we queued: it checks the queue
+         * again after releasing flushing_, and we only get here after adding to the queue.
+        */
+        while (!pendingWrites_.isEmpty() && flushing_.compareAndSet(false, true))
         {
+            boolean blocked = true;
             try
-            {                     
-                while(!pendingWrites_.isEmpty()) 
-                {
-                    ByteBuffer buffer = pendingWrites_.peek();
-                    socketChannel_.write(buffer);                    
-                    if (buffer.remaining() > 0) 
-                    {   
-                        break;
-                    }               
-                    pendingWrites_.remove();
-                } 
-            
+            {
+                blocked = !writePending();
             }
             catch(IOException ex)
             {
@@ -412,12 +478,67 @@ public class TcpConnection extends SelectionKeyHandler implements Comparable
                 errorClose();
             }
             finally
-            {    
-                if (!pendingWrites_.isEmpty())
-                {                    
+            {
+                flushing_.set(false);
+            }
+            if (blocked)
+            {
+                // the selector calls write() when the socket has room again
+                if (key_.isValid() && !pendingWrites_.isEmpty())
                     turnOnInterestOps(key_, SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes queued buffers, up to MAX_GATHER at a time, until the queue is empty
+     * or the socket will take no more.  Must hold flushing_.
+     * @return true if everything queued was written
+     */
+    private boolean writePending() throws IOException
+    {
+        while (true)
+        {
+            int n = 0;
+            for (ByteBuffer[] buffers : pendingWrites_)
+            {
+                if (n + buffers.length > MAX_GATHER)
+                    break;
+                for (ByteBuffer buffer : buffers)
+                {
+                    gather_[n++] = buffer;
                 }
             }
+            if (n == 0)
+                return true;
+
+            ByteBuffer last = gather_[n - 1];
+            try
+            {
+                socketChannel_.write(gather_, 0, n);
+            }
+            finally
+            {
+                Arrays.fill(gather_, 0, n, null);
+            }
+
+            ByteBuffer[] buffers;
+            while ((buffers = pendingWrites_.peek()) != null && !buffers[buffers.length - 1].hasRemaining())
+            {
+                pendingWrites_.remove();
+                pendingCount_.decrementAndGet();
+                // a message is written as its pooled header followed by its body
+                if (buffers.length == 2)
+                {
+                    if (headerPoolSize_.incrementAndGet() <= MAX_POOLED_HEADERS)
+                        headerPool_.add(buffers[0]);
+                    else
+                        headerPoolSize_.decrementAndGet();
+                }
+            }
+            if (last.hasRemaining())
+                return false;
         }
     }
     
@@ -460,10 +581,14 @@ public class TcpConnection extends SelectionKeyHandler implements Comparable
                             int port = ( pH.isListening_ ) ? DatabaseDescriptor.getStoragePort() : EndPoint.sentinelPort_;
                             remoteEp_ = new EndPoint( socketChannel_.socket().getInetAddress().getHostAddress(), port );                            
                             // put connection into pool if possible
+                            compress_ = shouldCompress(localEp_, remoteEp_);
                             pool_ = MessagingService.getConnectionPool(localEp_, remoteEp_);                            
                             pool_.addToPool(TcpConnection.this);                            
                         }
                         
+                        if (pH.isCompressed_)
+                            bytes = getCompressor(true).decompress(bytes);
+
                         /* Deserialize and handle the message */
                         MessagingService.getDeserializationExecutor().submit( new MessageDeserializationTask(pH.serializerType_, bytes) );                                                  
                         tcpReader_.resetState();
@@ -502,14 +627,14 @@ public class TcpConnection extends SelectionKeyHandler implements Comparable
     
     public int pending()
     {
-        return pendingWrites_.size();
+        return pendingCount_.get();
     }
     
     public int compareTo(Object o)
     {
         if (o instanceof TcpConnection) 
         {
-            return pendingWrites_.size() - ((TcpConnection) o).pendingWrites_.size();            
+            return pendingCount_.get() - ((TcpConnection) o).pendingCount_.get();            
         }
                     
         throw new IllegalArgumentException();
@@ -47,6 +47,9 @@ public class ProtocolHeaderState extends StartState
         int type = MessagingService.getBits(pH, 1, 2);
         stream_.getProtocolHeader().serializerType_ = type;
         
+        int compressed = MessagingService.getBits(pH, 2, 1);
+        stream_.getProtocolHeader().isCompressed_ = (compressed == 1);
+
         int stream = MessagingService.getBits(pH, 3, 1);
         stream_.getProtocolHeader().isStreamingMode_ = (stream == 1) ? true : false;
         
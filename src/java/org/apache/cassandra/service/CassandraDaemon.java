@@ -27,6 +27,7 @@ import org.apache.log4j.Logger;
 
 import org.apache.thrift.protocol.TBinaryProtocol;
 import org.apache.thrift.protocol.TProtocolFactory;
+import org.apache.thrift.server.TServer;
 import org.apache.thrift.server.TThreadPoolServer;
 import org.apache.thrift.transport.TServerSocket;
 import org.apache.thrift.transport.TTransportException;
@@ -50,7 +51,7 @@ import org.apache.cassandra.db.RecoveryManager;
 public class CassandraDaemon
 {
     private static Logger logger = Logger.getLogger(CassandraDaemon.class);
-    private TThreadPoolServer serverEngine;
+    private TServer serverEngine;
 
     private void setup() throws IOException, TTransportException
     {
@@ -95,15 +96,26 @@ public class CassandraDaemon
         peerStorageServer.start();
         Cassandra.Processor processor = new Cassandra.Processor(peerStorageServer);
 
-        // Transport
-        TServerSocket tServerSocket = new TServerSocket(new InetSocketAddress(listenAddr, listenPort));
-        
+        InetSocketAddress listenAddress = new InetSocketAddress(listenAddr, listenPort);
         if (logger.isDebugEnabled())
             logger.debug(String.format("Binding thrift service to %s:%s", listenAddr, listenPort));
 
         // Protocol factory
         TProtocolFactory tProtocolFactory = new TBinaryProtocol.Factory();
-        
+
+        if (DatabaseDescriptor.getThriftServerEngine() == DatabaseDescriptor.ThriftServerEngine.nonblocking)
+        {
+            // always framed; DatabaseDescriptor rejects the nonblocking engine without ThriftFramedTransport
+            serverEngine = new NonblockingThriftServer(new TProcessorFactory(processor),
+                                                       new NonblockingThriftServer.ServerSocket(listenAddress),
+                                                       tProtocolFactory,
+                                                       DatabaseDescriptor.getThriftWorkerThreads());
+            return;
+        }
+
+        // Transport
+        TServerSocket tServerSocket = new TServerSocket(listenAddress);
+
         // Transport factory
         TTransportFactory inTransportFactory, outTransportFactory;
         if (DatabaseDescriptor.isThriftFramed())
@@ -120,7 +132,7 @@ public class CassandraDaemon
 
         // ThreadPool Server
         TThreadPoolServer.Options options = new TThreadPoolServer.Options();
-        options.minWorkerThreads = 64;
+        options.minWorkerThreads = DatabaseDescriptor.getThriftWorkerThreads();
         serverEngine = new TThreadPoolServer(new TProcessorFactory(processor),
                                              tServerSocket,
                                              inTransportFactory,
@@ -175,6 +175,28 @@ public class CassandraServer implements Cassandra.Iface
         return thriftSuperColumns;
     }
 
+    private List<ColumnOrSuperColumn> thriftifyColumnFamily(ColumnFamily cfamily, boolean subcolumnsOnly, boolean reverseOrder)
+    {
+        if (cfamily == null || cfamily.getColumnsMap().size() == 0)
+        {
+            return EMPTY_COLUMNS;
+        }
+        if (subcolumnsOnly)
+        {
+            IColumn column = cfamily.getColumnsMap().values().iterator().next();
+            Collection<IColumn> subcolumns = column.getSubColumns();
+            if (subcolumns == null || subcolumns.isEmpty())
+            {
+                return EMPTY_COLUMNS;
+            }
+            return thriftifyColumns(subcolumns, reverseOrder);
+        }
+        if (cfamily.isSuper())
+            return thriftifySuperColumns(cfamily.getSortedColumns(), reverseOrder);
+        else
+            return thriftifyColumns(cfamily.getSortedColumns(), reverseOrder);
+    }
+
     private Map<String, List<ColumnOrSuperColumn>> getSlice(List<ReadCommand> commands, int consistency_level) throws InvalidRequestException
     {
         Map<String, ColumnFamily> cfamilies = readColumnFamily(commands, consistency_level);
@@ -183,28 +205,7 @@ public class CassandraServer implements Cassandra.Iface
         {
             ColumnFamily cfamily = cfamilies.get(command.key);
             boolean reverseOrder = command instanceof SliceFromReadCommand && ((SliceFromReadCommand)command).reversed;
-
-            if (cfamily == null || cfamily.getColumnsMap().size() == 0)
-            {
-                columnFamiliesMap.put(command.key, EMPTY_COLUMNS);
-                continue;
-            }
-            if (command.queryPath.superColumnName != null)
-            {
-                IColumn column = cfamily.getColumnsMap().values().iterator().next();
-                Collection<IColumn> subcolumns = column.getSubColumns();
-                if (subcolumns == null || subcolumns.isEmpty())
-                {
-                    columnFamiliesMap.put(command.key, EMPTY_COLUMNS);
-                    continue;
-                }
-                columnFamiliesMap.put(command.key, thriftifyColumns(subcolumns, reverseOrder));
-                continue;
-            }
-            if (cfamily.isSuper())
-                columnFamiliesMap.put(command.key, thriftifySuperColumns(cfamily.getSortedColumns(), reverseOrder));
-            else
-                columnFamiliesMap.put(command.key, thriftifyColumns(cfamily.getSortedColumns(), reverseOrder));
+            columnFamiliesMap.put(command.key, thriftifyColumnFamily(cfamily, command.queryPath.superColumnName != null, reverseOrder));
         }
 
         return columnFamiliesMap;
@@ -375,25 +376,30 @@ public class CassandraServer implements Cassandra.Iface
             throw new InvalidRequestException("columnfamily alone is required for standard CF " + column_parent.column_family);
         }
 
-        List<ReadCommand> commands = new ArrayList<ReadCommand>();
-        for (String key: keys)
+        if (consistency_level == ConsistencyLevel.ZERO)
+        {
+            throw new InvalidRequestException("Consistency level zero may not be applied to read operations");
+        }
+        if (consistency_level == ConsistencyLevel.ALL)
         {
-            commands.add(new SliceFromReadCommand(table, key, column_parent, ArrayUtils.EMPTY_BYTE_ARRAY, ArrayUtils.EMPTY_BYTE_ARRAY, true, Integer.MAX_VALUE));
+            throw new InvalidRequestException("Consistency level all is not yet supported on read operations");
         }
 
         Map<String, Integer> columnFamiliesMap = new HashMap<String, Integer>();
-        Map<String, Collection<IColumn>> columnsMap = multigetColumns(commands, consistency_level);
-
-        for (ReadCommand command: commands)
+        for (String key: keys)
         {
-            Collection<IColumn> columns = columnsMap.get(command.key);
-            if(columns == null)
+            ThriftValidation.validateKey(key);
+            try
             {
-               columnFamiliesMap.put(command.key, 0);
+                columnFamiliesMap.put(key, StorageProxy.getColumnCount(new CountCommand(table, key, column_parent), consistency_level));
             }
-            else
+            catch (IOException e)
             {
-               columnFamiliesMap.put(command.key, columns.size());
+                throw new RuntimeException(e);
+            }
+            catch (TimeoutException e)
+            {
+                throw new RuntimeException(e);
             }
         }
         return columnFamiliesMap;
@@ -600,5 +606,62 @@ public class CassandraServer implements Cassandra.Iface
         }
     }
 
+    public List<KeySlice> get_range_slice(String keyspace, ColumnParent column_parent, SlicePredicate predicate, String start_key, String finish_key, int row_count, int consistency_level)
+    throws InvalidRequestException, TException
+    {
+        if (logger.isDebugEnabled())
+            logger.debug("get_range_slice");
+        ThriftValidation.validateColumnParent(keyspace, column_parent);
+        if (!StorageService.getPartitioner().preservesOrder())
+        {
+            throw new InvalidRequestException("range queries may only be performed against an order-preserving partitioner");
+        }
+        if (row_count <= 0)
+        {
+            throw new InvalidRequestException("row_count must be positive");
+        }
+        // the range is read at ONE whatever the level asked for, like get_key_range
+        if (consistency_level == ConsistencyLevel.ZERO)
+        {
+            throw new InvalidRequestException("Consistency level zero may not be applied to read operations");
+        }
+        if (consistency_level == ConsistencyLevel.ALL)
+        {
+            throw new InvalidRequestException("Consistency level all is not yet supported on read operations");
+        }
+
+        QueryPath queryPath = new QueryPath(column_parent);
+        RangeSliceCommand command;
+        if (predicate.column_names != null)
+        {
+            ThriftValidation.validateColumns(keyspace, column_parent, predicate.column_names);
+            command = new RangeSliceCommand(keyspace, queryPath, predicate.column_names, start_key, finish_key, row_count);
+        }
+        else
+        {
+            SliceRange range = predicate.slice_range;
+            ThriftValidation.validateRange(keyspace, column_parent, range);
+            command = new RangeSliceCommand(keyspace, queryPath, range.start, range.finish, range.reversed, range.count, start_key, finish_key, row_count);
+        }
+
+        List<Row> rows;
+        try
+        {
+            rows = StorageProxy.getRangeSlice(command);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+
+        List<KeySlice> keySlices = new ArrayList<KeySlice>(rows.size());
+        for (Row row : rows)
+        {
+            ColumnFamily cfamily = row.getColumnFamily(column_parent.column_family);
+            keySlices.add(new KeySlice(row.key(), thriftifyColumnFamily(cfamily, column_parent.super_column != null, command.reversed)));
+        }
+        return keySlices;
+    }
+
     // main method moved to CassandraDaemon
 }
@@ -0,0 +1,89 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.cassandra.db.CountReply;
+import org.apache.cassandra.net.EndPoint;
+import org.apache.cassandra.net.Message;
+
+/**
+ * Resolves the CountReplys of several replicas.  There is no digest to compare, so when the
+ * counts differ the highest one is returned, since a replica that missed writes more often
+ * undercounts than overcounts, and the caller is left to repair the replicas.
+ */
+public class CountResponseResolver implements IResponseResolver<Integer>
+{
+    private volatile boolean mismatch;
+    private volatile EndPoint highestEndPoint;
+
+    public Integer resolve(List<Message> responses)
+    {
+        Integer count = null;
+        for (Message response : responses)
+        {
+            int replicaCount = getCountReply(response).count;
+            if (count == null || count < replicaCount)
+            {
+                if (count != null)
+                    mismatch = true;
+                count = replicaCount;
+                highestEndPoint = response.getFrom();
+            }
+            else if (count != replicaCount)
+            {
+                mismatch = true;
+            }
+        }
+        return count;
+    }
+
+    /** @return true if the last resolve saw replicas with different counts */
+    public boolean isMismatch()
+    {
+        return mismatch;
+    }
+
+    /** @return the replica that reported the count returned by the last resolve */
+    public EndPoint getHighestEndPoint()
+    {
+        return highestEndPoint;
+    }
+
+    public boolean isDataPresent(List<Message> responses)
+    {
+        return true;
+    }
+
+    private static CountReply getCountReply(Message response)
+    {
+        CountReply reply = (CountReply) response.getResponseObject();
+        if (reply != null)
+            return reply;
+        try
+        {
+            return CountReply.read(response.getMessageBody());
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+}
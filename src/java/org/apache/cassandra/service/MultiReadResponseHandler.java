@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.service;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import org.apache.cassandra.db.MultiReadResponse;
+import org.apache.cassandra.io.DataInputBuffer;
+import org.apache.cassandra.net.IAsyncCallback;
+import org.apache.cassandra.net.Message;
+
+/**
+ * The callback for a MultiReadCommand sent to one replica.  It splits the replica's
+ * MultiReadResponse and passes each ReadResponse, already deserialized, to the handler
+ * waiting on that key, so that digests are still compared key by key.  A key the replica
+ * failed to read gets no response from it, just as a failed single read would.
+ */
+public class MultiReadResponseHandler implements IAsyncCallback
+{
+    private static Logger logger_ = Logger.getLogger(MultiReadResponseHandler.class);
+
+    /* the handler for each command of the MultiReadCommand, in order */
+    private final List<? extends IAsyncCallback> handlers_;
+
+    public MultiReadResponseHandler(List<? extends IAsyncCallback> handlers)
+    {
+        handlers_ = handlers;
+    }
+
+    public void response(Message message)
+    {
+        byte[] body = message.getMessageBody();
+        DataInputBuffer bufIn = new DataInputBuffer();
+        bufIn.reset(body, body.length);
+        MultiReadResponse multiResponse;
+        try
+        {
+            multiResponse = MultiReadResponse.serializer().deserialize(bufIn);
+        }
+        catch (IOException e)
+        {
+            logger_.error("Error reading response from " + message.getFrom(), e);
+            return;
+        }
+        if (multiResponse.responses.length != handlers_.size())
+        {
+            logger_.error(message.getFrom() + " answered " + multiResponse.responses.length + " reads of " + handlers_.size());
+            return;
+        }
+        for (int i = 0; i < handlers_.size(); i++)
+        {
+            if (multiResponse.responses[i] == null)
+            {
+                if (logger_.isDebugEnabled())
+                    logger_.debug(message.getFrom() + " failed read " + i + " of " + handlers_.size());
+                continue;
+            }
+            handlers_.get(i).response(message.withResponseObject(multiResponse.responses[i]));
+        }
+    }
+
+    public void attachContext(Object o)
+    {
+        throw new UnsupportedOperationException("This operation is not supported in this version of the callback handler");
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.service;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+import org.apache.cassandra.concurrent.DebuggableThreadPoolExecutor;
+import org.apache.cassandra.concurrent.ThreadFactoryImpl;
+import org.apache.thrift.TProcessorFactory;
+import org.apache.thrift.protocol.TProtocolFactory;
+import org.apache.thrift.server.TNonblockingServer;
+import org.apache.thrift.transport.TFramedTransport;
+import org.apache.thrift.transport.TNonblockingServerTransport;
+import org.apache.thrift.transport.TNonblockingSocket;
+import org.apache.thrift.transport.TTransportException;
+
+/**
+ * A Thrift server in which a selector thread does all the socket IO, reading whole frames
+ * from any number of connections, and a fixed pool of workers runs the requests.
+ * An idle connection therefore costs a selection key rather than a thread.
+ *
+ * Requests waiting for a worker are queued; the depth of the queue is visible through
+ * the pending tasks of the org.apache.cassandra.concurrent:type=THRIFT-WORKER MBean.
+ */
+public class NonblockingThriftServer extends TNonblockingServer
+{
+    private static final Logger logger = Logger.getLogger(NonblockingThriftServer.class);
+
+    private final DebuggableThreadPoolExecutor workers;
+
+    public NonblockingThriftServer(TProcessorFactory processorFactory,
+                                   TNonblockingServerTransport serverTransport,
+                                   TProtocolFactory protocolFactory,
+                                   int workerThreads)
+    {
+        super(processorFactory, serverTransport,
+              new TFramedTransport.Factory(), new TFramedTransport.Factory(),
+              protocolFactory, protocolFactory);
+        workers = new DebuggableThreadPoolExecutor(workerThreads,
+                                                   workerThreads,
+                                                   Integer.MAX_VALUE,
+                                                   TimeUnit.SECONDS,
+                                                   new LinkedBlockingQueue<Runnable>(),
+                                                   new ThreadFactoryImpl("THRIFT-WORKER"));
+    }
+
+    @Override
+    public void serve()
+    {
+        // returns once the selector thread is stopped
+        super.serve();
+
+        workers.shutdown();
+        try
+        {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS))
+                logger.warn("Thrift requests still running at shutdown");
+        }
+        catch (InterruptedException e)
+        {
+            throw new AssertionError(e);
+        }
+    }
+
+    /** hands the request off to the worker pool, so the selector thread never runs a request itself */
+    @Override
+    protected void requestInvoke(final FrameBuffer frameBuffer)
+    {
+        workers.execute(new Runnable()
+        {
+            public void run()
+            {
+                frameBuffer.invoke();
+            }
+        });
+    }
+
+    /** @return the number of requests received but not yet finished */
+    public long getPendingRequests()
+    {
+        return workers.getPendingTasks();
+    }
+
+    /**
+     * A nonblocking server socket bound to a given address; Thrift's TNonblockingServerSocket
+     * can only listen on all interfaces, which would ignore ThriftAddress.
+     */
+    public static class ServerSocket extends TNonblockingServerTransport
+    {
+        private final ServerSocketChannel channel;
+
+        public ServerSocket(InetSocketAddress address) throws TTransportException
+        {
+            try
+            {
+                channel = ServerSocketChannel.open();
+                channel.configureBlocking(false);
+                // prevent the 2MSL delay problem on restarts
+                channel.socket().setReuseAddress(true);
+                channel.socket().bind(address);
+            }
+            catch (IOException e)
+            {
+                throw new TTransportException("Could not create ServerSocket on address " + address + ": " + e.getMessage());
+            }
+        }
+
+        public int getLocalPort()
+        {
+            return channel.socket().getLocalPort();
+        }
+
+        public void listen()
+        {
+            // already bound, and the selector does the accepting
+        }
+
+        protected TNonblockingSocket acceptImpl() throws TTransportException
+        {
+            try
+            {
+                SocketChannel socket = channel.accept();
+                return socket == null ? null : new TNonblockingSocket(socket);
+            }
+            catch (IOException e)
+            {
+                throw new TTransportException(e);
+            }
+        }
+
+        public void registerSelector(Selector selector)
+        {
+            try
+            {
+                channel.register(selector, SelectionKey.OP_ACCEPT);
+            }
+            catch (ClosedChannelException e)
+            {
+                // closed by stop() before the selector started; there is nothing to accept
+            }
+        }
+
+        public void close()
+        {
+            try
+            {
+                channel.close();
+            }
+            catch (IOException e)
+            {
+                logger.warn("Could not close thrift server socket", e);
+            }
+        }
+
+        @Override
+        public void interrupt()
+        {
+            close();
+        }
+    }
+}
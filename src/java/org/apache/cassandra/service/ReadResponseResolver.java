@@ -74,12 +74,10 @@ public class ReadResponseResolver implements IResponseResolver<Row>
         DataInputBuffer bufIn = new DataInputBuffer();
 		for (Message response : responses)
 		{					            
-            byte[] body = response.getMessageBody();
-            bufIn.reset(body, body.length);
             try
             {
                 long start = System.currentTimeMillis();
-                ReadResponse result = ReadResponse.serializer().deserialize(bufIn);
+                ReadResponse result = getReadResponse(response, bufIn);
                 if (logger_.isDebugEnabled())
                   logger_.debug( "Response deserialization time : " + (System.currentTimeMillis() - start) + " ms.");
     			if(!result.isDigestQuery())
@@ -152,19 +150,16 @@ public class ReadResponseResolver implements IResponseResolver<Row>
 	public boolean isDataPresent(List<Message> responses)
 	{
 		boolean isDataPresent = false;
+		DataInputBuffer bufIn = new DataInputBuffer();
 		for (Message response : responses)
 		{
-            byte[] body = response.getMessageBody();
-			DataInputBuffer bufIn = new DataInputBuffer();
-            bufIn.reset(body, body.length);
             try
             {
-    			ReadResponse result = ReadResponse.serializer().deserialize(bufIn);
+    			ReadResponse result = getReadResponse(response, bufIn);
     			if(!result.isDigestQuery())
     			{
     				isDataPresent = true;
     			}
-                bufIn.close();
             }
             catch(IOException ex)
             {
@@ -173,4 +168,15 @@ public class ReadResponseResolver implements IResponseResolver<Row>
 		}
 		return isDataPresent;
 	}
+
+    /** a local or batched response carries the ReadResponse itself; any other is deserialized with bufIn */
+    private static ReadResponse getReadResponse(Message response, DataInputBuffer bufIn) throws IOException
+    {
+        ReadResponse result = (ReadResponse) response.getResponseObject();
+        if (result != null)
+            return result;
+        byte[] body = response.getMessageBody();
+        bufIn.reset(body, body.length);
+        return ReadResponse.serializer().deserialize(bufIn);
+    }
 }
@@ -54,7 +54,7 @@ import org.apache.cassandra.net.MessagingService;
  * keys at an Endpoint. Monitor load information for a 5 minute
  * interval and then do load balancing operations if necessary.
  */
-final class StorageLoadBalancer implements IEndPointStateChangeSubscriber
+public final class StorageLoadBalancer implements IEndPointStateChangeSubscriber
 {
     class LoadBalancer implements Runnable
     {
@@ -172,8 +172,8 @@ final class StorageLoadBalancer implements IEndPointStateChangeSubscriber
     }
 
     private static final Logger logger_ = Logger.getLogger(StorageLoadBalancer.class);
-    private static final String lbStage_ = "LOAD-BALANCER-STAGE";
-    private static final String moveMessageVerbHandler_ = "MOVE-MESSAGE-VERB-HANDLER";
+    public static final String lbStage_ = "LOAD-BALANCER-STAGE";
+    public static final String moveMessageVerbHandler_ = "MOVE-MESSAGE-VERB-HANDLER";
     /* time to delay in minutes the actual load balance procedure if heavily loaded */
     private static final int delay_ = 5;
     /* Ratio of highest loaded node and the average load. */
@@ -23,16 +23,19 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.lang.management.ManagementFactory;
 
+import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 
+import org.apache.cassandra.concurrent.StageManager;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.*;
+import org.apache.cassandra.dht.IPartitioner;
 import org.apache.cassandra.io.DataInputBuffer;
 import org.apache.cassandra.net.EndPoint;
 import org.apache.cassandra.net.IAsyncResult;
 import org.apache.cassandra.net.Message;
 import org.apache.cassandra.net.MessagingService;
-import org.apache.cassandra.utils.TimedStatsDeque;
+import org.apache.cassandra.utils.LatencyTracker;
 import org.apache.cassandra.locator.TokenMetadata;
 
 import org.apache.log4j.Logger;
@@ -46,9 +49,9 @@ public class StorageProxy implements StorageProxyMBean
     private static Logger logger = Logger.getLogger(StorageProxy.class);
 
     // mbean stuff
-    private static TimedStatsDeque readStats = new TimedStatsDeque(60000);
-    private static TimedStatsDeque rangeStats = new TimedStatsDeque(60000);
-    private static TimedStatsDeque writeStats = new TimedStatsDeque(60000);
+    private static final LatencyTracker readStats = new LatencyTracker();
+    private static final LatencyTracker rangeStats = new LatencyTracker();
+    private static final LatencyTracker writeStats = new LatencyTracker();
     private StorageProxy() {}
     static
     {
@@ -109,7 +112,7 @@ public class StorageProxy implements StorageProxyMBean
          * Send them asynchronously to the replicas.
         */
 
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
 		try
 		{
             // (This is the ZERO consistency level, so user doesn't care if we don't really have N destinations available.)
@@ -130,22 +133,13 @@ public class StorageProxy implements StorageProxyMBean
         }
         finally
         {
-            writeStats.add(System.currentTimeMillis() - startTime);
+            writeStats.addNano(System.nanoTime() - startTime);
         }
     }
     
     public static void insertBlocking(RowMutation rm, int consistency_level) throws UnavailableException
     {
-        long startTime = System.currentTimeMillis();
-        Message message = null;
-        try
-        {
-            message = rm.makeRowMutationMessage();
-        }
-        catch (IOException e)
-        {
-            throw new RuntimeException(e);
-        }
+        long startTime = System.nanoTime();
         try
         {
             Map<EndPoint, EndPoint> endpointMap = StorageService.instance().getHintedStorageEndpointMap(rm.key());
@@ -157,13 +151,18 @@ public class StorageProxy implements StorageProxyMBean
             }
             QuorumResponseHandler<Boolean> quorumResponseHandler = new QuorumResponseHandler<Boolean>(blockFor, new WriteResponseResolver());
             if (logger.isDebugEnabled())
-                logger.debug("insertBlocking writing key " + rm.key() + " to " + message.getMessageId() + "@[" + StringUtils.join(endpointMap.keySet(), ", ") + "]");
+                logger.debug("insertBlocking writing key " + rm.key() + " to [" + StringUtils.join(endpointMap.keySet(), ", ") + "]");
 
-            // Get all the targets and stick them in an array
-            MessagingService.getMessagingInstance().sendRR(message, primaryNodes.toArray(new EndPoint[primaryNodes.size()]), quorumResponseHandler);
+            /* this node applies its own copy directly; the mutation is serialized only if another node needs it */
+            boolean applyLocally = primaryNodes.remove(StorageService.getLocalStorageEndPoint());
+            Message message = endpointMap.size() > (applyLocally ? 1 : 0) ? rm.makeRowMutationMessage() : null;
+            if (primaryNodes.size() > 0)
+                MessagingService.getMessagingInstance().sendRR(message, primaryNodes.toArray(new EndPoint[primaryNodes.size()]), quorumResponseHandler);
+            if (applyLocally)
+                StageManager.getStage(StorageService.mutationStage_).execute(new LocalMutationRunnable(rm, quorumResponseHandler));
             if (!quorumResponseHandler.get())
                 throw new UnavailableException();
-            if (primaryNodes.size() < endpointMap.size()) // Do we need to bother with Hinted Handoff?
+            if (primaryNodes.size() + (applyLocally ? 1 : 0) < endpointMap.size()) // Do we need to bother with Hinted Handoff?
             {
                 for (Map.Entry<EndPoint, EndPoint> e : endpointMap.entrySet())
                 {
@@ -181,7 +180,7 @@ public class StorageProxy implements StorageProxyMBean
         }
         finally
         {
-            writeStats.add(System.currentTimeMillis() - startTime);
+            writeStats.addNano(System.nanoTime() - startTime);
         }
     }
 
@@ -238,42 +237,97 @@ public class StorageProxy implements StorageProxyMBean
         if (logger.isDebugEnabled())
             logger.debug("weakreadlocal reading " + StringUtils.join(commands, ", "));
 
-        List<Row> rows = new ArrayList<Row>();
-        List<IAsyncResult> iars = new ArrayList<IAsyncResult>();
-        int commandIndex = 0;
-
-        for (ReadCommand command: commands)
+        /* the reads from each endpoint go in one message; this maps the endpoints to the indexes of their commands */
+        Map<EndPoint, List<Integer>> endPointCommands = new HashMap<EndPoint, List<Integer>>();
+        for (int i = 0; i < commands.size(); i++)
         {
-            EndPoint endPoint = StorageService.instance().findSuitableEndPoint(command.key);
+            EndPoint endPoint = StorageService.instance().findSuitableEndPoint(commands.get(i).key);
             assert endPoint != null;
-            Message message = command.makeReadMessage();
+            List<Integer> indexes = endPointCommands.get(endPoint);
+            if (indexes == null)
+            {
+                indexes = new ArrayList<Integer>();
+                endPointCommands.put(endPoint, indexes);
+            }
+            indexes.add(i);
+        }
 
+        List<IAsyncResult> iars = new ArrayList<IAsyncResult>();
+        List<List<Integer>> iarCommands = new ArrayList<List<Integer>>();
+        for (Map.Entry<EndPoint, List<Integer>> entry : endPointCommands.entrySet())
+        {
+            EndPoint endPoint = entry.getKey();
+            List<Integer> indexes = entry.getValue();
+            Message message = makeReadMessage(commands, indexes);
             if (logger.isDebugEnabled())
-                logger.debug("weakreadremote reading " + command + " from " + message.getMessageId() + "@" + endPoint);
+                logger.debug("weakreadremote reading " + indexes.size() + " keys from " + message.getMessageId() + "@" + endPoint);
             message.addHeader(ReadCommand.DO_REPAIR, ReadCommand.DO_REPAIR.getBytes());
             iars.add(MessagingService.getMessagingInstance().sendRR(message, endPoint));
+            iarCommands.add(indexes);
         }
 
-        for (IAsyncResult iar: iars)
+        Row[] rows = new Row[commands.size()];
+        for (int i = 0; i < iars.size(); i++)
         {
+            List<Integer> indexes = iarCommands.get(i);
             byte[] body;
             try
             {
-                body = iar.get(DatabaseDescriptor.getRpcTimeout(), TimeUnit.MILLISECONDS);
+                body = iars.get(i).get(DatabaseDescriptor.getRpcTimeout(), TimeUnit.MILLISECONDS);
             }
             catch (TimeoutException e)
             {
-                throw new RuntimeException("error reading key " + commands.get(commandIndex).key, e);
+                throw new RuntimeException("error reading key " + commands.get(indexes.get(0)).key, e);
                 // TODO retry to a different endpoint?
             }
-            DataInputBuffer bufIn = new DataInputBuffer();
-            bufIn.reset(body, body.length);
-            ReadResponse response = ReadResponse.serializer().deserialize(bufIn);
-            if (response.row() != null)
-                rows.add(response.row());
-            commandIndex++;
+            readRows(commands, indexes, body, rows);
         }
-        return rows;
+
+        List<Row> rowList = new ArrayList<Row>(rows.length);
+        for (Row row : rows)
+        {
+            if (row != null)
+                rowList.add(row);
+        }
+        return rowList;
+    }
+
+    /**
+     * Puts the rows in body, the reply to makeReadMessage(commands, indexes), into rows at the given
+     * indexes.  A key the replica failed to read fails the same way as a single read it never answered.
+     */
+    static void readRows(List<ReadCommand> commands, List<Integer> indexes, byte[] body, Row[] rows) throws IOException
+    {
+        DataInputBuffer bufIn = new DataInputBuffer();
+        bufIn.reset(body, body.length);
+        if (indexes.size() == 1)
+        {
+            rows[indexes.get(0)] = ReadResponse.serializer().deserialize(bufIn).row();
+            return;
+        }
+        ReadResponse[] responses = MultiReadResponse.serializer().deserialize(bufIn).responses;
+        for (int j = 0; j < indexes.size(); j++)
+        {
+            if (responses[j] == null)
+            {
+                String key = commands.get(indexes.get(j)).key;
+                throw new RuntimeException("error reading key " + key, new TimeoutException("Replica failed to read key " + key));
+            }
+            rows[indexes.get(j)] = responses[j].row();
+        }
+    }
+
+    /** @return a message for the given commands: a plain read for one, a MultiReadCommand for more */
+    private static Message makeReadMessage(List<ReadCommand> commands, List<Integer> indexes) throws IOException
+    {
+        if (indexes.size() == 1)
+            return commands.get(indexes.get(0)).makeReadMessage();
+        List<ReadCommand> group = new ArrayList<ReadCommand>(indexes.size());
+        for (int index : indexes)
+        {
+            group.add(commands.get(index));
+        }
+        return new MultiReadCommand(group).makeReadMessage();
     }
 
     /**
@@ -283,7 +337,7 @@ public class StorageProxy implements StorageProxyMBean
     public static List<Row> readProtocol(List<ReadCommand> commands, int consistency_level)
     throws IOException, TimeoutException, InvalidRequestException
     {
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
 
         List<Row> rows = new ArrayList<Row>();
 
@@ -318,7 +372,7 @@ public class StorageProxy implements StorageProxyMBean
             rows = strongRead(commands);
         }
 
-        readStats.add(System.currentTimeMillis() - startTime);
+        readStats.addNano(System.nanoTime() - startTime);
 
         return rows;
     }
@@ -339,6 +393,7 @@ public class StorageProxy implements StorageProxyMBean
     {
         List<QuorumResponseHandler<Row>> quorumResponseHandlers = new ArrayList<QuorumResponseHandler<Row>>();
         List<EndPoint[]> commandEndPoints = new ArrayList<EndPoint[]>();
+        List<ReadCommand> digestCommands = new ArrayList<ReadCommand>();
         List<Row> rows = new ArrayList<Row>();
 
         int commandIndex = 0;
@@ -350,9 +405,6 @@ public class StorageProxy implements StorageProxyMBean
             ReadCommand readMessageDigestOnly = command.copy();
             readMessageDigestOnly.setDigestQuery(true);
 
-            Message message = command.makeReadMessage();
-            Message messageDigestOnly = readMessageDigestOnly.makeReadMessage();
-
             IResponseResolver<Row> readResponseResolver = new ReadResponseResolver();
             QuorumResponseHandler<Row> quorumResponseHandler = new QuorumResponseHandler<Row>(
                     DatabaseDescriptor.getQuorum(),
@@ -362,7 +414,6 @@ public class StorageProxy implements StorageProxyMBean
             /* Remove the local storage endpoint from the list. */
             endpointList.remove(dataPoint);
             EndPoint[] endPoints = new EndPoint[endpointList.size() + 1];
-            Message messages[] = new Message[endpointList.size() + 1];
 
             /*
              * First message is sent to the node that will actually get
@@ -370,21 +421,15 @@ public class StorageProxy implements StorageProxyMBean
              * digest query.
             */
             endPoints[0] = dataPoint;
-            messages[0] = message;
-            if (logger.isDebugEnabled())
-                logger.debug("strongread reading data for " + command + " from " + message.getMessageId() + "@" + dataPoint);
             for (int i = 1; i < endPoints.length; i++)
             {
-                EndPoint digestPoint = endpointList.get(i - 1);
-                endPoints[i] = digestPoint;
-                messages[i] = messageDigestOnly;
-                if (logger.isDebugEnabled())
-                    logger.debug("strongread reading digest for " + command + " from " + messageDigestOnly.getMessageId() + "@" + digestPoint);
+                endPoints[i] = endpointList.get(i - 1);
             }
-            MessagingService.getMessagingInstance().sendRR(messages, endPoints, quorumResponseHandler);
+            digestCommands.add(readMessageDigestOnly);
             quorumResponseHandlers.add(quorumResponseHandler);
             commandEndPoints.add(endPoints);
         }
+        sendReads(commands, digestCommands, commandEndPoints, quorumResponseHandlers);
 
         for (QuorumResponseHandler<Row> quorumResponseHandler: quorumResponseHandlers)
         {
@@ -409,9 +454,9 @@ public class StorageProxy implements StorageProxyMBean
                             DatabaseDescriptor.getQuorum(),
                             readResponseResolverRepair);
                     logger.info("DigestMismatchException: " + command.key);
-                    Message messageRepair = command.makeReadMessage();
-                    MessagingService.getMessagingInstance().sendRR(messageRepair, commandEndPoints.get(commandIndex),
-                            quorumResponseHandlerRepair);
+                    sendReads(Collections.singletonList(command), Collections.singletonList(command),
+                              Collections.singletonList(commandEndPoints.get(commandIndex)),
+                              Collections.singletonList(quorumResponseHandlerRepair));
                     try
                     {
                         row = quorumResponseHandlerRepair.get();
@@ -431,68 +476,69 @@ public class StorageProxy implements StorageProxyMBean
         return rows;
     }
 
-    private static Map<String, Message[]> constructReplicaMessages(Map<String, ReadCommand[]> readMessages) throws IOException
+    /**
+     * For each key k, sends commands[k] to endPoints[k][0] and digestCommands[k] to the rest of
+     * endPoints[k], with the responses going to handlers[k].  The reads for each remote endpoint
+     * go in one message, a MultiReadCommand if there is more than one.  This node's reads run on
+     * the read stage instead, and their responses go straight to the handlers, so that neither
+     * the commands nor the rows they read are serialized.
+     */
+    private static void sendReads(List<ReadCommand> commands, List<ReadCommand> digestCommands, List<EndPoint[]> endPoints,
+                                  List<QuorumResponseHandler<Row>> handlers)
+    throws IOException
     {
-        Map<String, Message[]> messages = new HashMap<String, Message[]>();
-        Set<String> keys = readMessages.keySet();
-        
-        for ( String key : keys )
+        EndPoint localEndPoint = StorageService.getLocalStorageEndPoint();
+        Map<EndPoint, List<ReadCommand>> remoteCommands = new HashMap<EndPoint, List<ReadCommand>>();
+        Map<EndPoint, List<QuorumResponseHandler<Row>>> remoteHandlers = new HashMap<EndPoint, List<QuorumResponseHandler<Row>>>();
+        for (int k = 0; k < commands.size(); k++)
         {
-            Message[] msg = new Message[DatabaseDescriptor.getReplicationFactor()];
-            ReadCommand[] readParameters = readMessages.get(key);
-            msg[0] = readParameters[0].makeReadMessage();
-            for ( int i = 1; i < msg.length; ++i )
+            EndPoint[] keyEndPoints = endPoints.get(k);
+            for (int i = 0; i < keyEndPoints.length; i++)
             {
-                msg[i] = readParameters[1].makeReadMessage();
+                ReadCommand endPointCommand = i == 0 ? commands.get(k) : digestCommands.get(k);
+                if (logger.isDebugEnabled())
+                    logger.debug("strongread reading " + (endPointCommand.isDigestQuery() ? "digest" : "data") + " for " + endPointCommand + " from " + keyEndPoints[i]);
+                if (keyEndPoints[i].equals(localEndPoint))
+                {
+                    StageManager.getStage(StorageService.readStage_).execute(new LocalReadRunnable(endPointCommand, handlers.get(k)));
+                    continue;
+                }
+                List<ReadCommand> endPointCommands = remoteCommands.get(keyEndPoints[i]);
+                if (endPointCommands == null)
+                {
+                    endPointCommands = new ArrayList<ReadCommand>();
+                    remoteCommands.put(keyEndPoints[i], endPointCommands);
+                    remoteHandlers.put(keyEndPoints[i], new ArrayList<QuorumResponseHandler<Row>>());
+                }
+                endPointCommands.add(endPointCommand);
+                remoteHandlers.get(keyEndPoints[i]).add(handlers.get(k));
             }
-        }        
-        return messages;
-    }
-    
-    private static MultiQuorumResponseHandler dispatchMessagesMulti(Map<String, ReadCommand[]> readMessages, Map<String, Message[]> messages) throws IOException
-    {
-        Set<String> keys = messages.keySet();
-        /* This maps the keys to the original data read messages */
-        Map<String, ReadCommand> readMessage = new HashMap<String, ReadCommand>();
-        /* This maps the keys to their respective endpoints/replicas */
-        Map<String, EndPoint[]> endpoints = new HashMap<String, EndPoint[]>();
-        /* Groups the messages that need to be sent to the individual keys */
-        Message[][] msgList = new Message[messages.size()][DatabaseDescriptor.getReplicationFactor()];
-        /* Respects the above grouping and provides the endpoints for the above messages */
-        EndPoint[][] epList = new EndPoint[messages.size()][DatabaseDescriptor.getReplicationFactor()];
-        
-        int i = 0;
-        for ( String key : keys )
-        {
-            /* This is the primary */
-            EndPoint dataPoint = StorageService.instance().findSuitableEndPoint(key);
-            List<EndPoint> replicas = new ArrayList<EndPoint>( StorageService.instance().getLiveReadStorageEndPoints(key) );
-            replicas.remove(dataPoint);
-            /* Get the messages to be sent index 0 is the data messages and index 1 is the digest message */
-            Message[] message = messages.get(key);           
-            msgList[i][0] = message[0];
-            int N = DatabaseDescriptor.getReplicationFactor();
-            for ( int j = 1; j < N; ++j )
-            {
-                msgList[i][j] = message[1];
-            }
-            /* Get the endpoints to which the above messages need to be sent */
-            epList[i][0] = dataPoint;
-            for ( int j = 1; i < N; ++i )
-            {                
-                epList[i][j] = replicas.get(j - 1);
-            } 
-            /* Data ReadMessage associated with this key */
-            readMessage.put( key, readMessages.get(key)[0] );
-            /* EndPoints for this specific key */
-            endpoints.put(key, epList[i]);
-            ++i;
-        }
-                
-        /* Handles the read semantics for this entire set of keys */
-        MultiQuorumResponseHandler quorumResponseHandlers = new MultiQuorumResponseHandler(readMessage, endpoints);
-        MessagingService.getMessagingInstance().sendRR(msgList, epList, quorumResponseHandlers);
-        return quorumResponseHandlers;
+        }
+
+        /* a digest command goes to several endpoints; serialize it once */
+        Map<ReadCommand, Message> messages = new IdentityHashMap<ReadCommand, Message>();
+        for (Map.Entry<EndPoint, List<ReadCommand>> entry : remoteCommands.entrySet())
+        {
+            EndPoint endPoint = entry.getKey();
+            List<ReadCommand> endPointCommands = entry.getValue();
+            List<QuorumResponseHandler<Row>> endPointHandlers = remoteHandlers.get(endPoint);
+            if (endPointCommands.size() == 1)
+            {
+                ReadCommand command = endPointCommands.get(0);
+                Message message = messages.get(command);
+                if (message == null)
+                {
+                    message = command.makeReadMessage();
+                    messages.put(command, message);
+                }
+                MessagingService.getMessagingInstance().sendRR(message, endPoint, endPointHandlers.get(0));
+            }
+            else
+            {
+                Message message = new MultiReadCommand(endPointCommands).makeReadMessage();
+                MessagingService.getMessagingInstance().sendRR(message, endPoint, new MultiReadResponseHandler(endPointHandlers));
+            }
+        }
     }
 
     /*
@@ -530,10 +576,99 @@ public class StorageProxy implements StorageProxyMBean
         return rows;
     }
 
+    /**
+     * Counts the live columns of a row, or of one of its supercolumns.  The replicas count
+     * the columns where they are and send back only the count.  At QUORUM, when the replicas
+     * disagree the highest count is returned, and the replica that reported it is asked to
+     * repair the others in the background.
+     */
+    public static int getColumnCount(CountCommand command, int consistency_level)
+    throws IOException, TimeoutException, InvalidRequestException
+    {
+        long startTime = System.nanoTime();
+        EndPoint localEndPoint = StorageService.getLocalStorageEndPoint();
+        EndPoint[] endpoints = StorageService.instance().getReadStorageEndPoints(command.key);
+        int count;
+
+        if (consistency_level == ConsistencyLevel.ONE)
+        {
+            if (Arrays.asList(endpoints).contains(localEndPoint) && !StorageService.instance().isBootstrapMode())
+            {
+                count = command.getLiveColumnCount();
+            }
+            else
+            {
+                EndPoint endPoint = StorageService.instance().findSuitableEndPoint(command.key);
+                if (logger.isDebugEnabled())
+                    logger.debug("counting " + command + " on " + endPoint);
+                IAsyncResult iar = MessagingService.getMessagingInstance().sendRR(command.getMessage(), endPoint);
+                count = CountReply.read(iar.get(DatabaseDescriptor.getRpcTimeout(), TimeUnit.MILLISECONDS)).count;
+            }
+        }
+        else
+        {
+            assert consistency_level == ConsistencyLevel.QUORUM;
+            CountResponseResolver resolver = new CountResponseResolver();
+            QuorumResponseHandler<Integer> handler = new QuorumResponseHandler<Integer>(DatabaseDescriptor.getQuorum(), resolver);
+            Message message = null;
+            for (EndPoint endPoint : endpoints)
+            {
+                if (logger.isDebugEnabled())
+                    logger.debug("counting " + command + " on " + endPoint);
+                if (endPoint.equals(localEndPoint))
+                {
+                    StageManager.getStage(StorageService.readStage_).execute(new LocalCountRunnable(command, handler));
+                    continue;
+                }
+                if (message == null)
+                    message = command.getMessage();
+                MessagingService.getMessagingInstance().sendRR(message, endPoint, handler);
+            }
+            try
+            {
+                count = handler.get();
+            }
+            catch (DigestMismatchException e)
+            {
+                throw new AssertionError(e); // CountResponseResolver never throws it
+            }
+            if (resolver.isMismatch())
+            {
+                logger.info("Column counts do not match for " + command.key + "; repairing from " + resolver.getHighestEndPoint());
+                repairCount(command, resolver.getHighestEndPoint());
+            }
+        }
+
+        readStats.addNano(System.nanoTime() - startTime);
+        return count;
+    }
+
+    /**
+     * Sends endPoint a digest read of the counted row marked for read repair, so that it compares
+     * the row with the other replicas and repairs them in the background, as it would after a
+     * weak read.  Only the digest is sent back, and it is ignored.
+     */
+    private static void repairCount(CountCommand command, EndPoint endPoint) throws IOException
+    {
+        ReadCommand readCommand = new SliceFromReadCommand(command.table, command.key, command.queryPath,
+                                                           ArrayUtils.EMPTY_BYTE_ARRAY, ArrayUtils.EMPTY_BYTE_ARRAY, false, Integer.MAX_VALUE);
+        readCommand.setDigestQuery(true);
+        Message message = readCommand.makeReadMessage();
+        message.addHeader(ReadCommand.DO_REPAIR, ReadCommand.DO_REPAIR.getBytes());
+        MessagingService.getMessagingInstance().sendOneWay(message, endPoint);
+    }
+
     static List<String> getKeyRange(RangeCommand rawCommand) throws IOException
     {
-        long startTime = System.currentTimeMillis();
-        Comparator<String> comparator = StorageService.getPartitioner().getDecoratedKeyComparator();
+        long startTime = System.nanoTime();
+        final IPartitioner partitioner = StorageService.getPartitioner();
+        Comparator<String> comparator = new Comparator<String>()
+        {
+            public int compare(String o1, String o2)
+            {
+                return partitioner.decorateKey(o1).compareTo(partitioner.decorateKey(o2));
+            }
+        };
         TokenMetadata tokenMetadata = StorageService.instance().getTokenMetadata();
         List<String> allKeys = new ArrayList<String>();
         RangeCommand command = rawCommand;
@@ -617,39 +752,285 @@ public class StorageProxy implements StorageProxyMBean
             command = new RangeCommand(command.table, command.columnFamily, command.startWith, command.stopAt, maxResults);
         } while (!endPoint.equals(startEndpoint));
 
-        rangeStats.add(System.currentTimeMillis() - startTime);
+        rangeStats.addNano(System.nanoTime() - startTime);
         return (allKeys.size() > rawCommand.maxResults)
                ? allKeys.subList(0, rawCommand.maxResults)
                : allKeys;
     }
 
-    public double getReadLatency()
+    /**
+     * Reads the rows of a key range, asking each endpoint around the ring in turn, like getKeyRange.
+     * As soon as a reply shows the range continues past an endpoint, the next endpoint is sent
+     * its request, so it scans while the rows already received are merged.
+     * @return at most command.maxResults rows, in key order
+     */
+    static List<Row> getRangeSlice(RangeSliceCommand rawCommand) throws IOException
+    {
+        long startTime = System.nanoTime();
+        final IPartitioner partitioner = StorageService.getPartitioner();
+        TokenMetadata tokenMetadata = StorageService.instance().getTokenMetadata();
+        // keyed by decorated key, since the first endpoint may hold both the smallest and the largest keys
+        SortedMap<DecoratedKey, Row> allRows = new TreeMap<DecoratedKey, Row>();
+        RangeSliceCommand command = rawCommand;
+
+        EndPoint endPoint = StorageService.instance().findSuitableEndPoint(command.startWith);
+        EndPoint startEndpoint = endPoint;
+        EndPoint wrapEndpoint = tokenMetadata.getFirstEndpoint();
+        IAsyncResult iar = sendRangeSlice(command, endPoint);
+
+        while (true)
+        {
+            RangeSliceReply reply;
+            try
+            {
+                reply = RangeSliceReply.read(iar.get(DatabaseDescriptor.getRpcTimeout(), TimeUnit.MILLISECONDS));
+            }
+            catch (TimeoutException e)
+            {
+                throw new RuntimeException(e);
+            }
+            if (reply.rangeCompletedLocally)
+            {
+                addRows(allRows, reply.rows, partitioner);
+                break;
+            }
+
+            // see getKeyRange for why the next endpoint is scanned from the start of the range again
+            EndPoint nextEndPoint = tokenMetadata.getNextEndpoint(endPoint); // TODO move this into the Strategies & modify for RackAwareStrategy
+            boolean wrapped = nextEndPoint.equals(startEndpoint);
+            iar = null;
+            if (!wrapped && allRows.size() + reply.rows.size() < rawCommand.maxResults)
+            {
+                // these rows cannot fill the page, so the next endpoint will be needed
+                command = nextCommand(rawCommand, nextEndPoint == wrapEndpoint, allRows.size());
+                iar = sendRangeSlice(command, nextEndPoint);
+            }
+
+            addRows(allRows, reply.rows, partitioner);
+            if (allRows.size() >= rawCommand.maxResults || wrapped)
+            {
+                break;
+            }
+            if (iar == null)
+            {
+                // replies for the same rows from different endpoints overlapped; ask the next one now
+                command = nextCommand(rawCommand, nextEndPoint == wrapEndpoint, allRows.size());
+                iar = sendRangeSlice(command, nextEndPoint);
+            }
+            endPoint = nextEndPoint;
+        }
+
+        rangeStats.addNano(System.nanoTime() - startTime);
+        List<Row> rows = new ArrayList<Row>(Math.min(allRows.size(), rawCommand.maxResults));
+        for (Row row : allRows.values())
+        {
+            if (rows.size() == rawCommand.maxResults)
+                break;
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static RangeSliceCommand nextCommand(RangeSliceCommand rawCommand, boolean wrapping, int rowsSoFar)
+    {
+        int maxResults = wrapping ? rawCommand.maxResults : rawCommand.maxResults - rowsSoFar;
+        return rawCommand.columnNames != null
+               ? new RangeSliceCommand(rawCommand.table, rawCommand.queryPath, rawCommand.columnNames, rawCommand.startWith, rawCommand.stopAt, maxResults)
+               : new RangeSliceCommand(rawCommand.table, rawCommand.queryPath, rawCommand.start, rawCommand.finish, rawCommand.reversed, rawCommand.count, rawCommand.startWith, rawCommand.stopAt, maxResults);
+    }
+
+    private static IAsyncResult sendRangeSlice(RangeSliceCommand command, EndPoint endPoint) throws IOException
+    {
+        Message message = command.getMessage();
+        if (logger.isDebugEnabled())
+            logger.debug("reading " + command + " from " + message.getMessageId() + "@" + endPoint);
+        return MessagingService.getMessagingInstance().sendRR(message, endPoint);
+    }
+
+    /** adds the rows whose keys have not been seen yet; at ONE, the first reply for a key wins */
+    private static void addRows(SortedMap<DecoratedKey, Row> allRows, List<Row> rows, IPartitioner partitioner)
+    {
+        for (Row row : rows)
+        {
+            DecoratedKey key = partitioner.decorateKey(row.key());
+            if (!allRows.containsKey(key))
+            {
+                allRows.put(key, row);
+            }
+        }
+    }
+
+    /**
+     * Applies a mutation that this node is a replica for, and hands the WriteResponse
+     * straight to the handler waiting on it, as RowMutationVerbHandler would over the network.
+     */
+    private static class LocalMutationRunnable implements Runnable
+    {
+        private final RowMutation rm;
+        private final QuorumResponseHandler<Boolean> handler;
+
+        LocalMutationRunnable(RowMutation rm, QuorumResponseHandler<Boolean> handler)
+        {
+            this.rm = rm;
+            this.handler = handler;
+        }
+
+        public void run()
+        {
+            try
+            {
+                rm.apply();
+                WriteResponse response = new WriteResponse(rm.table(), rm.key(), true);
+                handler.response(Message.makeLocalResponse(StorageService.getLocalStorageEndPoint(), response));
+            }
+            catch (IOException e)
+            {
+                logger.error("Error in row mutation", e);
+            }
+        }
+    }
+
+    /**
+     * Reads a row from this node, and hands the ReadResponse straight to the handler
+     * waiting on it, as ReadVerbHandler would over the network.
+     */
+    private static class LocalReadRunnable implements Runnable
+    {
+        private final ReadCommand command;
+        private final QuorumResponseHandler<Row> handler;
+
+        LocalReadRunnable(ReadCommand command, QuorumResponseHandler<Row> handler)
+        {
+            this.command = command;
+            this.handler = handler;
+        }
+
+        public void run()
+        {
+            if (StorageService.instance().isBootstrapMode())
+            {
+                /* Don't service reads! */
+                throw new RuntimeException("Cannot service reads while bootstrapping!");
+            }
+            try
+            {
+                Row row = command.getRow(Table.open(command.table));
+                ReadResponse response = ReadResponse.forCommand(command, row);
+                handler.response(Message.makeLocalResponse(StorageService.getLocalStorageEndPoint(), response));
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Counts columns on this node, and hands the CountReply straight to the handler
+     * waiting on it, as CountVerbHandler would over the network.
+     */
+    private static class LocalCountRunnable implements Runnable
+    {
+        private final CountCommand command;
+        private final QuorumResponseHandler<Integer> handler;
+
+        LocalCountRunnable(CountCommand command, QuorumResponseHandler<Integer> handler)
+        {
+            this.command = command;
+            this.handler = handler;
+        }
+
+        public void run()
+        {
+            if (StorageService.instance().isBootstrapMode())
+            {
+                /* Don't service reads! */
+                throw new RuntimeException("Cannot service reads while bootstrapping!");
+            }
+            try
+            {
+                CountReply reply = new CountReply(command.getLiveColumnCount());
+                handler.response(Message.makeLocalResponse(StorageService.getLocalStorageEndPoint(), reply));
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    public long getReadOperations()
+    {
+        return readStats.getOpCount();
+    }
+
+    public long getTotalReadLatencyMicros()
+    {
+        return readStats.getTotalLatencyMicros();
+    }
+
+    public double getRecentReadLatencyMicros()
+    {
+        return readStats.getRecentLatencyMicros();
+    }
+
+    public double[] getReadLatencyPercentilesMicros()
+    {
+        return readStats.getPercentilesMicros();
+    }
+
+    public double[] getRecentReadLatencyPercentilesMicros()
+    {
+        return readStats.getRecentPercentilesMicros();
+    }
+
+    public long getRangeOperations()
+    {
+        return rangeStats.getOpCount();
+    }
+
+    public long getTotalRangeLatencyMicros()
+    {
+        return rangeStats.getTotalLatencyMicros();
+    }
+
+    public double getRecentRangeLatencyMicros()
+    {
+        return rangeStats.getRecentLatencyMicros();
+    }
+
+    public double[] getRangeLatencyPercentilesMicros()
+    {
+        return rangeStats.getPercentilesMicros();
+    }
+
+    public double[] getRecentRangeLatencyPercentilesMicros()
     {
-        return readStats.mean();
+        return rangeStats.getRecentPercentilesMicros();
     }
 
-    public double getRangeLatency()
+    public long getWriteOperations()
     {
-        return rangeStats.mean();
+        return writeStats.getOpCount();
     }
 
-    public double getWriteLatency()
+    public long getTotalWriteLatencyMicros()
     {
-        return writeStats.mean();
+        return writeStats.getTotalLatencyMicros();
     }
 
-    public int getReadOperations()
+    public double getRecentWriteLatencyMicros()
     {
-        return readStats.size();
+        return writeStats.getRecentLatencyMicros();
     }
 
-    public int getRangeOperations()
+    public double[] getWriteLatencyPercentilesMicros()
     {
-        return rangeStats.size();
+        return writeStats.getPercentilesMicros();
     }
 
-    public int getWriteOperations()
+    public double[] getRecentWriteLatencyPercentilesMicros()
     {
-        return writeStats.size();
+        return writeStats.getRecentPercentilesMicros();
     }
 }
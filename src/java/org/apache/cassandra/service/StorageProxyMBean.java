@@ -18,12 +18,27 @@
 */
 package org.apache.cassandra.service;
 
+/**
+ * Latencies of the requests this node coordinates, in microseconds.  The percentiles are the
+ * 50th, 95th, 99th and 99.9th; the Recent values cover the requests since the previous call.
+ */
 public interface StorageProxyMBean
 {
-    public double getReadLatency();
-    public int getReadOperations();
-    public double getRangeLatency();
-    public int getRangeOperations();
-    public double getWriteLatency();
-    public int getWriteOperations();
+    public long getReadOperations();
+    public long getTotalReadLatencyMicros();
+    public double getRecentReadLatencyMicros();
+    public double[] getReadLatencyPercentilesMicros();
+    public double[] getRecentReadLatencyPercentilesMicros();
+
+    public long getRangeOperations();
+    public long getTotalRangeLatencyMicros();
+    public double getRecentRangeLatencyMicros();
+    public double[] getRangeLatencyPercentilesMicros();
+    public double[] getRecentRangeLatencyPercentilesMicros();
+
+    public long getWriteOperations();
+    public long getTotalWriteLatencyMicros();
+    public double getRecentWriteLatencyMicros();
+    public double[] getWriteLatencyPercentilesMicros();
+    public double[] getRecentWriteLatencyPercentilesMicros();
 }
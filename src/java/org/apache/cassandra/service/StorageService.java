@@ -77,6 +77,9 @@ public final class StorageService implements IEndPointStateChangeSubscriber, Sto
     public final static String mbrshipCleanerVerbHandler_ = "MBRSHIP-CLEANER-VERB-HANDLER";
     public final static String bsMetadataVerbHandler_ = "BS-METADATA-VERB-HANDLER";
     public final static String rangeVerbHandler_ = "RANGE-VERB-HANDLER";
+    public final static String multiReadVerbHandler_ = "MULTI-READ-VERB-HANDLER";
+    public final static String countVerbHandler_ = "COUNT-VERB-HANDLER";
+    public final static String rangeSliceVerbHandler_ = "RANGE-SLICE-VERB-HANDLER";
 
     private static StorageService instance_;
     /* Used to lock the factory for creation of StorageService instance */
@@ -245,6 +248,9 @@ public final class StorageService implements IEndPointStateChangeSubscriber, Sto
         MessagingService.getMessagingInstance().registerVerbHandlers(StorageService.mbrshipCleanerVerbHandler_, new MembershipCleanerVerbHandler() );
         MessagingService.getMessagingInstance().registerVerbHandlers(StorageService.bsMetadataVerbHandler_, new BootstrapMetadataVerbHandler() );        
         MessagingService.getMessagingInstance().registerVerbHandlers(StorageService.rangeVerbHandler_, new RangeVerbHandler());
+        MessagingService.getMessagingInstance().registerVerbHandlers(StorageService.multiReadVerbHandler_, new MultiReadVerbHandler());
+        MessagingService.getMessagingInstance().registerVerbHandlers(StorageService.countVerbHandler_, new CountVerbHandler());
+        MessagingService.getMessagingInstance().registerVerbHandlers(StorageService.rangeSliceVerbHandler_, new RangeSliceVerbHandler());
         
         /* register the stage for the mutations */
         consistencyManager_ = new DebuggableThreadPoolExecutor(DatabaseDescriptor.getConsistencyThreads(),
@@ -1031,4 +1037,15 @@ public final class StorageService implements IEndPointStateChangeSubscriber, Sto
         Logger.getLogger(classQualifier).setLevel(level);
         logger_.info("set log level to " + level + " for classes under '" + classQualifier + "' (if the level doesn't look like '" + rawLevel + "' then log4j couldn't parse '" + rawLevel + "')");
     }
+
+    public String getIndexAccessMode()
+    {
+        return DatabaseDescriptor.getIndexAccessMode().name();
+    }
+
+    public void setIndexAccessMode(String mode)
+    {
+        DatabaseDescriptor.setIndexAccessMode(DatabaseDescriptor.IndexAccessMode.valueOf(mode));
+        logger_.info("set index access mode to " + mode);
+    }
 }
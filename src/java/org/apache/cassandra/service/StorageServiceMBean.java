@@ -94,4 +94,10 @@ public interface StorageServiceMBean
 
     /** set the logging level at runtime */
     public void setLog4jLevel(String classQualifier, String level);
+
+    /** @return how SSTable primary indexes are read: "standard" or "mmap" */
+    public String getIndexAccessMode();
+
+    /** switch SSTable primary index reads between "standard" and "mmap" at runtime */
+    public void setIndexAccessMode(String mode);
 }
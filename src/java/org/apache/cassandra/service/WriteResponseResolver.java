@@ -45,14 +45,17 @@ public class WriteResponseResolver implements IResponseResolver<Boolean> {
 		// if a write fails for a key log that the key could not be replicated
 		boolean returnValue = false;
 		for (Message response : responses) {
-            WriteResponse writeResponseMessage = null;
-            try
+            WriteResponse writeResponseMessage = (WriteResponse) response.getResponseObject();
+            if (writeResponseMessage == null)
             {
-                writeResponseMessage = WriteResponse.serializer().deserialize(new DataInputStream(new ByteArrayInputStream(response.getMessageBody())));
-            }
-            catch (IOException e)
-            {
-                throw new RuntimeException(e);
+                try
+                {
+                    writeResponseMessage = WriteResponse.serializer().deserialize(new DataInputStream(new ByteArrayInputStream(response.getMessageBody())));
+                }
+                catch (IOException e)
+                {
+                    throw new RuntimeException(e);
+                }
             }
             boolean result = writeResponseMessage.isSuccess();
             if (!result) {
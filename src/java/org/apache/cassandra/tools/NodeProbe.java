@@ -43,6 +43,7 @@ import org.apache.cassandra.concurrent.IExecutorMBean;
 import org.apache.cassandra.db.ColumnFamilyStoreMBean;
 import org.apache.cassandra.dht.Range;
 import org.apache.cassandra.net.EndPoint;
+import org.apache.cassandra.service.StorageProxyMBean;
 import org.apache.cassandra.service.StorageServiceMBean;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -59,6 +60,7 @@ public class NodeProbe
 {
     private static final String fmtUrl = "service:jmx:rmi:///jndi/rmi://%s:%d/jmxrmi";
     private static final String ssObjName = "org.apache.cassandra.service:type=StorageService";
+    private static final String spObjName = "org.apache.cassandra.service:type=StorageProxy";
     private static final String HOST_OPTION = "host";
     private static final String PORT_OPTION = "port";
     private static final int defaultPort = 8080;
@@ -69,6 +71,7 @@ public class NodeProbe
     
     private MBeanServerConnection mbeanServerConn;
     private StorageServiceMBean ssProxy;
+    private StorageProxyMBean spProxy;
     private MemoryMXBean memProxy;
     private RuntimeMXBean runtimeProxy;
     
@@ -155,6 +158,7 @@ public class NodeProbe
         {
             ObjectName name = new ObjectName(ssObjName);
             ssProxy = JMX.newMBeanProxy(mbeanServerConn, name, StorageServiceMBean.class);
+            spProxy = JMX.newMBeanProxy(mbeanServerConn, new ObjectName(spObjName), StorageProxyMBean.class);
         } catch (MalformedObjectNameException e)
         {
             throw new RuntimeException(
@@ -348,33 +352,23 @@ public class NodeProbe
             // print out the table statistics
             for (String tableName: cfstoreMap.keySet()) {
                 List <ColumnFamilyStoreMBean> columnFamilies = cfstoreMap.get(tableName);
-                int tableReadCount = 0;
-                int tableWriteCount = 0;
+                long tableReadCount = 0;
+                long tableWriteCount = 0;
                 int tablePendingTasks = 0;
-                double tableTotalReadTime = 0.0f;
-                double tableTotalWriteTime = 0.0f;
+                long tableTotalReadTime = 0;
+                long tableTotalWriteTime = 0;
                 
                 outs.println("Keyspace: " + tableName);
                 for (ColumnFamilyStoreMBean cfstore: columnFamilies) {
-                    int writeCount = cfstore.getWriteCount();
-                    int readCount = cfstore.getReadCount();
-                    
-                    tableReadCount += readCount;
-                    tableTotalReadTime += cfstore.getReadLatency() * readCount;
-                    tableWriteCount += writeCount;
-                    tableTotalWriteTime += cfstore.getWriteLatency() * writeCount;
+                    tableReadCount += cfstore.getReadCount();
+                    tableTotalReadTime += cfstore.getTotalReadLatencyMicros();
+                    tableWriteCount += cfstore.getWriteCount();
+                    tableTotalWriteTime += cfstore.getTotalWriteLatencyMicros();
                     tablePendingTasks += cfstore.getPendingTasks();
                 }
                 
-                double tableReadLatency = Double.NaN;
-                double tableWriteLatency = Double.NaN;
-                
-                if (tableReadCount > 0.0f) {
-                    tableReadLatency = tableTotalReadTime / tableReadCount;
-                }
-                if (tableWriteCount > 0.0f) {
-                    tableWriteLatency = tableTotalWriteTime / tableWriteCount;
-                }
+                double tableReadLatency = meanMillis(tableTotalReadTime, tableReadCount);
+                double tableWriteLatency = meanMillis(tableTotalWriteTime, tableWriteCount);
                 
                 outs.println("\tRead Count: " + tableReadCount);
                 outs.println("\tRead Latency: " + String.format("%01.3f", tableReadLatency) + " ms.");
@@ -388,9 +382,11 @@ public class NodeProbe
                     outs.println("\t\tMemtable Data Size: " + cfstore.getMemtableDataSize());
                     outs.println("\t\tMemtable Switch Count: " + cfstore.getMemtableSwitchCount());
                     outs.println("\t\tRead Count: " + cfstore.getReadCount());
-                    outs.println("\t\tRead Latency: " + String.format("%01.3f", cfstore.getReadLatency()) + " ms.");
+                    outs.println("\t\tRead Latency: " + String.format("%01.3f", meanMillis(cfstore.getTotalReadLatencyMicros(), cfstore.getReadCount())) + " ms.");
+                    outs.println("\t\tRead Latency Percentiles: " + formatPercentiles(cfstore.getReadLatencyPercentilesMicros()));
                     outs.println("\t\tWrite Count: " + cfstore.getWriteCount());
-                    outs.println("\t\tWrite Latency: " + String.format("%01.3f", cfstore.getWriteLatency()) + " ms.");
+                    outs.println("\t\tWrite Latency: " + String.format("%01.3f", meanMillis(cfstore.getTotalWriteLatencyMicros(), cfstore.getWriteCount())) + " ms.");
+                    outs.println("\t\tWrite Latency Percentiles: " + formatPercentiles(cfstore.getWriteLatencyPercentilesMicros()));
                     outs.println("\t\tPending Tasks: " + cfstore.getPendingTasks());
                     outs.println("");
                 }
@@ -404,6 +400,42 @@ public class NodeProbe
         
     }
 
+    private static double meanMillis(long totalMicros, long count)
+    {
+        return count == 0 ? Double.NaN : totalMicros / 1000.0 / count;
+    }
+
+    /** formats latency percentiles in microseconds as "p50 / p95 / p99 / p999" in milliseconds */
+    private static String formatPercentiles(double[] percentilesMicros)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (double micros : percentilesMicros)
+        {
+            if (sb.length() > 0)
+                sb.append(" / ");
+            sb.append(String.format("%01.3f", micros / 1000));
+        }
+        return sb.append(" ms (50th / 95th / 99th / 99.9th).").toString();
+    }
+
+    /**
+     * Print the number and latencies of the reads, range scans and writes this node has coordinated.
+     *
+     * @param outs the stream to write to
+     */
+    public void printProxyStats(PrintStream outs)
+    {
+        outs.println("Read Count: " + spProxy.getReadOperations());
+        outs.println("Read Latency: " + String.format("%01.3f", meanMillis(spProxy.getTotalReadLatencyMicros(), spProxy.getReadOperations())) + " ms.");
+        outs.println("Read Latency Percentiles: " + formatPercentiles(spProxy.getReadLatencyPercentilesMicros()));
+        outs.println("Range Count: " + spProxy.getRangeOperations());
+        outs.println("Range Latency: " + String.format("%01.3f", meanMillis(spProxy.getTotalRangeLatencyMicros(), spProxy.getRangeOperations())) + " ms.");
+        outs.println("Range Latency Percentiles: " + formatPercentiles(spProxy.getRangeLatencyPercentilesMicros()));
+        outs.println("Write Count: " + spProxy.getWriteOperations());
+        outs.println("Write Latency: " + String.format("%01.3f", meanMillis(spProxy.getTotalWriteLatencyMicros(), spProxy.getWriteOperations())) + " ms.");
+        outs.println("Write Latency Percentiles: " + formatPercentiles(spProxy.getWriteLatencyPercentilesMicros()));
+    }
+
     /**
      * Write a list of nodes with corresponding status.
      * 
@@ -526,7 +558,7 @@ public class NodeProbe
     {
         HelpFormatter hf = new HelpFormatter();
         String header = String.format(
-                "%nAvailable commands: ring, cluster, info, cleanup, compact, cfstats, snapshot [name], clearsnapshot, bootstrap, tpstats, flush_binary");
+                "%nAvailable commands: ring, cluster, info, cleanup, compact, cfstats, proxystats, snapshot [name], clearsnapshot, bootstrap, tpstats, flush_binary");
         String usage = String.format("java %s -host <arg> <command>%n", NodeProbe.class.getName());
         hf.printHelp(usage, "", options, header);
     }
@@ -588,6 +620,10 @@ public class NodeProbe
         {
             probe.printColumnFamilyStats(System.out);
         }
+        else if (cmdName.equals("proxystats"))
+        {
+            probe.printProxyStats(System.out);
+        }
         else if (cmdName.equals("snapshot"))
         {
             String snapshotName = "";
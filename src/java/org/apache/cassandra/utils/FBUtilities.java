@@ -22,6 +22,7 @@ import java.io.*;
 import java.math.BigInteger;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
@@ -412,4 +413,73 @@ public class FBUtilities
         }
         return new String(chars);
     }
+
+    /**
+     * Compare the modified UTF-8 bytes written by DataOutput.writeUTF (without the length prefix) found at
+     * buffer[offset, offset + length) with str, starting at strOffset, in String.compareTo order.
+     * Characters are decoded one at a time so nothing is allocated.
+     */
+    public static int compareUTF(ByteBuffer buffer, int offset, int length, String str, int strOffset)
+    {
+        int end = offset + length;
+        int i = offset;
+        int j = strOffset;
+        while (i < end && j < str.length())
+        {
+            int b = buffer.get(i) & 0xFF;
+            char c;
+            if (b < 0x80)
+            {
+                c = (char)b;
+                i += 1;
+            }
+            else if ((b & 0xE0) == 0xC0)
+            {
+                c = (char)(((b & 0x1F) << 6) | (buffer.get(i + 1) & 0x3F));
+                i += 2;
+            }
+            else
+            {
+                c = (char)(((b & 0x0F) << 12) | ((buffer.get(i + 1) & 0x3F) << 6) | (buffer.get(i + 2) & 0x3F));
+                i += 3;
+            }
+            char other = str.charAt(j++);
+            if (c != other)
+                return c - other;
+        }
+        if (i < end)
+            return 1;
+        return j < str.length() ? -1 : 0;
+    }
+
+    /**
+     * Decode the modified UTF-8 bytes written by DataOutput.writeUTF (without the length prefix)
+     * found at buffer[offset, offset + length).
+     */
+    public static String decodeUTF(ByteBuffer buffer, int offset, int length)
+    {
+        char[] chars = new char[length];
+        int end = offset + length;
+        int count = 0;
+        for (int i = offset; i < end; count++)
+        {
+            int b = buffer.get(i) & 0xFF;
+            if (b < 0x80)
+            {
+                chars[count] = (char)b;
+                i += 1;
+            }
+            else if ((b & 0xE0) == 0xC0)
+            {
+                chars[count] = (char)(((b & 0x1F) << 6) | (buffer.get(i + 1) & 0x3F));
+                i += 2;
+            }
+            else
+            {
+                chars[count] = (char)(((b & 0x0F) << 12) | ((buffer.get(i + 1) & 0x3F) << 6) | (buffer.get(i + 2) & 0x3F));
+                i += 3;
+            }
+        }
+        return new String(chars, 0, count);
+    }
 }
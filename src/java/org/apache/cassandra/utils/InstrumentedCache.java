@@ -0,0 +1,151 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size-bounded map that evicts the least recently used entry when full,
+ * and keeps count of lookups and hits so the hit rate can be monitored.
+ *
+ * All operations synchronize on the cache; values are compared by identity in
+ * the conditional operations, which is what callers using placeholder values want.
+ */
+public class InstrumentedCache<K, V>
+{
+    private final LinkedHashMap<K, V> map;
+    private volatile int capacity;
+
+    private long requests;
+    private long hits;
+    private long lastRequests;
+    private long lastHits;
+
+    public InstrumentedCache(int capacity)
+    {
+        this.capacity = capacity;
+        map = new LinkedHashMap<K, V>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest)
+            {
+                return size() > InstrumentedCache.this.capacity;
+            }
+        };
+    }
+
+    public synchronized V get(K key)
+    {
+        requests++;
+        V value = map.get(key);
+        if (value != null)
+            hits++;
+        return value;
+    }
+
+    public synchronized void put(K key, V value)
+    {
+        if (capacity > 0)
+            map.put(key, value);
+    }
+
+    /** @return the value already mapped to key, or null if value was added */
+    public synchronized V putIfAbsent(K key, V value)
+    {
+        V existing = map.get(key);
+        if (existing == null && capacity > 0)
+            map.put(key, value);
+        return existing;
+    }
+
+    /** replaces the value of key with newValue, if it is currently mapped to oldValue */
+    public synchronized boolean replace(K key, V oldValue, V newValue)
+    {
+        if (map.get(key) != oldValue)
+            return false;
+        map.put(key, newValue);
+        return true;
+    }
+
+    public synchronized void remove(K key)
+    {
+        map.remove(key);
+    }
+
+    /** removes key, if it is currently mapped to value */
+    public synchronized boolean remove(K key, V value)
+    {
+        if (map.get(key) != value)
+            return false;
+        map.remove(key);
+        return true;
+    }
+
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    public synchronized void setCapacity(int capacity)
+    {
+        this.capacity = capacity;
+        // removeEldestEntry only trims one entry per put, so shrink explicitly
+        Iterator<K> iter = map.keySet().iterator();
+        while (map.size() > capacity)
+        {
+            iter.next();
+            iter.remove();
+        }
+    }
+
+    public synchronized int getSize()
+    {
+        return map.size();
+    }
+
+    public synchronized long getRequests()
+    {
+        return requests;
+    }
+
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * @return the fraction of lookups that were hits since the last call to this method,
+     * or NaN if there were none
+     */
+    public synchronized double getRecentHitRate()
+    {
+        long r = requests - lastRequests;
+        long h = hits - lastHits;
+        lastRequests = requests;
+        lastHits = hits;
+        return r == 0 ? Double.NaN : ((double) h) / r;
+    }
+
+    public synchronized void clear()
+    {
+        map.clear();
+    }
+}
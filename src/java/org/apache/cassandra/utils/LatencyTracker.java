@@ -0,0 +1,169 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts operations and their latencies in a fixed set of microsecond buckets, each about
+ * 20% wider than the one before, so that percentiles can be estimated to within a bucket.
+ *
+ * Recording an operation takes no lock and allocates nothing: the counters are striped by
+ * thread, so threads on different processors rarely update the same cache line.  Reads add
+ * the stripes up, and may miss operations recorded while they run.
+ */
+public class LatencyTracker
+{
+    /** the percentiles reported by getPercentilesMicros */
+    public static final double[] PERCENTILES = { 0.5, 0.95, 0.99, 0.999 };
+
+    /* the inclusive upper bound of each bucket but the last, which holds everything larger */
+    private static final long[] bucketOffsets;
+    static
+    {
+        List<Long> offsets = new ArrayList<Long>();
+        long offset = 1;
+        while (offset < 3600L * 1000 * 1000) // an hour
+        {
+            offsets.add(offset);
+            offset = Math.max(offset + 1, Math.round(offset * 1.2));
+        }
+        bucketOffsets = new long[offsets.size()];
+        for (int i = 0; i < bucketOffsets.length; i++)
+            bucketOffsets[i] = offsets.get(i);
+    }
+
+    private static final int BUCKETS = bucketOffsets.length + 1;
+    private static final int TOTAL = BUCKETS; // index of a stripe's total latency
+    private static final int STRIDE = BUCKETS + 8; // the padding keeps stripes off each other's cache lines
+    private static final int STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) * 2;
+
+    private final AtomicLongArray counters = new AtomicLongArray(STRIPES * STRIDE);
+
+    private long lastCount;
+    private long lastTotal;
+    private long[] lastBuckets = new long[BUCKETS];
+
+    public void addNano(long nanos)
+    {
+        addMicros(nanos / 1000);
+    }
+
+    public void addMicros(long micros)
+    {
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        int base = stripe * STRIDE;
+        counters.incrementAndGet(base + bucketFor(micros));
+        counters.addAndGet(base + TOTAL, micros);
+    }
+
+    private static int bucketFor(long micros)
+    {
+        int index = Arrays.binarySearch(bucketOffsets, micros);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    /** @return the number of operations recorded in each bucket */
+    private long[] getBuckets()
+    {
+        long[] buckets = new long[BUCKETS];
+        for (int stripe = 0; stripe < STRIPES; stripe++)
+        {
+            for (int i = 0; i < BUCKETS; i++)
+                buckets[i] += counters.get(stripe * STRIDE + i);
+        }
+        return buckets;
+    }
+
+    public long getOpCount()
+    {
+        long count = 0;
+        for (long n : getBuckets())
+            count += n;
+        return count;
+    }
+
+    public long getTotalLatencyMicros()
+    {
+        long total = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++)
+            total += counters.get(stripe * STRIDE + TOTAL);
+        return total;
+    }
+
+    /** @return the mean latency of the operations recorded since the last call, or NaN if there were none */
+    public synchronized double getRecentLatencyMicros()
+    {
+        long total = getTotalLatencyMicros();
+        long count = getOpCount();
+        long recentCount = count - lastCount;
+        long recentTotal = total - lastTotal;
+        lastCount = count;
+        lastTotal = total;
+        return recentCount == 0 ? Double.NaN : ((double) recentTotal) / recentCount;
+    }
+
+    /** @return the PERCENTILES of all the latencies recorded, each the upper bound of a bucket */
+    public double[] getPercentilesMicros()
+    {
+        return percentiles(getBuckets());
+    }
+
+    /** @return the PERCENTILES of the latencies recorded since the last call, each the upper bound of a bucket */
+    public synchronized double[] getRecentPercentilesMicros()
+    {
+        long[] buckets = getBuckets();
+        long[] recent = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++)
+            recent[i] = buckets[i] - lastBuckets[i];
+        lastBuckets = buckets;
+        return percentiles(recent);
+    }
+
+    /**
+     * @return the upper bound of the bucket holding each of PERCENTILES, NaN if there are no operations,
+     * or infinity for a percentile in the last bucket
+     */
+    static double[] percentiles(long[] buckets)
+    {
+        long count = 0;
+        for (long n : buckets)
+            count += n;
+
+        double[] values = new double[PERCENTILES.length];
+        for (int p = 0; p < PERCENTILES.length; p++)
+        {
+            if (count == 0)
+            {
+                values[p] = Double.NaN;
+                continue;
+            }
+            long rank = (long) Math.ceil(PERCENTILES[p] * count);
+            long seen = 0;
+            int i = 0;
+            while ((seen += buckets[i]) < rank)
+                i++;
+            values[p] = i < bucketOffsets.length ? bucketOffsets[i] : Double.POSITIVE_INFINITY;
+        }
+        return values;
+    }
+}
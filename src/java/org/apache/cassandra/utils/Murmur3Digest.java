@@ -0,0 +1,206 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.utils;
+
+/**
+ * MurmurHash3 x64 128, fed incrementally: the result is the hash of everything passed to
+ * the update methods since the last digest(), as if it had been one byte array.
+ * Unlike a MessageDigest it keeps no buffer; a partial block is held in two longs,
+ * so updating allocates nothing.  This is a fast check that two replicas hold the
+ * same data, not a cryptographic hash.
+ */
+public class Murmur3Digest
+{
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private long h1;
+    private long h2;
+    /* the bytes of the current, incomplete block, little-endian */
+    private long k1;
+    private long k2;
+    private int buffered;
+    private long length;
+
+    public void updateByte(int b)
+    {
+        append(b & 0xFFL, 1);
+    }
+
+    /** feeds the four bytes of n, high byte first */
+    public void updateInt(int n)
+    {
+        append(Integer.reverseBytes(n) & 0xFFFFFFFFL, 4);
+    }
+
+    /** feeds the eight bytes of n, high byte first */
+    public void updateLong(long n)
+    {
+        append(Long.reverseBytes(n), 8);
+    }
+
+    public void update(byte[] bytes)
+    {
+        update(bytes, 0, bytes.length);
+    }
+
+    public void update(byte[] bytes, int offset, int count)
+    {
+        int end = offset + count;
+        while (end - offset >= 8)
+        {
+            if (buffered == 0 && end - offset >= 16)
+            {
+                mix(getLong(bytes, offset), getLong(bytes, offset + 8));
+                length += 16;
+                offset += 16;
+            }
+            else
+            {
+                append(getLong(bytes, offset), 8);
+                offset += 8;
+            }
+        }
+        while (offset < end)
+        {
+            append(bytes[offset++] & 0xFFL, 1);
+        }
+    }
+
+    /**
+     * adds n bytes, held little-endian in the low bytes of v, to the current block,
+     * mixing the block in if it fills
+     */
+    private void append(long v, int n)
+    {
+        int b = buffered;
+        if (b < 8)
+        {
+            k1 |= v << (b << 3);
+            if (b + n > 8)
+                k2 = v >>> ((8 - b) << 3);
+            b += n;
+        }
+        else
+        {
+            int shift = (b - 8) << 3;
+            k2 |= v << shift;
+            b += n;
+            if (b >= 16)
+            {
+                mix(k1, k2);
+                // the bytes that did not fit start the next block
+                k1 = b > 16 ? v >>> (64 - shift) : 0;
+                k2 = 0;
+                b -= 16;
+            }
+        }
+        buffered = b;
+        length += n;
+    }
+
+    /** @return the 16 byte hash, after which the digest is reset for reuse */
+    public byte[] digest()
+    {
+        if (buffered > 8)
+        {
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+        }
+        if (buffered > 0)
+        {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+
+        byte[] result = new byte[16];
+        putLong(result, 0, h1);
+        putLong(result, 8, h2);
+        reset();
+        return result;
+    }
+
+    public void reset()
+    {
+        h1 = h2 = k1 = k2 = length = 0;
+        buffered = 0;
+    }
+
+    private void mix(long k1, long k2)
+    {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        h1 ^= k1;
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        h2 ^= k2;
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private static long fmix(long k)
+    {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static long getLong(byte[] bytes, int offset)
+    {
+        return (bytes[offset] & 0xFFL)
+               | (bytes[offset + 1] & 0xFFL) << 8
+               | (bytes[offset + 2] & 0xFFL) << 16
+               | (bytes[offset + 3] & 0xFFL) << 24
+               | (bytes[offset + 4] & 0xFFL) << 32
+               | (bytes[offset + 5] & 0xFFL) << 40
+               | (bytes[offset + 6] & 0xFFL) << 48
+               | (bytes[offset + 7] & 0xFFL) << 56;
+    }
+
+    private static void putLong(byte[] bytes, int offset, long n)
+    {
+        for (int i = 0; i < 8; i++)
+        {
+            bytes[offset + i] = (byte) (n >>> (i << 3));
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.utils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+import org.apache.cassandra.io.ICompactSerializer;
+
+/**
+ * A bloom filter over an open long[] of bits, for the per-sstable key filters that are
+ * probed on every read.  Unlike BloomFilter, a probe allocates nothing: String keys are
+ * hashed directly from their chars, and each bucket is tested as it is computed.
+ *
+ * The serialized form is [int MAGIC][int hash count][int word count][words], so that the
+ * words can be loaded in bulk, and so that it can be told apart from a serialized
+ * BloomFilter, which starts with its (small) hash count.
+ */
+public class OpenBloomFilter extends Filter
+{
+    public static final int MAGIC = 0xB100F17E;
+
+    static ICompactSerializer<OpenBloomFilter> serializer_ = new OpenBloomFilterSerializer();
+
+    public static ICompactSerializer<OpenBloomFilter> serializer()
+    {
+        return serializer_;
+    }
+
+    private static final MurmurHash hasher = new MurmurHash();
+
+    private final long[] words;
+    private final long bits;
+
+    public OpenBloomFilter(int numElements, int bucketsPerElement)
+    {
+        this(BloomCalculations.computeBestK(bucketsPerElement), new long[wordsFor((long) numElements * bucketsPerElement + 20)]);
+    }
+
+    OpenBloomFilter(int hashes, long[] words)
+    {
+        hashCount = hashes;
+        this.words = words;
+        bits = (long) words.length * 64;
+    }
+
+    private static int wordsFor(long bits)
+    {
+        long words = (bits + 63) >>> 6;
+        if (words > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("bloom filter of " + bits + " bits is too large");
+        return (int) words;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(words, 0);
+    }
+
+    int buckets()
+    {
+        // only used by the generic Filter code, which works on int buckets
+        return (int) Math.min(bits, Integer.MAX_VALUE);
+    }
+
+    long[] words()
+    {
+        return words;
+    }
+
+    /**
+     * The i-th bucket for a key with hashes hash1 and hash2, following the same combinatorial
+     * scheme as Filter.getHashBuckets, but in long arithmetic so it covers more than 2^31 bits.
+     */
+    private long bucket(int hash1, int hash2, int i)
+    {
+        return ((hash1 + (long) i * hash2) & Long.MAX_VALUE) % bits;
+    }
+
+    private boolean get(long bucket)
+    {
+        return (words[(int) (bucket >>> 6)] & (1L << bucket)) != 0;
+    }
+
+    private void set(long bucket)
+    {
+        words[(int) (bucket >>> 6)] |= 1L << bucket;
+    }
+
+    public boolean isPresent(String key)
+    {
+        int hash1 = hash(key, 0);
+        int hash2 = hash(key, hash1);
+        for (int i = 0; i < hashCount; i++)
+        {
+            if (!get(bucket(hash1, hash2, i)))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isPresent(byte[] key)
+    {
+        int hash1 = hasher.hash(key, key.length, 0);
+        int hash2 = hasher.hash(key, key.length, hash1);
+        for (int i = 0; i < hashCount; i++)
+        {
+            if (!get(bucket(hash1, hash2, i)))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void add(String key)
+    {
+        int hash1 = hash(key, 0);
+        int hash2 = hash(key, hash1);
+        for (int i = 0; i < hashCount; i++)
+        {
+            set(bucket(hash1, hash2, i));
+        }
+    }
+
+    public void add(byte[] key)
+    {
+        int hash1 = hasher.hash(key, key.length, 0);
+        int hash2 = hasher.hash(key, key.length, hash1);
+        for (int i = 0; i < hashCount; i++)
+        {
+            set(bucket(hash1, hash2, i));
+        }
+    }
+
+    /**
+     * MurmurHash 2.0 of the UTF-16LE encoding of key, computed from its chars two at a time
+     * instead of from an encoded copy.
+     */
+    static int hash(String key, int seed)
+    {
+        int m = 0x5bd1e995;
+        int r = 24;
+        int length = key.length();
+        int h = seed ^ (length * 2);
+
+        int pairs = length >> 1;
+        for (int i = 0; i < pairs; i++)
+        {
+            int k = key.charAt(2 * i) | (key.charAt(2 * i + 1) << 16);
+            k *= m;
+            k ^= k >>> r;
+            k *= m;
+            h *= m;
+            h ^= k;
+        }
+
+        if ((length & 1) != 0)
+        {
+            char c = key.charAt(length - 1);
+            h ^= (byte) c << 8;
+            h ^= (byte) (c >>> 8);
+            h *= m;
+        }
+
+        h ^= h >>> 13;
+        h *= m;
+        h ^= h >>> 15;
+        return h;
+    }
+
+    int emptyBuckets()
+    {
+        int n = 0;
+        for (long word : words)
+        {
+            n += 64 - Long.bitCount(word);
+        }
+        return n;
+    }
+
+    /**
+     * Reads a filter serialized by OpenBloomFilterSerializer, copying the words in bulk.
+     * @return the filter, or null if buffer does not start with MAGIC
+     */
+    public static OpenBloomFilter deserialize(ByteBuffer buffer) throws IOException
+    {
+        if (buffer.remaining() < 12 || buffer.getInt(buffer.position()) != MAGIC)
+        {
+            return null;
+        }
+        buffer.getInt();
+        int hashes = buffer.getInt();
+        int wordCount = buffer.getInt();
+        if (wordCount < 0 || buffer.remaining() < (long) wordCount * 8)
+        {
+            throw new IOException("Truncated bloom filter: " + wordCount + " words expected, " + buffer.remaining() + " bytes left");
+        }
+        long[] words = new long[wordCount];
+        buffer.asLongBuffer().get(words);
+        buffer.position(buffer.position() + wordCount * 8);
+        return new OpenBloomFilter(hashes, words);
+    }
+}
+
+class OpenBloomFilterSerializer implements ICompactSerializer<OpenBloomFilter>
+{
+    private static final int WORDS_PER_COPY = 8 * 1024;
+
+    public void serialize(OpenBloomFilter bf, DataOutputStream dos) throws IOException
+    {
+        long[] words = bf.words();
+        dos.writeInt(OpenBloomFilter.MAGIC);
+        dos.writeInt(bf.getHashCount());
+        dos.writeInt(words.length);
+
+        ByteBuffer buffer = ByteBuffer.allocate(Math.min(words.length, WORDS_PER_COPY) * 8);
+        LongBuffer longs = buffer.asLongBuffer();
+        for (int i = 0; i < words.length; i += WORDS_PER_COPY)
+        {
+            int n = Math.min(WORDS_PER_COPY, words.length - i);
+            longs.clear();
+            longs.put(words, i, n);
+            dos.write(buffer.array(), 0, n * 8);
+        }
+    }
+
+    public OpenBloomFilter deserialize(DataInputStream dis) throws IOException
+    {
+        if (dis.readInt() != OpenBloomFilter.MAGIC)
+        {
+            throw new IOException("Not a serialized OpenBloomFilter");
+        }
+        int hashes = dis.readInt();
+        long[] words = new long[dis.readInt()];
+
+        ByteBuffer buffer = ByteBuffer.allocate(Math.min(words.length, WORDS_PER_COPY) * 8);
+        LongBuffer longs = buffer.asLongBuffer();
+        for (int i = 0; i < words.length; i += WORDS_PER_COPY)
+        {
+            int n = Math.min(WORDS_PER_COPY, words.length - i);
+            dis.readFully(buffer.array(), 0, n * 8);
+            longs.clear();
+            longs.get(words, i, n);
+        }
+        return new OpenBloomFilter(hashes, words);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Like InstrumentedCache, but bounded by the total weight of its values, such as their
+ * approximate size in bytes, rather than by their number.  Callers give each value's weight
+ * when they put it; the least recently used entries are evicted until the total fits.
+ */
+public class WeightedInstrumentedCache<K, V>
+{
+    private final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true);
+    private volatile long capacity;
+    private long weight;
+
+    private long requests;
+    private long hits;
+
+    public WeightedInstrumentedCache(long capacity)
+    {
+        this.capacity = capacity;
+    }
+
+    public synchronized V get(K key)
+    {
+        requests++;
+        Entry<V> entry = map.get(key);
+        if (entry == null)
+            return null;
+        hits++;
+        return entry.value;
+    }
+
+    /** a value heavier than the whole capacity is not cached */
+    public synchronized void put(K key, V value, long valueWeight)
+    {
+        if (valueWeight > capacity)
+            return;
+        Entry<V> previous = map.put(key, new Entry<V>(value, valueWeight));
+        if (previous != null)
+            weight -= previous.weight;
+        weight += valueWeight;
+        evict();
+    }
+
+    private void evict()
+    {
+        Iterator<Entry<V>> iter = map.values().iterator();
+        while (weight > capacity)
+        {
+            weight -= iter.next().weight;
+            iter.remove();
+        }
+    }
+
+    public long getCapacity()
+    {
+        return capacity;
+    }
+
+    public synchronized void setCapacity(long capacity)
+    {
+        this.capacity = capacity;
+        evict();
+    }
+
+    public synchronized int getSize()
+    {
+        return map.size();
+    }
+
+    /** @return the total weight of the cached values */
+    public synchronized long getWeight()
+    {
+        return weight;
+    }
+
+    public synchronized long getRequests()
+    {
+        return requests;
+    }
+
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    public synchronized void clear()
+    {
+        map.clear();
+        weight = 0;
+    }
+
+    private static class Entry<V>
+    {
+        final V value;
+        final long weight;
+
+        Entry(V value, long weight)
+        {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
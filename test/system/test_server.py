@@ -484,6 +484,44 @@ class TestMutations(CassandraTester):
         L = client.get_key_range('Keyspace1', 'Standard1', '1', '', 10, ConsistencyLevel.ONE)
         assert L == ['1', '10', '11', '12', '13', '14', '15', '16', '17', '18'], L
 
+    def test_range_slice(self):
+        for key in ['-a', '-b', 'a', 'b'] + [str(i) for i in xrange(100)]:
+            client.insert('Keyspace1', key, ColumnPath('Standard1', column='c1'), 'v1', 0, ConsistencyLevel.ONE)
+            client.insert('Keyspace1', key, ColumnPath('Standard1', column='c2'), 'v2', 0, ConsistencyLevel.ONE)
+
+        p = SlicePredicate(slice_range=SliceRange('', '', True, 1))
+        L = client.get_range_slice('Keyspace1', ColumnParent('Standard1'), p, 'a', '', 1000, ConsistencyLevel.ONE)
+        assert [ks.key for ks in L] == ['a', '-a', 'b', '-b'], L
+        assert [ks.columns for ks in L] == [[ColumnOrSuperColumn(column=Column('c2', 'v2', 0))]] * 4, L
+
+        p = SlicePredicate(column_names=['c1'])
+        L = client.get_range_slice('Keyspace1', ColumnParent('Standard1'), p, '1', '', 10, ConsistencyLevel.ONE)
+        assert [ks.key for ks in L] == ['1', '10', '11', '12', '13', '14', '15', '16', '17', '18'], L
+        assert L[0].columns == [ColumnOrSuperColumn(column=Column('c1', 'v1', 0))], L
+
+        # paging: each page starts with the last key of the previous one
+        L = client.get_range_slice('Keyspace1', ColumnParent('Standard1'), p, '18', '21', 3, ConsistencyLevel.ONE)
+        assert [ks.key for ks in L] == ['18', '19', '2'], L
+        L = client.get_range_slice('Keyspace1', ColumnParent('Standard1'), p, '2', '21', 3, ConsistencyLevel.ONE)
+        assert [ks.key for ks in L] == ['2', '20', '21'], L
+
+        _expect_exception(lambda: client.get_range_slice('Keyspace1', ColumnParent('Standard1'), p, '', '', 0, ConsistencyLevel.ONE), InvalidRequestException)
+        _expect_exception(lambda: client.get_range_slice('Keyspace1', ColumnParent('Standard1'), p, '', '', 10, ConsistencyLevel.ZERO), InvalidRequestException)
+        _expect_exception(lambda: client.get_range_slice('Keyspace1', ColumnParent('Standard1'), p, '', '', 10, ConsistencyLevel.ALL), InvalidRequestException)
+
+    def test_range_slice_with_remove(self):
+        _insert_simple()
+        _insert_super()
+        p = SlicePredicate(slice_range=SliceRange('', '', False, 1000))
+        L = client.get_range_slice('Keyspace1', ColumnParent('Super1'), p, 'key1', 'key1', 1000, ConsistencyLevel.ONE)
+        assert [ks.columns for ks in L] == [[ColumnOrSuperColumn(super_column=sc) for sc in _SUPER_COLUMNS]], L
+        L = client.get_range_slice('Keyspace1', ColumnParent('Super1', 'sc2'), p, 'key1', 'key1', 1000, ConsistencyLevel.ONE)
+        assert [ks.columns for ks in L] == [[ColumnOrSuperColumn(column=c) for c in _SUPER_COLUMNS[1].columns]], L
+
+        client.remove('Keyspace1', 'key1', ColumnPath('Standard1'), 1, ConsistencyLevel.ONE)
+        L = client.get_range_slice('Keyspace1', ColumnParent('Standard1'), p, '', '', 1000, ConsistencyLevel.ONE)
+        assert L == [], L
+
     def test_get_slice_range(self):
 	_insert_range()
 	_verify_range()
@@ -0,0 +1,101 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.db;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import org.apache.cassandra.CleanupHelper;
+import org.apache.cassandra.db.filter.IdentityQueryFilter;
+import org.apache.cassandra.db.filter.NamesQueryFilter;
+import org.apache.cassandra.db.filter.QueryPath;
+
+public class CacheTest extends CleanupHelper
+{
+    @Test
+    public void testRowAndKeyCaches() throws IOException, ExecutionException, InterruptedException
+    {
+        Table table = Table.open("Keyspace1");
+        ColumnFamilyStore store = table.getColumnFamilyStore("Standard1");
+        RowMutation rm;
+
+        rm = new RowMutation("Keyspace1", "cachedkey");
+        rm.add(new QueryPath("Standard1", null, "Column1".getBytes()), "asdf".getBytes(), 0);
+        rm.apply();
+        store.forceBlockingFlush();
+
+        // the first read populates both caches; the second is answered from the row cache
+        store.getRecentRowCacheHitRate();
+        ColumnFamily cf = store.getColumnFamily(new IdentityQueryFilter("cachedkey", new QueryPath("Standard1")));
+        assert cf.getColumn("Column1".getBytes()) != null;
+        assert store.getRowCacheSize() > 0;
+        assert store.getKeyCacheSize() > 0;
+        cf = store.getColumnFamily(new IdentityQueryFilter("cachedkey", new QueryPath("Standard1")));
+        assert cf.getColumn("Column1".getBytes()) != null;
+        assertEquals(0.5, store.getRecentRowCacheHitRate());
+
+        // a write invalidates the cached row
+        rm = new RowMutation("Keyspace1", "cachedkey");
+        rm.add(new QueryPath("Standard1", null, "Column2".getBytes()), "asdf".getBytes(), 0);
+        rm.apply();
+        cf = store.getColumnFamily(new IdentityQueryFilter("cachedkey", new QueryPath("Standard1")));
+        assert cf.getColumn("Column1".getBytes()) != null;
+        assert cf.getColumn("Column2".getBytes()) != null;
+
+        store.setRowCacheCapacity(0);
+        assertEquals(0, store.getRowCacheSize());
+        store.setRowCacheCapacity(1000);
+    }
+
+    @Test
+    public void testColumnIndexCache() throws IOException, ExecutionException, InterruptedException
+    {
+        Table table = Table.open("Keyspace1");
+        ColumnFamilyStore store = table.getColumnFamilyStore("Standard2");
+
+        // a row wide enough to have several column index blocks
+        RowMutation rm = new RowMutation("Keyspace1", "widekey");
+        for (int i = 0; i < 100; i++)
+        {
+            rm.add(new QueryPath("Standard2", null, String.format("Column%03d", i).getBytes()), new byte[100], 0);
+        }
+        rm.apply();
+        store.forceBlockingFlush();
+
+        // the slice reads the row's index from disk; the names read finds it cached
+        store.getRecentColumnIndexCacheHitRate();
+        ColumnFamily cf = store.getColumnFamily("widekey", new QueryPath("Standard2"), "Column050".getBytes(), new byte[0], false, 5);
+        assertEquals(5, cf.getSortedColumns().size());
+        assert cf.getColumn("Column050".getBytes()) != null;
+        cf = store.getColumnFamily(new NamesQueryFilter("widekey", new QueryPath("Standard2"), "Column007".getBytes()));
+        assert cf.getColumn("Column007".getBytes()) != null;
+        assertEquals(0.5, store.getRecentColumnIndexCacheHitRate());
+
+        // with no capacity, nothing is cached or looked up
+        store.setColumnIndexCacheCapacityInKB(0);
+        assertEquals(0L, store.getColumnIndexCacheSizeInKB());
+        cf = store.getColumnFamily("widekey", new QueryPath("Standard2"), new byte[0], new byte[0], true, 5);
+        assert cf.getColumn("Column099".getBytes()) != null;
+        assert Double.isNaN(store.getRecentColumnIndexCacheHitRate());
+        store.setColumnIndexCacheCapacityInKB(1024);
+    }
+}
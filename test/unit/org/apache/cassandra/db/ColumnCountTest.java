@@ -0,0 +1,121 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.db;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import org.apache.cassandra.CleanupHelper;
+import org.apache.cassandra.db.filter.CountQueryFilter;
+import org.apache.cassandra.db.filter.QueryPath;
+import static org.apache.cassandra.Util.addMutation;
+import static org.apache.cassandra.Util.getBytes;
+
+public class ColumnCountTest extends CleanupHelper
+{
+    @Test
+    public void testCountMerged() throws IOException, ExecutionException, InterruptedException
+    {
+        // Standard2 has no row cache, so the count merges the memtable and sstables
+        testCount("Standard2");
+    }
+
+    @Test
+    public void testCountCached() throws IOException, ExecutionException, InterruptedException
+    {
+        testCount("Standard1");
+    }
+
+    private void testCount(String columnFamily) throws IOException, ExecutionException, InterruptedException
+    {
+        Table table = Table.open("Keyspace1");
+        ColumnFamilyStore store = table.getColumnFamilyStore(columnFamily);
+        RowMutation rm;
+
+        rm = new RowMutation("Keyspace1", "key1");
+        for (int i = 0; i < 5; i++)
+            rm.add(new QueryPath(columnFamily, null, ("Column" + i).getBytes()), "asdf".getBytes(), 0);
+        rm.apply();
+        store.forceBlockingFlush();
+        assertEquals(5, count(store, "key1"));
+
+        // an overwrite counts once; a new column and a deletion in the memtable count against the sstable
+        rm = new RowMutation("Keyspace1", "key1");
+        rm.add(new QueryPath(columnFamily, null, "Column0".getBytes()), "asdf".getBytes(), 1);
+        rm.add(new QueryPath(columnFamily, null, "Column5".getBytes()), "asdf".getBytes(), 1);
+        rm.apply();
+        rm = new RowMutation("Keyspace1", "key1");
+        rm.delete(new QueryPath(columnFamily, null, "Column1".getBytes()), 1);
+        rm.apply();
+        assertEquals(5, count(store, "key1"));
+        store.forceBlockingFlush();
+        assertEquals(5, count(store, "key1"));
+
+        // a row tombstone hides only the columns it is newer than
+        rm = new RowMutation("Keyspace1", "key1");
+        rm.delete(new QueryPath(columnFamily), 1);
+        rm.apply();
+        assertEquals(0, count(store, "key1"));
+        rm = new RowMutation("Keyspace1", "key1");
+        rm.add(new QueryPath(columnFamily, null, "Column2".getBytes()), "asdf".getBytes(), 2);
+        rm.apply();
+        assertEquals(1, count(store, "key1"));
+
+        assertEquals(0, count(store, "key2"));
+    }
+
+    @Test
+    public void testCountSuperColumns() throws IOException, ExecutionException, InterruptedException
+    {
+        Table table = Table.open("Keyspace1");
+        ColumnFamilyStore store = table.getColumnFamilyStore("Super1");
+        RowMutation rm;
+
+        rm = new RowMutation("Keyspace1", "key1");
+        addMutation(rm, "Super1", "SC1", 1, "asdf", 0);
+        addMutation(rm, "Super1", "SC1", 2, "asdf", 0);
+        addMutation(rm, "Super1", "SC2", 1, "asdf", 0);
+        rm.apply();
+        store.forceBlockingFlush();
+
+        // SC2 has no live subcolumns left, so it does not count
+        rm = new RowMutation("Keyspace1", "key1");
+        rm.delete(new QueryPath("Super1", "SC1".getBytes(), getBytes(2)), 1);
+        rm.apply();
+        rm = new RowMutation("Keyspace1", "key1");
+        rm.delete(new QueryPath("Super1", "SC2".getBytes(), getBytes(1)), 1);
+        rm.apply();
+        rm = new RowMutation("Keyspace1", "key1");
+        addMutation(rm, "Super1", "SC1", 3, "asdf", 1);
+        rm.apply();
+
+        assertEquals(1, count(store, "key1"));
+        assertEquals(2, store.getLiveColumnCount(new CountQueryFilter("key1", new QueryPath("Super1", "SC1".getBytes())), Integer.MAX_VALUE));
+        assertEquals(0, store.getLiveColumnCount(new CountQueryFilter("key1", new QueryPath("Super1", "SC2".getBytes())), Integer.MAX_VALUE));
+        assertEquals(0, store.getLiveColumnCount(new CountQueryFilter("key1", new QueryPath("Super1", "SC3".getBytes())), Integer.MAX_VALUE));
+    }
+
+    private static int count(ColumnFamilyStore store, String key) throws IOException
+    {
+        return store.getLiveColumnCount(new CountQueryFilter(key, new QueryPath(store.getColumnFamilyName())), ColumnFamilyStore.getDefaultGCBefore());
+    }
+}
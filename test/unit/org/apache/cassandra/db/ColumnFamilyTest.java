@@ -19,13 +19,19 @@
 package org.apache.cassandra.db;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
 import java.util.TreeMap;
 
 import org.junit.Test;
 
+import org.apache.cassandra.Util;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.marshal.LongType;
 import org.apache.cassandra.io.DataInputBuffer;
 import org.apache.cassandra.io.DataOutputBuffer;
 import org.apache.cassandra.db.filter.QueryPath;
@@ -53,6 +59,49 @@ public class ColumnFamilyTest
         assert cf.getSortedColumns().size() == 1;
     }
 
+    @Test
+    public void testSerializeById() throws IOException
+    {
+        ColumnFamily cf = ColumnFamily.create("Keyspace2", "Super3");
+        cf.addColumn(new QueryPath("Super3", "sc".getBytes(), Util.getBytes(1L)), "v".getBytes(), 1);
+        DataOutputBuffer byName = new DataOutputBuffer();
+        ColumnFamily.serializer().serialize(cf, byName);
+        DataOutputBuffer byId = new DataOutputBuffer();
+        ColumnFamily.serializer().serialize("Keyspace2", cf, byId);
+        assert byId.getLength() < byName.getLength();
+
+        DataInputBuffer bufIn = new DataInputBuffer();
+        bufIn.reset(byId.getData(), byId.getLength());
+        ColumnFamily cf2 = ColumnFamily.serializer().deserialize(bufIn);
+        assert cf2.name().equals("Super3");
+        assert cf2.isSuper();
+        assert cf2.getComparator() == DatabaseDescriptor.getComparator("Keyspace2", "Super3");
+        assert cf2.getSubComparator() == DatabaseDescriptor.getSubComparator("Keyspace2", "Super3");
+        assert cf2.toString().equals(cf.toString());
+
+        // deserializing by name uses the same comparator instances
+        bufIn.reset(byName.getData(), byName.getLength());
+        cf2 = ColumnFamily.serializer().deserialize(bufIn);
+        assert cf2.getSubComparator() == DatabaseDescriptor.getSubComparator("Keyspace2", "Super3");
+        assert cf2.toString().equals(cf.toString());
+    }
+
+    @Test
+    public void testSerializeUnknownById() throws IOException
+    {
+        // sorted differently from Keyspace1's Standard1, so its name has to be written out
+        ColumnFamily cf = new ColumnFamily("Standard1", "Standard", new LongType(), null);
+        cf.addColumn(new Column(Util.getBytes(1L), "v".getBytes(), 1));
+        DataOutputBuffer bufOut = new DataOutputBuffer();
+        ColumnFamily.serializer().serialize("Keyspace1", cf, bufOut);
+
+        DataInputBuffer bufIn = new DataInputBuffer();
+        bufIn.reset(bufOut.getData(), bufOut.getLength());
+        ColumnFamily cf2 = ColumnFamily.serializer().deserialize(bufIn);
+        assert cf2.getComparator() instanceof LongType;
+        assert cf2.toString().equals(cf.toString());
+    }
+
     @Test
     public void testManyColumns() throws IOException
     {
@@ -139,4 +188,37 @@ public class ColumnFamilyTest
         ColumnFamily cf = ColumnFamily.create("Keyspace1", "Standard1");
         assert cf.digest().length == 0;
     }
+
+    @Test
+    public void testSortedColumnsFrom()
+    {
+        ColumnFamily cf = ColumnFamily.create("Keyspace1", "Standard1");
+        cf.addColumn(column("b", "v", 1));
+        cf.addColumn(column("d", "v", 1));
+        cf.addColumn(column("f", "v", 1));
+
+        assertNames(cf.getSortedColumns(new byte[0], false), "b", "d", "f");
+        assertNames(cf.getSortedColumns(new byte[0], true), "f", "d", "b");
+        assertNames(cf.getSortedColumns("d".getBytes(), false), "d", "f");
+        assertNames(cf.getSortedColumns("d".getBytes(), true), "d", "b");
+        assertNames(cf.getSortedColumns("c".getBytes(), false), "d", "f");
+        assertNames(cf.getSortedColumns("c".getBytes(), true), "b");
+        assertNames(cf.getSortedColumns("g".getBytes(), false));
+        assertNames(cf.getSortedColumns("a".getBytes(), true));
+
+        // the view is live
+        Collection<IColumn> view = cf.getSortedColumns("c".getBytes(), false);
+        cf.addColumn(column("e", "v", 1));
+        assertNames(view, "d", "e", "f");
+    }
+
+    private static void assertNames(Collection<IColumn> columns, String... names)
+    {
+        List<String> actual = new ArrayList<String>();
+        for (IColumn column : columns)
+        {
+            actual.add(new String(column.name()));
+        }
+        assert actual.equals(Arrays.asList(names)) : actual;
+    }
 }
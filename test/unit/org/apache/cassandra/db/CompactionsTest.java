@@ -19,6 +19,7 @@
 package org.apache.cassandra.db;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.Set;
@@ -28,7 +29,9 @@ import org.junit.Test;
 
 import org.apache.cassandra.io.SSTableReader;
 import org.apache.cassandra.CleanupHelper;
+import org.apache.cassandra.db.filter.IdentityQueryFilter;
 import org.apache.cassandra.db.filter.QueryPath;
+import org.apache.commons.lang.ArrayUtils;
 import static junit.framework.Assert.assertEquals;
 
 public class CompactionsTest extends CleanupHelper
@@ -65,4 +68,92 @@ public class CompactionsTest extends CleanupHelper
         }
         assertEquals(table.getColumnFamilyStore("Standard1").getKeyRange("", "", 10000).keys.size(), inserted.size());
     }
+
+    @Test
+    public void testCompactionPriorityAndStats() throws IOException, ExecutionException, InterruptedException
+    {
+        Table table = Table.open("Keyspace1");
+        ColumnFamilyStore store = table.getColumnFamilyStore("Standard2");
+        MinorCompactionManager manager = MinorCompactionManager.instance();
+
+        for (int j = 0; j < 3; j++)
+        {
+            RowMutation rm = new RowMutation("Keyspace1", "key" + j);
+            rm.add(new QueryPath("Standard2", null, "c".getBytes()), new byte[10], j);
+            rm.apply();
+            store.forceBlockingFlush();
+        }
+        // three small sstables, all in one bucket
+        assertEquals((3L << 32) | 3, store.getCompactionPriority());
+
+        long bytesBefore = manager.getBytesCompacted();
+        assertEquals(3, manager.submit(store, 2, 32).get().intValue());
+        assert manager.getBytesCompacted() > bytesBefore;
+        assertEquals((1L << 32) | 1, store.getCompactionPriority());
+        assertEquals(0, manager.getPendingCompactions());
+    }
+
+    @Test
+    public void testMergedRows() throws IOException, ExecutionException, InterruptedException
+    {
+        Table table = Table.open("Keyspace2");
+        ColumnFamilyStore store = table.getColumnFamilyStore("Standard3");
+        String key = "merged";
+
+        // overlapping versions of one row, wide enough to need several column index blocks
+        RowMutation rm = new RowMutation("Keyspace2", key);
+        for (int i = 0; i < 300; i++)
+            rm.add(new QueryPath("Standard3", null, String.format("col%03d", i).getBytes()), "a".getBytes(), 0);
+        rm.apply();
+        store.forceBlockingFlush();
+        rm = new RowMutation("Keyspace2", key);
+        for (int i = 150; i < 450; i++)
+            rm.add(new QueryPath("Standard3", null, String.format("col%03d", i).getBytes()), new byte[100], 1);
+        rm.apply();
+        store.forceBlockingFlush();
+        rm = new RowMutation("Keyspace2", key);
+        rm.delete(new QueryPath("Standard3", null, "col005".getBytes()), 2);
+        rm.apply();
+        store.forceBlockingFlush();
+
+        rm = new RowMutation("Keyspace2", key);
+        for (int i = 0; i < 10; i++)
+            rm.add(new QueryPath("Super3", "sc1".getBytes(), String.valueOf(i).getBytes()), "a".getBytes(), 0);
+        rm.apply();
+        table.getColumnFamilyStore("Super3").forceBlockingFlush();
+        rm = new RowMutation("Keyspace2", key);
+        rm.delete(new QueryPath("Super3", "sc1".getBytes()), 1);
+        rm.add(new QueryPath("Super3", "sc1".getBytes(), "5".getBytes()), "b".getBytes(), 2);
+        rm.add(new QueryPath("Super3", "sc2".getBytes(), "0".getBytes()), "b".getBytes(), 2);
+        rm.apply();
+        table.getColumnFamilyStore("Super3").forceBlockingFlush();
+
+        // compacting must not change what a read sees
+        for (String columnFamily : new String[] { "Standard3", "Super3" })
+        {
+            ColumnFamilyStore cfs = table.getColumnFamilyStore(columnFamily);
+            IdentityQueryFilter filter = new IdentityQueryFilter(key, new QueryPath(columnFamily));
+            String before = cfs.getColumnFamily(filter).toString();
+            int sstables = cfs.getSSTables().size();
+            assertEquals(sstables, MinorCompactionManager.instance().submit(cfs, 2, 32).get().intValue());
+            assertEquals(1, cfs.getSSTables().size());
+            assertEquals(before, cfs.getColumnFamily(filter).toString());
+        }
+
+        ColumnFamily cf = store.getColumnFamily(new IdentityQueryFilter(key, new QueryPath("Standard3")));
+        assertEquals(450, cf.getColumnCount());
+        assert cf.getColumn("col005".getBytes()).isMarkedForDelete();
+        assert Arrays.equals("a".getBytes(), cf.getColumn("col149".getBytes()).value());
+        assertEquals(100, cf.getColumn("col150".getBytes()).value().length);
+        // a slice from the middle of the row goes through the merged column index
+        cf = store.getColumnFamily(key, new QueryPath("Standard3"), "col400".getBytes(), ArrayUtils.EMPTY_BYTE_ARRAY, false, 10);
+        assertEquals(10, cf.getColumnCount());
+        assert Arrays.equals("col400".getBytes(), cf.getColumnNames().first());
+
+        cf = table.getColumnFamilyStore("Super3").getColumnFamily(new IdentityQueryFilter(key, new QueryPath("Super3")));
+        IColumn sc1 = cf.getColumn("sc1".getBytes());
+        assertEquals(1, sc1.getSubColumns().size());
+        assert Arrays.equals("b".getBytes(), sc1.getSubColumn("5".getBytes()).value());
+        assertEquals(1, cf.getColumn("sc2".getBytes()).getSubColumns().size());
+    }
 }
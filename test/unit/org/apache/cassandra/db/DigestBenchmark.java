@@ -0,0 +1,68 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.db;
+
+import java.lang.management.ManagementFactory;
+
+import org.apache.cassandra.db.filter.QueryPath;
+
+/**
+ * Measures the cost of the digest that replicas return for digest reads, on rows of
+ * different widths: time and bytes allocated per row.
+ * Not a unit test; run with
+ *   java -Dstorage-config=test/conf -cp build/classes:build/test/classes:lib/* org.apache.cassandra.db.DigestBenchmark [value bytes]
+ */
+public class DigestBenchmark
+{
+    public static void main(String[] args)
+    {
+        int valueSize = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        // the first rounds warm up the JIT
+        for (int round = 0; round < 3; round++)
+        {
+            System.out.println("round " + round);
+            for (int columns : new int[]{ 10, 100, 1000, 10000 })
+            {
+                Row row = new Row("Keyspace1", "key");
+                ColumnFamily cf = ColumnFamily.create("Keyspace1", "Standard1");
+                for (int i = 0; i < columns; i++)
+                {
+                    cf.addColumn(QueryPath.column(String.format("column%06d", i).getBytes()), new byte[valueSize], i);
+                }
+                row.addColumnFamily(cf);
+
+                int rows = Math.max(10, 2000000 / columns);
+                long allocated = threads.getThreadAllocatedBytes(thread);
+                long start = System.nanoTime();
+                for (int i = 0; i < rows; i++)
+                {
+                    row.digest();
+                }
+                long nanos = System.nanoTime() - start;
+                allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+                System.out.printf("%d columns: %.1f us/row, %.0f ns/column, %d bytes allocated/row%n",
+                                  columns, nanos / 1e3 / rows, (double) nanos / rows / columns, allocated / rows);
+            }
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.db;
+
+import java.io.File;
+
+import org.apache.cassandra.db.filter.QueryPath;
+import org.apache.cassandra.io.SSTableReader;
+
+/**
+ * Measures flushes and compactions of Standard2: filling a memtable, which decorates and
+ * sorts the keys, writing it out as an sstable, and major compactions, which merge the rows
+ * of the sstables by key.  Key comparisons depend on the partitioner; point storage-config at
+ * a copy of test/conf with RandomPartitioner to measure that one.
+ * Not a unit test; run with
+ *   java -Dstorage-config=test/conf -cp build/classes:build/test/classes:lib/* org.apache.cassandra.db.FlushCompactionBenchmark [keys] [row columns]
+ */
+public class FlushCompactionBenchmark
+{
+    /* a third flush would reach the minor compaction threshold and start a compaction in the background */
+    private static final int FLUSHES = 2;
+
+    public static void main(String[] args) throws Exception
+    {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int columns = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        ColumnFamilyStore store = Table.open("Keyspace1").getColumnFamilyStore("Standard2");
+        if (store.getSSTables().size() > 1)
+            store.doMajorCompaction(0);
+
+        long timestamp = 0;
+        // the first rounds warm up the JIT
+        for (int round = 0; round < 5; round++)
+        {
+            long putNanos = 0;
+            long flushNanos = 0;
+            for (int f = 0; f < FLUSHES; f++)
+            {
+                // every flush writes the same keys, so that compaction merges them
+                Memtable memtable = new Memtable("Keyspace1", "Standard2");
+                long start = System.nanoTime();
+                for (int i = 0; i < keys; i++)
+                {
+                    ColumnFamily cf = ColumnFamily.create("Keyspace1", "Standard2");
+                    for (int j = 0; j < columns; j++)
+                    {
+                        cf.addColumn(QueryPath.column(("column" + j).getBytes()), new byte[100], timestamp);
+                    }
+                    memtable.put("key" + i, cf);
+                }
+                timestamp++;
+                putNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                memtable.flush(CommitLog.open().getContext());
+                flushNanos += System.nanoTime() - start;
+            }
+
+            long bytes = dataBytes(store);
+            long start = System.nanoTime();
+            store.doMajorCompaction(0);
+            long compactionNanos = System.nanoTime() - start;
+
+            System.out.printf("round %d: %d keys of %d columns: %.0f keys/s put, %.0f keys/s flushed, compacted %.1f MB at %.1f MB/s%n",
+                              round, keys, columns, FLUSHES * keys * 1e9 / putNanos, FLUSHES * keys * 1e9 / flushNanos,
+                              bytes / 1048576.0, bytes * 1e9 / 1048576 / compactionNanos);
+        }
+        System.exit(0);
+    }
+
+    private static long dataBytes(ColumnFamilyStore store)
+    {
+        long bytes = 0;
+        for (SSTableReader sstable : store.getSSTables())
+        {
+            bytes += new File(sstable.getFilename()).length();
+        }
+        return bytes;
+    }
+}
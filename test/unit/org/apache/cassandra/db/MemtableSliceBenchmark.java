@@ -0,0 +1,77 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.db;
+
+import java.util.Random;
+
+import org.apache.cassandra.db.filter.ColumnIterator;
+import org.apache.cassandra.db.filter.QueryPath;
+import org.apache.cassandra.db.filter.SliceQueryFilter;
+
+/**
+ * Measures slices of a few columns out of a wide row in a memtable, forward and reversed,
+ * as the memtable iterator serves them to a read.
+ * Not a unit test; run with
+ *   java -Dstorage-config=test/conf -cp build/classes:build/test/classes:lib/* org.apache.cassandra.db.MemtableSliceBenchmark [row columns] [slice columns]
+ */
+public class MemtableSliceBenchmark
+{
+    public static void main(String[] args)
+    {
+        int columns = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int sliceColumns = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        ColumnFamily cf = ColumnFamily.create("Keyspace1", "Standard1");
+        for (int i = 0; i < columns; i++)
+        {
+            cf.addColumn(QueryPath.column(name(i)), new byte[10], i);
+        }
+
+        Random random = new Random(0);
+        int slices = Math.max(100, 20000000 / columns);
+        // the first rounds warm up the JIT
+        for (int round = 0; round < 5; round++)
+        {
+            for (boolean reversed : new boolean[]{ false, true })
+            {
+                int read = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < slices; i++)
+                {
+                    SliceQueryFilter filter = new SliceQueryFilter("key", new QueryPath("Standard1"), name(random.nextInt(columns)), new byte[0], reversed, sliceColumns);
+                    ColumnIterator iter = Memtable.getSliceIterator(cf, filter, cf.getComparator());
+                    for (int j = 0; j < sliceColumns && iter.hasNext(); j++)
+                    {
+                        iter.next();
+                        read++;
+                    }
+                }
+                long nanos = System.nanoTime() - start;
+                System.out.printf("round %d: %d-column row, %s slices of %d: %.1f us per slice (%d columns read)%n",
+                                  round, columns, reversed ? "reversed" : "forward", sliceColumns, nanos / 1e3 / slices, read);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static byte[] name(int i)
+    {
+        return String.format("column%08d", i).getBytes();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.db;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.cassandra.db.filter.QueryPath;
+
+/**
+ * Measures writes to the memtable of Standard1 from several threads at once, as
+ * ColumnFamilyStore.apply does them for the write stage, without the commit log.
+ * test/conf flushes every 20 objects; point storage-config at a copy with a larger
+ * MemtableObjectCountInMillions to measure the memtable rather than the flushes.
+ * Not a unit test; run with
+ *   java -Dstorage-config=test/conf -cp build/classes:build/test/classes:lib/* org.apache.cassandra.db.MemtableWriteBenchmark [threads] [writes] [rows]
+ */
+public class MemtableWriteBenchmark
+{
+    private static final int COLUMNS = 4;
+
+    public static void main(String[] args) throws Exception
+    {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        final int writes = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        final int rows = args.length > 2 ? Integer.parseInt(args[2]) : 50000;
+
+        final ColumnFamilyStore store = Table.open("Keyspace1").getColumnFamilyStore("Standard1");
+        final CommitLog.CommitLogContext context = CommitLog.open().getContext();
+
+        // the first rounds warm up the JIT
+        for (int round = 0; round < 3; round++)
+        {
+            for (int threadCount : new int[]{ 1, threads })
+            {
+                final int threadWrites = writes / threadCount;
+                final CountDownLatch done = new CountDownLatch(threadCount);
+                long start = System.nanoTime();
+                for (int t = 0; t < threadCount; t++)
+                {
+                    final Random random = new Random(t);
+                    new Thread()
+                    {
+                        public void run()
+                        {
+                            try
+                            {
+                                for (int i = 0; i < threadWrites; i++)
+                                {
+                                    ColumnFamily cf = ColumnFamily.create("Keyspace1", "Standard1");
+                                    for (int j = 0; j < COLUMNS; j++)
+                                    {
+                                        cf.addColumn(QueryPath.column(("column" + random.nextInt(100)).getBytes()), new byte[10], i);
+                                    }
+                                    store.apply("key" + random.nextInt(rows), cf, context);
+                                }
+                            }
+                            catch (Exception e)
+                            {
+                                throw new RuntimeException(e);
+                            }
+                            finally
+                            {
+                                done.countDown();
+                            }
+                        }
+                    }.start();
+                }
+                done.await();
+                long nanos = System.nanoTime() - start;
+                System.out.printf("round %d: %d threads: %.0f writes/s over %d rows%n",
+                                  round, threadCount, threadWrites * threadCount * 1e9 / nanos, rows);
+            }
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.db;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.filter.QueryPath;
+import org.apache.cassandra.io.ICompactSerializer;
+import org.apache.cassandra.io.DataInputBuffer;
+import org.apache.cassandra.net.EndPoint;
+import org.apache.cassandra.net.IAsyncResult;
+import org.apache.cassandra.net.Message;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.service.StorageService;
+
+/**
+ * Compares reading a set of keys from a replica with one message per key, as multigets did,
+ * against one MultiReadCommand.  The replica is this node; the reads are sent to it over
+ * the loopback interface from a second endpoint in this JVM, so both requests and responses
+ * go through the sockets.
+ * Not a unit test; run with
+ *   java -Dstorage-config=<conf> -cp build/classes:build/test/classes:lib/* org.apache.cassandra.db.MultiReadBenchmark [keys] [columns]
+ * where conf, unlike test/conf, has memtable thresholds large enough to keep the rows in memory.
+ */
+public class MultiReadBenchmark
+{
+    public static void main(String[] args) throws Exception
+    {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int columns = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        StorageService.instance().start();
+        EndPoint replica = StorageService.getLocalStorageEndPoint();
+        EndPoint coordinator = new EndPoint(replica.getHost(), 17102);
+        MessagingService.getMessagingInstance().listen(coordinator);
+
+        List<ReadCommand> commands = new ArrayList<ReadCommand>();
+        for (int i = 0; i < keys; i++)
+        {
+            RowMutation rm = new RowMutation("Keyspace1", "key" + i);
+            for (int j = 0; j < columns; j++)
+            {
+                rm.add(new QueryPath("Standard1", null, ("c" + j).getBytes()), new byte[100], 0);
+            }
+            rm.apply();
+            commands.add(new SliceFromReadCommand("Keyspace1", "key" + i, new QueryPath("Standard1"), new byte[0], new byte[0], false, columns));
+        }
+
+        // the first rounds warm up the JIT
+        for (int round = 0; round < 10; round++)
+        {
+            long start = System.nanoTime();
+            List<IAsyncResult> iars = new ArrayList<IAsyncResult>();
+            for (ReadCommand command : commands)
+            {
+                iars.add(send(ReadCommand.serializer(), command, StorageService.readVerbHandler_, coordinator, replica));
+            }
+            int rows = 0;
+            for (IAsyncResult iar : iars)
+            {
+                byte[] body = iar.get(DatabaseDescriptor.getRpcTimeout(), TimeUnit.MILLISECONDS);
+                DataInputBuffer bufIn = new DataInputBuffer();
+                bufIn.reset(body, body.length);
+                if (ReadResponse.serializer().deserialize(bufIn).row() != null)
+                    rows++;
+            }
+            long perKeyNanos = System.nanoTime() - start;
+            assert rows == keys;
+
+            start = System.nanoTime();
+            IAsyncResult iar = send(MultiReadCommand.serializer(), new MultiReadCommand(commands), StorageService.multiReadVerbHandler_, coordinator, replica);
+            byte[] body = iar.get(DatabaseDescriptor.getRpcTimeout(), TimeUnit.MILLISECONDS);
+            DataInputBuffer bufIn = new DataInputBuffer();
+            bufIn.reset(body, body.length);
+            assert MultiReadResponse.serializer().deserialize(bufIn).responses.length == keys;
+            long batchedNanos = System.nanoTime() - start;
+
+            System.out.printf("round %d: %d keys of %d columns: %.2f ms with a message per key, %.2f ms in one message%n",
+                              round, keys, columns, perKeyNanos / 1e6, batchedNanos / 1e6);
+        }
+        System.exit(0);
+    }
+
+    private static <T> IAsyncResult send(ICompactSerializer<T> serializer, T command, String verb, EndPoint from, EndPoint to)
+    throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        serializer.serialize(command, new DataOutputStream(bos));
+        Message message = new Message(from, StorageService.readStage_, verb, bos.toByteArray());
+        return MessagingService.getMessagingInstance().sendRR(message, to);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.db;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.commons.lang.ArrayUtils;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static org.apache.cassandra.Util.getBytes;
+import org.apache.cassandra.CleanupHelper;
+import org.apache.cassandra.db.filter.QueryPath;
+
+public class RangeSliceTest extends CleanupHelper
+{
+    private static final byte[] EMPTY = ArrayUtils.EMPTY_BYTE_ARRAY;
+
+    @Test
+    public void testSliceAcrossMemtableAndSSTables() throws IOException, ExecutionException, InterruptedException
+    {
+        ColumnFamilyStore store = Table.open("Keyspace1").getColumnFamilyStore("Standard2");
+        // even rows are flushed, odd rows stay in the memtable
+        for (int i = 0; i < 10; i += 2)
+            insert("Standard2", "rs" + i, "c1", "c2", "c3");
+        store.forceBlockingFlush();
+        for (int i = 1; i < 10; i += 2)
+            insert("Standard2", "rs" + i, "c1", "c2", "c3");
+
+        RangeSliceReply reply = store.getRangeSlice(new RangeSliceCommand("Keyspace1", new QueryPath("Standard2"), EMPTY, EMPTY, false, 2, "rs", "rs9", 100));
+        assertEquals(keys(0, 10), keysOf(reply.rows));
+        for (Row row : reply.rows)
+        {
+            ColumnFamily cf = row.getColumnFamily("Standard2");
+            assertEquals(Arrays.asList("c1", "c2"), namesOf(cf));
+        }
+
+        reply = store.getRangeSlice(new RangeSliceCommand("Keyspace1", new QueryPath("Standard2"), EMPTY, EMPTY, true, 1, "rs3", "rs6", 100));
+        assert reply.rangeCompletedLocally;
+        assertEquals(keys(3, 7), keysOf(reply.rows));
+        assertEquals(Arrays.asList("c3"), namesOf(reply.rows.get(0).getColumnFamily("Standard2")));
+    }
+
+    @Test
+    public void testPages() throws IOException, ExecutionException, InterruptedException
+    {
+        ColumnFamilyStore store = Table.open("Keyspace1").getColumnFamilyStore("Standard2");
+        for (int i = 0; i < 10; i++)
+            insert("Standard2", "page" + i, "c1");
+
+        List<String> seen = new ArrayList<String>();
+        String start = "page";
+        while (true)
+        {
+            RangeSliceReply reply = store.getRangeSlice(new RangeSliceCommand("Keyspace1", new QueryPath("Standard2"), EMPTY, EMPTY, false, 10, start, "page9", 4));
+            assert reply.rows.size() <= 4;
+            for (Row row : reply.rows)
+            {
+                if (!row.key().equals(start))
+                    seen.add(row.key());
+            }
+            if (reply.rows.size() < 4)
+                break;
+            start = reply.rows.get(reply.rows.size() - 1).key();
+        }
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 10; i++)
+            expected.add("page" + i);
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    public void testNamesOmitsRowsWithoutMatches() throws IOException, ExecutionException, InterruptedException
+    {
+        ColumnFamilyStore store = Table.open("Keyspace1").getColumnFamilyStore("Standard2");
+        insert("Standard2", "names0", "a", "b");
+        insert("Standard2", "names1", "b");
+        insert("Standard2", "names2", "a");
+        insert("Standard2", "names3", "a");
+        RowMutation rm = new RowMutation("Keyspace1", "names3");
+        rm.delete(new QueryPath("Standard2"), 1);
+        rm.apply();
+
+        RangeSliceCommand command = new RangeSliceCommand("Keyspace1", new QueryPath("Standard2"), Arrays.asList("a".getBytes()), "names", "names9", 100);
+        RangeSliceReply reply = store.getRangeSlice(command);
+        assertEquals(Arrays.asList("names0", "names2"), keysOf(reply.rows));
+        assertEquals(Arrays.asList("a"), namesOf(reply.rows.get(0).getColumnFamily("Standard2")));
+    }
+
+    @Test
+    public void testSuperColumn() throws IOException, ExecutionException, InterruptedException
+    {
+        ColumnFamilyStore store = Table.open("Keyspace1").getColumnFamilyStore("Super2");
+        for (int i = 0; i < 3; i++)
+        {
+            RowMutation rm = new RowMutation("Keyspace1", "super" + i);
+            rm.add(new QueryPath("Super2", ("SC" + i % 2).getBytes(), getBytes(1)), "v".getBytes(), 0);
+            rm.add(new QueryPath("Super2", ("SC" + i % 2).getBytes(), getBytes(2)), "v".getBytes(), 0);
+            rm.apply();
+        }
+
+        // only the rows holding SC0 are returned, with the subcolumns of SC0
+        RangeSliceReply reply = store.getRangeSlice(new RangeSliceCommand("Keyspace1", new QueryPath("Super2", "SC0".getBytes()), EMPTY, EMPTY, false, 1, "super", "", 100));
+        assertEquals(Arrays.asList("super0", "super2"), keysOf(reply.rows));
+        for (Row row : reply.rows)
+        {
+            IColumn superColumn = row.getColumnFamily("Super2").getSortedColumns().iterator().next();
+            assertEquals(1, superColumn.getSubColumns().size());
+        }
+    }
+
+    @Test
+    public void testSerialization() throws IOException, ExecutionException, InterruptedException
+    {
+        RangeSliceCommand command = new RangeSliceCommand("Keyspace1", new QueryPath("Standard2"), Arrays.asList("b".getBytes(), "a".getBytes()), "x", "y", 7);
+        assertEquals(command.toString(), RangeSliceCommand.read(command.getMessage()).toString());
+        command = new RangeSliceCommand("Keyspace1", new QueryPath("Standard2"), getBytes(1), getBytes(9), true, 3, "", "", 100);
+        assertEquals(command.toString(), RangeSliceCommand.read(command.getMessage()).toString());
+
+        insert("Standard2", "ser0", "c1", "c2");
+        insert("Standard2", "ser1", "c1");
+        command = new RangeSliceCommand("Keyspace1", new QueryPath("Standard2"), EMPTY, EMPTY, false, 10, "ser", "ser9", 100);
+        RangeSliceReply reply = Table.open("Keyspace1").getColumnFamilyStore("Standard2").getRangeSlice(command);
+        RangeSliceReply reply2 = RangeSliceReply.read(reply.getReply(command.getMessage()).getMessageBody());
+        assertEquals(reply.rangeCompletedLocally, reply2.rangeCompletedLocally);
+        assertEquals(reply.toString(), reply2.toString());
+    }
+
+    private static void insert(String cfName, String key, String... columns) throws IOException
+    {
+        RowMutation rm = new RowMutation("Keyspace1", key);
+        for (String column : columns)
+            rm.add(new QueryPath(cfName, null, column.getBytes()), "v".getBytes(), 0);
+        rm.apply();
+    }
+
+    private static List<String> keys(int from, int to)
+    {
+        List<String> keys = new ArrayList<String>();
+        for (int i = from; i < to; i++)
+            keys.add("rs" + i);
+        return keys;
+    }
+
+    private static List<String> keysOf(List<Row> rows)
+    {
+        List<String> keys = new ArrayList<String>();
+        for (Row row : rows)
+            keys.add(row.key());
+        return keys;
+    }
+
+    private static List<String> namesOf(ColumnFamily cf)
+    {
+        List<String> names = new ArrayList<String>();
+        for (IColumn column : cf.getSortedColumns())
+            names.add(new String(column.name()));
+        return names;
+    }
+}
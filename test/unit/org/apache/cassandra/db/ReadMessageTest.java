@@ -85,4 +85,53 @@ public class ReadMessageTest
         IColumn col = cf.getColumn("Column1".getBytes());
         assert Arrays.equals(col.value(), "abcd".getBytes());  
     }
+
+    @Test
+    public void testMultiRead() throws IOException
+    {
+        Table table = Table.open("Keyspace1");
+        RowMutation rm = new RowMutation("Keyspace1", "multikey1");
+        rm.add(new QueryPath("Standard1", null, "Column1".getBytes()), "abcd".getBytes(), 0);
+        rm.apply();
+
+        ReadCommand data = new SliceFromReadCommand("Keyspace1", "multikey1", new QueryPath("Standard1"), ArrayUtils.EMPTY_BYTE_ARRAY, ArrayUtils.EMPTY_BYTE_ARRAY, false, 10);
+        ReadCommand digest = new SliceByNamesReadCommand("Keyspace1", "multikey2", new QueryPath("Standard1"), Arrays.asList("Column1".getBytes()));
+        digest.setDigestQuery(true);
+
+        DataOutputBuffer dos = new DataOutputBuffer();
+        DataInputBuffer dis = new DataInputBuffer();
+        MultiReadCommand.serializer().serialize(new MultiReadCommand(Arrays.asList(data, digest)), dos);
+        dis.reset(dos.getData(), dos.getLength());
+        MultiReadCommand multiRead = MultiReadCommand.serializer().deserialize(dis);
+        assertEquals(2, multiRead.commands.size());
+        assertEquals(data.toString(), multiRead.commands.get(0).toString());
+        assertEquals(digest.toString(), multiRead.commands.get(1).toString());
+        assert multiRead.commands.get(1).isDigestQuery();
+
+        ReadResponse[] responses = new ReadResponse[multiRead.commands.size()];
+        for (int i = 0; i < responses.length; i++)
+        {
+            ReadCommand command = multiRead.commands.get(i);
+            responses[i] = ReadResponse.forCommand(command, command.getRow(table));
+        }
+        dos.reset();
+        MultiReadResponse.serializer().serialize(new MultiReadResponse(responses), dos);
+        dis.reset(dos.getData(), dos.getLength());
+        ReadResponse[] responses2 = MultiReadResponse.serializer().deserialize(dis).responses;
+        assertEquals(2, responses2.length);
+        assert !responses2[0].isDigestQuery();
+        assert Arrays.equals(responses2[0].row().getColumnFamily("Standard1").getColumn("Column1".getBytes()).value(), "abcd".getBytes());
+        assert responses2[1].isDigestQuery();
+        assert Arrays.equals(responses2[1].digest(), responses[1].digest());
+
+        // a read the replica failed goes back empty, and the others still go back
+        responses[0] = null;
+        dos.reset();
+        MultiReadResponse.serializer().serialize(new MultiReadResponse(responses), dos);
+        dis.reset(dos.getData(), dos.getLength());
+        responses2 = MultiReadResponse.serializer().deserialize(dis).responses;
+        assertEquals(2, responses2.length);
+        assert responses2[0] == null;
+        assert Arrays.equals(responses2[1].digest(), responses[1].digest());
+    }
 }
@@ -0,0 +1,61 @@
+package org.apache.cassandra.db;
+/*
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ */
+
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+
+import org.apache.cassandra.CleanupHelper;
+import static org.apache.cassandra.Util.column;
+import static org.apache.cassandra.db.TableTest.assertColumns;
+
+public class RecoveryManager3Test extends CleanupHelper
+{
+    @Test
+    public void testManyKeys() throws IOException, ExecutionException, InterruptedException
+    {
+        Table table1 = Table.open("Keyspace1");
+
+        // enough columns that replay has to flush Memtables as it goes
+        for (String column : new String[] { "col1", "col2" })
+        {
+            for (int i = 0; i < 100; i++)
+            {
+                RowMutation rm = new RowMutation("Keyspace1", "key" + i);
+                ColumnFamily cf = ColumnFamily.create("Keyspace1", "Standard1");
+                cf.addColumn(column(column, "val" + i, 1L));
+                rm.add(cf);
+                rm.apply();
+            }
+        }
+
+        table1.getColumnFamilyStore("Standard1").clearUnsafe();
+        RecoveryManager.doRecovery();
+
+        for (int i = 0; i < 100; i++)
+        {
+            assertColumns(table1.get("key" + i, "Standard1"), "col1", "col2");
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.junit.Test;
 import static junit.framework.Assert.assertEquals;
 import org.apache.cassandra.db.filter.QueryPath;
 import org.apache.cassandra.db.marshal.AsciiType;
+import org.apache.cassandra.utils.FBUtilities;
 import static org.apache.cassandra.Util.column;
 
 public class RowTest
@@ -80,4 +81,67 @@ public class RowTest
         assert Arrays.equals(cf2.getColumn("two".getBytes()).value(), "C".getBytes());
         assert row1.getColumnFamily("Standard3") != null;
     }
+
+    @Test
+    public void testDigest()
+    {
+        Row row1 = new Row("Keyspace1", "key");
+        ColumnFamily cf1 = ColumnFamily.create("Keyspace1", "Standard1");
+        cf1.addColumn(column("one", "A", 0));
+        cf1.addColumn(column("two", "B", 0));
+        row1.addColumnFamily(cf1);
+
+        // the same data, added in another order
+        Row row2 = new Row("Keyspace1", "key");
+        ColumnFamily cf2 = ColumnFamily.create("Keyspace1", "Standard1");
+        cf2.addColumn(column("two", "B", 0));
+        cf2.addColumn(column("one", "A", 0));
+        row2.addColumnFamily(cf2);
+        assertEquals(16, row1.digest().length);
+        assert Arrays.equals(row1.digest(), row2.digest());
+
+        // values count, not just names and timestamps
+        cf2.addColumn(column("two", "C", 0));
+        assert Arrays.equals(cf2.getColumn("two".getBytes()).value(), "C".getBytes());
+        assert !Arrays.equals(row1.digest(), row2.digest());
+
+        // tombstones count, but not their local deletion times
+        cf1.addColumn(QueryPath.column("three".getBytes()), FBUtilities.toByteArray(100), 1, true);
+        cf2.addColumn(column("two", "B", 0));
+        cf2.addColumn(QueryPath.column("three".getBytes()), FBUtilities.toByteArray(200), 1, true);
+        assert Arrays.equals(row1.digest(), row2.digest());
+        cf2.delete(0, 0);
+        assert !Arrays.equals(row1.digest(), row2.digest());
+
+        Row empty = new Row("Keyspace1", "key");
+        assertEquals(0, empty.digest().length);
+        empty.addColumnFamily(ColumnFamily.create("Keyspace1", "Standard1"));
+        assertEquals(0, empty.digest().length);
+    }
+
+    @Test
+    public void testSuperColumnDigest()
+    {
+        SuperColumn sc1 = new SuperColumn("sc".getBytes(), new AsciiType());
+        sc1.addColumn(column("one", "A", 0));
+        sc1.addColumn(column("two", "B", 0));
+        ColumnFamily cf1 = ColumnFamily.create("Keyspace1", "Super1");
+        cf1.addColumn(sc1);
+
+        // the same columns, split between two super columns
+        SuperColumn sc2 = new SuperColumn("sc".getBytes(), new AsciiType());
+        sc2.addColumn(column("one", "A", 0));
+        SuperColumn sc3 = new SuperColumn("sc2".getBytes(), new AsciiType());
+        sc3.addColumn(column("two", "B", 0));
+        ColumnFamily cf2 = ColumnFamily.create("Keyspace1", "Super1");
+        cf2.addColumn(sc2);
+        cf2.addColumn(sc3);
+        assert !Arrays.equals(cf1.digest(), cf2.digest());
+
+        sc2.addColumn(column("two", "B", 0));
+        cf2.remove("sc2".getBytes());
+        assert Arrays.equals(cf1.digest(), cf2.digest());
+        sc2.markForDeleteAt(0, 0);
+        assert !Arrays.equals(cf1.digest(), cf2.digest());
+    }
 }
@@ -307,7 +307,7 @@ public class TableTest extends CleanupHelper
             cfStore.doCompaction(2, cfStore.getSSTables().size());
         }
         SSTableReader sstable = cfStore.getSSTables().iterator().next();
-        long position = sstable.getPosition(key);
+        long position = sstable.getPosition(sstable.getPartitioner().decorateKey(key));
         BufferedRandomAccessFile file = new BufferedRandomAccessFile(sstable.getFilename(), "r");
         file.seek(position);
         assert file.readUTF().equals(key);
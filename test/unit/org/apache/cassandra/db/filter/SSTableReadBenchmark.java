@@ -0,0 +1,143 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.db.filter;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.ColumnFamily;
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.io.DataOutputBuffer;
+import org.apache.cassandra.io.SSTable;
+import org.apache.cassandra.io.SSTableReader;
+import org.apache.cassandra.io.SSTableWriter;
+import org.apache.cassandra.service.StorageService;
+
+/**
+ * Measures point reads of a row that is spread over several sstables, as a read that misses
+ * the row cache does them: for each sstable, a names read of a few columns and a slice of a few
+ * columns from the start of the row.  Standard1 in test/conf caches the column indexes of rows;
+ * set its ColumnIndexesCachedInKB to 0 to compare reads that parse them every time.
+ * Not a unit test; run with
+ *   java -Dstorage-config=test/conf -cp build/classes:build/test/classes:lib/* org.apache.cassandra.db.filter.SSTableReadBenchmark [sstables] [keys] [row columns]
+ */
+public class SSTableReadBenchmark
+{
+    private static final int READ_COLUMNS = 5;
+
+    public static void main(String[] args) throws Exception
+    {
+        int sstableCount = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int keys = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int columns = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        IPartitioner partitioner = StorageService.getPartitioner();
+
+        List<SSTableReader> sstables = new ArrayList<SSTableReader>();
+        File directory = new File(DatabaseDescriptor.getDataFileLocationForTable("Keyspace1"));
+        directory.mkdirs();
+        for (int s = 0; s < sstableCount; s++)
+        {
+            String path = new File(directory, "Standard1-" + SSTable.TEMPFILE_MARKER + "-" + (1000 + s) + "-Data.db").getAbsolutePath();
+            SortedSet<String> sortedKeys = new TreeSet<String>();
+            for (int i = 0; i < keys; i++)
+            {
+                sortedKeys.add("key" + i);
+            }
+            SSTableWriter writer = new SSTableWriter(path, keys, partitioner);
+            DataOutputBuffer buffer = new DataOutputBuffer();
+            for (String key : sortedKeys)
+            {
+                ColumnFamily cf = ColumnFamily.create("Keyspace1", "Standard1");
+                for (int j = 0; j < columns; j++)
+                {
+                    cf.addColumn(QueryPath.column(name(j)), new byte[100], s);
+                }
+                buffer.reset();
+                ColumnFamily.serializer().serializeWithIndexes(cf, buffer);
+                writer.append(partitioner.decorateKey(key), buffer);
+            }
+            sstables.add(writer.closeAndOpenReader());
+        }
+        // keys are spread by the partitioner, so this order reads positions all over each file
+        SortedSet<byte[]> names = new TreeSet<byte[]>(sstables.get(0).getColumnComparator());
+        for (int j = 0; j < READ_COLUMNS; j++)
+        {
+            names.add(name(j * 3));
+        }
+
+        Random random = new Random(0);
+        // the first rounds warm up the JIT
+        for (int round = 0; round < 5; round++)
+        {
+            int read = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < keys; i++)
+            {
+                String key = "key" + random.nextInt(keys);
+                for (SSTableReader sstable : sstables)
+                {
+                    SSTableNamesIterator namesIter = new SSTableNamesIterator(sstable, key, names);
+                    while (namesIter.hasNext())
+                    {
+                        namesIter.next();
+                        read++;
+                    }
+                    namesIter.close();
+                }
+            }
+            long namesNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < keys; i++)
+            {
+                String key = "key" + random.nextInt(keys);
+                for (SSTableReader sstable : sstables)
+                {
+                    SSTableSliceIterator sliceIter = new SSTableSliceIterator(sstable, key, new byte[0], false);
+                    for (int j = 0; j < READ_COLUMNS && sliceIter.hasNext(); j++)
+                    {
+                        sliceIter.next();
+                        read++;
+                    }
+                    sliceIter.close();
+                }
+            }
+            long sliceNanos = System.nanoTime() - start;
+
+            System.out.printf("round %d: %d sstables: %.1f us per names read, %.1f us per slice (%d columns read)%n",
+                              round, sstableCount, namesNanos / 1e3 / keys, sliceNanos / 1e3 / keys, read);
+        }
+
+        for (SSTableReader sstable : sstables)
+        {
+            sstable.delete();
+        }
+        System.exit(0);
+    }
+
+    private static byte[] name(int i)
+    {
+        return String.format("column%04d", i).getBytes();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.db.marshal;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.SortedSet;
+
+import org.apache.cassandra.db.Column;
+import org.apache.cassandra.db.ColumnFamily;
+
+/**
+ * Measures insert and slice throughput of a wide row for each comparator: names are
+ * inserted in random order into a ColumnFamily, then slices of SLICE columns are read
+ * from random start names.
+ * Not a unit test; run with
+ *   java -cp build/classes:build/test/classes:lib/* org.apache.cassandra.db.marshal.ComparatorBenchmark [columns]
+ */
+public class ComparatorBenchmark
+{
+    private static final int SLICE = 100;
+    private static final byte[] VALUE = new byte[0];
+
+    public static void main(String[] args) throws UnsupportedEncodingException
+    {
+        int columns = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        Random random = new Random(0);
+
+        List<byte[]> ascii = new ArrayList<byte[]>();
+        List<byte[]> utf8 = new ArrayList<byte[]>();
+        List<byte[]> longs = new ArrayList<byte[]>();
+        List<byte[]> uuids = new ArrayList<byte[]>();
+        for (int i = 0; i < columns; i++)
+        {
+            ascii.add(("column" + random.nextInt()).getBytes("UTF-8"));
+            utf8.add(("col\u00e9\u4e2d" + random.nextInt()).getBytes("UTF-8"));
+            longs.add(ByteBuffer.allocate(8).putLong(random.nextLong()).array());
+            byte[] uuid = new byte[16];
+            random.nextBytes(uuid);
+            uuid[6] = (byte) ((uuid[6] & 0x0f) | 0x10); // version 1, so it is also a valid TimeUUID
+            uuids.add(uuid);
+        }
+
+        // the first rounds warm up the JIT
+        for (int round = 0; round < 3; round++)
+        {
+            System.out.println("round " + round);
+            run("BytesType", new BytesType(), ascii, random);
+            run("UTF8Type (ascii)", new UTF8Type(), ascii, random);
+            run("UTF8Type", new UTF8Type(), utf8, random);
+            run("LongType", new LongType(), longs, random);
+            run("LexicalUUIDType", new LexicalUUIDType(), uuids, random);
+            run("TimeUUIDType", new TimeUUIDType(), uuids, random);
+        }
+    }
+
+    private static void run(String name, AbstractType comparator, List<byte[]> names, Random random)
+    {
+        List<byte[]> shuffled = new ArrayList<byte[]>(names);
+        Collections.shuffle(shuffled, random);
+
+        long start = System.nanoTime();
+        ColumnFamily cf = new ColumnFamily("Standard1", "Standard", comparator, null);
+        for (byte[] column : shuffled)
+        {
+            cf.addColumn(new Column(column, VALUE, 0));
+        }
+        long insertNanos = System.nanoTime() - start;
+
+        SortedSet<byte[]> columnNames = cf.getColumnNames();
+        int slices = names.size() / 10;
+        start = System.nanoTime();
+        int read = 0;
+        for (int i = 0; i < slices; i++)
+        {
+            Iterator<byte[]> iter = columnNames.tailSet(shuffled.get(i)).iterator();
+            for (int j = 0; j < SLICE && iter.hasNext(); j++)
+            {
+                iter.next();
+                read++;
+            }
+        }
+        long sliceNanos = System.nanoTime() - start;
+
+        System.out.printf("%s: %.0f inserts/s, %.0f slices/s (%d columns read)%n",
+                          name, names.size() / (insertNanos / 1e9), slices / (sliceNanos / 1e9), read);
+    }
+}
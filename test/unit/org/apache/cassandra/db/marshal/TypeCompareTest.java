@@ -0,0 +1,250 @@
+package org.apache.cassandra.db.marshal;
+/*
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ */
+
+
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.apache.commons.lang.ArrayUtils;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * Checks that the byte-level comparators order random names exactly as the decoding
+ * implementations they replaced, which are kept here as the reference.
+ */
+public class TypeCompareTest
+{
+    private static final int NAMES = 500;
+
+    private final Random random = new Random(20091018);
+
+    private static final Comparator<byte[]> decodedUTF8 = new Comparator<byte[]>()
+    {
+        public int compare(byte[] o1, byte[] o2)
+        {
+            try
+            {
+                return new String(o1, "UTF-8").compareTo(new String(o2, "UTF-8"));
+            }
+            catch (UnsupportedEncodingException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
+    };
+
+    private static final Comparator<byte[]> boxedLong = new Comparator<byte[]>()
+    {
+        public int compare(byte[] o1, byte[] o2)
+        {
+            if (o1.length == 0)
+            {
+                return o2.length == 0 ? 0 : -1;
+            }
+            if (o2.length == 0)
+            {
+                return 1;
+            }
+            return Long.valueOf(ByteBuffer.wrap(o1).getLong()).compareTo(Long.valueOf(ByteBuffer.wrap(o2).getLong()));
+        }
+    };
+
+    private static UUID getUUID(byte[] bytes)
+    {
+        ByteBuffer bb = ByteBuffer.wrap(bytes);
+        return new UUID(bb.getLong(), bb.getLong());
+    }
+
+    private static final Comparator<byte[]> lexicalUUID = new Comparator<byte[]>()
+    {
+        public int compare(byte[] o1, byte[] o2)
+        {
+            if (o1.length == 0)
+            {
+                return o2.length == 0 ? 0 : -1;
+            }
+            if (o2.length == 0)
+            {
+                return 1;
+            }
+            return getUUID(o1).compareTo(getUUID(o2));
+        }
+    };
+
+    private static final Comparator<byte[]> timeUUID = new Comparator<byte[]>()
+    {
+        public int compare(byte[] o1, byte[] o2)
+        {
+            if (o1.length == 0)
+            {
+                return o2.length == 0 ? 0 : -1;
+            }
+            if (o2.length == 0)
+            {
+                return 1;
+            }
+            long t1 = getUUID(o1).timestamp();
+            long t2 = getUUID(o2).timestamp();
+            return t1 < t2 ? -1 : (t1 > t2 ? 1 : 0);
+        }
+    };
+
+    @Test
+    public void testUTF8() throws UnsupportedEncodingException
+    {
+        List<byte[]> names = new ArrayList<byte[]>();
+        names.add(ArrayUtils.EMPTY_BYTE_ARRAY);
+        for (int i = 0; i < NAMES; i++)
+        {
+            String s = randomString();
+            names.add(s.getBytes("UTF-8"));
+            // names sharing a prefix exercise the comparison past the first differing byte
+            names.add((s + randomString()).getBytes("UTF-8"));
+        }
+        for (int i = 0; i < NAMES / 10; i++)
+        {
+            // malformed sequences, which the decoder replaces with U+FFFD
+            byte[] bytes = new byte[random.nextInt(6)];
+            random.nextBytes(bytes);
+            names.add(bytes);
+            names.add(ArrayUtils.addAll("abc".getBytes("UTF-8"), bytes));
+        }
+        assertSameOrder(decodedUTF8, new UTF8Type(), names);
+    }
+
+    @Test
+    public void testUTF8SurrogateOrder() throws UnsupportedEncodingException
+    {
+        // U+FFFD sorts after U+10000 as UTF-16 (as String does), but before it as UTF-8 bytes
+        byte[] bmp = "\uFFFD".getBytes("UTF-8");
+        byte[] supplementary = new String(Character.toChars(0x10000)).getBytes("UTF-8");
+        UTF8Type comparator = new UTF8Type();
+        assert comparator.compare(bmp, supplementary) > 0;
+        assert comparator.compare(supplementary, bmp) < 0;
+    }
+
+    @Test
+    public void testLong()
+    {
+        List<byte[]> names = new ArrayList<byte[]>();
+        names.add(ArrayUtils.EMPTY_BYTE_ARRAY);
+        for (int i = 0; i < NAMES; i++)
+        {
+            long l = random.nextInt(4) == 0 ? random.nextInt(100) - 50 : random.nextLong();
+            names.add(ByteBuffer.allocate(8).putLong(l).array());
+        }
+        names.add(ByteBuffer.allocate(8).putLong(Long.MIN_VALUE).array());
+        names.add(ByteBuffer.allocate(8).putLong(Long.MAX_VALUE).array());
+        assertSameOrder(boxedLong, new LongType(), names);
+    }
+
+    @Test
+    public void testLexicalUUID()
+    {
+        List<byte[]> names = new ArrayList<byte[]>();
+        names.add(ArrayUtils.EMPTY_BYTE_ARRAY);
+        for (int i = 0; i < NAMES; i++)
+        {
+            byte[] bytes = new byte[16];
+            random.nextBytes(bytes);
+            if (i % 4 == 1)
+            {
+                // same most significant half as the previous name
+                System.arraycopy(names.get(names.size() - 1), 0, bytes, 0, 8);
+            }
+            names.add(bytes);
+        }
+        assertSameOrder(lexicalUUID, new LexicalUUIDType(), names);
+    }
+
+    @Test
+    public void testTimeUUID()
+    {
+        List<byte[]> names = new ArrayList<byte[]>();
+        names.add(ArrayUtils.EMPTY_BYTE_ARRAY);
+        for (int i = 0; i < NAMES; i++)
+        {
+            byte[] bytes = new byte[16];
+            random.nextBytes(bytes);
+            bytes[6] = (byte) ((bytes[6] & 0x0f) | 0x10); // version 1
+            names.add(bytes);
+        }
+        assertSameOrder(timeUUID, new TimeUUIDType(), names);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testTimeUUIDVersion()
+    {
+        byte[] bytes = new byte[16];
+        bytes[6] = 0x40; // version 4
+        new TimeUUIDType().compare(bytes, bytes);
+    }
+
+    private String randomString()
+    {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(8);
+        for (int i = 0; i < length; i++)
+        {
+            switch (random.nextInt(5))
+            {
+                case 0:
+                case 1:
+                    sb.append((char) ('a' + random.nextInt(4)));
+                    break;
+                case 2:
+                    sb.append((char) (0x80 + random.nextInt(0x780))); // two bytes
+                    break;
+                case 3:
+                    // three bytes, avoiding surrogates; includes U+E000 and up, which sort after surrogate pairs
+                    int c = 0x800 + random.nextInt(0x10000 - 0x800 - 0x800);
+                    sb.append((char) (c < 0xD800 ? c : c + 0x800));
+                    break;
+                default:
+                    sb.appendCodePoint(0x10000 + random.nextInt(0x100000)); // four bytes
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void assertSameOrder(Comparator<byte[]> expected, AbstractType comparator, List<byte[]> names)
+    {
+        for (byte[] n1 : names)
+        {
+            for (byte[] n2 : names)
+            {
+                assertEquals(ArrayUtils.toString(n1) + " " + ArrayUtils.toString(n2),
+                             Integer.signum(expected.compare(n1, n2)),
+                             Integer.signum(comparator.compare(n1, n2)));
+            }
+        }
+    }
+}
@@ -18,11 +18,15 @@
 */
 package org.apache.cassandra.dht;
 
+import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.io.DataOutputBuffer;
 import org.apache.cassandra.utils.FBUtilities;
 
 public abstract class PartitionerTestCase<T extends Token> {
@@ -95,4 +99,38 @@ public abstract class PartitionerTestCase<T extends Token> {
         Token.TokenFactory factory = this.part.getTokenFactory();
         assert tok("a").compareTo(factory.fromString(factory.toString(tok("a")))) == 0;
     }
+
+    @Test
+    public void testDiskFormat()
+    {
+        String key = "key";
+        DecoratedKey<T> decKey = part.decorateKey(key);
+        DecoratedKey<T> result = part.convertFromDiskFormat(part.convertToDiskFormat(decKey));
+        assert decKey.equals(result);
+        assert decKey.compareTo(result) == 0;
+        assert key.equals(result.key);
+    }
+
+    private int compareDiskFormat(String left, String right) throws IOException
+    {
+        DataOutputBuffer buffer = new DataOutputBuffer();
+        buffer.writeUTF(part.convertToDiskFormat(part.decorateKey(left)));
+        DecoratedKey<T> key = part.decorateKey(right);
+        return part.compareDiskFormat(ByteBuffer.wrap(buffer.getData(), 0, buffer.getLength()), 2, buffer.getLength() - 2,
+                                      key, part.convertToDiskFormat(key));
+    }
+
+    @Test
+    public void testCompareDiskFormat() throws IOException
+    {
+        String[] keys = new String[] { "", "a", "asdf", "asdz", "z", "zz", "\u00e9t\u00e9", "\u4e2d\u6587", "1", "10", "9" };
+        for (String left : keys)
+        {
+            for (String right : keys)
+            {
+                int expected = Integer.signum(part.decorateKey(left).compareTo(part.decorateKey(right)));
+                assert Integer.signum(compareDiskFormat(left, right)) == expected : left + " vs " + right;
+            }
+        }
+    }
 }
@@ -18,14 +18,22 @@
 */
 package org.apache.cassandra.io;
 
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Semaphore;
 
 import org.junit.Test;
 
 import org.apache.cassandra.CleanupHelper;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.dht.IPartitioner;
 import org.apache.cassandra.dht.OrderPreservingPartitioner;
+import org.apache.cassandra.dht.RandomPartitioner;
+import org.apache.cassandra.utils.BloomFilter;
 
 public class SSTableTest extends CleanupHelper
 {
@@ -34,13 +42,14 @@ public class SSTableTest extends CleanupHelper
         File f = tempSSTableFileName();
 
         // write test data
-        SSTableWriter writer = new SSTableWriter(f.getAbsolutePath(), 1, new OrderPreservingPartitioner());
+        OrderPreservingPartitioner partitioner = new OrderPreservingPartitioner();
+        SSTableWriter writer = new SSTableWriter(f.getAbsolutePath(), 1, partitioner);
         Random random = new Random();
         byte[] bytes = new byte[1024];
         random.nextBytes(bytes);
 
         String key = Integer.toString(1);
-        writer.append(key, bytes);
+        writer.append(partitioner.decorateKey(key), bytes);
         SSTableReader ssTable = writer.closeAndOpenReader();
 
         // verify
@@ -57,7 +66,7 @@ public class SSTableTest extends CleanupHelper
     private void verifySingle(SSTableReader sstable, byte[] bytes, String key) throws IOException
     {
         BufferedRandomAccessFile file = new BufferedRandomAccessFile(sstable.path, "r");
-        file.seek(sstable.getPosition(key));
+        file.seek(sstable.getPosition(sstable.getPartitioner().decorateKey(key)));
         assert key.equals(file.readUTF());
         int size = file.readInt();
         byte[] bytes2 = new byte[size];
@@ -76,10 +85,11 @@ public class SSTableTest extends CleanupHelper
         }
 
         // write
-        SSTableWriter writer = new SSTableWriter(f.getAbsolutePath(), 1000, new OrderPreservingPartitioner());
+        OrderPreservingPartitioner partitioner = new OrderPreservingPartitioner();
+        SSTableWriter writer = new SSTableWriter(f.getAbsolutePath(), 1000, partitioner);
         for (String key: map.navigableKeySet())
         {
-            writer.append(key, map.get(key));
+            writer.append(partitioner.decorateKey(key), map.get(key));
         }
         SSTableReader ssTable = writer.closeAndOpenReader();
 
@@ -89,6 +99,133 @@ public class SSTableTest extends CleanupHelper
         verifyMany(ssTable, map);
     }
 
+    @Test
+    public void testOldBloomFilterFormat() throws IOException
+    {
+        File f = tempSSTableFileName();
+
+        TreeMap<String, byte[]> map = new TreeMap<String, byte[]>();
+        for (int i = 100; i < 1000; ++i)
+        {
+            map.put(Integer.toString(i), Integer.toString(i).getBytes());
+        }
+
+        OrderPreservingPartitioner partitioner = new OrderPreservingPartitioner();
+        SSTableWriter writer = new SSTableWriter(f.getAbsolutePath(), 1000, partitioner);
+        for (String key : map.navigableKeySet())
+        {
+            writer.append(partitioner.decorateKey(key), map.get(key));
+        }
+        SSTableReader ssTable = writer.closeAndOpenReader();
+
+        // replace the filter with one in the format written before OpenBloomFilter
+        BloomFilter bf = new BloomFilter(1000, 15);
+        for (String key : map.navigableKeySet())
+        {
+            bf.add(partitioner.convertToDiskFormat(partitioner.decorateKey(key)));
+        }
+        DataOutputStream stream = new DataOutputStream(new FileOutputStream(ssTable.filterFilename()));
+        BloomFilter.serializer().serialize(bf, stream);
+        stream.close();
+
+        SSTableReader.reopenUnsafe();
+        SSTableReader reopened = SSTableReader.open(ssTable.getFilename(), partitioner);
+        verifyMany(reopened, map);
+        assert reopened.getPosition(partitioner.decorateKey("1000")) == -1;
+    }
+
+    @Test
+    public void testMappedIndex() throws IOException
+    {
+        File f = tempSSTableFileName();
+
+        // RandomPartitioner, so keys sort by token rather than by their text
+        IPartitioner partitioner = new RandomPartitioner();
+        TreeMap<DecoratedKey, byte[]> decorated = new TreeMap<DecoratedKey, byte[]>();
+        TreeMap<String, byte[]> map = new TreeMap<String, byte[]>();
+        for (int i = 100; i < 1000; ++i)
+        {
+            String key = Integer.toString(i);
+            decorated.put(partitioner.decorateKey(key), key.getBytes());
+            map.put(key, key.getBytes());
+        }
+
+        SSTableWriter writer = new SSTableWriter(f.getAbsolutePath(), 1000, partitioner);
+        for (Map.Entry<DecoratedKey, byte[]> entry : decorated.entrySet())
+        {
+            writer.append(entry.getKey(), entry.getValue());
+        }
+        SSTableReader ssTable = writer.closeAndOpenReader();
+
+        DatabaseDescriptor.IndexAccessMode mode = DatabaseDescriptor.getIndexAccessMode();
+        DatabaseDescriptor.setIndexAccessMode(DatabaseDescriptor.IndexAccessMode.mmap);
+        try
+        {
+            verifyMany(ssTable, map);
+            assert ssTable.getPosition(partitioner.decorateKey("1000")) == -1;
+            // the nearest position to the smallest key is the start of the data file
+            assert ssTable.getNearestPosition(decorated.firstKey()) == 0;
+        }
+        finally
+        {
+            DatabaseDescriptor.setIndexAccessMode(mode);
+        }
+    }
+
+    @Test
+    public void testSharedDataFiles() throws IOException
+    {
+        File f = tempSSTableFileName();
+
+        OrderPreservingPartitioner partitioner = new OrderPreservingPartitioner();
+        SSTableWriter writer = new SSTableWriter(f.getAbsolutePath(), 1, partitioner);
+        writer.append(partitioner.decorateKey("1"), "1".getBytes());
+        SSTableReader ssTable = writer.closeAndOpenReader();
+
+        // a released file is handed to the next read
+        BufferedRandomAccessFile file = ssTable.getDataFile();
+        ssTable.releaseDataFile(file);
+        assert ssTable.getDataFile() == file;
+        // while it is in use, another read gets its own
+        BufferedRandomAccessFile other = ssTable.getDataFile();
+        assert other != file;
+        ssTable.releaseDataFile(other);
+
+        // deleting the sstable closes the idle file, and the one in use when it is released
+        ssTable.delete();
+        assert !other.getFD().valid();
+        assert file.getFD().valid();
+        ssTable.releaseDataFile(file);
+        assert !file.getFD().valid();
+    }
+
+    @Test
+    public void testIdleDataFileLimit() throws IOException
+    {
+        File f = File.createTempFile("pool", ".db");
+        f.deleteOnExit();
+        Semaphore idlePermits = new Semaphore(1);
+        RandomAccessFilePool pool1 = new RandomAccessFilePool(f.getAbsolutePath(), 1024, 4, idlePermits);
+        RandomAccessFilePool pool2 = new RandomAccessFilePool(f.getAbsolutePath(), 1024, 4, idlePermits);
+
+        // the only permit goes to the first file released
+        BufferedRandomAccessFile file1 = pool1.get();
+        BufferedRandomAccessFile file2 = pool2.get();
+        pool1.release(file1);
+        pool2.release(file2);
+        assert file1.getFD().valid();
+        assert !file2.getFD().valid();
+
+        // and comes back when that file is borrowed again
+        assert pool1.get() == file1;
+        pool2.release(pool2.get());
+        pool1.release(file1);
+        assert !file1.getFD().valid();
+        pool1.close();
+        pool2.close();
+        assert idlePermits.availablePermits() == 1;
+    }
+
     private void verifyMany(SSTableReader sstable, TreeMap<String, byte[]> map) throws IOException
     {
         List<String> keys = new ArrayList<String>(map.keySet());
@@ -96,8 +233,9 @@ public class SSTableTest extends CleanupHelper
         BufferedRandomAccessFile file = new BufferedRandomAccessFile(sstable.path, "r");
         for (String key : keys)
         {
-            file.seek(sstable.getPosition(key));
-            assert key.equals(file.readUTF());
+            DecoratedKey decoratedKey = sstable.getPartitioner().decorateKey(key);
+            file.seek(sstable.getPosition(decoratedKey));
+            assert sstable.getPartitioner().convertToDiskFormat(decoratedKey).equals(file.readUTF());
             int size = file.readInt();
             byte[] bytes2 = new byte[size];
             file.readFully(bytes2);
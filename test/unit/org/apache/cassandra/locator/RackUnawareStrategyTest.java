@@ -135,4 +135,31 @@ public class RackUnawareStrategyTest
                 assertTrue(endPointsList.contains(bootstrapEndPoint));
         }
     }
+
+    @Test
+    public void testStorageEndPointsFollowTokenChanges()
+    {
+        TokenMetadata tmd = new TokenMetadata();
+        IPartitioner partitioner = new RandomPartitioner();
+        AbstractReplicationStrategy strategy = new RackUnawareStrategy(tmd, partitioner, 2, 7000);
+
+        EndPoint a = new EndPoint("127.0.0.1", 7000);
+        EndPoint b = new EndPoint("127.0.0.2", 7000);
+        EndPoint c = new EndPoint("127.0.0.3", 7000);
+        tmd.update(new BigIntegerToken("10"), a);
+        tmd.update(new BigIntegerToken("30"), b);
+        Token key = new BigIntegerToken("15");
+        assertEquals(Arrays.asList(b, a), Arrays.asList(strategy.getReadStorageEndPoints(key)));
+
+        // a new node between the key and its old primary takes over
+        tmd.update(new BigIntegerToken("20"), c);
+        assertEquals(Arrays.asList(c, b), Arrays.asList(strategy.getReadStorageEndPoints(key)));
+
+        // the returned array is the caller's own
+        strategy.getReadStorageEndPoints(key)[0] = null;
+        assertEquals(c, strategy.getReadStorageEndPoints(key)[0]);
+
+        tmd.remove(c);
+        assertEquals(Arrays.asList(b, a), Arrays.asList(strategy.getWriteStorageEndPoints(key)));
+    }
 }
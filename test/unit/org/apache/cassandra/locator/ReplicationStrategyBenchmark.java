@@ -0,0 +1,80 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.locator;
+
+import java.util.Random;
+
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.RandomPartitioner;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.net.EndPoint;
+
+/**
+ * Measures the replica lookups that StorageProxy makes for every read and write,
+ * on a ring of the given number of nodes with a replication factor of 3.
+ * Not a unit test; run with
+ *   java -Dstorage-config=test/conf -cp build/classes:build/test/classes:lib/* org.apache.cassandra.locator.ReplicationStrategyBenchmark [nodes] [lookups]
+ */
+public class ReplicationStrategyBenchmark
+{
+    public static void main(String[] args)
+    {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+
+        IPartitioner partitioner = new RandomPartitioner();
+        TokenMetadata tmd = new TokenMetadata();
+        for (int i = 0; i < nodes; i++)
+        {
+            tmd.update(partitioner.getToken("node" + i), new EndPoint("10.0." + (i / 250) + "." + (i % 250 + 1), 7000));
+        }
+        AbstractReplicationStrategy strategy = new RackUnawareStrategy(tmd, partitioner, 3, 7000);
+
+        Token[] keys = new Token[4096];
+        Random random = new Random(0);
+        for (int i = 0; i < keys.length; i++)
+        {
+            keys[i] = partitioner.getToken("key" + random.nextInt());
+        }
+
+        // the first rounds warm up the JIT
+        for (int round = 0; round < 5; round++)
+        {
+            int replicas = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < lookups; i++)
+            {
+                replicas += strategy.getReadStorageEndPoints(keys[i & (keys.length - 1)]).length;
+            }
+            long readNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < lookups; i++)
+            {
+                replicas += strategy.getWriteStorageEndPoints(keys[i & (keys.length - 1)]).length;
+            }
+            long writeNanos = System.nanoTime() - start;
+
+            assert replicas == 2 * 3 * lookups;
+            System.out.printf("round %d: %d nodes: %.0f ns per read lookup, %.0f ns per write lookup%n",
+                              round, nodes, (double) readNanos / lookups, (double) writeNanos / lookups);
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+
+public class MessageCompressorTest
+{
+    @Test
+    public void testRoundTrip() throws IOException
+    {
+        MessageCompressor compressor = new MessageCompressor();
+        byte[] bytes = new byte[10000];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = (byte) ('a' + i % 7);
+        }
+
+        ByteBuffer compressed = compressor.compress(bytes);
+        assert compressed != null;
+        assert compressed.remaining() < bytes.length / 10;
+        assertEquals(bytes.length, compressor.getUncompressedBytes());
+        assertEquals(compressed.remaining(), compressor.getCompressedBytes());
+
+        byte[] message = new byte[compressed.remaining()];
+        compressed.get(message);
+        assert Arrays.equals(bytes, compressor.decompress(message));
+        assertEquals(bytes.length, compressor.getDecompressedBytes());
+
+        // the pooled Deflater and the Inflater are reused
+        bytes[0] = 'z';
+        compressed = compressor.compress(bytes);
+        message = new byte[compressed.remaining()];
+        compressed.get(message);
+        assert Arrays.equals(bytes, compressor.decompress(message));
+    }
+
+    @Test
+    public void testIncompressible()
+    {
+        MessageCompressor compressor = new MessageCompressor();
+        byte[] bytes = new byte[2000];
+        new Random(0).nextBytes(bytes);
+        assert compressor.compress(bytes) == null;
+        // counted as sent uncompressed
+        assertEquals(bytes.length, compressor.getUncompressedBytes());
+        assertEquals(bytes.length, compressor.getCompressedBytes());
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorrupt() throws IOException
+    {
+        MessageCompressor compressor = new MessageCompressor();
+        byte[] bytes = new byte[1000];
+        ByteBuffer compressed = compressor.compress(bytes);
+        byte[] message = new byte[compressed.remaining()];
+        compressed.get(message);
+        message[message.length / 2] ^= 0x55;
+        compressor.decompress(message);
+    }
+
+    @Test
+    public void testBadLength() throws IOException
+    {
+        MessageCompressor compressor = new MessageCompressor();
+        byte[] bytes = new byte[1000];
+        ByteBuffer compressed = compressor.compress(bytes);
+        byte[] message = new byte[compressed.remaining()];
+        compressed.get(message);
+
+        // lengths no deflate stream of this size could have are refused before allocating
+        for (int length : new int[]{ -1, Integer.MAX_VALUE, message.length * 2000 })
+        {
+            assertBadLength(compressor, message, length);
+        }
+        // and so are lengths the stream does not inflate to exactly
+        assertBadLength(compressor, message, bytes.length - 1);
+        assertBadLength(compressor, message, bytes.length + 1);
+    }
+
+    private static void assertBadLength(MessageCompressor compressor, byte[] message, int length)
+    {
+        ByteBuffer.wrap(message).putInt(0, length);
+        try
+        {
+            compressor.decompress(message);
+            assert false : "decompressed with length " + length;
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.net;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.cassandra.concurrent.SingleThreadedStage;
+import org.apache.cassandra.concurrent.StageManager;
+import org.apache.cassandra.db.ReadCommand;
+import org.apache.cassandra.service.StorageService;
+
+/**
+ * Reports the serialized header size of typical messages, and the cost of turning received
+ * bytes back into a message and dispatching it to its verb handler on its stage.
+ * Not a unit test; run with
+ *   java -Dstorage-config=test/conf -cp build/classes:build/test/classes:lib/* org.apache.cassandra.net.MessageHeaderBenchmark [messages]
+ */
+public class MessageHeaderBenchmark
+{
+    private static final int BODY_SIZE = 100;
+    private static final AtomicReference<CountDownLatch> received = new AtomicReference<CountDownLatch>();
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        EndPoint from = new EndPoint("127.0.0.1", 17100);
+        byte[] body = new byte[BODY_SIZE];
+        Message mutation = new Message(from, StorageService.mutationStage_, StorageService.mutationVerbHandler_, body);
+        Message read = new Message(from, StorageService.readStage_, StorageService.readVerbHandler_, body);
+        read.addHeader(ReadCommand.DO_REPAIR, ReadCommand.DO_REPAIR.getBytes());
+        Message response = mutation.getReply(from, body);
+        for (Message message : new Message[]{ mutation, read, response })
+        {
+            System.out.printf("%s: %d header bytes for a %d byte body%n",
+                              message.getVerb(), serialize(message).length - 4 - BODY_SIZE, BODY_SIZE);
+        }
+
+        IMessagingService messaging = MessagingService.getMessagingInstance();
+        messaging.registerVerbHandlers(StorageService.mutationVerbHandler_, new IVerbHandler()
+        {
+            public void doVerb(Message message)
+            {
+                received.get().countDown();
+            }
+        });
+        StageManager.registerStage(StorageService.mutationStage_, new SingleThreadedStage(StorageService.mutationStage_));
+
+        byte[] bytes = serialize(mutation);
+        // the first rounds warm up the JIT
+        for (int round = 0; round < 4; round++)
+        {
+            long start = System.nanoTime();
+            for (int i = 0; i < messages; i++)
+            {
+                deserialize(bytes);
+            }
+            long deserializeNanos = System.nanoTime() - start;
+
+            CountDownLatch latch = new CountDownLatch(messages);
+            received.set(latch);
+            start = System.nanoTime();
+            for (int i = 0; i < messages; i++)
+            {
+                MessagingService.receive(deserialize(bytes));
+            }
+            if (!latch.await(120, TimeUnit.SECONDS))
+            {
+                System.out.println("timed out with " + latch.getCount() + " messages outstanding");
+                break;
+            }
+            long dispatchNanos = System.nanoTime() - start;
+            System.out.printf("round %d: deserialize %.0f ns/message, deserialize and dispatch %.0f ns/message%n",
+                              round, (double) deserializeNanos / messages, (double) dispatchNanos / messages);
+        }
+        System.exit(0);
+    }
+
+    private static byte[] serialize(Message message) throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        Message.serializer().serialize(message, new DataOutputStream(bos));
+        return bos.toByteArray();
+    }
+
+    private static Message deserialize(byte[] bytes) throws IOException
+    {
+        return Message.serializer().deserialize(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.net;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.utils.GuidGenerator;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+public class MessageSerializerTest
+{
+    private static final EndPoint from = new EndPoint("127.0.0.1", 7010);
+
+    private static Message roundTrip(Message message) throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        Message.serializer().serialize(message, new DataOutputStream(bos));
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        Message copy = Message.serializer().deserialize(dis);
+        assertEquals(0, dis.available());
+        return copy;
+    }
+
+    private static void assertSame(Message expected, Message actual)
+    {
+        assertEquals(expected.getMessageId(), actual.getMessageId());
+        assertEquals(expected.getFrom(), actual.getFrom());
+        assertEquals(expected.getMessageType(), actual.getMessageType());
+        assertEquals(expected.getVerb(), actual.getVerb());
+        assertEquals(expected.getMessageTypeId(), actual.getMessageTypeId());
+        assertEquals(expected.getVerbId(), actual.getVerbId());
+        assertEquals(expected.getHeaders().keySet(), actual.getHeaders().keySet());
+        for (String key : expected.getHeaders().keySet())
+        {
+            assert Arrays.equals(expected.getHeader(key), actual.getHeader(key));
+        }
+        assert Arrays.equals(expected.getMessageBody(), actual.getMessageBody());
+    }
+
+    @Test
+    public void testKnownVerb() throws IOException
+    {
+        Message message = new Message(from, StorageService.mutationStage_, StorageService.mutationVerbHandler_, new byte[]{ 1, 2, 3 });
+        assert message.getVerbId() >= 0;
+        assert message.getMessageTypeId() >= 0;
+        Message copy = roundTrip(message);
+        assertSame(message, copy);
+        // the names come from the table, not from the stream
+        assert copy.getVerb() == StorageService.mutationVerbHandler_;
+
+        Message reply = copy.getReply(from, new byte[0]);
+        assertEquals(message.getMessageId(), reply.getMessageId());
+        assertSame(reply, roundTrip(reply));
+    }
+
+    @Test
+    public void testUnknownVerbAndDetails() throws IOException
+    {
+        Message message = new Message(from, "SOME-STAGE", "SOME-VERB", new byte[10]);
+        message.addHeader("key", new byte[]{ 4, 5 });
+        message.addHeader("k\u00e9y", new byte[0]);
+        assertEquals(-1, message.getVerbId());
+        assertEquals(-1, message.getMessageTypeId());
+        assertSame(message, roundTrip(message));
+    }
+
+    @Test
+    public void testMessageIds() throws IOException
+    {
+        Message message = new Message(from, "", StorageService.readVerbHandler_, new byte[0]);
+        for (String id : new String[]{ "0", "7", "2147483647", "-2147483648", "-1", "007", "-0", "2147483648", "", "x", GuidGenerator.guid() })
+        {
+            message.setMessageId(id);
+            assertEquals(id, roundTrip(message).getMessageId());
+        }
+        assertNull(Header.parseId("1a"));
+        assertEquals(Integer.valueOf(-42), Header.parseId("-42"));
+    }
+
+    @Test
+    public void testOriginalFormat() throws IOException
+    {
+        // a header as written before the compact form
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+        dos.writeUTF("12");
+        CompactEndPointSerializationHelper.serialize(from, dos);
+        dos.writeUTF(StorageService.readStage_);
+        dos.writeUTF(StorageService.readVerbHandler_);
+        dos.writeInt(1);
+        dos.writeUTF("key");
+        dos.writeInt(1);
+        dos.write(9);
+        dos.writeInt(2);
+        dos.write(new byte[]{ 1, 2 });
+
+        Message message = Message.serializer().deserialize(new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+        assertEquals("12", message.getMessageId());
+        assertEquals(from, message.getFrom());
+        assertEquals(StorageService.readStage_, message.getMessageType());
+        assertEquals(StorageService.readVerbHandler_, message.getVerb());
+        assertEquals(Header.verbId(StorageService.readVerbHandler_), message.getVerbId());
+        assert Arrays.equals(new byte[]{ 9 }, message.getHeader("key"));
+        assert Arrays.equals(new byte[]{ 1, 2 }, message.getMessageBody());
+    }
+}
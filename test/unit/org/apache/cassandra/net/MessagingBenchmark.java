@@ -0,0 +1,95 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.net;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+
+/**
+ * Measures one-way message throughput between two endpoints listening on the loopback
+ * interface in this JVM, through the same serialization, connection pool and socket code
+ * as messages between nodes.
+ * Not a unit test; run with
+ *   java -Dstorage-config=test/conf -cp build/classes:build/test/classes:lib/* org.apache.cassandra.net.MessagingBenchmark [messages] [bytes] [none|all]
+ * where the last argument overrides InterNodeCompression.
+ */
+public class MessagingBenchmark
+{
+    private static final String VERB = "BENCHMARK";
+    private static final AtomicReference<CountDownLatch> received = new AtomicReference<CountDownLatch>();
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int bytes = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        if (args.length > 2)
+            DatabaseDescriptor.setInterNodeCompression(DatabaseDescriptor.InterNodeCompression.valueOf(args[2]));
+
+        EndPoint from = new EndPoint("127.0.0.1", 17100);
+        EndPoint to = new EndPoint("127.0.0.1", 17101);
+        SelectorManager.getSelectorManager().start();
+        IMessagingService messaging = MessagingService.getMessagingInstance();
+        messaging.listen(from);
+        messaging.listen(to);
+        messaging.registerVerbHandlers(VERB, new IVerbHandler()
+        {
+            public void doVerb(Message message)
+            {
+                received.get().countDown();
+            }
+        });
+
+        // something like column data: repetitive, but not trivially so
+        byte[] body = new byte[bytes];
+        Random random = new Random(0);
+        for (int i = 0; i < bytes; i++)
+        {
+            body[i] = (byte) ('a' + random.nextInt(16));
+        }
+        // the first rounds warm up the JIT
+        for (int round = 0; round < 4; round++)
+        {
+            CountDownLatch latch = new CountDownLatch(messages);
+            received.set(latch);
+            long start = System.nanoTime();
+            for (int i = 0; i < messages; i++)
+            {
+                messaging.sendOneWay(new Message(from, MessagingService.responseStage_, VERB, body), to);
+            }
+            if (!latch.await(120, TimeUnit.SECONDS))
+            {
+                System.out.println("timed out with " + latch.getCount() + " messages outstanding");
+                break;
+            }
+            long nanos = System.nanoTime() - start;
+            System.out.printf("round %d: %d messages of %d bytes in %.0f ms, %.0f messages/s%n",
+                              round, messages, bytes, nanos / 1e6, messages / (nanos / 1e9));
+        }
+        for (ConnectionStatistics stats : MessagingService.getPoolStatistics())
+        {
+            System.out.println(stats);
+        }
+        System.exit(0);
+    }
+}
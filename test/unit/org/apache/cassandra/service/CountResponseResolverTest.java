@@ -0,0 +1,69 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.service;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import org.apache.cassandra.db.CountReply;
+import org.apache.cassandra.net.EndPoint;
+import org.apache.cassandra.net.Message;
+import org.apache.cassandra.net.MessagingService;
+
+public class CountResponseResolverTest
+{
+    private static final EndPoint local = new EndPoint("127.0.0.1", 7010);
+    private static final EndPoint remote = new EndPoint("127.0.0.2", 7010);
+
+    /** a reply as CountVerbHandler would send it from another node */
+    private static Message serializedReply(int count)
+    {
+        byte[] body = new byte[] { (byte) (count >>> 24), (byte) (count >>> 16), (byte) (count >>> 8), (byte) count };
+        return new Message(remote, MessagingService.responseStage_, MessagingService.responseVerbHandler_, body);
+    }
+
+    @Test
+    public void testMatchingCounts()
+    {
+        CountResponseResolver resolver = new CountResponseResolver();
+        int count = resolver.resolve(Arrays.asList(Message.makeLocalResponse(local, new CountReply(5)), serializedReply(5)));
+        assertEquals(5, count);
+        assertFalse(resolver.isMismatch());
+    }
+
+    @Test
+    public void testMismatchReturnsHighestCount()
+    {
+        CountResponseResolver resolver = new CountResponseResolver();
+        int count = resolver.resolve(Arrays.asList(Message.makeLocalResponse(local, new CountReply(3)), serializedReply(7)));
+        assertEquals(7, count);
+        assertTrue(resolver.isMismatch());
+        assertEquals(remote, resolver.getHighestEndPoint());
+
+        resolver = new CountResponseResolver();
+        count = resolver.resolve(Arrays.asList(Message.makeLocalResponse(local, new CountReply(4)), serializedReply(0)));
+        assertEquals(4, count);
+        assertTrue(resolver.isMismatch());
+        assertEquals(local, resolver.getHighestEndPoint());
+    }
+}
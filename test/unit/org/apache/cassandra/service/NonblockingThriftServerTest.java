@@ -0,0 +1,125 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.service;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.TProcessor;
+import org.apache.thrift.TProcessorFactory;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TFramedTransport;
+import org.apache.thrift.transport.TSocket;
+
+import static junit.framework.Assert.assertEquals;
+
+public class NonblockingThriftServerTest
+{
+    private static final int CONNECTIONS = 50;
+
+    /** answers each request string with the same string */
+    private static class EchoProcessor implements TProcessor
+    {
+        public boolean process(TProtocol in, TProtocol out) throws TException
+        {
+            out.writeString(in.readString());
+            out.getTransport().flush();
+            return true;
+        }
+    }
+
+    @Test
+    public void testManyConnectionsFewThreads() throws Exception
+    {
+        NonblockingThriftServer.ServerSocket socket = new NonblockingThriftServer.ServerSocket(new InetSocketAddress("127.0.0.1", 0));
+        final NonblockingThriftServer server = new NonblockingThriftServer(new TProcessorFactory(new EchoProcessor()),
+                                                                           socket,
+                                                                           new TBinaryProtocol.Factory(),
+                                                                           2);
+        Thread serving = new Thread()
+        {
+            public void run()
+            {
+                server.serve();
+            }
+        };
+        serving.start();
+
+        try
+        {
+            // hold all the connections open at once, as pooling clients do
+            List<TProtocol> clients = new ArrayList<TProtocol>();
+            for (int i = 0; i < CONNECTIONS; i++)
+            {
+                TSocket client = new TSocket("127.0.0.1", socket.getLocalPort());
+                client.open();
+                clients.add(new TBinaryProtocol(new TFramedTransport(client)));
+            }
+            for (int round = 0; round < 2; round++)
+            {
+                for (int i = 0; i < CONNECTIONS; i++)
+                {
+                    clients.get(i).writeString("request " + i);
+                    clients.get(i).getTransport().flush();
+                }
+                for (int i = 0; i < CONNECTIONS; i++)
+                {
+                    assertEquals("request " + i, clients.get(i).readString());
+                }
+            }
+            assertEquals(0, server.getPendingRequests());
+
+            int workers = 0;
+            for (Thread thread : getAllThreads())
+            {
+                if (thread.getName().startsWith("THRIFT-WORKER"))
+                    workers++;
+            }
+            assertEquals(2, workers);
+
+            for (TProtocol client : clients)
+            {
+                client.getTransport().close();
+            }
+        }
+        finally
+        {
+            server.stop();
+            serving.join(30000);
+        }
+        assert !serving.isAlive();
+    }
+
+    private static Thread[] getAllThreads()
+    {
+        ThreadGroup group = Thread.currentThread().getThreadGroup();
+        while (group.getParent() != null)
+            group = group.getParent();
+        Thread[] threads = new Thread[group.activeCount() * 2];
+        int n = group.enumerate(threads);
+        Thread[] result = new Thread[n];
+        System.arraycopy(threads, 0, result, 0, n);
+        return result;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.cassandra.db.RangeCommand;
+import org.apache.cassandra.db.RangeSliceCommand;
+import org.apache.cassandra.db.ReadCommand;
+import org.apache.cassandra.db.Row;
+import org.apache.cassandra.db.RowMutation;
+import org.apache.cassandra.db.SliceFromReadCommand;
+import org.apache.cassandra.db.filter.QueryPath;
+
+/**
+ * Compares reading every row of a column family a page at a time with get_key_range followed by
+ * a read of each key in the page, against get_range_slice, which returns the page's columns with
+ * its keys.  Both read at ONE on a single node.
+ * Not a unit test; run with
+ *   java -Dstorage-config=<conf> -cp build/classes:build/test/classes:lib/* org.apache.cassandra.service.RangeSliceBenchmark [keys] [columns] [page size]
+ */
+public class RangeSliceBenchmark
+{
+    public static void main(String[] args) throws Exception
+    {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int columns = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int pageSize = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        StorageService.instance().start();
+
+        byte[] value = new byte[100];
+        for (int i = 0; i < keys; i++)
+        {
+            RowMutation rm = new RowMutation("Keyspace1", String.format("key%08d", i));
+            for (int j = 0; j < columns; j++)
+            {
+                rm.add(new QueryPath("Standard1", null, ("c" + j).getBytes()), value, 0);
+            }
+            rm.apply();
+        }
+
+        // the first rounds warm up the JIT
+        for (int round = 0; round < 4; round++)
+        {
+            long start = System.nanoTime();
+            int rows = 0;
+            String startWith = "";
+            while (true)
+            {
+                List<String> page = StorageProxy.getKeyRange(new RangeCommand("Keyspace1", "Standard1", startWith, "", pageSize));
+                List<ReadCommand> commands = new ArrayList<ReadCommand>();
+                for (String key : page)
+                {
+                    if (!key.equals(startWith))
+                        commands.add(new SliceFromReadCommand("Keyspace1", key, new QueryPath("Standard1"), new byte[0], new byte[0], false, columns));
+                }
+                rows += StorageProxy.readProtocol(commands, ConsistencyLevel.ONE).size();
+                if (page.size() < pageSize)
+                    break;
+                startWith = page.get(page.size() - 1);
+            }
+            long keyRangeNanos = System.nanoTime() - start;
+            assert rows == keys : rows;
+
+            start = System.nanoTime();
+            rows = 0;
+            startWith = "";
+            while (true)
+            {
+                List<Row> page = StorageProxy.getRangeSlice(new RangeSliceCommand("Keyspace1", new QueryPath("Standard1"), new byte[0], new byte[0], false, columns, startWith, "", pageSize));
+                for (Row row : page)
+                {
+                    if (!row.key().equals(startWith))
+                    {
+                        assert row.getColumnFamily("Standard1").getSortedColumns().size() == columns;
+                        rows++;
+                    }
+                }
+                if (page.size() < pageSize)
+                    break;
+                startWith = page.get(page.size() - 1).key();
+            }
+            long rangeSliceNanos = System.nanoTime() - start;
+            assert rows == keys : rows;
+
+            System.out.printf("round %d: %d rows of %d columns in pages of %d: get_key_range and reads %.1f us/row, get_range_slice %.1f us/row%n",
+                              round, keys, columns, pageSize, keyRangeNanos / 1e3 / keys, rangeSliceNanos / 1e3 / keys);
+        }
+        System.exit(0);
+    }
+}
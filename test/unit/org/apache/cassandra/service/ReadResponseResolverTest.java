@@ -0,0 +1,99 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import org.apache.cassandra.CleanupHelper;
+import org.apache.cassandra.db.*;
+import org.apache.cassandra.db.filter.QueryPath;
+import org.apache.cassandra.io.DataOutputBuffer;
+import org.apache.cassandra.net.EndPoint;
+import org.apache.cassandra.net.Message;
+import org.apache.cassandra.net.MessagingService;
+
+public class ReadResponseResolverTest extends CleanupHelper
+{
+    private static final EndPoint local = new EndPoint("127.0.0.1", 7010);
+    private static final EndPoint remote = new EndPoint("127.0.0.2", 7010);
+
+    private static ReadCommand command(String key)
+    {
+        return new SliceFromReadCommand("Keyspace1", key, new QueryPath("Standard1"), new byte[0], new byte[0], false, 100);
+    }
+
+    /** a response as ReadVerbHandler would send it from another node */
+    private static Message serializedResponse(ReadResponse response) throws IOException
+    {
+        DataOutputBuffer out = new DataOutputBuffer();
+        ReadResponse.serializer().serialize(response, out);
+        byte[] body = new byte[out.getLength()];
+        System.arraycopy(out.getData(), 0, body, 0, body.length);
+        return new Message(remote, MessagingService.responseStage_, MessagingService.responseVerbHandler_, body);
+    }
+
+    private static Row read(ReadCommand command) throws IOException
+    {
+        return command.getRow(Table.open(command.table));
+    }
+
+    @Test
+    public void testLocalDataWithRemoteDigest() throws IOException, DigestMismatchException
+    {
+        RowMutation rm = new RowMutation("Keyspace1", "key1");
+        rm.add(new QueryPath("Standard1", null, "c1".getBytes()), "v1".getBytes(), 0);
+        rm.apply();
+
+        ReadCommand command = command("key1");
+        ReadCommand digestCommand = command.copy();
+        digestCommand.setDigestQuery(true);
+
+        List<Message> responses = new ArrayList<Message>();
+        responses.add(Message.makeLocalResponse(local, ReadResponse.forCommand(command, read(command))));
+        responses.add(serializedResponse(ReadResponse.forCommand(digestCommand, read(digestCommand))));
+
+        ReadResponseResolver resolver = new ReadResponseResolver();
+        assert resolver.isDataPresent(responses);
+        Row row = resolver.resolve(responses);
+        assertEquals(1, row.getColumnFamily("Standard1").getSortedColumns().size());
+    }
+
+    @Test(expected=DigestMismatchException.class)
+    public void testLocalDataDigestMismatch() throws IOException, DigestMismatchException
+    {
+        RowMutation rm = new RowMutation("Keyspace1", "key2");
+        rm.add(new QueryPath("Standard1", null, "c1".getBytes()), "v1".getBytes(), 0);
+        rm.apply();
+
+        ReadCommand command = command("key2");
+        ReadResponse stale = new ReadResponse(new byte[16]);
+        stale.setIsDigestQuery(true);
+
+        List<Message> responses = new ArrayList<Message>();
+        responses.add(serializedResponse(stale));
+        responses.add(Message.makeLocalResponse(local, ReadResponse.forCommand(command, read(command))));
+
+        new ReadResponseResolver().resolve(responses);
+    }
+}
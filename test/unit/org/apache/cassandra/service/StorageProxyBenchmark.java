@@ -0,0 +1,79 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.cassandra.db.ReadCommand;
+import org.apache.cassandra.db.Row;
+import org.apache.cassandra.db.RowMutation;
+import org.apache.cassandra.db.SliceFromReadCommand;
+import org.apache.cassandra.db.filter.QueryPath;
+
+/**
+ * Measures QUORUM writes and reads through StorageProxy on a single node, where this node
+ * is the only replica of every key, so that the time is that of the coordinator and the
+ * local replica rather than of the network.  test/conf flushes every 20 columns, which
+ * would make this a benchmark of flushing; point storage-config at a copy with larger
+ * memtable thresholds and periodic commit log sync instead.
+ * Not a unit test; run with
+ *   java -Dstorage-config=<conf> -cp build/classes:build/test/classes:lib/* org.apache.cassandra.service.StorageProxyBenchmark [operations] [columns]
+ */
+public class StorageProxyBenchmark
+{
+    public static void main(String[] args) throws Exception
+    {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int columns = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        StorageService.instance().start();
+
+        byte[] value = new byte[100];
+        int keys = 1000;
+        // the first rounds warm up the JIT
+        for (int round = 0; round < 4; round++)
+        {
+            long start = System.nanoTime();
+            for (int i = 0; i < operations; i++)
+            {
+                RowMutation rm = new RowMutation("Keyspace1", "key" + (i % keys));
+                for (int j = 0; j < columns; j++)
+                {
+                    rm.add(new QueryPath("Standard1", null, ("c" + j).getBytes()), value, round);
+                }
+                StorageProxy.insertBlocking(rm, ConsistencyLevel.QUORUM);
+            }
+            long writeNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < operations; i++)
+            {
+                List<ReadCommand> commands = new ArrayList<ReadCommand>();
+                commands.add(new SliceFromReadCommand("Keyspace1", "key" + (i % keys), new QueryPath("Standard1"),
+                                                      new byte[0], new byte[0], false, columns));
+                List<Row> rows = StorageProxy.readProtocol(commands, ConsistencyLevel.QUORUM);
+                assert rows.size() == 1 && rows.get(0).getColumnFamily("Standard1").getSortedColumns().size() == columns;
+            }
+            long readNanos = System.nanoTime() - start;
+            System.out.printf("round %d: %d QUORUM writes of %d columns: %.0f us each; %d QUORUM reads: %.0f us each%n",
+                              round, operations, columns, writeNanos / 1e3 / operations, operations, readNanos / 1e3 / operations);
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.service;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import org.apache.cassandra.CleanupHelper;
+import org.apache.cassandra.db.*;
+import org.apache.cassandra.db.filter.QueryPath;
+import org.apache.cassandra.io.DataOutputBuffer;
+
+public class StorageProxyTest extends CleanupHelper
+{
+    private static ReadCommand command(String key)
+    {
+        return new SliceFromReadCommand("Keyspace1", key, new QueryPath("Standard1"), new byte[0], new byte[0], false, 100);
+    }
+
+    private static byte[] serialize(MultiReadResponse response) throws IOException
+    {
+        DataOutputBuffer out = new DataOutputBuffer();
+        MultiReadResponse.serializer().serialize(response, out);
+        return Arrays.copyOf(out.getData(), out.getLength());
+    }
+
+    @Test
+    public void testReadRowsWithFailedSlot() throws IOException
+    {
+        RowMutation rm = new RowMutation("Keyspace1", "key1");
+        rm.add(new QueryPath("Standard1", null, "Column1".getBytes()), "abcd".getBytes(), 0);
+        rm.apply();
+
+        List<ReadCommand> commands = Arrays.asList(command("key1"), command("key2"));
+        List<Integer> indexes = Arrays.asList(0, 1);
+        Table table = Table.open("Keyspace1");
+        ReadResponse response = ReadResponse.forCommand(commands.get(0), commands.get(0).getRow(table));
+
+        Row[] rows = new Row[2];
+        StorageProxy.readRows(commands, indexes, serialize(new MultiReadResponse(new ReadResponse[]{ response, response })), rows);
+        assertEquals("key1", rows[0].key());
+
+        // the replica failed to read key2
+        rows = new Row[2];
+        try
+        {
+            StorageProxy.readRows(commands, indexes, serialize(new MultiReadResponse(new ReadResponse[]{ response, null })), rows);
+            assert false : "read a row the replica failed to read";
+        }
+        catch (RuntimeException e)
+        {
+            assert e.getCause() instanceof TimeoutException;
+            assert e.getMessage().contains("key2");
+        }
+    }
+}
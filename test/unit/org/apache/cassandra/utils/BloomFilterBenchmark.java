@@ -0,0 +1,117 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.utils;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Compares BloomFilter and OpenBloomFilter as sstable key filters: isPresent throughput for keys
+ * that are and are not in the filter, and the time to load the filter file when an sstable is opened.
+ * Not a unit test; run with
+ *   java -cp build/classes:build/test/classes:lib/* org.apache.cassandra.utils.BloomFilterBenchmark [keys]
+ */
+public class BloomFilterBenchmark
+{
+    private static final int BUCKETS_PER_ELEMENT = 15; // as in SSTableWriter
+
+    public static void main(String[] args) throws IOException
+    {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        String[] present = new String[keys];
+        String[] absent = new String[keys];
+        for (int i = 0; i < keys; i++)
+        {
+            present[i] = "key" + i;
+            absent[i] = "other" + i;
+        }
+
+        BloomFilter bf = new BloomFilter(keys, BUCKETS_PER_ELEMENT);
+        OpenBloomFilter obf = new OpenBloomFilter(keys, BUCKETS_PER_ELEMENT);
+        for (String key : present)
+        {
+            bf.add(key);
+            obf.add(key);
+        }
+
+        // the first rounds warm up the JIT
+        for (int round = 0; round < 3; round++)
+        {
+            System.out.println("round " + round);
+            probe("BloomFilter", bf, present, absent);
+            probe("OpenBloomFilter", obf, present, absent);
+        }
+
+        File bfFile = File.createTempFile("bloomfilter", "-Filter.db");
+        File obfFile = File.createTempFile("openbloomfilter", "-Filter.db");
+        bfFile.deleteOnExit();
+        obfFile.deleteOnExit();
+        DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(bfFile)));
+        BloomFilter.serializer().serialize(bf, stream);
+        stream.close();
+        stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(obfFile)));
+        OpenBloomFilter.serializer().serialize(obf, stream);
+        stream.close();
+        for (int round = 0; round < 3; round++)
+        {
+            long start = System.nanoTime();
+            DataInputStream input = new DataInputStream(new FileInputStream(bfFile));
+            BloomFilter.serializer().deserialize(input);
+            input.close();
+            long bfNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            FileInputStream file = new FileInputStream(obfFile);
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            OpenBloomFilter.deserialize(buffer);
+            file.close();
+            long obfNanos = System.nanoTime() - start;
+
+            System.out.printf("filter load: BloomFilter %d bytes in %.1f ms, OpenBloomFilter %d bytes in %.1f ms%n",
+                              bfFile.length(), bfNanos / 1e6, obfFile.length(), obfNanos / 1e6);
+        }
+    }
+
+    private static void probe(String name, Filter filter, String[] present, String[] absent)
+    {
+        long start = System.nanoTime();
+        int hits = 0;
+        for (String key : present)
+        {
+            if (filter.isPresent(key))
+                hits++;
+        }
+        long presentNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int falsePositives = 0;
+        for (String key : absent)
+        {
+            if (filter.isPresent(key))
+                falsePositives++;
+        }
+        long absentNanos = System.nanoTime() - start;
+
+        assert hits == present.length;
+        System.out.printf("%s: %.0f present keys/s, %.0f absent keys/s, %d false positives%n",
+                          name, present.length / (presentNanos / 1e9), absent.length / (absentNanos / 1e9), falsePositives);
+    }
+}
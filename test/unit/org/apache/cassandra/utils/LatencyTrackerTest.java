@@ -0,0 +1,71 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.utils;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+
+public class LatencyTrackerTest
+{
+    @Test
+    public void testCountsAndPercentiles()
+    {
+        LatencyTracker tracker = new LatencyTracker();
+        assert Double.isNaN(tracker.getRecentLatencyMicros());
+        assert Double.isNaN(tracker.getPercentilesMicros()[0]);
+
+        // 1000 operations of 1..1000 microseconds
+        for (int i = 1; i <= 1000; i++)
+        {
+            tracker.addMicros(i);
+        }
+        assertEquals(1000, tracker.getOpCount());
+        assertEquals(500500, tracker.getTotalLatencyMicros());
+        assertEquals(500.5, tracker.getRecentLatencyMicros());
+
+        // each percentile is the upper bound of its bucket, at most 20% above the true value
+        double[] percentiles = tracker.getPercentilesMicros();
+        double[] expected = { 500, 950, 990, 999 };
+        for (int i = 0; i < expected.length; i++)
+        {
+            assert percentiles[i] >= expected[i] && percentiles[i] <= expected[i] * 1.2 : percentiles[i] + " for " + expected[i];
+        }
+
+        // recent values only cover what was added since the previous call
+        tracker.getRecentPercentilesMicros();
+        tracker.addNano(10 * 1000 * 1000);
+        assertEquals(10000.0, tracker.getRecentLatencyMicros());
+        double p50 = tracker.getRecentPercentilesMicros()[0];
+        assert p50 >= 10000 && p50 <= 12000 : p50;
+        assert Double.isNaN(tracker.getRecentPercentilesMicros()[0]);
+        assertEquals(1001, tracker.getOpCount());
+    }
+
+    @Test
+    public void testLargeLatencies()
+    {
+        LatencyTracker tracker = new LatencyTracker();
+        tracker.addMicros(0);
+        tracker.addMicros(Long.MAX_VALUE / 2);
+        double[] percentiles = tracker.getPercentilesMicros();
+        assertEquals(1.0, percentiles[0]);
+        assert Double.isInfinite(percentiles[3]);
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+
+public class Murmur3DigestTest
+{
+    private static String hex(byte[] bytes)
+    {
+        return FBUtilities.bytesToHex(bytes);
+    }
+
+    @Test
+    public void testKnownValues()
+    {
+        Murmur3Digest digest = new Murmur3Digest();
+        assertEquals("00000000000000000000000000000000", hex(digest.digest()));
+        // hashes of the reference implementation, h1 and h2 as little-endian longs
+        digest.update("hell".getBytes());
+        assertEquals("67f8103e69429962" + "4753ebba820bdb92", hex(digest.digest()));
+        digest.update("The quick brown fox jumps over the lazy dog".getBytes());
+        assertEquals("6c1b07bc7bbc4be3" + "47939ac4a93c437a", hex(digest.digest()));
+    }
+
+    @Test
+    public void testIncremental()
+    {
+        Random random = new Random(0);
+        Murmur3Digest digest = new Murmur3Digest();
+        for (int length = 0; length < 100; length++)
+        {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            digest.update(bytes);
+            byte[] whole = digest.digest();
+
+            // the same bytes in random pieces, some of them a byte or an int at a time
+            int offset = 0;
+            while (offset < length)
+            {
+                int n = random.nextInt(length - offset + 1);
+                if (n == 1)
+                {
+                    digest.updateByte(bytes[offset]);
+                }
+                else if (n == 4)
+                {
+                    digest.updateInt((bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16
+                                     | (bytes[offset + 2] & 0xFF) << 8 | (bytes[offset + 3] & 0xFF));
+                }
+                else
+                {
+                    digest.update(bytes, offset, n);
+                }
+                offset += n;
+            }
+            assert Arrays.equals(whole, digest.digest()) : "length " + length;
+        }
+    }
+}
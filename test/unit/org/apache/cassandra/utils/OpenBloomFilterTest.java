@@ -0,0 +1,112 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.cassandra.io.DataOutputBuffer;
+
+public class OpenBloomFilterTest
+{
+    public OpenBloomFilter bf;
+    public BloomCalculations.BloomSpecification spec = BloomCalculations.computeBucketsAndK(0.0001);
+    static final int ELEMENTS = 10000;
+
+    public OpenBloomFilterTest()
+    {
+        bf = new OpenBloomFilter(ELEMENTS, spec.bucketsPerElement);
+    }
+
+    @Before
+    public void clear()
+    {
+        bf.clear();
+    }
+
+    @Test
+    public void testOne()
+    {
+        bf.add("a");
+        assert bf.isPresent("a");
+        assert !bf.isPresent("b");
+        bf.add("b".getBytes());
+        assert bf.isPresent("b".getBytes());
+        assert !bf.isPresent("c".getBytes());
+    }
+
+    @Test
+    public void testFalsePositivesInt()
+    {
+        FilterTest.testFalsePositives(bf, FilterTest.intKeys(), FilterTest.randomKeys2());
+    }
+
+    @Test
+    public void testFalsePositivesRandom()
+    {
+        FilterTest.testFalsePositives(bf, FilterTest.randomKeys(), FilterTest.randomKeys2());
+    }
+
+    @Test
+    public void testHashMatchesEncodedMurmur() throws IOException
+    {
+        MurmurHash murmur = new MurmurHash();
+        for (String key : new String[] { "", "a", "ab", "abc", "abcd", "\u00e9t\u00e9", "\uffff\u0100\u0080" })
+        {
+            byte[] bytes = key.getBytes("UTF-16LE");
+            assert OpenBloomFilter.hash(key, 0) == murmur.hash(bytes, bytes.length, 0) : key;
+            assert OpenBloomFilter.hash(key, 42) == murmur.hash(bytes, bytes.length, 42) : key;
+        }
+    }
+
+    @Test
+    public void testSerialize() throws IOException
+    {
+        FilterTest.testSerialize(bf);
+    }
+
+    @Test
+    public void testDeserializeFromBuffer() throws IOException
+    {
+        ResetableIterator<String> keys = FilterTest.randomKeys();
+        while (keys.hasNext())
+        {
+            bf.add(keys.next());
+        }
+        DataOutputBuffer out = new DataOutputBuffer();
+        OpenBloomFilter.serializer().serialize(bf, out);
+
+        OpenBloomFilter bf2 = OpenBloomFilter.deserialize(ByteBuffer.wrap(out.getData(), 0, out.getLength()));
+        assert bf2.getHashCount() == bf.getHashCount();
+        assert bf2.emptyBuckets() == bf.emptyBuckets();
+        keys.reset();
+        while (keys.hasNext())
+        {
+            assert bf2.isPresent(keys.next());
+        }
+
+        // a BloomFilter is not mistaken for one
+        out = new DataOutputBuffer();
+        BloomFilter.serializer().serialize(new BloomFilter(ELEMENTS, spec.bucketsPerElement), out);
+        assert OpenBloomFilter.deserialize(ByteBuffer.wrap(out.getData(), 0, out.getLength())) == null;
+    }
+}
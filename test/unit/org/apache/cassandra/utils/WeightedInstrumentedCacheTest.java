@@ -0,0 +1,59 @@
+/*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.apache.cassandra.utils;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+
+public class WeightedInstrumentedCacheTest
+{
+    @Test
+    public void testEvictionByWeight()
+    {
+        WeightedInstrumentedCache<String, String> cache = new WeightedInstrumentedCache<String, String>(100);
+        cache.put("a", "a", 40);
+        cache.put("b", "b", 40);
+        assert cache.get("a") != null; // a is now more recently used than b
+        cache.put("c", "c", 40);
+        assert cache.get("b") == null;
+        assert cache.get("a") != null;
+        assert cache.get("c") != null;
+        assertEquals(80, cache.getWeight());
+        assertEquals(3, cache.getHits());
+        assertEquals(4, cache.getRequests());
+
+        // replacing a value replaces its weight
+        cache.put("a", "a", 10);
+        assertEquals(50, cache.getWeight());
+
+        // a value heavier than the capacity is not cached, and evicts nothing
+        cache.put("d", "d", 101);
+        assert cache.get("d") == null;
+        assertEquals(2, cache.getSize());
+
+        cache.setCapacity(20);
+        assertEquals(1, cache.getSize());
+        assert cache.get("a") != null;
+
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getWeight());
+    }
+}